@@ -3,13 +3,20 @@
 -- =============================================
 
 -- Sequences
-CREATE SEQUENCE seq_users START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE seq_business_profiles START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE seq_payment_methods START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE seq_transactions START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE seq_payment_requests START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE seq_invoices START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE seq_loans START WITH 1 INCREMENT BY 1 NOCACHE;
+-- The application reserves IDs in blocks (see IdAllocator): one NEXTVAL hands it
+-- INCREMENT BY ids, which it inserts explicitly so the triggers below skip NEXTVAL.
+-- Rows inserted without an id (scripts, sp_transfer_money) still get one from the
+-- trigger and use up a whole block. To convert an existing schema:
+--   ALTER SEQUENCE seq_transactions INCREMENT BY 100 CACHE 20;  (and likewise)
+CREATE SEQUENCE seq_users START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_business_profiles START WITH 1 INCREMENT BY 1 CACHE 20;
+CREATE SEQUENCE seq_payment_methods START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_transactions START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_payment_requests START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_invoices START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_loans START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_balance_holds START WITH 1 INCREMENT BY 100 CACHE 20;
+CREATE SEQUENCE seq_scheduled_transfers START WITH 1 INCREMENT BY 100 CACHE 20;
 
 -- =============================================
 -- 1. USERS TABLE
@@ -39,6 +46,13 @@ END;
 CREATE TABLE wallets (
     user_id     NUMBER PRIMARY KEY,
     balance     NUMBER(15,2) DEFAULT 0.00,
+    -- Bumped by every balance update; read-modify-write callers compare-and-set on it
+    -- (existing schemas: ALTER TABLE wallets ADD (version NUMBER(19) DEFAULT 0 NOT NULL);)
+    version     NUMBER(19) DEFAULT 0 NOT NULL,
+    -- Totals of pending balance_holds, kept here so available = balance - held costs one read
+    -- (existing schemas: ALTER TABLE wallets ADD (held NUMBER(15,2) DEFAULT 0 NOT NULL, pending NUMBER(15,2) DEFAULT 0 NOT NULL);)
+    held        NUMBER(15,2) DEFAULT 0 NOT NULL,
+    pending     NUMBER(15,2) DEFAULT 0 NOT NULL,
     CONSTRAINT fk_wallet_user FOREIGN KEY (user_id)
         REFERENCES users(user_id) ON DELETE CASCADE
 );
@@ -97,6 +111,9 @@ CREATE TABLE transactions (
     transaction_type    VARCHAR2(50) NOT NULL,
     status              VARCHAR2(50) NOT NULL,
     txn_timestamp       TIMESTAMP DEFAULT SYSTIMESTAMP,
+    -- Running balances of both parties right after this row (NULL until backfilled)
+    sender_balance_after    NUMBER(15,2),
+    receiver_balance_after  NUMBER(15,2),
     CONSTRAINT fk_trans_sender FOREIGN KEY (sender_id)
         REFERENCES users(user_id) ON DELETE SET NULL,
     CONSTRAINT fk_trans_receiver FOREIGN KEY (receiver_id)
@@ -183,17 +200,194 @@ BEGIN
 END;
 /
 
+-- =============================================
+-- 9. LEDGER_CHECKPOINT TABLE
+-- Last write-ahead journal sequence persisted by the in-memory ledger
+-- =============================================
+CREATE TABLE ledger_checkpoint (
+    checkpoint_id   NUMBER PRIMARY KEY,
+    last_seq        NUMBER(19) DEFAULT 0 NOT NULL
+);
+
+INSERT INTO ledger_checkpoint (checkpoint_id, last_seq) VALUES (1, 0);
+
+-- =============================================
+-- 10. WALLET_SHARDS TABLE
+-- Extra credit rows for hot receivers; balance = wallets row + all shards
+-- =============================================
+CREATE TABLE wallet_shards (
+    user_id     NUMBER NOT NULL,
+    shard_no    NUMBER(3) NOT NULL,
+    balance     NUMBER(15,2) DEFAULT 0.00,
+    CONSTRAINT pk_wallet_shards PRIMARY KEY (user_id, shard_no),
+    CONSTRAINT fk_shard_wallet FOREIGN KEY (user_id)
+        REFERENCES wallets(user_id) ON DELETE CASCADE
+);
+
+-- =============================================
+-- 11. IDEMPOTENCY_KEYS TABLE
+-- One row per client retry key ("<user_id>:<key>"), inserted in the same
+-- transaction as the movement it guards; expired rows are purged
+-- =============================================
+CREATE TABLE idempotency_keys (
+    idem_key        VARCHAR2(120) PRIMARY KEY,
+    user_id         NUMBER NOT NULL,
+    operation       VARCHAR2(20) NOT NULL,
+    status          VARCHAR2(20) DEFAULT 'SUCCESS' NOT NULL,
+    created_at      TIMESTAMP DEFAULT SYSTIMESTAMP
+);
+
+-- =============================================
+-- 12. TRANSACTION ROLLUPS
+-- Per user, period, type and direction (IN = credited, OUT = debited);
+-- refreshed from transactions up to rollup_watermark.last_txn_id
+-- =============================================
+CREATE TABLE txn_rollup_daily (
+    user_id             NUMBER NOT NULL,
+    period_start        DATE NOT NULL,
+    transaction_type    VARCHAR2(50) NOT NULL,
+    direction           VARCHAR2(3) NOT NULL,
+    txn_count           NUMBER DEFAULT 0 NOT NULL,
+    total_amount        NUMBER(17,2) DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_rollup_daily PRIMARY KEY (user_id, period_start, transaction_type, direction),
+    CONSTRAINT fk_rollup_daily_user FOREIGN KEY (user_id)
+        REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE TABLE txn_rollup_monthly (
+    user_id             NUMBER NOT NULL,
+    period_start        DATE NOT NULL,
+    transaction_type    VARCHAR2(50) NOT NULL,
+    direction           VARCHAR2(3) NOT NULL,
+    txn_count           NUMBER DEFAULT 0 NOT NULL,
+    total_amount        NUMBER(17,2) DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_rollup_monthly PRIMARY KEY (user_id, period_start, transaction_type, direction),
+    CONSTRAINT fk_rollup_monthly_user FOREIGN KEY (user_id)
+        REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE TABLE rollup_watermark (
+    rollup_id       NUMBER PRIMARY KEY,
+    last_txn_id     NUMBER DEFAULT 0 NOT NULL
+);
+
+INSERT INTO rollup_watermark (rollup_id, last_txn_id) VALUES (1, 0);
+
+-- =============================================
+-- 13. TRANSACTION_ARCHIVE TABLE
+-- Months moved from transactions to archive files (oldest months first)
+-- =============================================
+CREATE TABLE transaction_archive (
+    archive_month   DATE PRIMARY KEY,
+    file_name       VARCHAR2(255) NOT NULL,
+    row_count       NUMBER NOT NULL,
+    max_txn_id      NUMBER NOT NULL,
+    archived_at     TIMESTAMP DEFAULT SYSTIMESTAMP
+);
+
+-- Net movement (credits minus debits) per user of each archived month, recorded
+-- with the catalog row; balance derivations add these to the hot rows after the
+-- last archived month
+CREATE TABLE archived_balances (
+    archive_month   DATE NOT NULL,
+    user_id         NUMBER NOT NULL,
+    net_amount      NUMBER(17,2) NOT NULL,
+    CONSTRAINT pk_archived_balances PRIMARY KEY (user_id, archive_month),
+    CONSTRAINT fk_archived_bal_month FOREIGN KEY (archive_month)
+        REFERENCES transaction_archive(archive_month),
+    CONSTRAINT fk_archived_bal_user FOREIGN KEY (user_id)
+        REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+-- =============================================
+-- 14. BALANCE_HOLDS TABLE
+-- DEBIT holds reserve funds, CREDIT holds mark incoming funds as pending, until the
+-- payment network settles or releases them (see HoldService)
+-- =============================================
+CREATE TABLE balance_holds (
+    hold_id         NUMBER PRIMARY KEY,
+    user_id         NUMBER NOT NULL,
+    hold_type       VARCHAR2(10) NOT NULL,
+    amount          NUMBER(15,2) NOT NULL,
+    status          VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+    reference       VARCHAR2(100),
+    expires_at      TIMESTAMP NOT NULL,
+    on_expiry       VARCHAR2(10) NOT NULL,
+    created_at      TIMESTAMP DEFAULT SYSTIMESTAMP,
+    resolved_at     TIMESTAMP,
+    CONSTRAINT chk_hold_type CHECK (hold_type IN ('DEBIT', 'CREDIT')),
+    CONSTRAINT chk_hold_status CHECK (status IN ('PENDING', 'SETTLED', 'RELEASED')),
+    CONSTRAINT chk_hold_expiry CHECK (on_expiry IN ('SETTLE', 'RELEASE')),
+    CONSTRAINT fk_hold_user FOREIGN KEY (user_id)
+        REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE OR REPLACE TRIGGER trg_hold_id
+BEFORE INSERT ON balance_holds FOR EACH ROW
+BEGIN
+    IF :NEW.hold_id IS NULL THEN
+        SELECT seq_balance_holds.NEXTVAL INTO :NEW.hold_id FROM DUAL;
+    END IF;
+END;
+/
+
+-- =============================================
+-- 15. SCHEDULED_TRANSFERS TABLE
+-- Standing orders; run n is due at start_at plus n times the frequency, and
+-- next_run_at caches the due time of run run_number (see TransferScheduler)
+-- =============================================
+CREATE TABLE scheduled_transfers (
+    schedule_id     NUMBER PRIMARY KEY,
+    sender_id       NUMBER NOT NULL,
+    receiver_id     NUMBER NOT NULL,
+    amount          NUMBER(15,2) NOT NULL,
+    frequency       VARCHAR2(10) NOT NULL,
+    start_at        TIMESTAMP NOT NULL,
+    next_run_at     TIMESTAMP NOT NULL,
+    run_number      NUMBER DEFAULT 0 NOT NULL,
+    max_runs        NUMBER DEFAULT 0 NOT NULL,
+    status          VARCHAR2(20) DEFAULT 'ACTIVE' NOT NULL,
+    last_status     VARCHAR2(20),
+    last_run_at     TIMESTAMP,
+    created_at      TIMESTAMP DEFAULT SYSTIMESTAMP,
+    CONSTRAINT chk_sched_amount CHECK (amount > 0),
+    CONSTRAINT chk_sched_frequency CHECK (frequency IN ('ONCE', 'DAILY', 'WEEKLY', 'MONTHLY')),
+    CONSTRAINT chk_sched_status CHECK (status IN ('ACTIVE', 'COMPLETED', 'CANCELLED')),
+    CONSTRAINT fk_sched_sender FOREIGN KEY (sender_id)
+        REFERENCES users(user_id) ON DELETE CASCADE,
+    CONSTRAINT fk_sched_receiver FOREIGN KEY (receiver_id)
+        REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE OR REPLACE TRIGGER trg_schedule_id
+BEFORE INSERT ON scheduled_transfers FOR EACH ROW
+BEGIN
+    IF :NEW.schedule_id IS NULL THEN
+        SELECT seq_scheduled_transfers.NEXTVAL INTO :NEW.schedule_id FROM DUAL;
+    END IF;
+END;
+/
+
 -- =============================================
 -- INDEXES
 -- =============================================
 CREATE INDEX idx_users_role ON users(role);
-CREATE INDEX idx_trans_sender ON transactions(sender_id);
-CREATE INDEX idx_trans_receiver ON transactions(receiver_id);
+-- Composite so point-in-time balance lookups stop at the first row (see WalletDAO.getBalanceAt)
+CREATE INDEX idx_trans_sender ON transactions(sender_id, txn_timestamp, transaction_id);
+CREATE INDEX idx_trans_receiver ON transactions(receiver_id, txn_timestamp, transaction_id);
 CREATE INDEX idx_trans_timestamp ON transactions(txn_timestamp);
 CREATE INDEX idx_invoice_business ON invoices(business_id);
 CREATE INDEX idx_invoice_status ON invoices(status);
 CREATE INDEX idx_loan_user ON loans(user_id);
 CREATE INDEX idx_loan_status ON loans(status);
+CREATE INDEX idx_idem_created ON idempotency_keys(created_at);
+-- Only pending holds have a key, so the sweeper's index stays as small as the backlog
+CREATE INDEX idx_hold_due ON balance_holds(CASE WHEN status = 'PENDING' THEN expires_at END);
+CREATE INDEX idx_hold_user ON balance_holds(user_id);
+-- Only active orders have a key: the scheduler reads the next few minutes of runs, not the table
+CREATE INDEX idx_sched_due ON scheduled_transfers(CASE WHEN status = 'ACTIVE' THEN next_run_at END);
+CREATE INDEX idx_sched_sender ON scheduled_transfers(sender_id);
+CREATE INDEX idx_sched_receiver ON scheduled_transfers(receiver_id);
 
 -- =============================================
 -- TRIGGER: Auto-create wallet on user registration
@@ -215,21 +409,40 @@ CREATE OR REPLACE PROCEDURE sp_transfer_money (
 )
 AS
     v_sender_balance NUMBER(15,2);
+    v_sharded        NUMBER(15,2) := 0;
+    v_rows           NUMBER;
 BEGIN
     IF p_amount <= 0 THEN
         RAISE_APPLICATION_ERROR(-20001, 'Transfer amount must be greater than zero.');
     END IF;
 
-    SELECT balance INTO v_sender_balance
-    FROM wallets WHERE user_id = p_sender_id FOR UPDATE;
+    UPDATE wallets SET balance = balance - p_amount, version = version + 1
+    WHERE user_id = p_sender_id AND balance - held >= p_amount;
+    v_rows := SQL%ROWCOUNT;
+
+    -- Money parked in shards of a sharded wallet is folded back before giving up
+    -- (same locking as WalletShards.consolidate)
+    IF v_rows = 0 THEN
+        FOR s IN (SELECT balance FROM wallet_shards WHERE user_id = p_sender_id FOR UPDATE) LOOP
+            v_sharded := v_sharded + s.balance;
+        END LOOP;
+        IF v_sharded > 0 THEN
+            UPDATE wallet_shards SET balance = 0 WHERE user_id = p_sender_id;
+            UPDATE wallets SET balance = balance + v_sharded, version = version + 1 WHERE user_id = p_sender_id;
+            UPDATE wallets SET balance = balance - p_amount, version = version + 1
+            WHERE user_id = p_sender_id AND balance - held >= p_amount;
+            v_rows := SQL%ROWCOUNT;
+        END IF;
+    END IF;
 
-    IF v_sender_balance < p_amount THEN
+    IF v_rows = 0 THEN
+        SELECT balance - held INTO v_sender_balance
+        FROM wallets WHERE user_id = p_sender_id;
         RAISE_APPLICATION_ERROR(-20002,
             'Insufficient funds. Available: ' || v_sender_balance);
     END IF;
 
-    UPDATE wallets SET balance = balance - p_amount WHERE user_id = p_sender_id;
-    UPDATE wallets SET balance = balance + p_amount WHERE user_id = p_receiver_id;
+    UPDATE wallets SET balance = balance + p_amount, version = version + 1 WHERE user_id = p_receiver_id;
 
     INSERT INTO transactions (sender_id, receiver_id, amount, transaction_type, status)
     VALUES (p_sender_id, p_receiver_id, p_amount, 'TRANSFER', 'SUCCESS');
@@ -255,8 +468,9 @@ RETURN NUMBER
 AS
     v_balance NUMBER(15,2);
 BEGIN
-    SELECT balance INTO v_balance
-    FROM wallets WHERE user_id = p_user_id;
+    SELECT w.balance + NVL((SELECT SUM(s.balance) FROM wallet_shards s WHERE s.user_id = w.user_id), 0)
+    INTO v_balance
+    FROM wallets w WHERE w.user_id = p_user_id;
     RETURN v_balance;
 EXCEPTION
     WHEN NO_DATA_FOUND THEN
@@ -50,10 +50,14 @@
 
 package com.revpay;
 
+import com.revpay.config.AppConfig;
 import com.revpay.dao.InvoiceDAO;
 import com.revpay.dao.LoanDAO;
 import com.revpay.dao.PaymentMethodDAO;
 import com.revpay.dao.RequestDAO;
+import com.revpay.metrics.PrometheusExporter;
+import com.revpay.service.IdempotencyCleanupJob;
+import com.revpay.service.RollupRefreshJob;
 import com.revpay.model.*;
 import com.revpay.service.*;
 import com.revpay.util.SecurityUtil;
@@ -61,17 +65,24 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Flow;
 
 public class Main {
 
     // Initialize Log4j Logger
     private static final Logger logger = LogManager.getLogger(Main.class);
 
+    // Transactions shown per history page
+    private static final int HISTORY_PAGE = 20;
+
     // --- SERVICES & DAO'S ---
     private static UserService userService = new UserService();
     private static TransactionService transactionService = new TransactionService();
+    private static HoldService holdService = new HoldService();
     private static LoanDAO loanDAO = new LoanDAO();
     private static RequestDAO requestDAO = new RequestDAO();
     private static PaymentMethodDAO paymentMethodDAO = new PaymentMethodDAO();
@@ -82,6 +93,16 @@ public class Main {
 
     public static void main(String[] args) {
         logger.info("  RevPay Application Started");
+
+        // Optional Prometheus scrape endpoint (-Drevpay.metrics.port=9404)
+        int metricsPort = AppConfig.getInt("revpay.metrics.port", -1);
+        if (metricsPort > 0) {
+            PrometheusExporter.start(metricsPort);
+        }
+        IdempotencyCleanupJob.start();
+        RollupRefreshJob.start();
+        HoldSweepJob.start();
+        TransferSchedulerJob.start();
         System.out.println("\n=========================================");
         System.out.println("       Welcome to RevPay application     ");
         System.out.println("=========================================");
@@ -105,6 +126,11 @@ public class Main {
                     case "3":
                         logger.info(" Application Stopped by User");
                         System.out.println("Goodbye! Thank you for using RevPay.");
+                        PrometheusExporter.stop();
+                        IdempotencyCleanupJob.stop();
+                        RollupRefreshJob.stop();
+                        HoldSweepJob.stop();
+                        TransferSchedulerJob.stop();
                         return; // Exit the app
                     default:
                         System.out.println(" Invalid option. Please try again.");
@@ -169,6 +195,7 @@ public class Main {
             System.out.println("5. Pending Requests & Invoices");
             System.out.println("6. Manage Cards");
             System.out.println("7. Transaction History");
+            System.out.println("S. Standing Orders (Scheduled Transfers)");
 
             if (currentUser.getRole() == Role.BUSINESS) {
                 System.out.println("--- Business Services ---");
@@ -218,6 +245,10 @@ public class Main {
             case "7":
                 handleViewHistory();
                 break;
+            case "S":
+            case "s":
+                handleStandingOrders();
+                break;
 
             // Business vs Personal Routing
             case "8":
@@ -257,6 +288,13 @@ public class Main {
 
     private static void checkBalance() {
         System.out.println("\n💰 Balance: ₹" + userService.getBalance(currentUser.getUserId()));
+        Wallet wallet = userService.getWallet(currentUser.getUserId());
+        if (wallet != null && wallet.getHeld().signum() != 0) {
+            System.out.println("   Available: ₹" + wallet.getAvailableBalance());
+        }
+        if (wallet != null && wallet.getPending().signum() != 0) {
+            System.out.println("   Pending deposits: ₹" + wallet.getPending());
+        }
     }
 
     private static void handleAddMoney() {
@@ -281,13 +319,18 @@ public class Main {
             }
 
             System.out.print("Enter Amount: ");
-            BigDecimal amount = new BigDecimal(scanner.nextLine());
+            Money amount = Money.parse(scanner.nextLine());
 
-            System.out.println("Charging card ending in " + cards.get(idx).getCardNumber().substring(12) + "...");
-            if (transactionService.processDeposit(currentUser.getUserId(), amount)) {
+            String lastFour = cards.get(idx).getCardNumber().substring(12);
+            System.out.println("Charging card ending in " + lastFour + "...");
+            // Unless the card settles at once, the deposit is shown as pending until it does
+            BalanceHold hold = holdService.authorizeCardDeposit(currentUser.getUserId(), amount, "card-" + lastFour);
+            if (hold == null) {
+                System.out.println(" Deposit Failed.");
+            } else if (hold.getStatus() == BalanceHold.Status.SETTLED) {
                 System.out.println(" Deposit Successful!");
             } else {
-                System.out.println(" Deposit Failed.");
+                System.out.println(" Deposit Successful! Funds are pending until the card payment settles.");
             }
         } catch (Exception e) {
             System.out.println(" Invalid input.");
@@ -300,7 +343,7 @@ public class Main {
         String email = scanner.nextLine();
         System.out.print("Amount: ");
         try {
-            BigDecimal amount = new BigDecimal(scanner.nextLine());
+            Money amount = Money.parse(scanner.nextLine());
             if (transactionService.processTransfer(currentUser.getUserId(), email, amount)) {
                 System.out.println(" Sent Successfully!");
             } else {
@@ -311,6 +354,67 @@ public class Main {
         }
     }
 
+    private static void handleScheduleTransfer() {
+        System.out.print("To Email: ");
+        String email = scanner.nextLine();
+        try {
+            System.out.print("Amount: ");
+            Money amount = Money.parse(scanner.nextLine());
+            System.out.print("First Payment Date (YYYY-MM-DD): ");
+            Timestamp startAt = Timestamp.valueOf(LocalDate.parse(scanner.nextLine().trim()).atStartOfDay());
+            System.out.print("Repeat (ONCE/DAILY/WEEKLY/MONTHLY): ");
+            ScheduledTransfer.Frequency frequency =
+                    ScheduledTransfer.Frequency.valueOf(scanner.nextLine().trim().toUpperCase());
+            int maxRuns = 1;
+            if (frequency != ScheduledTransfer.Frequency.ONCE) {
+                System.out.print("Number of Payments (0 = until cancelled): ");
+                maxRuns = Integer.parseInt(scanner.nextLine().trim());
+            }
+
+            int scheduleId = transactionService.scheduleTransfer(currentUser.getUserId(), email, amount,
+                    frequency, startAt, maxRuns);
+            if (scheduleId != -1) {
+                System.out.println(" Scheduled! Standing order #" + scheduleId);
+            } else {
+                System.out.println(" Scheduling Failed.");
+            }
+        } catch (Exception e) {
+            System.out.println(" Invalid input.");
+        }
+    }
+
+    private static void handleStandingOrders() {
+        System.out.println("\n--- 🗓 STANDING ORDERS ---");
+        System.out.println("1. Schedule a Transfer");
+        System.out.println("2. View & Cancel");
+        System.out.print("Choice: ");
+        if ("1".equals(scanner.nextLine())) {
+            handleScheduleTransfer();
+            return;
+        }
+
+        List<ScheduledTransfer> orders = transactionService.getScheduledTransfers(currentUser.getUserId());
+        if (orders.isEmpty()) {
+            System.out.println("No standing orders.");
+            return;
+        }
+        orders.forEach(System.out::println);
+        System.out.print("Enter Schedule ID to cancel (or 0 to Back): ");
+        try {
+            int scheduleId = Integer.parseInt(scanner.nextLine().trim());
+            if (scheduleId == 0) {
+                return;
+            }
+            if (transactionService.cancelScheduledTransfer(currentUser.getUserId(), scheduleId)) {
+                System.out.println(" Standing order cancelled.");
+            } else {
+                System.out.println(" No active standing order with that ID.");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println(" Invalid ID.");
+        }
+    }
+
     private static void handleRequestMoney() {
         System.out.println("\n---  REQUEST MONEY ---");
         System.out.print("Ask Email: ");
@@ -355,7 +459,7 @@ public class Main {
             for (Invoice i : invoices)
                 System.out.println("  INV#" + i.getInvoiceId() + " | " + i.getDescription() + " | ₹" + i.getAmount());
 
-        System.out.println("\nTo Pay: Type 'P R [ID]' (Request) or 'P I [ID]' (Invoice). Type '0' to Back.");
+        System.out.println("\nTo Pay: Type 'P R [ID]' (Request) or 'P I [ID]' (Invoice). 'V I [ID]' shows an invoice's full description. Type '0' to Back.");
         System.out.print("> ");
         String input = scanner.nextLine().toUpperCase();
 
@@ -363,18 +467,27 @@ public class Main {
             if (input.startsWith("P R ")) {
                 int id = Integer.parseInt(input.substring(4));
                 PaymentRequest r = requestDAO.getRequestById(id);
+                // Keyed by request, so paying the same request twice cannot charge twice
                 if (r != null && transactionService.processTransfer(currentUser.getUserId(), r.getRequesterId(),
-                        r.getAmount())) {
+                        r.getAmount(), "request-" + id)) {
                     requestDAO.updateStatus(id, "ACCEPTED");
                     System.out.println(" Request Paid!");
                 } else
                     System.out.println(" Payment Failed.");
 
+            } else if (input.startsWith("V I ")) {
+                int id = Integer.parseInt(input.substring(4));
+                // Only invoices addressed to this customer
+                if (invoices.stream().anyMatch(i -> i.getInvoiceId() == id))
+                    System.out.println("  INV#" + id + ": " + invoiceDAO.getDescription(id));
+                else
+                    System.out.println(" Invoice not found.");
+
             } else if (input.startsWith("P I ")) {
                 int id = Integer.parseInt(input.substring(4));
                 Invoice inv = invoiceDAO.getInvoiceById(id);
                 if (inv != null && transactionService.processTransfer(currentUser.getUserId(), inv.getBusinessId(),
-                        inv.getAmount())) {
+                        inv.getAmount(), "invoice-" + id)) {
                     invoiceDAO.markAsPaid(id);
                     System.out.println(" Invoice Paid!");
                 } else
@@ -417,14 +530,41 @@ public class Main {
 
     private static void handleViewHistory() {
         System.out.println("\n---  HISTORY ---");
-        List<Transaction> list = transactionService.getHistory(currentUser.getUserId());
-        if (list.isEmpty())
-            System.out.println("No transactions found.");
-        else
-            list.forEach(t -> {
+        // Pages through the history; only the rows shown are ever read
+        transactionService.streamHistory(currentUser.getUserId()).subscribe(new Flow.Subscriber<Transaction>() {
+            private Flow.Subscription subscription;
+            private int shown;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(HISTORY_PAGE);
+            }
+
+            @Override
+            public void onNext(Transaction t) {
                 String sign = (t.getSenderId() == currentUser.getUserId()) ? "-" : "+";
                 System.out.println(t.getType() + " | " + sign + "₹" + t.getAmount() + " | " + t.getTimestamp());
-            });
+                if (++shown % HISTORY_PAGE == 0) {
+                    System.out.print("Enter for more, '0' to Back: ");
+                    if ("0".equals(scanner.nextLine().trim()))
+                        subscription.cancel();
+                    else
+                        subscription.request(HISTORY_PAGE);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                System.out.println(" Could not load history.");
+            }
+
+            @Override
+            public void onComplete() {
+                if (shown == 0)
+                    System.out.println("No transactions found.");
+            }
+        });
     }
 
     private static void handleCreateInvoice() {
@@ -473,7 +613,20 @@ public class Main {
         if (loans.isEmpty())
             System.out.println("No loans found.");
         else
-            loans.forEach(System.out::println);
+            loans.forEach(l -> System.out.println("#" + l.getLoanId() + " " + l));
+
+        if (loans.stream().anyMatch(l -> l.getReason() != null && l.getReason().endsWith("…"))) {
+            System.out.print("Loan ID for the full reason (Enter to go back): ");
+            String input = scanner.nextLine().trim();
+            if (!input.isEmpty()) {
+                try {
+                    String reason = loanDAO.getReason(Integer.parseInt(input), currentUser.getUserId());
+                    System.out.println(reason != null ? reason : " Loan not found.");
+                } catch (NumberFormatException e) {
+                    System.out.println(" Invalid Input.");
+                }
+            }
+        }
     }
 
     // ==========================================
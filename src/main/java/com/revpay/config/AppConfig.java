@@ -0,0 +1,87 @@
+package com.revpay.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Central access point for runtime tuning options.
+ * <p>
+ * Options are read from JVM system properties (e.g. {@code -Drevpay.metrics.port=9404})
+ * so that operators can change behaviour without a rebuild. Every getter takes a
+ * default, which is returned when the property is missing or malformed.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class AppConfig {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(AppConfig.class);
+
+    private AppConfig() {}
+
+    /**
+     * Reads a string option.
+     *
+     * @param key          The property name.
+     * @param defaultValue The value returned when the property is not set.
+     * @return The configured value or the default.
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return (value == null || value.trim().isEmpty()) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Reads an integer option.
+     *
+     * @param key          The property name.
+     * @param defaultValue The value returned when the property is not set or invalid.
+     * @return The configured value or the default.
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for " + key + ": '" + value + "'. Using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a long option.
+     *
+     * @param key          The property name.
+     * @param defaultValue The value returned when the property is not set or invalid.
+     * @return The configured value or the default.
+     */
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for " + key + ": '" + value + "'. Using default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a boolean option ("true"/"false", case-insensitive).
+     *
+     * @param key          The property name.
+     * @param defaultValue The value returned when the property is not set.
+     * @return The configured value or the default.
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
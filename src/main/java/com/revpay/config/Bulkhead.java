@@ -0,0 +1,83 @@
+package com.revpay.config;
+
+import com.revpay.metrics.MetricsRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded number of database connections reserved for one {@link Workload}.
+ * <p>
+ * A caller that cannot get a permit within the wait time is refused instead of
+ * queueing without limit. Heavy work running short of connections therefore slows
+ * only itself and never takes connections that interactive users need.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class Bulkhead {
+
+    private final String name;
+    private final int capacity;
+    private final long waitMillis;
+    private final Semaphore permits;
+
+    /**
+     * @param name       Metrics name, e.g. {@code db.interactive}.
+     * @param capacity   Maximum connections in use at once.
+     * @param waitMillis How long a caller waits for a free connection.
+     */
+    public Bulkhead(String name, int capacity, long waitMillis) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.waitMillis = Math.max(0, waitMillis);
+        this.permits = new Semaphore(this.capacity, true);
+        MetricsRegistry.gauge(name + ".inUse", this::inUse);
+    }
+
+    /**
+     * Takes a permit, waiting up to the configured time.
+     *
+     * @return {@code true} if a permit was taken; the caller must {@link #release()} it.
+     */
+    public boolean tryAcquire() {
+        try {
+            if (permits.tryAcquire() || permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MetricsRegistry.counter(name + ".rejected").increment();
+        return false;
+    }
+
+    /**
+     * Returns a permit taken with {@link #tryAcquire()}.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return The number of permits currently taken.
+     */
+    public int inUse() {
+        return capacity - permits.availablePermits();
+    }
+
+    /**
+     * @return The maximum number of permits.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return How long {@link #tryAcquire()} waits, in milliseconds.
+     */
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+}
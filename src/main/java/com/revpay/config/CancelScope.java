@@ -0,0 +1,97 @@
+package com.revpay.config;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * A cancellation handle for the JDBC work one thread does on behalf of a caller.
+ * <p>
+ * Code that runs DAO methods for someone who may stop waiting (for example the
+ * async DAO facades) runs them inside a scope with {@link #call(Supplier)}. Statements
+ * executed through {@link JdbcInterceptor} register with the thread's scope while
+ * they run, so {@link #cancel()} can call {@link Statement#cancel()} on the one in
+ * flight. Once cancelled, later statements in the scope fail before reaching the
+ * database with ORA-01013, which DAOs handle like any other SQL error.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class CancelScope {
+
+    /** Oracle ORA-01013: user requested cancel of current operation. */
+    public static final int CANCELLED = 1013;
+
+    private static final ThreadLocal<CancelScope> current = new ThreadLocal<>();
+
+    private volatile boolean cancelled;
+    private volatile Statement active;
+
+    /**
+     * @return The scope of the calling thread, or {@code null} outside of one.
+     */
+    public static CancelScope current() {
+        return current.get();
+    }
+
+    /**
+     * Runs {@code work} on the calling thread with this scope installed.
+     */
+    public <T> T call(Supplier<T> work) {
+        CancelScope previous = current.get();
+        current.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Cancels the statement in flight, if any, and every later one.
+     */
+    public void cancel() {
+        cancelled = true;
+        Statement statement = active;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // The statement may already have finished; nothing left to cancel
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} once {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers the statement about to execute.
+     *
+     * @throws SQLException ORA-01013 if the scope is already cancelled.
+     */
+    void beforeExecute(Statement statement) throws SQLException {
+        active = statement;
+        // Re-read after publishing, so a concurrent cancel() sees the statement or we see the flag
+        if (cancelled) {
+            active = null;
+            throw new SQLException("ORA-01013: user requested cancel of current operation", "72000", CANCELLED);
+        }
+    }
+
+    /**
+     * Unregisters a statement that has finished executing.
+     */
+    void afterExecute() {
+        active = null;
+    }
+}
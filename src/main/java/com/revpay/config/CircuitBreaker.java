@@ -0,0 +1,124 @@
+package com.revpay.config;
+
+import com.revpay.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending work to the database while it is failing.
+ * <p>
+ * After {@code failureThreshold} consecutive failures (connection errors, lost
+ * connections, query timeouts) the breaker opens and callers are refused at once
+ * instead of each waiting for its own timeout. After {@code openMillis} one trial
+ * caller is let through; its success closes the breaker, its failure opens it
+ * again. Errors that show the database is answering, such as constraint violations,
+ * are not failures.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class CircuitBreaker {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+    /** Breaker states. */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private volatile State state = State.CLOSED;
+    private volatile int failures;
+    private long openedAt;
+    private long trialStartedAt;
+
+    /**
+     * @param name             Metrics and log name, e.g. {@code db.breaker}.
+     * @param failureThreshold Consecutive failures that open the breaker.
+     * @param openMillis       How long the breaker stays open before a trial.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this(name, failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Current time in milliseconds (for tests).
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+        this.clock = clock;
+        MetricsRegistry.gauge(name + ".open", () -> state == State.CLOSED ? 0 : 1);
+    }
+
+    /**
+     * @return {@code true} if the caller may use the database now.
+     */
+    public boolean allow() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            long now = clock.getAsLong();
+            if (state == State.OPEN && now - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                trialStartedAt = now;
+                logger.info(name + " half-open: letting one trial through");
+                return true;
+            }
+            // A trial that never reports back does not keep the breaker shut forever
+            if (state == State.HALF_OPEN && now - trialStartedAt >= openMillis) {
+                trialStartedAt = now;
+                return true;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+        MetricsRegistry.counter(name + ".rejected").increment();
+        return false;
+    }
+
+    /**
+     * Records a call that reached a working database.
+     */
+    public void onSuccess() {
+        if (state == State.CLOSED && failures == 0) {
+            return;
+        }
+        synchronized (this) {
+            failures = 0;
+            if (state != State.CLOSED) {
+                state = State.CLOSED;
+                logger.info(name + " closed: database is answering again");
+            }
+        }
+    }
+
+    /**
+     * Records a call that failed because the database is down or degraded.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            MetricsRegistry.counter(name + ".opened").increment();
+            logger.error(name + " open after " + failures + " consecutive failures; failing fast for " + openMillis + " ms");
+        }
+    }
+
+    /**
+     * @return The current state.
+     */
+    public State getState() {
+        return state;
+    }
+}
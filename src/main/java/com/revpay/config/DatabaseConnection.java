@@ -43,12 +43,17 @@
  */
 package com.revpay.config;
 
+import com.revpay.metrics.ConnectionAcquireEvent;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
 
 public class DatabaseConnection {
 
@@ -64,21 +69,75 @@ public class DatabaseConnection {
     // variable or secret vault.
     private static final String PASSWORD = "123456789";
 
-    public static Connection getConnection() {
+    // Shared by every workload: when the database is down, it is down for all of them
+    private static final CircuitBreaker breaker = new CircuitBreaker("db.breaker",
+            AppConfig.getInt("revpay.db.breaker.failures", 5),
+            AppConfig.getLong("revpay.db.breaker.openMs", 10_000));
+
+    public static Connection getConnection() throws SQLException {
+        return getConnection(Workload.INTERACTIVE);
+    }
+
+    /**
+     * Opens a connection counted against a workload's {@link Bulkhead}.
+     * <p>
+     * Fails with a {@link SQLTransientConnectionException}, without touching the
+     * database, when the {@link CircuitBreaker} is open or no connection of the
+     * workload is free within its wait time, so callers handle it like any other
+     * connection failure. The permit is returned when the connection is closed.
+     * </p>
+     *
+     * @param workload The kind of work the connection is for.
+     * @return A connection (never {@code null}).
+     * @throws SQLException If no connection could be opened.
+     */
+    public static Connection getConnection(Workload workload) throws SQLException {
+        if (!breaker.allow()) {
+            logger.warn(" Database circuit breaker is open; refusing " + workload + " connection.");
+            throw new SQLTransientConnectionException("Database circuit breaker is open");
+        }
+        Bulkhead bulkhead = workload.getBulkhead();
+        if (!bulkhead.tryAcquire()) {
+            logger.warn(" No " + workload + " connection free within " + bulkhead.getWaitMillis() + " ms ("
+                    + bulkhead.getCapacity() + " in use).");
+            throw new SQLTransientConnectionException("No " + workload + " connection free within "
+                    + bulkhead.getWaitMillis() + " ms");
+        }
+
         Connection connection = null;
+        // Time spent waiting for a connection (the "pool wait" seen by DAOs)
+        Stopwatch sw = MetricsRegistry.start("db.connection.acquire");
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
         try {
             // Load the Oracle JDBC Driver
             Class.forName("oracle.jdbc.OracleDriver");
 
-            // Attempt to connect
-            connection = DriverManager.getConnection(URL, USER, PASSWORD);
+            // Attempt to connect; the wrapper reports every statement execution to JFR
+            connection = JdbcInterceptor.wrap(DriverManager.getConnection(URL, USER, PASSWORD), workload,
+                    breaker, bulkhead::release);
 
         } catch (ClassNotFoundException e) {
             // Fatal error: Missing dependency indicates a broken build
+            sw.fail();
             logger.fatal(" Oracle JDBC Driver not found. Ensure the dependency is in pom.xml.", e);
+            throw new SQLNonTransientConnectionException("Oracle JDBC Driver not found", e);
         } catch (SQLException e) {
             // Fatal error: Database connectivity is required for the app to function
+            sw.fail();
+            breaker.onFailure();
             logger.fatal(" Database Connection Failed. Verify URL, User, and Password.", e);
+            throw e;
+        } finally {
+            if (connection == null) {
+                bulkhead.release();
+            }
+            sw.stop();
+            event.end();
+            if (event.shouldCommit()) {
+                event.success = connection != null;
+                event.commit();
+            }
         }
         return connection;
     }
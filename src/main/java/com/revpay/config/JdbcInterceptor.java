@@ -0,0 +1,276 @@
+package com.revpay.config;
+
+import com.revpay.metrics.SqlExecutionEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps JDBC connections so that every statement execution is observable.
+ * <p>
+ * {@link DatabaseConnection} hands out wrapped connections; DAOs use them exactly
+ * like the driver's own. Each {@code execute*} call on a statement emits a
+ * {@link SqlExecutionEvent} carrying the statement's {@link SqlIds id}, the
+ * rows affected and the outcome, and is recorded in {@link SlowQueryLog}.
+ * Bind values set on prepared statements are kept so that slow statements can be
+ * reported with their (masked) parameters.
+ * </p>
+ * <p>
+ * Executions on a thread running inside a {@link CancelScope} register with it,
+ * so a caller that gives up can cancel the statement on the server.
+ * </p>
+ * <p>
+ * Every statement gets the query timeout of its connection's {@link Workload}
+ * (or its own budget, by statement id), and every execution reports to the
+ * {@link CircuitBreaker} whether the database answered.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class JdbcInterceptor {
+
+    private JdbcInterceptor() {}
+
+    /**
+     * Wraps a driver connection.
+     *
+     * @param connection The raw connection (may be {@code null}).
+     * @return An instrumented connection, or {@code null} if the input was {@code null}.
+     */
+    public static Connection wrap(Connection connection) {
+        return wrap(connection, Workload.INTERACTIVE, null, null);
+    }
+
+    /**
+     * Wraps a driver connection opened for a workload.
+     *
+     * @param connection The raw connection (may be {@code null}).
+     * @param workload   Decides the statements' query timeouts.
+     * @param breaker    Told about every execution's outcome ({@code null} for none).
+     * @param onClose    Run once when the connection is closed, e.g. to return a bulkhead permit.
+     * @return An instrumented connection, or {@code null} if the input was {@code null}.
+     */
+    public static Connection wrap(Connection connection, Workload workload, CircuitBreaker breaker, Runnable onClose) {
+        if (connection == null || isWrapped(connection)) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(JdbcInterceptor.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, workload, breaker, onClose));
+    }
+
+    /**
+     * Tells whether an error means the database is unreachable or too slow, as
+     * opposed to rejecting one statement.
+     */
+    public static boolean isDegraded(SQLException e) {
+        if (e instanceof SQLTimeoutException || e instanceof SQLRecoverableException
+                || e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        if (state != null && state.startsWith("08")) {
+            return true;
+        }
+        switch (e.getErrorCode()) {
+            case 3113:  // end-of-file on communication channel
+            case 3114:  // not connected to ORACLE
+            case 12170: // connect timeout
+            case 17002: // IO error
+                return true;
+            case CancelScope.CANCELLED:
+                // A query timeout, unless a caller cancelled on purpose
+                CancelScope scope = CancelScope.current();
+                return scope == null || !scope.isCancelled();
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isWrapped(Connection connection) {
+        return Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof ConnectionHandler;
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Workload workload;
+        private final CircuitBreaker breaker;
+        private final Runnable onClose;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ConnectionHandler(Connection target, Workload workload, CircuitBreaker breaker, Runnable onClose) {
+            this.target = target;
+            this.workload = workload;
+            this.breaker = breaker;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                try {
+                    return invokeTarget(target, method, args);
+                } finally {
+                    if (onClose != null && closed.compareAndSet(false, true)) {
+                        onClose.run();
+                    }
+                }
+            }
+            Object result = invokeTarget(target, method, args);
+
+            Class<?> type;
+            String sql = null;
+            if ("prepareStatement".equals(name)) {
+                type = PreparedStatement.class;
+                sql = (String) args[0];
+            } else if ("prepareCall".equals(name)) {
+                type = CallableStatement.class;
+                sql = (String) args[0];
+            } else if ("createStatement".equals(name)) {
+                type = Statement.class;
+            } else {
+                return result;
+            }
+            Statement statement = (Statement) result;
+            int timeout = workload.queryTimeoutSeconds(sql != null ? SqlIds.of(sql) : null);
+            if (timeout > 0) {
+                statement.setQueryTimeout(timeout);
+            }
+            return Proxy.newProxyInstance(JdbcInterceptor.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, (Connection) proxy, sql, breaker));
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final Connection connection;
+        private final String sql;
+        private final CircuitBreaker breaker;
+        private Object[] binds;
+
+        StatementHandler(Statement target, Connection connection, String sql, CircuitBreaker breaker) {
+            this.target = target;
+            this.connection = connection;
+            this.sql = sql;
+            this.breaker = breaker;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if (!name.startsWith("execute")) {
+                captureBind(name, args);
+                return invokeTarget(target, method, args);
+            }
+
+            // Plain Statements receive their SQL at execution time
+            String text = sql != null ? sql : (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+
+            CancelScope scope = CancelScope.current();
+            if (scope != null) {
+                scope.beforeExecute(target);
+            }
+            SqlExecutionEvent event = new SqlExecutionEvent();
+            event.begin();
+            long start = System.nanoTime();
+            String outcome = "OK";
+            long rows = -1;
+            try {
+                Object result = invokeTarget(target, method, args);
+                rows = rowsOf(result);
+                if (breaker != null) {
+                    breaker.onSuccess();
+                }
+                return result;
+            } catch (SQLException e) {
+                outcome = "ERROR " + e.getSQLState();
+                if (breaker != null) {
+                    if (isDegraded(e)) {
+                        breaker.onFailure();
+                    } else {
+                        breaker.onSuccess();
+                    }
+                }
+                throw e;
+            } finally {
+                if (scope != null) {
+                    scope.afterExecute();
+                }
+                String sqlId = SqlIds.of(text);
+                SlowQueryLog.record(text, sqlId, System.nanoTime() - start, binds, !"OK".equals(outcome));
+                event.end();
+                if (event.shouldCommit()) {
+                    event.sqlId = sqlId;
+                    event.rowsAffected = rows;
+                    event.outcome = outcome;
+                    event.commit();
+                }
+            }
+        }
+
+        // Remembers setXxx(index, value, ...) calls; setNull records NULL
+        private void captureBind(String name, Object[] args) {
+            if ("clearParameters".equals(name)) {
+                binds = null;
+                return;
+            }
+            if (!SlowQueryLog.isEnabled() || !name.startsWith("set") || args == null || args.length < 2
+                    || !(args[0] instanceof Integer)) {
+                return;
+            }
+            int index = (Integer) args[0];
+            if (index < 1 || index > 1000) {
+                return;
+            }
+            if (binds == null || binds.length <= index) {
+                Object[] grown = new Object[index + 1];
+                if (binds != null) {
+                    System.arraycopy(binds, 0, grown, 0, binds.length);
+                }
+                binds = grown;
+            }
+            binds[index] = "setNull".equals(name) ? null : args[1];
+        }
+
+        private static long rowsOf(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int count : (int[]) result) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.revpay.config;
+
+import com.revpay.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-statement statistics and slow-query logging for every SQL issued through
+ * {@link JdbcInterceptor}.
+ * <p>
+ * Every execution is recorded under the operation {@code sql.<sqlId>} in the
+ * {@link MetricsRegistry}. Executions slower than {@code revpay.sql.slow.thresholdMs}
+ * (default 200 ms) are written to the {@code com.revpay.sql.SlowQueryLog} logger with
+ * the calling DAO method, elapsed time and masked bind values. When
+ * {@code revpay.sql.slow.explain} is enabled, the Oracle execution plan of a slow
+ * statement is captured in the background (at most once per statement every 10 minutes).
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class SlowQueryLog {
+
+    // Dedicated logger so slow queries can be routed to their own file
+    private static final Logger logger = LogManager.getLogger("com.revpay.sql.SlowQueryLog");
+
+    private static final long THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("revpay.sql.slow.thresholdMs", 200));
+    private static final boolean EXPLAIN_ENABLED = AppConfig.getBoolean("revpay.sql.slow.explain", false);
+    private static final long EXPLAIN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    // Internal statements are tagged so they are never logged or explained recursively
+    private static final String INTERNAL_PREFIX = "slowlog.";
+
+    private static final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private static final ExecutorService explainExecutor = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(16), r -> {
+                Thread t = new Thread(r, "revpay-explain-plan");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private SlowQueryLog() {}
+
+    /**
+     * @return {@code true} if bind values should be captured for slow-query reports.
+     */
+    static boolean isEnabled() {
+        return THRESHOLD_NANOS >= 0;
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param sql          The SQL text.
+     * @param sqlId        The statement id from {@link SqlIds}.
+     * @param elapsedNanos Execution time.
+     * @param binds        Captured bind values (1-based), may be {@code null}.
+     * @param failed       {@code true} if the execution threw.
+     */
+    static void record(String sql, String sqlId, long elapsedNanos, Object[] binds, boolean failed) {
+        if (sqlId.startsWith(INTERNAL_PREFIX)) {
+            return;
+        }
+        MetricsRegistry.operation("sql." + sqlId).record(elapsedNanos, failed);
+
+        if (elapsedNanos < THRESHOLD_NANOS || !isEnabled()) {
+            return;
+        }
+        MetricsRegistry.counter("sql.slow").increment();
+        logger.warn("Slow SQL [" + sqlId + "] " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms"
+                + (failed ? " (FAILED)" : "")
+                + " | caller=" + callerOf()
+                + " | binds=" + SqlBindMasker.render(sql, binds)
+                + " | sql=" + sql);
+
+        if (EXPLAIN_ENABLED && sql != null) {
+            long now = System.nanoTime();
+            Long previous = lastExplained.get(sqlId);
+            if (previous == null || now - previous > EXPLAIN_INTERVAL_NANOS) {
+                lastExplained.put(sqlId, now);
+                explainExecutor.execute(() -> explain(sqlId, sql));
+            }
+        }
+    }
+
+    // First application frame outside the JDBC plumbing, e.g. "InvoiceDAO.getInvoicesForCustomer:78"
+    private static String callerOf() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("com.revpay.")
+                        && !f.getClassName().startsWith("com.revpay.config."))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    // Runs EXPLAIN PLAN on a separate connection and logs the DBMS_XPLAN output
+    private static void explain(String sqlId, String sql) {
+        String statementId = ("rp" + Integer.toHexString(sqlId.hashCode())).toUpperCase();
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("/* slowlog.explain */ EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR "
+                        + stripTag(sql));
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "/* slowlog.plan */ SELECT plan_table_output FROM TABLE(DBMS_XPLAN.DISPLAY('PLAN_TABLE', ?, 'TYPICAL'))")) {
+                stmt.setString(1, statementId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append('\n').append(rs.getString(1));
+                    }
+                }
+            }
+            logger.warn("Execution plan for [" + sqlId + "]:" + plan);
+        } catch (SQLException e) {
+            logger.warn("Could not capture execution plan for [" + sqlId + "]", e);
+        }
+    }
+
+    private static String stripTag(String sql) {
+        String text = sql.trim();
+        if (text.startsWith("/*")) {
+            int end = text.indexOf("*/");
+            if (end > 0) {
+                return text.substring(end + 2).trim();
+            }
+        }
+        return text;
+    }
+}
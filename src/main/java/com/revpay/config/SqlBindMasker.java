@@ -0,0 +1,152 @@
+package com.revpay.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders bind values for logs with sensitive values masked.
+ * <p>
+ * A bind is masked when the column it is bound to looks sensitive (card numbers,
+ * password hashes, PINs) or when the value itself looks like a card number or a
+ * BCrypt hash. Column positions are worked out once per SQL text and cached.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class SqlBindMasker {
+
+    private static final String MASK = "****";
+    private static final int MAX_CACHED = 10_000;
+
+    private static final Pattern SENSITIVE_COLUMN = Pattern.compile("password|card_number|pin|cvv");
+    private static final Pattern CARD_NUMBER = Pattern.compile("\\d{13,19}");
+    private static final Pattern INSERT_COLUMNS =
+            Pattern.compile("insert\\s+into\\s+[\\w.]+\\s*\\(([^)]*)\\)\\s*values\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, boolean[]> cache = new ConcurrentHashMap<>();
+
+    private SqlBindMasker() {}
+
+    /**
+     * Formats bind values as {@code [1=..., 2=...]}, masking sensitive ones.
+     *
+     * @param sql   The SQL text the values were bound to.
+     * @param binds Bind values indexed from 1 (index 0 unused); may be {@code null}.
+     * @return A log-safe rendering of the binds.
+     */
+    public static String render(String sql, Object[] binds) {
+        if (binds == null) {
+            return "[]";
+        }
+        boolean[] sensitive = sensitivePositions(sql);
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 1; i < binds.length; i++) {
+            if (out.length() > 1) {
+                out.append(", ");
+            }
+            Object value = binds[i];
+            boolean mask = (i < sensitive.length && sensitive[i]) || looksSensitive(value);
+            out.append(i).append('=').append(mask ? MASK : format(value));
+        }
+        return out.append(']').toString();
+    }
+
+    /**
+     * Determines which bind positions (1-based) feed sensitive columns.
+     *
+     * @param sql The SQL text.
+     * @return Flags indexed by bind position; index 0 is unused.
+     */
+    static boolean[] sensitivePositions(String sql) {
+        if (sql == null) {
+            return new boolean[0];
+        }
+        boolean[] flags = cache.get(sql);
+        if (flags == null) {
+            flags = analyse(sql);
+            if (cache.size() < MAX_CACHED) {
+                cache.put(sql, flags);
+            }
+        }
+        return flags;
+    }
+
+    private static boolean[] analyse(String sql) {
+        List<Integer> marks = placeholderOffsets(sql);
+        boolean[] flags = new boolean[marks.size() + 1];
+
+        // INSERT ... (a, b, c) VALUES (?, ?, ?) maps positionally
+        Matcher insert = INSERT_COLUMNS.matcher(sql);
+        String[] insertColumns = null;
+        int valuesStart = -1;
+        if (insert.find()) {
+            insertColumns = insert.group(1).split(",");
+            valuesStart = insert.end();
+        }
+
+        int valueIndex = 0;
+        for (int p = 0; p < marks.size(); p++) {
+            int offset = marks.get(p);
+            String column;
+            if (insertColumns != null && offset >= valuesStart && valueIndex < insertColumns.length) {
+                column = insertColumns[valueIndex++].trim();
+            } else {
+                column = columnBefore(sql, offset);
+            }
+            flags[p + 1] = SENSITIVE_COLUMN.matcher(column.toLowerCase(Locale.ROOT)).find();
+        }
+        return flags;
+    }
+
+    // Offsets of '?' placeholders outside string literals
+    private static List<Integer> placeholderOffsets(String sql) {
+        List<Integer> offsets = new ArrayList<>();
+        boolean inLiteral = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            } else if (c == '?' && !inLiteral) {
+                offsets.add(i);
+            }
+        }
+        return offsets;
+    }
+
+    // Reads the identifier in front of "col = ?", "col >= ?", etc.
+    private static String columnBefore(String sql, int offset) {
+        int i = offset - 1;
+        while (i >= 0 && (Character.isWhitespace(sql.charAt(i)) || "=<>!".indexOf(sql.charAt(i)) >= 0)) {
+            i--;
+        }
+        int end = i + 1;
+        while (i >= 0 && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i--;
+        }
+        return sql.substring(i + 1, end);
+    }
+
+    private static boolean looksSensitive(Object value) {
+        if (!(value instanceof String)) {
+            return false;
+        }
+        String s = (String) value;
+        return s.startsWith("$2a$") || s.startsWith("$2b$") || s.startsWith("$2y$") || CARD_NUMBER.matcher(s).matches();
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof String) {
+            return "'" + value + "'";
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.revpay.config;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives short, stable identifiers for SQL statements.
+ * <p>
+ * A statement may name itself with a leading comment, e.g.
+ * {@code "/* transfer.withdraw *&#47; UPDATE wallets ..."}, which Oracle ignores.
+ * Untagged statements get an id built from the verb, the main table and a short
+ * hash of the text, e.g. {@code select.invoices.4f1a}.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class SqlIds {
+
+    // DAO statements are string constants, so the cache stays small; the cap guards against ad-hoc SQL
+    private static final int MAX_CACHED = 10_000;
+    private static final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    private SqlIds() {}
+
+    /**
+     * Returns the identifier for a SQL string.
+     *
+     * @param sql The SQL text (may be {@code null}).
+     * @return The statement id, or {@code "unknown"} for {@code null}.
+     */
+    public static String of(String sql) {
+        if (sql == null) {
+            return "unknown";
+        }
+        String id = cache.get(sql);
+        if (id == null) {
+            id = derive(sql);
+            if (cache.size() < MAX_CACHED) {
+                cache.put(sql, id);
+            }
+        }
+        return id;
+    }
+
+    private static String derive(String sql) {
+        String text = sql.trim();
+        if (text.startsWith("/*")) {
+            int end = text.indexOf("*/");
+            if (end > 2) {
+                return text.substring(2, end).trim();
+            }
+        }
+
+        String[] words = text.toLowerCase(Locale.ROOT).split("[\\s(]+");
+        String verb = words.length > 0 ? words[0] : "sql";
+        String marker;
+        switch (verb) {
+            case "update":
+                marker = "update";
+                break;
+            case "insert":
+            case "merge":
+                marker = "into";
+                break;
+            default:
+                marker = "from";
+        }
+
+        String table = "";
+        for (int i = 0; i < words.length - 1; i++) {
+            if (words[i].equals(marker)) {
+                table = words[i + 1];
+                break;
+            }
+        }
+        String hash = Integer.toHexString(text.hashCode() & 0xffff);
+        return table.isEmpty() ? verb + "." + hash : verb + "." + table + "." + hash;
+    }
+}
@@ -0,0 +1,51 @@
+package com.revpay.config;
+
+/**
+ * The kinds of database work that get separate connection budgets.
+ * <p>
+ * Each workload has its own {@link Bulkhead} and default query timeout, configured
+ * with {@code revpay.db.<workload>.maxConnections}, {@code .waitMs} and
+ * {@code .queryTimeoutSec}. A single statement can be given its own budget with
+ * {@code revpay.sql.timeout.<sqlId>} (seconds, {@code 0} for none), where the id is
+ * the statement's {@link SqlIds id}.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public enum Workload {
+
+    /** Transfers, deposits, balances and lookups a user is waiting for. */
+    INTERACTIVE("interactive", 8, 1000, 10),
+
+    /** History scans, reconciliation, rollups, archiving and purges. */
+    HEAVY("heavy", 4, 30_000, 300);
+
+    private final Bulkhead bulkhead;
+    private final int queryTimeoutSeconds;
+
+    Workload(String key, int maxConnections, long waitMillis, int queryTimeoutSeconds) {
+        this.bulkhead = new Bulkhead("db." + key,
+                AppConfig.getInt("revpay.db." + key + ".maxConnections", maxConnections),
+                AppConfig.getLong("revpay.db." + key + ".waitMs", waitMillis));
+        this.queryTimeoutSeconds = AppConfig.getInt("revpay.db." + key + ".queryTimeoutSec", queryTimeoutSeconds);
+    }
+
+    /**
+     * @return The connections reserved for this workload.
+     */
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * @param sqlId The statement's id, or {@code null} if unknown.
+     * @return The query timeout for the statement, in seconds ({@code 0} for none).
+     */
+    public int queryTimeoutSeconds(String sqlId) {
+        if (sqlId == null) {
+            return queryTimeoutSeconds;
+        }
+        return Math.max(0, AppConfig.getInt("revpay.sql.timeout." + sqlId, queryTimeoutSeconds));
+    }
+}
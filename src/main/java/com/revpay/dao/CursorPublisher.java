@@ -0,0 +1,181 @@
+package com.revpay.dao;
+
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Flow.Publisher} that streams rows from a database cursor with backpressure.
+ * <p>
+ * Each subscriber gets its own cursor, opened on its first request. Rows are read
+ * only while the subscriber has outstanding demand, so with a JDBC fetch size the
+ * driver fetches the next chunk only when the subscriber has asked for it. The
+ * cursor (and its connection) is closed as soon as the last row has been read, an
+ * error occurs, or the subscription is cancelled, before {@code onComplete} or
+ * {@code onError} is signalled.
+ * </p>
+ * <p>
+ * Cursor work runs on the given {@link Executor}, never on two threads at once.
+ * With a direct executor ({@code Runnable::run}) it runs on the thread calling
+ * {@code request}, which suits a console that pages through results.
+ * </p>
+ *
+ * @param <T> The row type.
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class CursorPublisher<T> implements Flow.Publisher<T> {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(CursorPublisher.class);
+
+    /**
+     * A forward-only source of rows.
+     */
+    public interface Cursor<T> {
+
+        /**
+         * @return The next row, or {@code null} when there are no more.
+         */
+        T next() throws Exception;
+
+        /**
+         * Releases the cursor's resources. Called exactly once.
+         */
+        void close();
+    }
+
+    private final String operation;
+    private final Callable<? extends Cursor<T>> opener;
+    private final Executor executor;
+
+    /**
+     * @param operation Metrics and log name, e.g. {@code dao.TransactionDAO.streamTransactionHistory}.
+     * @param opener    Opens a new cursor for each subscriber.
+     * @param executor  Runs the cursor work.
+     */
+    public CursorPublisher(String operation, Callable<? extends Cursor<T>> opener, Executor executor) {
+        this.operation = operation;
+        this.opener = opener;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new CursorSubscription(subscriber));
+    }
+
+    private final class CursorSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only touched by the single thread draining at a time
+        private Cursor<T> cursor;
+        private Stopwatch sw;
+        private boolean done;
+
+        CursorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        // Requests made from onNext only add demand; this loop picks them up
+        private void drain() {
+            int missed = 1;
+            do {
+                drainOnce();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            try {
+                if (cursor == null && demand.get() > 0) {
+                    sw = MetricsRegistry.start(operation);
+                    cursor = opener.call();
+                }
+                while (demand.get() > 0) {
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    T row = cursor.next();
+                    if (row == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(row);
+                }
+            } catch (Exception e) {
+                if (sw != null) {
+                    sw.fail();
+                }
+                logger.error("  Streaming " + operation + " failed", e);
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+            if (sw != null) {
+                sw.stop();
+                sw = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.BalanceHold;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the {@code balance_holds} table.
+ * <p>
+ * Each wallet row carries the totals of its pending holds: {@code held} for DEBIT
+ * holds and {@code pending} for CREDIT holds. Placing and resolving a hold updates
+ * that total in the same transaction as the hold row, so the available balance is
+ * read from the wallet alone, never by summing holds. A hold is resolved only from
+ * {@code PENDING}, so a settle racing a release (or two sweepers) moves money once.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class HoldDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(HoldDAO.class);
+
+    private final IdAllocator idAllocator = IdAllocator.get();
+
+    /**
+     * Places a hold. A DEBIT hold is refused unless the wallet's available balance
+     * (balance minus existing holds) covers it.
+     *
+     * @param hold The hold to place; its ID is set on success.
+     * @return The new hold ID, or -1 if refused or on error.
+     */
+    public int placeHold(BalanceHold hold) {
+        String reserveSQL = "/* hold.reserve */ UPDATE wallets SET held = held + ?, version = version + 1 WHERE user_id = ? AND balance - held >= ?";
+        String pendingSQL = "/* hold.pending */ UPDATE wallets SET pending = pending + ?, version = version + 1 WHERE user_id = ?";
+        String insertSQL = "/* hold.insert */ INSERT INTO balance_holds (hold_id, user_id, hold_type, amount, status, reference, expires_at, on_expiry)"
+                + " VALUES (?, ?, ?, ?, 'PENDING', ?, ?, ?)";
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.placeHold");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int rows;
+            if (hold.getType() == BalanceHold.Type.DEBIT) {
+                try (PreparedStatement stmt = conn.prepareStatement(reserveSQL)) {
+                    MoneyColumns.set(stmt, 1, hold.getAmount());
+                    stmt.setInt(2, hold.getUserId());
+                    MoneyColumns.set(stmt, 3, hold.getAmount());
+                    rows = stmt.executeUpdate();
+                    // Money parked in shards of a sharded wallet is folded back before giving up
+                    if (rows == 0 && WalletShards.consolidate(conn, hold.getUserId()).isPositive()) {
+                        rows = stmt.executeUpdate();
+                    }
+                }
+            } else {
+                try (PreparedStatement stmt = conn.prepareStatement(pendingSQL)) {
+                    MoneyColumns.set(stmt, 1, hold.getAmount());
+                    stmt.setInt(2, hold.getUserId());
+                    rows = stmt.executeUpdate();
+                }
+            }
+            if (rows == 0) {
+                logger.warn("Hold refused: insufficient available funds or no wallet for User ID " + hold.getUserId());
+                conn.rollback();
+                return -1;
+            }
+
+            int holdId = (int) idAllocator.next(conn, IdAllocator.BALANCE_HOLDS);
+            try (PreparedStatement stmt = conn.prepareStatement(insertSQL)) {
+                stmt.setInt(1, holdId);
+                stmt.setInt(2, hold.getUserId());
+                stmt.setString(3, hold.getType().name());
+                MoneyColumns.set(stmt, 4, hold.getAmount());
+                stmt.setString(5, hold.getReference());
+                stmt.setTimestamp(6, hold.getExpiresAt());
+                stmt.setString(7, hold.isSettleOnExpiry() ? "SETTLE" : "RELEASE");
+                stmt.executeUpdate();
+            }
+            conn.commit();
+
+            hold.setHoldId(holdId);
+            hold.setStatus(BalanceHold.Status.PENDING);
+            logger.info("  Hold placed: " + hold);
+            return holdId;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to place hold for User ID " + hold.getUserId(), e);
+            rollback(conn);
+            return -1;
+        } finally {
+            sw.stop();
+            close(conn);
+        }
+    }
+
+    /**
+     * @return The hold, or {@code null} if not found or on error.
+     */
+    public BalanceHold getHold(int holdId) {
+        String sql = RowMappers.BALANCE_HOLD.select() + " WHERE hold_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.getHold");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, holdId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return RowMappers.BALANCE_HOLD.map(rs);
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error reading hold " + holdId, e);
+        } finally {
+            sw.stop();
+        }
+        return null;
+    }
+
+    /**
+     * Lists pending holds that expired, oldest first.
+     * <p>
+     * The predicate matches the function-based index {@code idx_hold_due}, which only
+     * holds entries for pending holds, so the scan touches the backlog and nothing else.
+     * </p>
+     *
+     * @param now   Holds expiring at or before this are due.
+     * @param limit Maximum number returned.
+     * @return Due holds. Empty on error.
+     */
+    public List<BalanceHold> findDue(Timestamp now, int limit) {
+        String sql = "/* hold.due */ SELECT * FROM (" + RowMappers.BALANCE_HOLD.select()
+                + " WHERE CASE WHEN status = 'PENDING' THEN expires_at END <= ?"
+                + " ORDER BY CASE WHEN status = 'PENDING' THEN expires_at END) WHERE ROWNUM <= ?";
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.findDue");
+        List<BalanceHold> holds = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, now);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+            RowMappers.BALANCE_HOLD.mapAll(rs, holds);
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error finding due holds", e);
+        } finally {
+            sw.stop();
+        }
+        return holds;
+    }
+
+    /**
+     * Releases holds without moving money, in one transaction.
+     *
+     * @param holds Holds to release; those no longer pending are skipped.
+     * @return The number released, or -1 on error (nothing is released then).
+     */
+    public int release(List<BalanceHold> holds) {
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.release");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            int released = 0;
+            for (BalanceHold hold : holds) {
+                if (resolve(conn, hold, BalanceHold.Status.RELEASED)) {
+                    released++;
+                }
+            }
+            conn.commit();
+            return released;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to release " + holds.size() + " holds", e);
+            rollback(conn);
+            return -1;
+        } finally {
+            sw.stop();
+            close(conn);
+        }
+    }
+
+    /**
+     * Settles a CREDIT hold: its amount leaves the wallet's pending total and is
+     * credited as a DEPOSIT, in one transaction with the hold, so a hold is never
+     * settled without its deposit nor deposited twice. Its running balance is left to
+     * the backfill job.
+     *
+     * @return {@code true} if the hold was pending and is now settled.
+     */
+    public boolean settleCredit(BalanceHold hold) {
+        String creditSQL = "/* hold.credit */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?";
+        String logSQL = "/* hold.log */ INSERT INTO transactions (transaction_id, sender_id, receiver_id, amount, transaction_type, status) VALUES (?, ?, ?, ?, ?, ?)";
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.settleCredit");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            if (!resolve(conn, hold, BalanceHold.Status.SETTLED)) {
+                conn.rollback();
+                return false;
+            }
+            // One of the wallet's shards if it is sharded, as an ordinary deposit would
+            int rows = WalletShards.creditShard(conn, hold.getUserId(), hold.getAmount(), hold.getHoldId());
+            if (rows == 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(creditSQL)) {
+                    MoneyColumns.set(stmt, 1, hold.getAmount());
+                    stmt.setInt(2, hold.getUserId());
+                    rows = stmt.executeUpdate();
+                }
+            }
+            if (rows == 0) {
+                throw new SQLException("Wallet not found for User ID " + hold.getUserId());
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(logSQL)) {
+                stmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
+                stmt.setInt(2, hold.getUserId());
+                stmt.setInt(3, hold.getUserId());
+                MoneyColumns.set(stmt, 4, hold.getAmount());
+                stmt.setString(5, TransactionType.DEPOSIT.name());
+                stmt.setString(6, TransactionStatus.SUCCESS.name());
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            logger.info("  Hold settled: " + hold);
+            return true;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to settle hold " + hold.getHoldId(), e);
+            hold.setStatus(BalanceHold.Status.PENDING);
+            rollback(conn);
+            return false;
+        } finally {
+            sw.stop();
+            close(conn);
+        }
+    }
+
+    /**
+     * Marks a CREDIT hold settled once its deposit has been booked elsewhere, and drops
+     * its amount from the wallet's pending total. Used when the deposit goes through the
+     * in-memory ledger engine, which cannot share this transaction.
+     *
+     * @return {@code true} if the hold was pending and is now settled.
+     */
+    public boolean completeCredit(BalanceHold hold) {
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.completeCredit");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            boolean settled = resolve(conn, hold, BalanceHold.Status.SETTLED);
+            conn.commit();
+            return settled;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to complete hold " + hold.getHoldId(), e);
+            rollback(conn);
+            return false;
+        } finally {
+            sw.stop();
+            close(conn);
+        }
+    }
+
+    /**
+     * Settles a DEBIT hold: the reserved funds leave the wallet as a WITHDRAWAL, in one
+     * transaction with the hold. Like a transfer, the debit is guarded by the available
+     * balance and folds the wallet's shards in when the main row is short; a wallet that
+     * still cannot cover it, or is missing, rolls everything back and leaves the hold
+     * pending. Its running balance is left to the backfill job.
+     *
+     * @return {@code true} if the hold was pending and is now settled.
+     */
+    public boolean settleDebit(BalanceHold hold) {
+        String debitSQL = "/* hold.debit */ UPDATE wallets SET balance = balance - ?, version = version + 1 WHERE user_id = ? AND balance - held >= ?";
+        String logSQL = "/* hold.log */ INSERT INTO transactions (transaction_id, sender_id, amount, transaction_type, status) VALUES (?, ?, ?, ?, ?)";
+        Stopwatch sw = MetricsRegistry.start("dao.HoldDAO.settleDebit");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            if (!resolve(conn, hold, BalanceHold.Status.SETTLED)) {
+                conn.rollback();
+                return false;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(debitSQL)) {
+                MoneyColumns.set(stmt, 1, hold.getAmount());
+                stmt.setInt(2, hold.getUserId());
+                MoneyColumns.set(stmt, 3, hold.getAmount());
+                int rows = stmt.executeUpdate();
+                // The reservation may be covered by shards; fold them into the main row and retry
+                if (rows == 0 && WalletShards.consolidate(conn, hold.getUserId()).isPositive()) {
+                    rows = stmt.executeUpdate();
+                }
+                if (rows == 0) {
+                    throw new SQLException("Wallet of User ID " + hold.getUserId() + " is missing or does not cover hold " + hold.getHoldId());
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(logSQL)) {
+                stmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
+                stmt.setInt(2, hold.getUserId());
+                MoneyColumns.set(stmt, 3, hold.getAmount());
+                stmt.setString(4, TransactionType.WITHDRAWAL.name());
+                stmt.setString(5, TransactionStatus.SUCCESS.name());
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            logger.info("  Hold settled: " + hold);
+            return true;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to settle hold " + hold.getHoldId(), e);
+            hold.setStatus(BalanceHold.Status.PENDING);
+            rollback(conn);
+            return false;
+        } finally {
+            sw.stop();
+            close(conn);
+        }
+    }
+
+    // Moves a pending hold to its final status and takes it off the wallet's held/pending total
+    private boolean resolve(Connection conn, BalanceHold hold, BalanceHold.Status status) throws SQLException {
+        String statusSQL = "/* hold.resolve */ UPDATE balance_holds SET status = ?, resolved_at = SYSTIMESTAMP WHERE hold_id = ? AND status = 'PENDING'";
+        String totalSQL = hold.getType() == BalanceHold.Type.DEBIT
+                ? "/* hold.unreserve */ UPDATE wallets SET held = held - ?, version = version + 1 WHERE user_id = ?"
+                : "/* hold.unpending */ UPDATE wallets SET pending = pending - ?, version = version + 1 WHERE user_id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(statusSQL)) {
+            stmt.setString(1, status.name());
+            stmt.setInt(2, hold.getHoldId());
+            if (stmt.executeUpdate() == 0) {
+                logger.debug("Hold " + hold.getHoldId() + " was already resolved");
+                return false;
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(totalSQL)) {
+            MoneyColumns.set(stmt, 1, hold.getAmount());
+            stmt.setInt(2, hold.getUserId());
+            stmt.executeUpdate();
+        }
+        hold.setStatus(status);
+        return true;
+    }
+
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                logger.error("Rollback failed", ex);
+            }
+        }
+    }
+
+    private void close(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                logger.error("Error closing connection", e);
+            }
+        }
+    }
+}
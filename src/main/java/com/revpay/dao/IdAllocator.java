@@ -0,0 +1,193 @@
+package com.revpay.dao;
+
+import com.revpay.config.AppConfig;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out primary keys from blocks reserved on the database sequences (hi-lo).
+ * <p>
+ * The sequences step by a block size ({@code INCREMENT BY} in
+ * {@code database_setup.sql}), so one {@code NEXTVAL} reserves the whole range
+ * {@code [value, value + increment)}. IDs within a block are handed out from memory,
+ * and DAOs insert them explicitly, which lets the {@code BEFORE INSERT} triggers skip
+ * their own {@code SELECT ... NEXTVAL}. The increment is read from
+ * {@code user_sequences} together with each reservation, so the block size can never
+ * disagree with the schema; a sequence still stepping by 1 simply yields blocks of one.
+ * </p>
+ * <p>
+ * A block is abandoned once it is older than {@code revpay.ids.maxBlockAgeMs}. The
+ * rollup refresh assumes that an ID is used within a few seconds of the IDs around it
+ * (see {@code RollupRefreshJob}); a block held for minutes by a quiet process would
+ * break that when several processes share the schema. Abandoned IDs are gaps, as are
+ * IDs of rolled back inserts.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class IdAllocator {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(IdAllocator.class);
+
+    public static final String USERS = "seq_users";
+    public static final String PAYMENT_METHODS = "seq_payment_methods";
+    public static final String TRANSACTIONS = "seq_transactions";
+    public static final String PAYMENT_REQUESTS = "seq_payment_requests";
+    public static final String INVOICES = "seq_invoices";
+    public static final String LOANS = "seq_loans";
+    public static final String BALANCE_HOLDS = "seq_balance_holds";
+    public static final String SCHEDULED_TRANSFERS = "seq_scheduled_transfers";
+
+    // Sequence names are concatenated into SQL, so only plain identifiers are accepted
+    private static final Pattern SEQUENCE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_$#]*");
+
+    private static volatile IdAllocator shared;
+
+    /**
+     * Reserves the next block of a sequence.
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+        /**
+         * @param conn     The caller's connection (sequences ignore its transaction).
+         * @param sequence The sequence name.
+         * @return The reserved block.
+         */
+        Block reserve(Connection conn, String sequence) throws SQLException;
+    }
+
+    /**
+     * A reserved range of {@code size} IDs starting at {@code first}.
+     */
+    public static final class Block {
+        private final long first;
+        private final long size;
+
+        public Block(long first, long size) {
+            this.first = first;
+            this.size = Math.max(1, size);
+        }
+
+        public long getFirst() {
+            return first;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    // The unused rest of the current block of one sequence
+    private static final class Range {
+        long next;
+        long limit;
+        long reservedAt;
+    }
+
+    private final BlockSource source;
+    private final long maxBlockAgeMillis;
+    private final LongSupplier clock;
+    private final Map<String, Range> ranges = new ConcurrentHashMap<>();
+
+    /**
+     * @param source            Where blocks come from.
+     * @param maxBlockAgeMillis How long a block may be used after it was reserved.
+     * @param clock             Current time in milliseconds (for tests).
+     */
+    public IdAllocator(BlockSource source, long maxBlockAgeMillis, LongSupplier clock) {
+        this.source = source;
+        this.maxBlockAgeMillis = Math.max(0, maxBlockAgeMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * @return The shared allocator, reserving blocks from the database sequences and
+     *         configured by {@code revpay.ids.maxBlockAgeMs}.
+     */
+    public static IdAllocator get() {
+        IdAllocator allocator = shared;
+        if (allocator == null) {
+            synchronized (IdAllocator.class) {
+                allocator = shared;
+                if (allocator == null) {
+                    allocator = new IdAllocator(IdAllocator::reserveFromSequence,
+                            AppConfig.getLong("revpay.ids.maxBlockAgeMs", 5000), System::currentTimeMillis);
+                    shared = allocator;
+                }
+            }
+        }
+        return allocator;
+    }
+
+    /**
+     * Returns the next ID of a sequence, reserving a new block on {@code conn} when
+     * the current one is used up or too old.
+     *
+     * @param conn     Connection used for the reservation round trip, if one is needed.
+     * @param sequence The sequence name, e.g. {@link #TRANSACTIONS}.
+     * @return A unique ID.
+     * @throws SQLException If a block could not be reserved.
+     */
+    public long next(Connection conn, String sequence) throws SQLException {
+        Range range = ranges.computeIfAbsent(sequence, s -> new Range());
+        synchronized (range) {
+            long now = clock.getAsLong();
+            if (range.next >= range.limit || now - range.reservedAt > maxBlockAgeMillis) {
+                if (range.next < range.limit) {
+                    MetricsRegistry.counter("ids.abandoned").add(range.limit - range.next);
+                }
+                Block block = source.reserve(conn, sequence);
+                range.next = block.getFirst();
+                range.limit = block.getFirst() + block.getSize();
+                range.reservedAt = now;
+                MetricsRegistry.counter("ids.blocks").increment();
+            }
+            return range.next++;
+        }
+    }
+
+    /**
+     * Reserves a block with one round trip: {@code NEXTVAL} plus the sequence's increment.
+     */
+    static Block reserveFromSequence(Connection conn, String sequence) throws SQLException {
+        if (!SEQUENCE_NAME.matcher(sequence).matches()) {
+            throw new SQLException("Invalid sequence name: " + sequence);
+        }
+        String sql = "/* ids.reserve */ SELECT " + sequence + ".NEXTVAL,"
+                + " (SELECT increment_by FROM user_sequences WHERE sequence_name = ?) FROM dual";
+        Stopwatch sw = MetricsRegistry.start("dao.IdAllocator.reserve");
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, sequence.toUpperCase());
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                throw new SQLException("No value from " + sequence);
+            }
+            long first = rs.getLong(1);
+            long increment = rs.getLong(2);
+            if (increment <= 1) {
+                logger.debug(sequence + " steps by 1: IDs are reserved one at a time");
+            }
+            return new Block(first, increment);
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to reserve IDs from " + sequence, e);
+            throw e;
+        } finally {
+            sw.stop();
+        }
+    }
+}
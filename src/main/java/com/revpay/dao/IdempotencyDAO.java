@@ -0,0 +1,138 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+
+/**
+ * Data Access Object for the {@code idempotency_keys} table.
+ * <p>
+ * A key is written by {@link #record(Connection, String, int, String)} on the
+ * connection of the money movement it guards, in the same transaction, so the key
+ * exists if and only if the movement committed. The primary key makes a concurrent
+ * retry wait for the first attempt and then see it as a duplicate.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class IdempotencyDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(IdempotencyDAO.class);
+
+    /** Oracle ORA-00001: unique constraint violated. */
+    private static final int UNIQUE_VIOLATION = 1;
+
+    /**
+     * Records a key inside the caller's transaction. Write it before touching
+     * wallets, so a duplicate is found before any row lock is taken.
+     *
+     * @param conn      The movement's connection (auto-commit off).
+     * @param key       The (user-scoped) idempotency key.
+     * @param userId    The user performing the operation.
+     * @param operation TRANSFER or DEPOSIT.
+     * @return {@code true} if recorded, {@code false} if the key was already committed.
+     * @throws SQLException On any other error; the caller rolls back.
+     */
+    static boolean record(Connection conn, String key, int userId, String operation) throws SQLException {
+        String sql = "/* idempotency.record */ INSERT INTO idempotency_keys (idem_key, user_id, operation, status) VALUES (?, ?, ?, 'SUCCESS')";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, key);
+            stmt.setInt(2, userId);
+            stmt.setString(3, operation);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            // Only the failed statement is undone; the caller's transaction stays usable
+            if (e instanceof SQLIntegrityConstraintViolationException || e.getErrorCode() == UNIQUE_VIOLATION) {
+                logger.info("Duplicate idempotency key for User " + userId + ": " + key);
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a key recorded earlier in the caller's transaction, for a movement that
+     * was then refused.
+     *
+     * @param conn The movement's connection.
+     * @param key  The (user-scoped) idempotency key.
+     * @throws SQLException On error; the caller rolls back.
+     */
+    static void forget(Connection conn, String key) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("/* idempotency.forget */ DELETE FROM idempotency_keys WHERE idem_key = ?")) {
+            stmt.setString(1, key);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Tells whether a key has been committed.
+     *
+     * @param key The (user-scoped) idempotency key.
+     * @return {@code TRUE} or {@code FALSE}, or {@code null} on error.
+     */
+    public Boolean isRecorded(String key) {
+        String sql = "SELECT 1 FROM idempotency_keys WHERE idem_key = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.IdempotencyDAO.isRecorded");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, key);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error reading idempotency key " + key, e);
+            return null;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Deletes completed keys created before {@code cutoff}, in chunks to keep undo small.
+     * Rows in any other state (e.g. {@code PENDING} rows left by older releases) are kept,
+     * since their outcome is unknown.
+     *
+     * @param cutoff    Keys older than this are removed.
+     * @param chunkSize Maximum rows deleted per statement.
+     * @return The number of keys deleted.
+     */
+    public int deleteOlderThan(Timestamp cutoff, int chunkSize) {
+        String sql = "/* idempotency.cleanup */ DELETE FROM idempotency_keys WHERE created_at < ? AND status = 'SUCCESS' AND ROWNUM <= ?";
+        Stopwatch sw = MetricsRegistry.start("dao.IdempotencyDAO.deleteOlderThan");
+        int total = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int deleted;
+            do {
+                stmt.setTimestamp(1, cutoff);
+                stmt.setInt(2, chunkSize);
+                deleted = stmt.executeUpdate();
+                total += deleted;
+            } while (deleted == chunkSize);
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Idempotency key cleanup failed after " + total + " rows", e);
+        } finally {
+            sw.stop();
+        }
+        return total;
+    }
+}
@@ -1,6 +1,8 @@
 package com.revpay.dao;
 
 import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import com.revpay.model.Invoice;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,15 +19,17 @@ public class InvoiceDAO {
 
 
     public boolean createInvoice(Invoice inv) {
-        String sql = "INSERT INTO invoices (business_id, customer_email, amount, description, status) VALUES (?, ?, ?, ?, 'PENDING')";
+        String sql = "INSERT INTO invoices (invoice_id, business_id, customer_email, amount, description, status) VALUES (?, ?, ?, ?, ?, 'PENDING')";
+        Stopwatch sw = MetricsRegistry.start("dao.InvoiceDAO.createInvoice");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, inv.getBusinessId());
-            stmt.setString(2, inv.getCustomerEmail());
-            stmt.setBigDecimal(3, inv.getAmount());
-            stmt.setString(4, inv.getDescription());
+            stmt.setLong(1, IdAllocator.get().next(conn, IdAllocator.INVOICES));
+            stmt.setInt(2, inv.getBusinessId());
+            stmt.setString(3, inv.getCustomerEmail());
+            stmt.setBigDecimal(4, inv.getAmount());
+            stmt.setString(5, inv.getDescription());
 
             int rowsAffected = stmt.executeUpdate();
 
@@ -34,15 +38,22 @@ public class InvoiceDAO {
                 return true;
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Failed to create invoice for customer: " + inv.getCustomerEmail(), e);
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
 
+    /**
+     * Lists a business's invoices with description previews; see {@link #getDescription(int)}.
+     */
     public List<Invoice> getInvoicesByBusiness(int businessId) {
+        Stopwatch sw = MetricsRegistry.start("dao.InvoiceDAO.getInvoicesByBusiness");
         List<Invoice> list = new ArrayList<>();
-        String sql = "SELECT * FROM invoices WHERE business_id = ?";
+        String sql = RowMappers.INVOICE_SUMMARY.select() + " WHERE business_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -50,19 +61,24 @@ public class InvoiceDAO {
             stmt.setInt(1, businessId);
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                list.add(mapRow(rs));
-            }
+            RowMappers.INVOICE_SUMMARY.mapAll(rs, list);
         } catch (SQLException e) {
+            sw.fail();
             logger.error(" Error fetching invoices for Business ID: " + businessId, e);
+        } finally {
+            sw.stop();
         }
         return list;
     }
 
 
+    /**
+     * Lists a customer's pending invoices with description previews; see {@link #getDescription(int)}.
+     */
     public List<Invoice> getInvoicesForCustomer(String email) {
+        Stopwatch sw = MetricsRegistry.start("dao.InvoiceDAO.getInvoicesForCustomer");
         List<Invoice> list = new ArrayList<>();
-        String sql = "SELECT * FROM invoices WHERE customer_email = ? AND status = 'PENDING'";
+        String sql = RowMappers.INVOICE_SUMMARY.select() + " WHERE customer_email = ? AND status = 'PENDING'";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -70,11 +86,12 @@ public class InvoiceDAO {
             stmt.setString(1, email);
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                list.add(mapRow(rs));
-            }
+            RowMappers.INVOICE_SUMMARY.mapAll(rs, list);
         } catch (SQLException e) {
+            sw.fail();
             logger.error(" Error fetching pending invoices for customer: " + email, e);
+        } finally {
+            sw.stop();
         }
         return list;
     }
@@ -82,6 +99,7 @@ public class InvoiceDAO {
 
     public boolean markAsPaid(int invoiceId) {
         String sql = "UPDATE invoices SET status = 'PAID' WHERE invoice_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.InvoiceDAO.markAsPaid");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -94,14 +112,18 @@ public class InvoiceDAO {
                 return true;
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error(" Failed to mark invoice #" + invoiceId + " as paid.", e);
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
 
     public Invoice getInvoiceById(int id) {
-        String sql = "SELECT * FROM invoices WHERE invoice_id = ?";
+        String sql = RowMappers.INVOICE.select() + " WHERE invoice_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.InvoiceDAO.getInvoiceById");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -110,24 +132,43 @@ public class InvoiceDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return mapRow(rs);
+                return RowMappers.INVOICE.map(rs);
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error fetching Invoice ID: " + id, e);
+        } finally {
+            sw.stop();
         }
         return null;
     }
 
 
-    private Invoice mapRow(ResultSet rs) throws SQLException {
-        Invoice i = new Invoice();
-        i.setInvoiceId(rs.getInt("invoice_id"));
-        i.setBusinessId(rs.getInt("business_id"));
-        i.setCustomerEmail(rs.getString("customer_email"));
-        i.setAmount(rs.getBigDecimal("amount"));
-        i.setDescription(rs.getString("description"));
-        i.setStatus(rs.getString("status"));
-        i.setCreatedAt(rs.getTimestamp("created_at"));
-        return i;
+    /**
+     * Reads the full description of one invoice.
+     *
+     * @return The description, or {@code null} if the invoice has none, does not exist, or on error.
+     */
+    public String getDescription(int invoiceId) {
+        String sql = "SELECT description FROM invoices WHERE invoice_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.InvoiceDAO.getDescription");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, invoiceId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getString(1);
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error fetching description of Invoice ID: " + invoiceId, e);
+        } finally {
+            sw.stop();
+        }
+        return null;
     }
+
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.ledger.LedgerEntry;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.Money;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object used by the in-memory ledger engines.
+ * <p>
+ * Provides the bulk operations those engines need: rebuilding balances from the
+ * {@code transactions} table, loading a single wallet, and persisting a batch of
+ * already-applied {@link LedgerEntry}s in one database transaction.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class LedgerDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(LedgerDAO.class);
+
+    private final IdAllocator idAllocator = IdAllocator.get();
+    private final IdempotencyDAO idempotencyDAO = new IdempotencyDAO();
+
+    /**
+     * Result of {@link #persist(List)}.
+     */
+    public enum PersistOutcome {
+        /** The batch was committed. */
+        COMMITTED,
+        /** The batch was rolled back for a reason that may pass (e.g. the database is down); retry it. */
+        FAILED,
+        /** The database refused the batch (e.g. a missing wallet or user); retrying it cannot succeed. */
+        REJECTED
+    }
+
+    /**
+     * Recomputes every user's balance (in minor units) from successful ledger rows.
+     * <p>
+     * Deposits, transfers and payments credit the receiver; transfers, payments and
+     * withdrawals debit the sender. Archived months count through their per-user net
+     * totals, and only the hot rows after them are summed.
+     * </p>
+     *
+     * @return Balances keyed by user ID. Empty on error.
+     */
+    public Map<Integer, Long> rebuildBalances() {
+        String sql = "/* ledger.rebuild */ SELECT user_id, SUM(delta) FROM ("
+                + " SELECT receiver_id AS user_id, amount AS delta FROM transactions"
+                + "  WHERE status = 'SUCCESS' AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT') AND receiver_id IS NOT NULL"
+                + "  AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " UNION ALL"
+                + " SELECT sender_id AS user_id, -amount AS delta FROM transactions"
+                + "  WHERE status = 'SUCCESS' AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL') AND sender_id IS NOT NULL"
+                + "  AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " UNION ALL"
+                + " SELECT user_id, net_amount FROM archived_balances"
+                + ") GROUP BY user_id";
+        Stopwatch sw = MetricsRegistry.start("dao.LedgerDAO.rebuildBalances");
+        Map<Integer, Long> balances = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setFetchSize(1000);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                balances.put(rs.getInt(1), MoneyColumns.getMinor(rs, 2));
+            }
+            logger.info("Ledger rebuilt from transactions: " + balances.size() + " wallets");
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to rebuild balances from transactions", e);
+            balances.clear();
+        } finally {
+            sw.stop();
+        }
+        return balances;
+    }
+
+    /**
+     * Loads a single wallet balance.
+     *
+     * @param userId The unique ID of the user.
+     * @return The balance in minor units, or {@code null} if the wallet does not exist or on error.
+     */
+    public Long loadBalance(int userId) {
+        String sql = "SELECT " + WalletShards.TOTAL_BALANCE + " FROM wallets w WHERE w.user_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.LedgerDAO.loadBalance");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return MoneyColumns.getMinor(rs, 1);
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error loading wallet for User ID " + userId, e);
+        } finally {
+            sw.stop();
+        }
+        return null;
+    }
+
+    /**
+     * Writes a batch of applied entries: one net balance delta per wallet, one
+     * {@code transactions} row per entry and (for journaled entries) the highest
+     * journal sequence in {@code ledger_checkpoint}, committed together with the
+     * entries' idempotency keys. Running
+     * balances are left for the backfill job, since only net deltas are written here.
+     * Rows are stamped with the database time of the insert, not the time the entry was
+     * applied in memory: a batch retried after an outage would otherwise commit rows
+     * that look minutes old and land behind the rollup watermark.
+     * A wallet UPDATE that matches no row rejects the batch, so a delta is never lost
+     * silently.
+     *
+     * @param entries Entries in the order they were applied.
+     * @return Whether the batch was committed, may be retried, or was rejected.
+     */
+    public PersistOutcome persist(List<LedgerEntry> entries) {
+        String walletSQL = "/* ledger.wallet */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?";
+        String logSQL = "/* ledger.log */ INSERT INTO transactions (transaction_id, sender_id, receiver_id, amount, transaction_type, status, txn_timestamp) VALUES (?, ?, ?, ?, ?, ?, SYSTIMESTAMP)";
+        String checkpointSQL = "/* ledger.checkpoint */ UPDATE ledger_checkpoint SET last_seq = ? WHERE checkpoint_id = 1 AND last_seq < ?";
+        Stopwatch sw = MetricsRegistry.start("dao.LedgerDAO.persist");
+
+        // Net the batch so each wallet row is touched once. Only this thread writes, so
+        // sharded wallets need no shard spreading here: deltas go to the main row.
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        long lastSeq = 0L;
+        for (LedgerEntry entry : entries) {
+            if (entry.getType() != TransactionType.DEPOSIT) {
+                deltas.merge(entry.getSenderId(), -entry.getAmountMinor(), Long::sum);
+            }
+            if (entry.getType() != TransactionType.WITHDRAWAL) {
+                deltas.merge(entry.getReceiverId(), entry.getAmountMinor(), Long::sum);
+            }
+            lastSeq = Math.max(lastSeq, entry.getSequence());
+        }
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Retry keys commit with their movements; the engine already filtered duplicates,
+            // so one found here was committed by another process and the batch is refused
+            for (LedgerEntry entry : entries) {
+                if (entry.getIdempotencyKey() != null && !IdempotencyDAO.record(conn, entry.getIdempotencyKey(),
+                        entry.getSenderId(), entry.getType().name())) {
+                    throw new SQLIntegrityConstraintViolationException("Idempotency key already recorded: " + entry.getIdempotencyKey());
+                }
+            }
+
+            try (PreparedStatement walletStmt = conn.prepareStatement(walletSQL)) {
+                List<Integer> updated = new ArrayList<>();
+                for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+                    if (delta.getValue() == 0L) {
+                        continue;
+                    }
+                    MoneyColumns.set(walletStmt, 1, Money.ofMinor(delta.getValue()));
+                    walletStmt.setInt(2, delta.getKey());
+                    walletStmt.addBatch();
+                    updated.add(delta.getKey());
+                }
+                int[] counts = walletStmt.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    // SUCCESS_NO_INFO is negative; only an explicit 0 means the wallet row is gone
+                    if (counts[i] == 0) {
+                        throw new SQLIntegrityConstraintViolationException("No wallet row for User ID " + updated.get(i));
+                    }
+                }
+            }
+
+            try (PreparedStatement logStmt = conn.prepareStatement(logSQL)) {
+                for (LedgerEntry entry : entries) {
+                    logStmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
+                    logStmt.setInt(2, entry.getSenderId());
+                    logStmt.setInt(3, entry.getReceiverId());
+                    MoneyColumns.set(logStmt, 4, Money.ofMinor(entry.getAmountMinor()));
+                    logStmt.setString(5, entry.getType().name());
+                    logStmt.setString(6, TransactionStatus.SUCCESS.name());
+                    logStmt.addBatch();
+                }
+                logStmt.executeBatch();
+            }
+
+            // Journaled batches advance the checkpoint atomically with the rows
+            if (lastSeq > 0) {
+                try (PreparedStatement seqStmt = conn.prepareStatement(checkpointSQL)) {
+                    seqStmt.setLong(1, lastSeq);
+                    seqStmt.setLong(2, lastSeq);
+                    seqStmt.executeUpdate();
+                }
+            }
+
+            conn.commit();
+            logger.debug("Persisted ledger batch of " + entries.size() + " entries");
+            return PersistOutcome.COMMITTED;
+
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to persist ledger batch of " + entries.size() + " entries. Rolling back...", e);
+            if (conn != null) {
+                try { conn.rollback(); } catch (SQLException ex) { logger.error("Rollback failed", ex); }
+            }
+            return isRejection(e) ? PersistOutcome.REJECTED : PersistOutcome.FAILED;
+        } finally {
+            sw.stop();
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) { logger.error("Error closing connection", e); }
+            }
+        }
+    }
+
+    /**
+     * Tells whether a movement with this idempotency key has been persisted.
+     *
+     * @param key The user-scoped key.
+     * @return {@code TRUE} or {@code FALSE}, or {@code null} on error.
+     */
+    public Boolean isKeyRecorded(String key) {
+        return idempotencyDAO.isRecorded(key);
+    }
+
+    /**
+     * Reads the highest write-ahead journal sequence already persisted.
+     *
+     * @return The checkpoint, or {@code -1} on error.
+     */
+    public long loadCheckpoint() {
+        String sql = "SELECT last_seq FROM ledger_checkpoint WHERE checkpoint_id = 1";
+        Stopwatch sw = MetricsRegistry.start("dao.LedgerDAO.loadCheckpoint");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error reading ledger checkpoint", e);
+            return -1L;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    // Constraint violations (ORA-00001, ORA-01400, ORA-02290/02291/02292) fail the same way on every retry
+    private static boolean isRejection(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            String state = cause.getSQLState();
+            if (cause instanceof SQLIntegrityConstraintViolationException || (state != null && state.startsWith("23"))) {
+                return true;
+            }
+            switch (cause.getErrorCode()) {
+                case 1:
+                case 1400:
+                case 2290:
+                case 2291:
+                case 2292:
+                    return true;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+}
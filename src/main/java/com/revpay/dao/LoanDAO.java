@@ -1,8 +1,9 @@
 package com.revpay.dao;
 
 import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import com.revpay.model.Loan;
-import com.revpay.model.LoanStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -21,14 +22,16 @@ public class LoanDAO {
 
 
     public boolean applyForLoan(Loan loan) {
-        String sql = "INSERT INTO loans (user_id, amount, reason, status) VALUES (?, ?, ?, 'PENDING')";
+        String sql = "INSERT INTO loans (loan_id, user_id, amount, reason, status) VALUES (?, ?, ?, ?, 'PENDING')";
+        Stopwatch sw = MetricsRegistry.start("dao.LoanDAO.applyForLoan");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, loan.getUserId());
-            stmt.setBigDecimal(2, loan.getAmount());
-            stmt.setString(3, loan.getReason());
+            stmt.setLong(1, IdAllocator.get().next(conn, IdAllocator.LOANS));
+            stmt.setInt(2, loan.getUserId());
+            stmt.setBigDecimal(3, loan.getAmount());
+            stmt.setString(4, loan.getReason());
 
             int rowsAffected = stmt.executeUpdate();
 
@@ -37,15 +40,22 @@ public class LoanDAO {
                 return true;
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Failed to submit loan application for User ID " + loan.getUserId(), e);
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
 
+    /**
+     * Lists a user's loans with reason previews; see {@link #getReason(int, int)}.
+     */
     public List<Loan> getLoansByUserId(int userId) {
+        Stopwatch sw = MetricsRegistry.start("dao.LoanDAO.getLoansByUserId");
         List<Loan> loans = new ArrayList<>();
-        String sql = "SELECT * FROM loans WHERE user_id = ?";
+        String sql = RowMappers.LOAN_SUMMARY.select() + " WHERE user_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -53,26 +63,44 @@ public class LoanDAO {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                Loan loan = new Loan();
-                loan.setLoanId(rs.getInt("loan_id"));
-                loan.setUserId(rs.getInt("user_id"));
-                loan.setAmount(rs.getBigDecimal("amount"));
-                loan.setReason(rs.getString("reason"));
-
-                // Safely parse enum string
-                try {
-                    loan.setStatus(LoanStatus.valueOf(rs.getString("status")));
-                } catch (IllegalArgumentException e) {
-                    logger.warn("Unknown loan status found in DB: " + rs.getString("status"));
-                }
-
-                loan.setAppliedAt(rs.getTimestamp("applied_at"));
-                loans.add(loan);
-            }
+            RowMappers.LOAN_SUMMARY.mapAll(rs, loans);
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error retrieving loans for User ID " + userId, e);
+        } finally {
+            sw.stop();
         }
         return loans;
     }
+
+
+    /**
+     * Reads the full reason of one of a user's loans.
+     *
+     * @param loanId The loan.
+     * @param userId The applicant; loans of other users are not returned.
+     * @return The reason, or {@code null} if there is none, the loan is not the user's, or on error.
+     */
+    public String getReason(int loanId, int userId) {
+        String sql = "SELECT reason FROM loans WHERE loan_id = ? AND user_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.LoanDAO.getReason");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, loanId);
+            stmt.setInt(2, userId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getString(1);
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error fetching reason of Loan ID " + loanId, e);
+        } finally {
+            sw.stop();
+        }
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.revpay.dao;
+
+import com.revpay.model.Money;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Maps {@link Money} to and from {@code NUMBER(15,2)} columns.
+ * <p>
+ * The driver exchanges {@code NUMBER} values as {@link BigDecimal}, so the
+ * conversion happens once here, at the JDBC boundary, and nowhere else on the
+ * money-movement path. An amount the column cannot hold is rejected with an
+ * {@link SQLException}, which the calling DAO already turns into a failed operation.
+ * </p>
+ * <p>
+ * Used only by DAOs in this package.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+final class MoneyColumns {
+
+    private MoneyColumns() {}
+
+    /**
+     * Binds an amount, or SQL {@code NULL} for {@code null}.
+     *
+     * @throws SQLException If the amount does not fit {@code NUMBER(15,2)}.
+     */
+    static void set(PreparedStatement stmt, int index, Money amount) throws SQLException {
+        if (amount == null) {
+            stmt.setNull(index, Types.NUMERIC);
+            return;
+        }
+        if (!amount.fitsColumn()) {
+            throw new SQLException("Amount " + amount + " exceeds NUMBER(15,2)");
+        }
+        stmt.setBigDecimal(index, amount.toBigDecimal());
+    }
+
+    /**
+     * @return The column's amount, or {@code null} for SQL {@code NULL}.
+     * @throws SQLException If the value has more than two decimals.
+     */
+    static Money get(ResultSet rs, String column) throws SQLException {
+        return toMoney(rs.getBigDecimal(column));
+    }
+
+    /**
+     * @return The column's amount, or {@code null} for SQL {@code NULL}.
+     * @throws SQLException If the value has more than two decimals.
+     */
+    static Money get(ResultSet rs, int column) throws SQLException {
+        return toMoney(rs.getBigDecimal(column));
+    }
+
+    /**
+     * @return The column's amount in minor units, {@code 0} for SQL {@code NULL}.
+     * @throws SQLException If the value has more than two decimals.
+     */
+    static long getMinor(ResultSet rs, int column) throws SQLException {
+        Money amount = get(rs, column);
+        return amount == null ? 0L : amount.getMinor();
+    }
+
+    private static Money toMoney(BigDecimal value) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Money.of(value);
+        } catch (ArithmeticException e) {
+            throw new SQLException("Amount " + value + " is not a NUMBER(15,2) value", e);
+        }
+    }
+}
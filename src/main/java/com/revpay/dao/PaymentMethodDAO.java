@@ -1,6 +1,8 @@
 package com.revpay.dao;
 
 import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import com.revpay.model.PaymentMethod;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,16 +19,18 @@ public class PaymentMethodDAO {
 
 
     public boolean addPaymentMethod(PaymentMethod pm) {
-        String sql = "INSERT INTO payment_methods (user_id, card_number_encrypted, card_type, expiry_date) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO payment_methods (method_id, user_id, card_number_encrypted, card_type, expiry_date) VALUES (?, ?, ?, ?, ?)";
+        Stopwatch sw = MetricsRegistry.start("dao.PaymentMethodDAO.addPaymentMethod");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, pm.getUserId());
+            stmt.setLong(1, IdAllocator.get().next(conn, IdAllocator.PAYMENT_METHODS));
+            stmt.setInt(2, pm.getUserId());
             // TODO: Integrate AES Encryption Service here for Production
-            stmt.setString(2, pm.getCardNumber());
-            stmt.setString(3, pm.getCardType());
-            stmt.setDate(4, pm.getExpiryDate());
+            stmt.setString(3, pm.getCardNumber());
+            stmt.setString(4, pm.getCardType());
+            stmt.setDate(5, pm.getExpiryDate());
 
             int rowsAffected = stmt.executeUpdate();
 
@@ -37,15 +41,19 @@ public class PaymentMethodDAO {
                 return true;
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Failed to add payment method for User ID " + pm.getUserId(), e);
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
 
     public List<PaymentMethod> getMethodsByUserId(int userId) {
+        Stopwatch sw = MetricsRegistry.start("dao.PaymentMethodDAO.getMethodsByUserId");
         List<PaymentMethod> list = new ArrayList<>();
-        String sql = "SELECT * FROM payment_methods WHERE user_id = ?";
+        String sql = RowMappers.PAYMENT_METHOD.select() + " WHERE user_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -53,17 +61,12 @@ public class PaymentMethodDAO {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                PaymentMethod pm = new PaymentMethod();
-                pm.setMethodId(rs.getInt("method_id"));
-                pm.setUserId(rs.getInt("user_id"));
-                pm.setCardNumber(rs.getString("card_number_encrypted"));
-                pm.setCardType(rs.getString("card_type"));
-                pm.setExpiryDate(rs.getDate("expiry_date"));
-                list.add(pm);
-            }
+            RowMappers.PAYMENT_METHOD.mapAll(rs, list);
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error fetching payment methods for User ID " + userId, e);
+        } finally {
+            sw.stop();
         }
         return list;
     }
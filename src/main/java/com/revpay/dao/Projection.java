@@ -0,0 +1,88 @@
+package com.revpay.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An explicit column list of one table together with the positional
+ * {@link RowMapper} that reads it.
+ * <p>
+ * Queries are built from {@link #select()} instead of {@code SELECT *}, so only
+ * the listed columns cross the network and the mapper can read them by index
+ * rather than resolving a column name for every cell. Keeping the list and the
+ * mapper in one place means they cannot drift apart.
+ * </p>
+ *
+ * @param <T> The mapped type.
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class Projection<T> {
+
+    private final String table;
+    private final List<String> columns;
+    private final String select;
+    private final RowMapper<T> mapper;
+
+    /**
+     * @param table   The table (optionally with an alias) the columns come from.
+     * @param mapper  Reads columns 1..n in the order given.
+     * @param columns The column list, in mapper order.
+     */
+    public Projection(String table, RowMapper<T> mapper, String... columns) {
+        this.table = table;
+        this.columns = List.of(columns);
+        this.select = "SELECT " + String.join(", ", columns) + " FROM " + table;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @return {@code SELECT <columns> FROM <table>}, ready for a {@code WHERE} clause.
+     */
+    public String select() {
+        return select;
+    }
+
+    /**
+     * @return The table this projection reads.
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return The column names, in position order.
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Maps the current row.
+     */
+    public T map(ResultSet rs) throws SQLException {
+        return mapper.mapRow(rs);
+    }
+
+    /**
+     * Maps every remaining row.
+     */
+    public List<T> mapAll(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(mapper.mapRow(rs));
+        }
+        return rows;
+    }
+
+    /**
+     * Maps remaining rows into an existing list, so rows read before an error are kept.
+     */
+    public void mapAll(ResultSet rs, List<T> into) throws SQLException {
+        while (rs.next()) {
+            into.add(mapper.mapRow(rs));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.BalanceDiscrepancy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object that compares wallets with the ledger, one user ID range at a time.
+ * <p>
+ * A range is read inside a single {@code READ ONLY} transaction, so the ledger rows
+ * and the wallet rows come from the same consistent snapshot and transfers running
+ * meanwhile do not show up as false discrepancies. Ledger rows are streamed and
+ * summed into an array sized by the range, so memory does not grow with the number
+ * of transactions.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class ReconciliationDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(ReconciliationDAO.class);
+
+    private static final int FETCH_SIZE = 5000;
+
+    /**
+     * @return The highest user ID that owns a wallet, 0 if there are none, or -1 on error.
+     */
+    public int findMaxUserId() {
+        String sql = "SELECT NVL(MAX(user_id), 0) FROM wallets";
+        Stopwatch sw = MetricsRegistry.start("dao.ReconciliationDAO.findMaxUserId");
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error reading highest wallet user ID", e);
+            return -1;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Reconciles the users with {@code fromUserId <= user_id < toUserId}.
+     * <p>
+     * The ledger balance follows {@link LedgerDAO#rebuildBalances()}: successful
+     * deposits, transfers and payments credit the receiver; transfers, payments and
+     * withdrawals debit the sender. Archived months count through their per-user net
+     * totals.
+     * </p>
+     *
+     * @param fromUserId First user ID of the range (inclusive).
+     * @param toUserId   End of the range (exclusive).
+     * @return The users whose wallet differs from their ledger, or {@code null} on error.
+     */
+    public List<BalanceDiscrepancy> reconcileRange(int fromUserId, int toUserId) {
+        String ledgerSQL = "/* reconcile.ledger */ SELECT receiver_id, amount FROM transactions"
+                + " WHERE receiver_id >= ? AND receiver_id < ? AND status = 'SUCCESS' AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT')"
+                + " AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " UNION ALL"
+                + " SELECT sender_id, -amount FROM transactions"
+                + " WHERE sender_id >= ? AND sender_id < ? AND status = 'SUCCESS' AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL')"
+                + " AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " UNION ALL"
+                + " SELECT user_id, net_amount FROM archived_balances WHERE user_id >= ? AND user_id < ?";
+        String walletSQL = "/* reconcile.wallets */ SELECT w.user_id, " + WalletShards.TOTAL_BALANCE + " FROM wallets w"
+                + " WHERE w.user_id >= ? AND w.user_id < ?";
+        Stopwatch sw = MetricsRegistry.start("dao.ReconciliationDAO.reconcileRange");
+
+        int size = toUserId - fromUserId;
+        long[] ledger = new long[size];
+        long[] wallets = new long[size];
+        boolean[] hasWallet = new boolean[size];
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection(Workload.HEAVY);
+            conn.setAutoCommit(false);
+            try (Statement snapshot = conn.createStatement()) {
+                snapshot.execute("SET TRANSACTION READ ONLY");
+            }
+
+            // 1. Stream the range's ledger rows and sum them per user
+            long rows = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(ledgerSQL)) {
+                stmt.setInt(1, fromUserId);
+                stmt.setInt(2, toUserId);
+                stmt.setInt(3, fromUserId);
+                stmt.setInt(4, toUserId);
+                stmt.setInt(5, fromUserId);
+                stmt.setInt(6, toUserId);
+                stmt.setFetchSize(FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    ledger[rs.getInt(1) - fromUserId] += MoneyColumns.getMinor(rs, 2);
+                    rows++;
+                }
+            }
+
+            // 2. Read the wallets of the same range from the same snapshot
+            try (PreparedStatement stmt = conn.prepareStatement(walletSQL)) {
+                stmt.setInt(1, fromUserId);
+                stmt.setInt(2, toUserId);
+                stmt.setFetchSize(FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    int index = rs.getInt(1) - fromUserId;
+                    wallets[index] = MoneyColumns.getMinor(rs, 2);
+                    hasWallet[index] = true;
+                }
+            }
+            conn.commit(); // Ends the read-only transaction
+
+            List<BalanceDiscrepancy> discrepancies = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (hasWallet[i] ? wallets[i] != ledger[i] : ledger[i] != 0L) {
+                    discrepancies.add(new BalanceDiscrepancy(fromUserId + i,
+                            hasWallet[i] ? BigDecimal.valueOf(wallets[i], 2) : null, BigDecimal.valueOf(ledger[i], 2)));
+                }
+            }
+            MetricsRegistry.counter("reconciliation.rows").add(rows);
+            return discrepancies;
+
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Reconciliation failed for users " + fromUserId + " to " + (toUserId - 1), e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Critical: Rollback failed!", ex);
+                }
+            }
+            return null;
+        } finally {
+            sw.stop();
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing connection", e);
+                }
+            }
+        }
+    }
+}
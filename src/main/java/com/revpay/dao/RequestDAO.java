@@ -1,6 +1,8 @@
 package com.revpay.dao;
 
 import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import com.revpay.model.PaymentRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,14 +19,16 @@ public class RequestDAO {
 
 
     public boolean createRequest(PaymentRequest req) {
-        String sql = "INSERT INTO payment_requests (requester_id, payer_id, amount, status) VALUES (?, ?, ?, 'PENDING')";
+        String sql = "INSERT INTO payment_requests (request_id, requester_id, payer_id, amount, status) VALUES (?, ?, ?, ?, 'PENDING')";
+        Stopwatch sw = MetricsRegistry.start("dao.RequestDAO.createRequest");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setInt(1, req.getRequesterId());
-            stmt.setInt(2, req.getPayerId());
-            stmt.setBigDecimal(3, req.getAmount());
+            stmt.setLong(1, IdAllocator.get().next(conn, IdAllocator.PAYMENT_REQUESTS));
+            stmt.setInt(2, req.getRequesterId());
+            stmt.setInt(3, req.getPayerId());
+            stmt.setBigDecimal(4, req.getAmount());
 
             int rowsAffected = stmt.executeUpdate();
 
@@ -33,15 +37,19 @@ public class RequestDAO {
                 return true;
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Failed to create payment request from User " + req.getRequesterId() + " to " + req.getPayerId(), e);
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
 
     public List<PaymentRequest> getIncomingRequests(int userId) {
+        Stopwatch sw = MetricsRegistry.start("dao.RequestDAO.getIncomingRequests");
         List<PaymentRequest> list = new ArrayList<>();
-        String sql = "SELECT * FROM payment_requests WHERE payer_id = ? AND status = 'PENDING'";
+        String sql = RowMappers.PAYMENT_REQUEST.select() + " WHERE payer_id = ? AND status = 'PENDING'";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -49,17 +57,12 @@ public class RequestDAO {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                PaymentRequest r = new PaymentRequest();
-                r.setRequestId(rs.getInt("request_id"));
-                r.setRequesterId(rs.getInt("requester_id"));
-                r.setPayerId(rs.getInt("payer_id"));
-                r.setAmount(rs.getBigDecimal("amount"));
-                r.setStatus(rs.getString("status"));
-                list.add(r);
-            }
+            RowMappers.PAYMENT_REQUEST.mapAll(rs, list);
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error fetching incoming requests for User ID " + userId, e);
+        } finally {
+            sw.stop();
         }
         return list;
     }
@@ -67,6 +70,7 @@ public class RequestDAO {
 
     public boolean updateStatus(int requestId, String status) {
         String sql = "UPDATE payment_requests SET status = ? WHERE request_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.RequestDAO.updateStatus");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -81,14 +85,18 @@ public class RequestDAO {
                 return true;
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Failed to update status for Request ID " + requestId, e);
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
 
     public PaymentRequest getRequestById(int requestId) {
-        String sql = "SELECT * FROM payment_requests WHERE request_id = ?";
+        String sql = RowMappers.PAYMENT_REQUEST.select() + " WHERE request_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.RequestDAO.getRequestById");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -97,16 +105,13 @@ public class RequestDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                PaymentRequest r = new PaymentRequest();
-                r.setRequestId(rs.getInt("request_id"));
-                r.setRequesterId(rs.getInt("requester_id"));
-                r.setPayerId(rs.getInt("payer_id"));
-                r.setAmount(rs.getBigDecimal("amount"));
-                r.setStatus(rs.getString("status")); // Ensure status is also retrieved
-                return r;
+                return RowMappers.PAYMENT_REQUEST.map(rs);
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error fetching Request ID " + requestId, e);
+        } finally {
+            sw.stop();
         }
         return null;
     }
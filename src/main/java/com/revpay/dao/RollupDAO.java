@@ -0,0 +1,246 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.TransactionSummary;
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the daily and monthly transaction rollups.
+ * <p>
+ * Rollups are refreshed from {@code transactions} in transaction ID order. Each
+ * refresh step folds the rows after the watermark into both rollup tables with a
+ * set-based {@code MERGE} and advances the watermark in the same transaction, so a
+ * row is counted exactly once even if the job stops halfway.
+ * </p>
+ * <p>
+ * Reads combine the rollup rows with the few transactions past the watermark, so
+ * summaries are exact without waiting for the next refresh.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class RollupDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(RollupDAO.class);
+
+    // Rows that credit (IN) or debit (OUT) a user, as in LedgerDAO#rebuildBalances
+    private static final String MOVEMENTS =
+            " SELECT receiver_id AS user_id, txn_timestamp, transaction_type, 'IN' AS direction, amount FROM transactions"
+            + "  WHERE transaction_id > ? AND transaction_id <= ? AND status = 'SUCCESS' AND receiver_id IS NOT NULL"
+            + "  AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT')"
+            + " UNION ALL"
+            + " SELECT sender_id, txn_timestamp, transaction_type, 'OUT', amount FROM transactions"
+            + "  WHERE transaction_id > ? AND transaction_id <= ? AND status = 'SUCCESS' AND sender_id IS NOT NULL"
+            + "  AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL')";
+
+    /**
+     * @return The ID of the last transaction folded into the rollups, or -1 on error.
+     */
+    public long loadWatermark() {
+        String sql = "SELECT last_txn_id FROM rollup_watermark WHERE rollup_id = 1";
+        Stopwatch sw = MetricsRegistry.start("dao.RollupDAO.loadWatermark");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error reading rollup watermark", e);
+            return -1L;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Finds how far the rollups can safely advance.
+     * <p>
+     * Transaction IDs are assigned at insert but become visible at commit, so rows
+     * newer than {@code settledBefore} are left for a later refresh: the bound stops
+     * just before the first such row.
+     * </p>
+     * <p>
+     * This relies on every insert path stamping {@code txn_timestamp} with the time of
+     * the insert (the column default or {@code SYSTIMESTAMP}), and on ID blocks being
+     * used for less than the settle time ({@code revpay.ids.maxBlockAgeMs}). A row
+     * stamped with an earlier time could commit below the watermark and never be folded in.
+     * </p>
+     *
+     * @param afterId       The current watermark.
+     * @param settledBefore Only transactions older than this are folded in.
+     * @return The highest transaction ID that may be folded in, or -1 on error.
+     */
+    public long findRefreshBound(long afterId, Timestamp settledBefore) {
+        String sql = "/* rollup.bound */ SELECT NVL("
+                + " (SELECT MIN(transaction_id) - 1 FROM transactions WHERE transaction_id > ? AND txn_timestamp >= ?),"
+                + " (SELECT NVL(MAX(transaction_id), 0) FROM transactions)) FROM dual";
+        Stopwatch sw = MetricsRegistry.start("dao.RollupDAO.findRefreshBound");
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, afterId);
+            stmt.setTimestamp(2, settledBefore);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : afterId;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error finding rollup refresh bound", e);
+            return -1L;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Folds transactions {@code afterId < transaction_id <= upToId} into the daily
+     * and monthly rollups and moves the watermark to {@code upToId}, in one transaction.
+     *
+     * @param afterId The current watermark; the step is rejected if another refresh moved it.
+     * @param upToId  The new watermark.
+     * @return {@code true} if the step was committed.
+     */
+    public boolean refresh(long afterId, long upToId) {
+        String watermarkSQL = "/* rollup.watermark */ UPDATE rollup_watermark SET last_txn_id = ? WHERE rollup_id = 1 AND last_txn_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.RollupDAO.refresh");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection(Workload.HEAVY);
+            conn.setAutoCommit(false);
+
+            // Claim the step first: a concurrent refresh fails here instead of double counting
+            try (PreparedStatement stmt = conn.prepareStatement(watermarkSQL)) {
+                stmt.setLong(1, upToId);
+                stmt.setLong(2, afterId);
+                if (stmt.executeUpdate() == 0) {
+                    logger.warn("Rollup watermark moved past " + afterId + " by another refresh");
+                    conn.rollback();
+                    return false;
+                }
+            }
+
+            int daily = merge(conn, "txn_rollup_daily", "TRUNC(txn_timestamp)", afterId, upToId);
+            int monthly = merge(conn, "txn_rollup_monthly", "TRUNC(txn_timestamp, 'MM')", afterId, upToId);
+            conn.commit();
+
+            logger.debug("Rollups refreshed to transaction " + upToId + " (" + daily + " daily, " + monthly + " monthly rows)");
+            return true;
+
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Rollup refresh failed for transactions " + afterId + " to " + upToId, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Critical: Rollback failed!", ex);
+                }
+            }
+            return false;
+        } finally {
+            sw.stop();
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a user's summary for {@code from <= period < to}.
+     *
+     * @param userId  The user.
+     * @param monthly {@code true} for one line per month, {@code false} per day.
+     * @param from    Start of the first period (inclusive).
+     * @param to      End of the range (exclusive).
+     * @return Summary lines ordered by period, type and direction. Empty on error.
+     */
+    public List<TransactionSummary> loadSummaries(int userId, boolean monthly, Timestamp from, Timestamp to) {
+        String table = monthly ? "txn_rollup_monthly" : "txn_rollup_daily";
+        String period = monthly ? "TRUNC(txn_timestamp, 'MM')" : "TRUNC(txn_timestamp)";
+        String watermark = "(SELECT last_txn_id FROM rollup_watermark WHERE rollup_id = 1)";
+        // Rollup rows plus the not-yet-rolled-up tail, read in one statement (one snapshot)
+        String sql = "/* rollup.read */ SELECT period_start, transaction_type, direction, SUM(txn_count), SUM(total_amount) FROM ("
+                + " SELECT period_start, transaction_type, direction, txn_count, total_amount FROM " + table
+                + "  WHERE user_id = ? AND period_start >= ? AND period_start < ?"
+                + " UNION ALL"
+                + " SELECT " + period + ", transaction_type, 'IN', 1, amount FROM transactions"
+                + "  WHERE transaction_id > " + watermark + " AND receiver_id = ? AND status = 'SUCCESS'"
+                + "  AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT') AND txn_timestamp >= ? AND txn_timestamp < ?"
+                + " UNION ALL"
+                + " SELECT " + period + ", transaction_type, 'OUT', 1, amount FROM transactions"
+                + "  WHERE transaction_id > " + watermark + " AND sender_id = ? AND status = 'SUCCESS'"
+                + "  AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL') AND txn_timestamp >= ? AND txn_timestamp < ?"
+                + ") GROUP BY period_start, transaction_type, direction ORDER BY period_start, transaction_type, direction";
+        Stopwatch sw = MetricsRegistry.start("dao.RollupDAO.loadSummaries");
+        List<TransactionSummary> summaries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int part = 0; part < 3; part++) {
+                stmt.setInt(part * 3 + 1, userId);
+                stmt.setTimestamp(part * 3 + 2, from);
+                stmt.setTimestamp(part * 3 + 3, to);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                summaries.add(new TransactionSummary(
+                        rs.getTimestamp(1).toLocalDateTime().toLocalDate(),
+                        TransactionType.valueOf(rs.getString(2)),
+                        TransactionSummary.Direction.valueOf(rs.getString(3)),
+                        rs.getLong(4),
+                        rs.getBigDecimal(5)));
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error loading " + (monthly ? "monthly" : "daily") + " summary for User ID " + userId, e);
+            summaries.clear();
+        } finally {
+            sw.stop();
+        }
+        return summaries;
+    }
+
+    // Adds one step's movements to a rollup table; returns the number of rollup rows touched
+    private int merge(Connection conn, String table, String period, long afterId, long upToId) throws SQLException {
+        String sql = "/* rollup.merge */ MERGE INTO " + table + " r USING ("
+                + " SELECT user_id, " + period + " AS period_start, transaction_type, direction, COUNT(*) AS cnt, SUM(amount) AS total"
+                + " FROM (" + MOVEMENTS + ")"
+                + " GROUP BY user_id, " + period + ", transaction_type, direction"
+                + ") d ON (r.user_id = d.user_id AND r.period_start = d.period_start"
+                + " AND r.transaction_type = d.transaction_type AND r.direction = d.direction)"
+                + " WHEN MATCHED THEN UPDATE SET r.txn_count = r.txn_count + d.cnt, r.total_amount = r.total_amount + d.total"
+                + " WHEN NOT MATCHED THEN INSERT (user_id, period_start, transaction_type, direction, txn_count, total_amount)"
+                + " VALUES (d.user_id, d.period_start, d.transaction_type, d.direction, d.cnt, d.total)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, afterId);
+            stmt.setLong(2, upToId);
+            stmt.setLong(3, afterId);
+            stmt.setLong(4, upToId);
+            return stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.revpay.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds one object from the current row of a {@link ResultSet}.
+ * <p>
+ * Mappers read columns by position (1-based), in the order of the
+ * {@link Projection} they belong to; they never call {@code next()}.
+ * </p>
+ *
+ * @param <T> The mapped type.
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * @param rs A result set positioned on a row.
+     * @return The mapped row.
+     * @throws SQLException If a column cannot be read.
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+}
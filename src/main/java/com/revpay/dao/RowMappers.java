@@ -0,0 +1,184 @@
+package com.revpay.dao;
+
+import com.revpay.model.BalanceHold;
+import com.revpay.model.Invoice;
+import com.revpay.model.Loan;
+import com.revpay.model.LoanStatus;
+import com.revpay.model.PaymentMethod;
+import com.revpay.model.PaymentRequest;
+import com.revpay.model.Role;
+import com.revpay.model.ScheduledTransfer;
+import com.revpay.model.Transaction;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+import com.revpay.model.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The projections used by the DAOs, one per table.
+ * <p>
+ * Each column list is written next to the mapper that reads it, column by column,
+ * in the same order. To add a column, append it to the list and read it at the next
+ * index.
+ * </p>
+ * <p>
+ * The {@code *_SUMMARY} projections are for list views: instead of the CLOB column
+ * they select its first {@link #PREVIEW_CHARS} characters with {@code DBMS_LOB.SUBSTR},
+ * which comes back inline as a VARCHAR2 rather than as a LOB locator that costs
+ * extra round trips to read. One more character than shown is fetched, so a cut
+ * preview can be marked with an ellipsis.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class RowMappers {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(RowMappers.class);
+
+    /** Characters of a CLOB column shown in summary lists. */
+    public static final int PREVIEW_CHARS = 80;
+
+    private RowMappers() {}
+
+    public static final Projection<User> USER = new Projection<>("users", rs -> {
+        User user = new User();
+        user.setUserId(rs.getInt(1));
+        user.setEmail(rs.getString(2));
+        user.setPhoneNumber(rs.getString(3));
+        user.setPasswordHash(rs.getString(4));
+        user.setTransactionPin(rs.getString(5));
+        user.setFullName(rs.getString(6));
+        String role = rs.getString(7);
+        try {
+            user.setRole(Role.valueOf(role));
+        } catch (RuntimeException e) {
+            logger.warn("Invalid Role found for user " + user.getEmail());
+            user.setRole(Role.PERSONAL); // Default fallback
+        }
+        return user;
+    }, "user_id", "email", "phone_number", "password_hash", "transaction_pin", "full_name", "role");
+
+    public static final Projection<PaymentMethod> PAYMENT_METHOD = new Projection<>("payment_methods", rs -> {
+        PaymentMethod pm = new PaymentMethod();
+        pm.setMethodId(rs.getInt(1));
+        pm.setUserId(rs.getInt(2));
+        pm.setCardNumber(rs.getString(3));
+        pm.setCardType(rs.getString(4));
+        pm.setExpiryDate(rs.getDate(5));
+        return pm;
+    }, "method_id", "user_id", "card_number_encrypted", "card_type", "expiry_date");
+
+    public static final Projection<Transaction> TRANSACTION = new Projection<>("transactions", rs -> {
+        Transaction t = new Transaction();
+        t.setTransactionId(rs.getInt(1));
+        t.setSenderId(rs.getInt(2));
+        t.setReceiverId(rs.getInt(3));
+        t.setAmount(rs.getBigDecimal(4));
+        t.setType(TransactionType.valueOf(rs.getString(5)));
+        t.setStatus(TransactionStatus.valueOf(rs.getString(6)));
+        t.setTimestamp(rs.getTimestamp(7));
+        t.setSenderBalanceAfter(rs.getBigDecimal(8));
+        t.setReceiverBalanceAfter(rs.getBigDecimal(9));
+        return t;
+    }, "transaction_id", "sender_id", "receiver_id", "amount", "transaction_type", "status", "txn_timestamp",
+            "sender_balance_after", "receiver_balance_after");
+
+    public static final Projection<PaymentRequest> PAYMENT_REQUEST = new Projection<>("payment_requests", rs -> {
+        PaymentRequest r = new PaymentRequest();
+        r.setRequestId(rs.getInt(1));
+        r.setRequesterId(rs.getInt(2));
+        r.setPayerId(rs.getInt(3));
+        r.setAmount(rs.getBigDecimal(4));
+        r.setStatus(rs.getString(5));
+        return r;
+    }, "request_id", "requester_id", "payer_id", "amount", "status");
+
+    public static final Projection<Invoice> INVOICE = new Projection<>("invoices", rs -> {
+        Invoice i = new Invoice();
+        i.setInvoiceId(rs.getInt(1));
+        i.setBusinessId(rs.getInt(2));
+        i.setCustomerEmail(rs.getString(3));
+        i.setAmount(rs.getBigDecimal(4));
+        i.setDescription(rs.getString(5));
+        i.setStatus(rs.getString(6));
+        i.setCreatedAt(rs.getTimestamp(7));
+        return i;
+    }, "invoice_id", "business_id", "customer_email", "amount", "description", "status", "created_at");
+
+    public static final Projection<Loan> LOAN = new Projection<>("loans", rs -> {
+        Loan loan = new Loan();
+        loan.setLoanId(rs.getInt(1));
+        loan.setUserId(rs.getInt(2));
+        loan.setAmount(rs.getBigDecimal(3));
+        loan.setReason(rs.getString(4));
+        String status = rs.getString(5);
+        try {
+            loan.setStatus(LoanStatus.valueOf(status));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown loan status found in DB: " + status);
+        }
+        loan.setAppliedAt(rs.getTimestamp(6));
+        return loan;
+    }, "loan_id", "user_id", "amount", "reason", "status", "applied_at");
+
+    public static final Projection<BalanceHold> BALANCE_HOLD = new Projection<>("balance_holds", rs -> {
+        BalanceHold hold = new BalanceHold();
+        hold.setHoldId(rs.getInt(1));
+        hold.setUserId(rs.getInt(2));
+        hold.setType(BalanceHold.Type.valueOf(rs.getString(3)));
+        hold.setAmount(MoneyColumns.get(rs, 4));
+        hold.setStatus(BalanceHold.Status.valueOf(rs.getString(5)));
+        hold.setReference(rs.getString(6));
+        hold.setExpiresAt(rs.getTimestamp(7));
+        hold.setSettleOnExpiry("SETTLE".equals(rs.getString(8)));
+        return hold;
+    }, "hold_id", "user_id", "hold_type", "amount", "status", "reference", "expires_at", "on_expiry");
+
+    public static final Projection<ScheduledTransfer> SCHEDULED_TRANSFER = new Projection<>("scheduled_transfers", rs -> {
+        ScheduledTransfer s = new ScheduledTransfer();
+        s.setScheduleId(rs.getInt(1));
+        s.setSenderId(rs.getInt(2));
+        s.setReceiverId(rs.getInt(3));
+        s.setAmount(MoneyColumns.get(rs, 4));
+        s.setFrequency(ScheduledTransfer.Frequency.valueOf(rs.getString(5)));
+        s.setStartAt(rs.getTimestamp(6));
+        s.setNextRunAt(rs.getTimestamp(7));
+        s.setRunNumber(rs.getInt(8));
+        s.setMaxRuns(rs.getInt(9));
+        s.setStatus(ScheduledTransfer.Status.valueOf(rs.getString(10)));
+        s.setLastStatus(rs.getString(11));
+        return s;
+    }, "schedule_id", "sender_id", "receiver_id", "amount", "frequency", "start_at", "next_run_at",
+            "run_number", "max_runs", "status", "last_status");
+
+    public static final Projection<Invoice> INVOICE_SUMMARY = new Projection<>("invoices", rs -> {
+        Invoice i = INVOICE.map(rs);
+        i.setDescription(preview(i.getDescription()));
+        return i;
+    }, "invoice_id", "business_id", "customer_email", "amount", clobPrefix("description"), "status", "created_at");
+
+    public static final Projection<Loan> LOAN_SUMMARY = new Projection<>("loans", rs -> {
+        Loan loan = LOAN.map(rs);
+        loan.setReason(preview(loan.getReason()));
+        return loan;
+    }, "loan_id", "user_id", "amount", clobPrefix("reason"), "status", "applied_at");
+
+    /**
+     * Shortens text to {@link #PREVIEW_CHARS} characters, ending a cut preview with "…".
+     *
+     * @return The preview, or the text itself if it is short enough (or {@code null}).
+     */
+    public static String preview(String text) {
+        if (text == null || text.length() <= PREVIEW_CHARS) {
+            return text;
+        }
+        return text.substring(0, PREVIEW_CHARS - 1) + "…";
+    }
+
+    private static String clobPrefix(String column) {
+        return "DBMS_LOB.SUBSTR(" + column + ", " + (PREVIEW_CHARS + 1) + ", 1) AS " + column;
+    }
+}
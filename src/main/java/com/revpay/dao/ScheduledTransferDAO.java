@@ -0,0 +1,258 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.ScheduledTransfer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object for the {@code scheduled_transfers} table (standing orders).
+ * <p>
+ * The scheduler never scans the table: it reads upcoming runs through the
+ * function-based index {@code idx_sched_due}, which only holds active orders, and
+ * moves an order to its next run with a compare-and-set on {@code run_number}, so two
+ * schedulers (or a retry after a crash) cannot record the same run twice.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class ScheduledTransferDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(ScheduledTransferDAO.class);
+
+    // Keeps IN lists well below Oracle's limit of 1000 expressions
+    private static final int IN_LIST_SIZE = 500;
+
+    private final IdAllocator idAllocator = IdAllocator.get();
+
+    /**
+     * Saves a new standing order.
+     *
+     * @param schedule The order; its ID is set on success.
+     * @return The new schedule ID, or -1 on error.
+     */
+    public int createSchedule(ScheduledTransfer schedule) {
+        String sql = "/* sched.insert */ INSERT INTO scheduled_transfers (schedule_id, sender_id, receiver_id, amount, frequency,"
+                + " start_at, next_run_at, run_number, max_runs, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Stopwatch sw = MetricsRegistry.start("dao.ScheduledTransferDAO.createSchedule");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int scheduleId = (int) idAllocator.next(conn, IdAllocator.SCHEDULED_TRANSFERS);
+            stmt.setInt(1, scheduleId);
+            stmt.setInt(2, schedule.getSenderId());
+            stmt.setInt(3, schedule.getReceiverId());
+            MoneyColumns.set(stmt, 4, schedule.getAmount());
+            stmt.setString(5, schedule.getFrequency().name());
+            stmt.setTimestamp(6, schedule.getStartAt());
+            stmt.setTimestamp(7, schedule.getNextRunAt());
+            stmt.setInt(8, schedule.getRunNumber());
+            stmt.setInt(9, schedule.getMaxRuns());
+            stmt.setString(10, schedule.getStatus().name());
+            stmt.executeUpdate();
+
+            schedule.setScheduleId(scheduleId);
+            logger.info("  Standing order created: " + schedule);
+            return scheduleId;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to create standing order for User ID " + schedule.getSenderId(), e);
+            return -1;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Lists the standing orders a user pays, newest first.
+     *
+     * @param senderId The ID of the paying user.
+     * @return The orders. Empty on error.
+     */
+    public List<ScheduledTransfer> getSchedulesBySender(int senderId) {
+        String sql = RowMappers.SCHEDULED_TRANSFER.select() + " WHERE sender_id = ? ORDER BY schedule_id DESC";
+        Stopwatch sw = MetricsRegistry.start("dao.ScheduledTransferDAO.getSchedulesBySender");
+        List<ScheduledTransfer> schedules = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, senderId);
+            ResultSet rs = stmt.executeQuery();
+            RowMappers.SCHEDULED_TRANSFER.mapAll(rs, schedules);
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error fetching standing orders for User ID " + senderId, e);
+        } finally {
+            sw.stop();
+        }
+        return schedules;
+    }
+
+    /**
+     * Cancels an active standing order.
+     *
+     * @param scheduleId The schedule ID.
+     * @param senderId   The paying user; other users cannot cancel it.
+     * @return {@code true} if the order was active and is now cancelled.
+     */
+    public boolean cancelSchedule(int scheduleId, int senderId) {
+        String sql = "/* sched.cancel */ UPDATE scheduled_transfers SET status = 'CANCELLED'"
+                + " WHERE schedule_id = ? AND sender_id = ? AND status = 'ACTIVE'";
+        Stopwatch sw = MetricsRegistry.start("dao.ScheduledTransferDAO.cancelSchedule");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, scheduleId);
+            stmt.setInt(2, senderId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error cancelling standing order " + scheduleId, e);
+            return false;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Lists active orders whose next run is due at or before {@code until}, earliest first.
+     * Overdue runs (e.g. missed while the application was down) are included.
+     *
+     * @param until Upper bound of the window.
+     * @param limit Maximum number returned.
+     * @return The orders. Empty on error.
+     */
+    public List<ScheduledTransfer> findDueBefore(Timestamp until, int limit) {
+        String sql = "/* sched.due */ SELECT * FROM (" + RowMappers.SCHEDULED_TRANSFER.select()
+                + " WHERE CASE WHEN status = 'ACTIVE' THEN next_run_at END <= ?"
+                + " ORDER BY CASE WHEN status = 'ACTIVE' THEN next_run_at END) WHERE ROWNUM <= ?";
+        Stopwatch sw = MetricsRegistry.start("dao.ScheduledTransferDAO.findDueBefore");
+        List<ScheduledTransfer> schedules = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, until);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+            RowMappers.SCHEDULED_TRANSFER.mapAll(rs, schedules);
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error loading upcoming standing orders", e);
+        } finally {
+            sw.stop();
+        }
+        return schedules;
+    }
+
+    /**
+     * Reads the current state of several orders, e.g. to skip those cancelled since
+     * they were loaded.
+     *
+     * @param scheduleIds The schedule IDs.
+     * @return The orders found, or {@code null} on error.
+     */
+    public List<ScheduledTransfer> getSchedules(Collection<Integer> scheduleIds) {
+        Stopwatch sw = MetricsRegistry.start("dao.ScheduledTransferDAO.getSchedules");
+        List<ScheduledTransfer> schedules = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(scheduleIds);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_SIZE));
+                String sql = RowMappers.SCHEDULED_TRANSFER.select() + " WHERE schedule_id IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        stmt.setInt(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = stmt.executeQuery();
+                    RowMappers.SCHEDULED_TRANSFER.mapAll(rs, schedules);
+                }
+            }
+            return schedules;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error reading " + ids.size() + " standing orders", e);
+            return null;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Records handled runs in one transaction. Each order must already be moved to its
+     * next run ({@link ScheduledTransfer#completeRun}); the row is only updated if it
+     * is still active at the previous run number.
+     *
+     * @param schedules The orders after their run.
+     * @return The number of rows updated, or -1 on error (nothing is recorded then).
+     */
+    public int recordRuns(List<ScheduledTransfer> schedules) {
+        String sql = "/* sched.advance */ UPDATE scheduled_transfers SET run_number = ?, next_run_at = ?, status = ?,"
+                + " last_status = ?, last_run_at = SYSTIMESTAMP WHERE schedule_id = ? AND run_number = ? AND status = 'ACTIVE'";
+        Stopwatch sw = MetricsRegistry.start("dao.ScheduledTransferDAO.recordRuns");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            int updated = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (ScheduledTransfer schedule : schedules) {
+                    stmt.setInt(1, schedule.getRunNumber());
+                    stmt.setTimestamp(2, schedule.getNextRunAt());
+                    stmt.setString(3, schedule.getStatus().name());
+                    stmt.setString(4, schedule.getLastStatus());
+                    stmt.setInt(5, schedule.getScheduleId());
+                    stmt.setInt(6, schedule.getRunNumber() - 1);
+                    stmt.addBatch();
+                }
+                for (int count : stmt.executeBatch()) {
+                    // SUCCESS_NO_INFO (-2) still means the row was updated
+                    updated += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+                }
+            }
+            conn.commit();
+            return updated;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to record " + schedules.size() + " standing order runs", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Rollback failed", ex);
+                }
+            }
+            return -1;
+        } finally {
+            sw.stop();
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing connection", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.revpay.dao;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.ledger.archive.MonthArchiveWriter;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for monthly partitions of the {@code transactions} table.
+ * <p>
+ * Oracle XE has no table partitioning, so months are partitions by convention: a
+ * month is the range {@code [first day, first day of next month)} of
+ * {@code txn_timestamp}, served by {@code idx_trans_timestamp}. A cold month is
+ * exported to an archive file, recorded in {@code transaction_archive}, and only
+ * then deleted from the hot table. Months are archived oldest first, so archived
+ * months always precede the hot ones.
+ * </p>
+ * <p>
+ * Together with the catalog row, each user's net movement in the month is recorded
+ * in {@code archived_balances}. Balance derivations add those totals to the hot rows
+ * dated from {@code HOT_FROM} on, so they stay exact once the month is deleted, and
+ * also while the deletion is still in progress.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class TransactionArchiveDAO {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(TransactionArchiveDAO.class);
+
+    /** SQL expression for the first moment not covered by an archived month. */
+    static final String HOT_FROM =
+            "(SELECT NVL(ADD_MONTHS(MAX(archive_month), 1), DATE '1900-01-01') FROM transaction_archive)";
+
+    /**
+     * Loads the archive catalog.
+     *
+     * @return Archive file name per archived month, oldest first, or {@code null} on error.
+     */
+    public TreeMap<YearMonth, String> loadArchivedMonths() {
+        String sql = "SELECT archive_month, file_name FROM transaction_archive";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionArchiveDAO.loadArchivedMonths");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            TreeMap<YearMonth, String> months = new TreeMap<>();
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                months.put(YearMonth.from(rs.getTimestamp(1).toLocalDateTime()), rs.getString(2));
+            }
+            return months;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error loading transaction archive catalog", e);
+            return null;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * @return The month of the oldest row still in the hot table, or {@code null} if it is empty or on error.
+     */
+    public YearMonth findOldestMonth() {
+        String sql = "SELECT MIN(txn_timestamp) FROM transactions";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionArchiveDAO.findOldestMonth");
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = stmt.executeQuery();
+            Timestamp oldest = rs.next() ? rs.getTimestamp(1) : null;
+            return oldest == null ? null : YearMonth.from(oldest.toLocalDateTime());
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error finding the oldest transaction month", e);
+            return null;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Streams every row of a month into an archive writer.
+     *
+     * @param month  The month to export.
+     * @param writer Receives the rows.
+     * @return The number of rows exported, or -1 on error.
+     */
+    public int exportMonth(YearMonth month, MonthArchiveWriter writer) {
+        String sql = "/* archive.export */ " + RowMappers.TRANSACTION.select() + " WHERE txn_timestamp >= ? AND txn_timestamp < ?";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionArchiveDAO.exportMonth");
+        int rows = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, monthStart(month));
+            stmt.setTimestamp(2, monthStart(month.plusMonths(1)));
+            stmt.setFetchSize(5000);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                writer.add(RowMappers.TRANSACTION.map(rs));
+                rows++;
+            }
+            return rows;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to export transactions of " + month + " after " + rows + " rows", e);
+            return -1;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Records a month as archived, with each user's net movement in it, in one
+     * transaction. From then on history reads take the month from the file and
+     * balance derivations from {@code archived_balances}.
+     * <p>
+     * The totals cover the rows the deletion will remove: successful rows of the month
+     * up to {@code maxTransactionId}, signed as in {@link LedgerDAO#rebuildBalances()}.
+     * </p>
+     *
+     * @param month            The archived month.
+     * @param fileName         Archive file name, relative to the archive directory.
+     * @param rows             Rows in the file.
+     * @param maxTransactionId Highest transaction ID in the file; only rows up to it are deleted.
+     * @return {@code true} if recorded.
+     */
+    public boolean recordArchive(YearMonth month, String fileName, int rows, long maxTransactionId) {
+        String sql = "/* archive.record */ INSERT INTO transaction_archive (archive_month, file_name, row_count, max_txn_id) VALUES (?, ?, ?, ?)";
+        String inMonth = " txn_timestamp >= ? AND txn_timestamp < ? AND transaction_id <= ? AND status = 'SUCCESS'";
+        String totalsSQL = "/* archive.totals */ INSERT INTO archived_balances (archive_month, user_id, net_amount)"
+                + " SELECT ?, user_id, SUM(delta) FROM ("
+                + " SELECT receiver_id AS user_id, amount AS delta FROM transactions WHERE" + inMonth
+                + "  AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT') AND receiver_id IS NOT NULL"
+                + " UNION ALL"
+                + " SELECT sender_id, -amount FROM transactions WHERE" + inMonth
+                + "  AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL') AND sender_id IS NOT NULL"
+                + ") GROUP BY user_id";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionArchiveDAO.recordArchive");
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection(Workload.HEAVY);
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setTimestamp(1, monthStart(month));
+                stmt.setString(2, fileName);
+                stmt.setInt(3, rows);
+                stmt.setLong(4, maxTransactionId);
+                stmt.executeUpdate();
+            }
+            int users;
+            try (PreparedStatement stmt = conn.prepareStatement(totalsSQL)) {
+                stmt.setTimestamp(1, monthStart(month));
+                for (int part = 0; part < 2; part++) {
+                    stmt.setTimestamp(part * 3 + 2, monthStart(month));
+                    stmt.setTimestamp(part * 3 + 3, monthStart(month.plusMonths(1)));
+                    stmt.setLong(part * 3 + 4, maxTransactionId);
+                }
+                users = stmt.executeUpdate();
+            }
+            conn.commit();
+            logger.debug("Recorded archive of " + month + " with net totals for " + users + " users");
+            return true;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to record archive of " + month, e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Critical: Rollback failed!", ex);
+                }
+            }
+            return false;
+        } finally {
+            sw.stop();
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes an archived month from the hot table, in chunks to keep undo small.
+     * Only rows covered by the archive file are removed.
+     *
+     * @param month     An archived month.
+     * @param chunkSize Maximum rows per statement.
+     * @return The number of rows deleted, or -1 on error.
+     */
+    public int deleteArchivedRows(YearMonth month, int chunkSize) {
+        String sql = "/* archive.drop */ DELETE FROM transactions WHERE txn_timestamp >= ? AND txn_timestamp < ?"
+                + " AND transaction_id <= (SELECT max_txn_id FROM transaction_archive WHERE archive_month = ?) AND ROWNUM <= ?";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionArchiveDAO.deleteArchivedRows");
+        int total = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int deleted;
+            do {
+                stmt.setTimestamp(1, monthStart(month));
+                stmt.setTimestamp(2, monthStart(month.plusMonths(1)));
+                stmt.setTimestamp(3, monthStart(month));
+                stmt.setInt(4, chunkSize);
+                deleted = stmt.executeUpdate();
+                total += deleted;
+            } while (deleted == chunkSize);
+            return total;
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Failed to drop archived rows of " + month + " after " + total + " rows", e);
+            return -1;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * @return Midnight of the first day of {@code month}.
+     */
+    public static Timestamp monthStart(YearMonth month) {
+        return Timestamp.valueOf(month.atDay(1).atStartOfDay());
+    }
+}
@@ -1,79 +1,163 @@
 package com.revpay.dao;
 
+import com.revpay.config.AppConfig;
 import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.ledger.LedgerEntry;
+import com.revpay.ledger.NettingBatch;
+import com.revpay.ledger.archive.MonthArchiveReader;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.MoneyMovementEvent;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.Money;
 import com.revpay.model.Transaction;
 import com.revpay.model.TransactionStatus;
 import com.revpay.model.TransactionType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 public class TransactionDAO {
 
     // Initialize Log4j Logger
     private static final Logger logger = LogManager.getLogger(TransactionDAO.class);
 
+    /** Rows committed per round trip by the running balance backfill. */
+    private static final int BACKFILL_CHUNK = 1000;
+
+    // Ledger types that credit the receiver / debit the sender (see LedgerDAO#rebuildBalances)
+    private static final Set<String> CREDIT_TYPES = Set.of("DEPOSIT", "TRANSFER", "PAYMENT");
+    private static final Set<String> DEBIT_TYPES = Set.of("TRANSFER", "PAYMENT", "WITHDRAWAL");
+
+    private final IdAllocator idAllocator = IdAllocator.get();
+    private final TransactionArchiveDAO archiveDAO = new TransactionArchiveDAO();
+    private final Path archiveDir = Paths.get(AppConfig.getString("revpay.archive.dir", "archive"));
+
+    /**
+     * {@link BigDecimal} variant of {@link #transferMoney(int, int, Money)}; amounts
+     * with more than two decimals are refused.
+     */
     public boolean transferMoney(int senderId, int receiverId, BigDecimal amount) {
+        Money money = toMoney(amount);
+        return money != null && transferMoney(senderId, receiverId, money);
+    }
+
+    public boolean transferMoney(int senderId, int receiverId, Money amount) {
+        return transferMoney(senderId, receiverId, amount, null);
+    }
+
+    /**
+     * Transfers money at most once per idempotency key. The key is inserted first, in
+     * the same transaction, so it commits or rolls back together with the transfer.
+     *
+     * @param idempotencyKey The user-scoped key, or {@code null} for no deduplication.
+     * @return {@code true} if the transfer committed now, or under the same key before.
+     */
+    public boolean transferMoney(int senderId, int receiverId, Money amount, String idempotencyKey) {
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.transferMoney");
+        MoneyMovementEvent event = new MoneyMovementEvent();
+        event.begin();
+        String outcome = "ERROR";
         Connection conn = null;
         PreparedStatement withdrawStmt = null;
         PreparedStatement depositStmt = null;
         PreparedStatement logStmt = null;
 
-        String withdrawSQL = "UPDATE wallets SET balance = balance - ? WHERE user_id = ? AND balance >= ?";
-        String depositSQL = "UPDATE wallets SET balance = balance + ? WHERE user_id = ?";
-        String logSQL = "INSERT INTO transactions (sender_id, receiver_id, amount, transaction_type, status) VALUES (?, ?, ?, ?, ?)";
+        // Leading comments name each statement in JFR recordings (see SqlIds)
+        String withdrawSQL = "/* transfer.withdraw */ UPDATE wallets SET balance = balance - ?, version = version + 1 WHERE user_id = ? AND balance - held >= ?";
+        String depositSQL = "/* transfer.deposit */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?";
+        String logSQL = "/* transfer.log */ INSERT INTO transactions (transaction_id, sender_id, receiver_id, amount, transaction_type, status, sender_balance_after, receiver_balance_after) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false); // 🛑 Start Transaction
 
+            // 0. Record the retry key; a committed duplicate means this transfer already happened
+            if (idempotencyKey != null
+                    && !IdempotencyDAO.record(conn, idempotencyKey, senderId, TransactionType.TRANSFER.name())) {
+                outcome = "DUPLICATE";
+                conn.rollback();
+                return true;
+            }
+
             // 1. Withdraw from Sender
             withdrawStmt = conn.prepareStatement(withdrawSQL);
-            withdrawStmt.setBigDecimal(1, amount);
+            MoneyColumns.set(withdrawStmt, 1, amount);
             withdrawStmt.setInt(2, senderId);
-            withdrawStmt.setBigDecimal(3, amount); // Ensure balance >= amount
+            MoneyColumns.set(withdrawStmt, 3, amount); // Ensure available funds >= amount
             int rowsAffected1 = withdrawStmt.executeUpdate();
 
+            // Money parked in shards of a sharded wallet is folded back before giving up
+            if (rowsAffected1 == 0 && WalletShards.consolidate(conn, senderId).isPositive()) {
+                rowsAffected1 = withdrawStmt.executeUpdate();
+            }
+
             if (rowsAffected1 == 0) {
                 // 🛑 USER FRIENDLY FIX: Don't throw exception. Just log warning and exit.
                 logger.warn(" ️ Transfer Failed: Insufficient funds for User ID " + senderId);
+                outcome = "INSUFFICIENT_FUNDS";
                 conn.rollback(); // Undo any locks
                 return false; // Return false nicely
             }
 
-            // 2. Deposit to Receiver
-            depositStmt = conn.prepareStatement(depositSQL);
-            depositStmt.setBigDecimal(1, amount);
-            depositStmt.setInt(2, receiverId);
-            int rowsAffected2 = depositStmt.executeUpdate();
+            // 2. Deposit to Receiver (one of its shards if the wallet is sharded)
+            int rowsAffected2 = WalletShards.creditShard(conn, receiverId, amount, senderId);
+            if (rowsAffected2 == 0) {
+                depositStmt = conn.prepareStatement(depositSQL);
+                MoneyColumns.set(depositStmt, 1, amount);
+                depositStmt.setInt(2, receiverId);
+                rowsAffected2 = depositStmt.executeUpdate();
+            }
 
             if (rowsAffected2 == 0) {
                 logger.warn(" ️ Transfer Failed: Invalid receiver ID " + receiverId);
+                outcome = "INVALID_RECEIVER";
                 conn.rollback();
                 return false;
             }
 
             // 3. Log the Transaction
             logStmt = conn.prepareStatement(logSQL);
-            logStmt.setInt(1, senderId);
-            logStmt.setInt(2, receiverId);
-            logStmt.setBigDecimal(3, amount);
-            logStmt.setString(4, TransactionType.TRANSFER.name());
-            logStmt.setString(5, TransactionStatus.SUCCESS.name());
+            logStmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
+            logStmt.setInt(2, senderId);
+            logStmt.setInt(3, receiverId);
+            MoneyColumns.set(logStmt, 4, amount);
+            logStmt.setString(5, TransactionType.TRANSFER.name());
+            logStmt.setString(6, TransactionStatus.SUCCESS.name());
+            MoneyColumns.set(logStmt, 7, balanceAfter(conn, senderId));
+            MoneyColumns.set(logStmt, 8, balanceAfter(conn, receiverId));
             logStmt.executeUpdate();
 
             conn.commit();
+            outcome = "SUCCESS";
             logger.info("  Transfer Successful: $" + amount + " from ID " + senderId + " to ID " + receiverId);
             return true;
 
         } catch (SQLException e) {
+            sw.fail();
             // ❌ Only REAL errors (like DB crash) land here now
             if (conn != null) {
                 try {
@@ -85,57 +169,243 @@ public class TransactionDAO {
             }
             return false;
         } finally {
+            sw.stop();
+            commitEvent(event, TransactionType.TRANSFER, senderId, receiverId, amount, outcome);
             closeResources(withdrawStmt, depositStmt, logStmt, conn);
         }
     }
 
     public List<Transaction> getTransactionHistory(int userId) {
+        return getTransactionHistory(userId, null, null);
+    }
+
+    /**
+     * Retrieves a user's transactions within a time range, newest first.
+     * <p>
+     * Months already moved to the archive (see {@code TransactionArchiveJob}) are read
+     * from their archive files; only the months still in the hot table are queried,
+     * so the range decides which "partitions" are touched.
+     * </p>
+     *
+     * @param userId The user (as sender or receiver).
+     * @param from   Earliest timestamp (inclusive), or {@code null} for the beginning.
+     * @param to     Latest timestamp (exclusive), or {@code null} for now.
+     * @return The transactions found; empty (or cut short) on error.
+     */
+    public List<Transaction> getTransactionHistory(int userId, Timestamp from, Timestamp to) {
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.getTransactionHistory");
         List<Transaction> history = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE sender_id = ? OR receiver_id = ? ORDER BY txn_timestamp DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        TreeMap<YearMonth, String> archived = archiveDAO.loadArchivedMonths();
+        if (archived == null) {
+            sw.fail();
+            sw.stop();
+            return history;
+        }
 
-            stmt.setInt(1, userId);
-            stmt.setInt(2, userId);
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+                PreparedStatement stmt = prepareHotHistory(conn, userId, from, to, archived)) {
 
             ResultSet rs = stmt.executeQuery();
 
-            while (rs.next()) {
-                Transaction t = new Transaction();
-                t.setTransactionId(rs.getInt("transaction_id"));
-                t.setSenderId(rs.getInt("sender_id"));
-                t.setReceiverId(rs.getInt("receiver_id"));
-                t.setAmount(rs.getBigDecimal("amount"));
-                t.setType(TransactionType.valueOf(rs.getString("transaction_type")));
-                t.setStatus(TransactionStatus.valueOf(rs.getString("status")));
-                t.setTimestamp(rs.getTimestamp("txn_timestamp"));
+            RowMappers.TRANSACTION.mapAll(rs, history);
 
-                history.add(t);
+            // Older months come from their archive files, newest month first
+            for (Map.Entry<YearMonth, String> month : archived.descendingMap().entrySet()) {
+                if (overlaps(month.getKey(), from, to)) {
+                    history.addAll(MonthArchiveReader.read(archiveDir.resolve(month.getValue()), userId, from, to));
+                    MetricsRegistry.counter("archive.monthsRead").increment();
+                }
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error fetching transaction history for User ID " + userId, e);
+        } catch (IOException e) {
+            sw.fail();
+            logger.error("  Error reading archived transactions for User ID " + userId, e);
+        } finally {
+            sw.stop();
         }
         return history;
     }
 
+    /**
+     * Streams a user's transactions within a time range, newest first, with backpressure.
+     * <p>
+     * Same rows and order as {@link #getTransactionHistory(int, Timestamp, Timestamp)},
+     * but nothing is read until the subscriber requests it, and rows are read from the
+     * hot table {@code revpay.history.fetchSize} at a time as demand allows. The
+     * connection is released as soon as the hot table is exhausted or the subscription
+     * ends; archived months are then read one at a time.
+     * </p>
+     *
+     * @param userId   The user (as sender or receiver).
+     * @param from     Earliest timestamp (inclusive), or {@code null} for the beginning.
+     * @param to       Latest timestamp (exclusive), or {@code null} for now.
+     * @param executor Runs the reads; {@code Runnable::run} reads on the requesting thread.
+     * @return A publisher; each subscriber gets its own query. Errors are signalled with {@code onError}.
+     */
+    public Flow.Publisher<Transaction> streamTransactionHistory(int userId, Timestamp from, Timestamp to, Executor executor) {
+        return new CursorPublisher<>("dao.TransactionDAO.streamTransactionHistory",
+                () -> new HistoryCursor(userId, from, to), executor);
+    }
+
+    // Hot-table part of a history query; archived months always precede the hot table
+    private static PreparedStatement prepareHotHistory(Connection conn, int userId, Timestamp from, Timestamp to,
+                                                       TreeMap<YearMonth, String> archived) throws SQLException {
+        Timestamp hotFrom = archived.isEmpty() ? null : TransactionArchiveDAO.monthStart(archived.lastKey().plusMonths(1));
+        Timestamp lower = hotFrom == null || (from != null && from.after(hotFrom)) ? from : hotFrom;
+
+        String sql = RowMappers.TRANSACTION.select() + " WHERE (sender_id = ? OR receiver_id = ?)"
+                + (lower != null ? " AND txn_timestamp >= ?" : "")
+                + (to != null ? " AND txn_timestamp < ?" : "")
+                + " ORDER BY txn_timestamp DESC";
+
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        int index = 1;
+        stmt.setInt(index++, userId);
+        stmt.setInt(index++, userId);
+        if (lower != null) {
+            stmt.setTimestamp(index++, lower);
+        }
+        if (to != null) {
+            stmt.setTimestamp(index, to);
+        }
+        return stmt;
+    }
+
+    private static boolean overlaps(YearMonth month, Timestamp from, Timestamp to) {
+        Timestamp monthStart = TransactionArchiveDAO.monthStart(month);
+        Timestamp monthEnd = TransactionArchiveDAO.monthStart(month.plusMonths(1));
+        return (to == null || monthStart.before(to)) && (from == null || monthEnd.after(from));
+    }
+
+    /**
+     * Reads the hot table through an open result set, then archived months newest first.
+     */
+    private final class HistoryCursor implements CursorPublisher.Cursor<Transaction> {
+
+        private final int userId;
+        private final Timestamp from;
+        private final Timestamp to;
+        private final Iterator<Map.Entry<YearMonth, String>> months;
+        private Connection conn;
+        private PreparedStatement stmt;
+        private ResultSet rs;
+        private Iterator<Transaction> monthRows = Collections.emptyIterator();
+
+        HistoryCursor(int userId, Timestamp from, Timestamp to) throws SQLException {
+            this.userId = userId;
+            this.from = from;
+            this.to = to;
+            TreeMap<YearMonth, String> archived = archiveDAO.loadArchivedMonths();
+            if (archived == null) {
+                throw new SQLException("Could not read the archived months");
+            }
+            this.months = archived.descendingMap().entrySet().iterator();
+            try {
+                conn = DatabaseConnection.getConnection(Workload.HEAVY);
+                stmt = prepareHotHistory(conn, userId, from, to, archived);
+                stmt.setFetchSize(Math.max(1, AppConfig.getInt("revpay.history.fetchSize", 100)));
+                rs = stmt.executeQuery();
+            } catch (SQLException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public Transaction next() throws SQLException, IOException {
+            if (rs != null) {
+                if (rs.next()) {
+                    return RowMappers.TRANSACTION.map(rs);
+                }
+                // Hot rows exhausted: give the connection back before reading archive files
+                close();
+            }
+            while (!monthRows.hasNext() && months.hasNext()) {
+                Map.Entry<YearMonth, String> month = months.next();
+                if (overlaps(month.getKey(), from, to)) {
+                    monthRows = MonthArchiveReader.read(archiveDir.resolve(month.getValue()), userId, from, to).iterator();
+                    MetricsRegistry.counter("archive.monthsRead").increment();
+                }
+            }
+            return monthRows.hasNext() ? monthRows.next() : null;
+        }
+
+        @Override
+        public void close() {
+            rs = null;
+            try {
+                // Closing the statement closes its result set
+                if (stmt != null)
+                    stmt.close();
+            } catch (SQLException e) {
+                logger.error("Error closing history statement", e);
+            } finally {
+                stmt = null;
+                try {
+                    if (conn != null)
+                        conn.close();
+                } catch (SQLException e) {
+                    logger.error("Error closing history connection", e);
+                }
+                conn = null;
+            }
+        }
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #depositMoney(int, Money)}; amounts with
+     * more than two decimals are refused.
+     */
     public boolean depositMoney(int userId, BigDecimal amount) {
+        Money money = toMoney(amount);
+        return money != null && depositMoney(userId, money);
+    }
+
+    public boolean depositMoney(int userId, Money amount) {
+        return depositMoney(userId, amount, null);
+    }
+
+    /**
+     * Deposits money at most once per idempotency key (see
+     * {@link #transferMoney(int, int, Money, String)}).
+     *
+     * @param idempotencyKey The user-scoped key, or {@code null} for no deduplication.
+     * @return {@code true} if the deposit committed now, or under the same key before.
+     */
+    public boolean depositMoney(int userId, Money amount, String idempotencyKey) {
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.depositMoney");
+        MoneyMovementEvent event = new MoneyMovementEvent();
+        event.begin();
+        String outcome = "ERROR";
         Connection conn = null;
         PreparedStatement depositStmt = null;
         PreparedStatement logStmt = null;
 
-        String depositSQL = "UPDATE wallets SET balance = balance + ? WHERE user_id = ?";
-        String logSQL = "INSERT INTO transactions (sender_id, receiver_id, amount, transaction_type, status) VALUES (?, ?, ?, ?, ?)";
+        String depositSQL = "/* deposit.credit */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?";
+        String logSQL = "/* deposit.log */ INSERT INTO transactions (transaction_id, sender_id, receiver_id, amount, transaction_type, status, sender_balance_after, receiver_balance_after) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false); // Start Transaction
 
-            // 1. Add Money to Wallet
-            depositStmt = conn.prepareStatement(depositSQL);
-            depositStmt.setBigDecimal(1, amount);
-            depositStmt.setInt(2, userId);
-            int rows = depositStmt.executeUpdate();
+            if (idempotencyKey != null
+                    && !IdempotencyDAO.record(conn, idempotencyKey, userId, TransactionType.DEPOSIT.name())) {
+                outcome = "DUPLICATE";
+                conn.rollback();
+                return true;
+            }
+
+            // 1. Add Money to Wallet (one of its shards if the wallet is sharded)
+            int rows = WalletShards.creditShard(conn, userId, amount, (int) Thread.currentThread().getId());
+            if (rows == 0) {
+                depositStmt = conn.prepareStatement(depositSQL);
+                MoneyColumns.set(depositStmt, 1, amount);
+                depositStmt.setInt(2, userId);
+                rows = depositStmt.executeUpdate();
+            }
 
             if (rows == 0) {
                 logger.warn("Deposit Failed: Wallet not found for User ID " + userId);
@@ -144,18 +414,24 @@ public class TransactionDAO {
 
             // 2. Log it (Sender is self, Receiver is self for Deposit)
             logStmt = conn.prepareStatement(logSQL);
-            logStmt.setInt(1, userId);
+            logStmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
             logStmt.setInt(2, userId);
-            logStmt.setBigDecimal(3, amount);
-            logStmt.setString(4, TransactionType.DEPOSIT.name());
-            logStmt.setString(5, TransactionStatus.SUCCESS.name());
+            logStmt.setInt(3, userId);
+            MoneyColumns.set(logStmt, 4, amount);
+            logStmt.setString(5, TransactionType.DEPOSIT.name());
+            logStmt.setString(6, TransactionStatus.SUCCESS.name());
+            Money balance = balanceAfter(conn, userId);
+            MoneyColumns.set(logStmt, 7, balance);
+            MoneyColumns.set(logStmt, 8, balance);
             logStmt.executeUpdate();
 
             conn.commit(); // Save changes
+            outcome = "SUCCESS";
             logger.info("  Deposit Successful: $" + amount + " for User ID " + userId);
             return true;
 
         } catch (SQLException e) {
+            sw.fail();
             if (conn != null)
                 try {
                     conn.rollback();
@@ -165,10 +441,517 @@ public class TransactionDAO {
             logger.error("  Deposit Error for User ID " + userId, e);
             return false;
         } finally {
+            sw.stop();
+            commitEvent(event, TransactionType.DEPOSIT, userId, userId, amount, outcome);
             closeResources(depositStmt, logStmt, null, conn);
         }
     }
 
+    /**
+     * Applies a micro-batch of transfers and deposits on one connection with a single commit.
+     * <p>
+     * Each movement runs under its own savepoint, so a movement that fails (insufficient
+     * funds, unknown wallet, SQL error) is rolled back on its own without undoing its
+     * siblings. Movements are applied in list order and see the effects of earlier ones.
+     * A movement's idempotency key is recorded under the same savepoint; a key that was
+     * already committed makes the movement a successful no-op.
+     * </p>
+     *
+     * @param movements TRANSFER or DEPOSIT entries (deposits use the user as sender and receiver).
+     * @return One outcome per movement; all {@code false} if the batch could not be committed.
+     */
+    public boolean[] applyGroup(List<LedgerEntry> movements) {
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.applyGroup");
+        boolean[] results = new boolean[movements.size()];
+        String[] outcomes = new String[movements.size()];
+        MoneyMovementEvent[] events = new MoneyMovementEvent[movements.size()];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new MoneyMovementEvent();
+            events[i].begin(); // Each caller waits for the whole batch
+        }
+        Connection conn = null;
+        PreparedStatement withdrawStmt = null;
+        PreparedStatement creditStmt = null;
+        PreparedStatement logStmt = null;
+
+        String withdrawSQL = "/* group.withdraw */ UPDATE wallets SET balance = balance - ?, version = version + 1 WHERE user_id = ? AND balance - held >= ?";
+        String creditSQL = "/* group.credit */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?";
+        String logSQL = "/* group.log */ INSERT INTO transactions (transaction_id, sender_id, receiver_id, amount, transaction_type, status, sender_balance_after, receiver_balance_after) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false); // One transaction for the whole batch
+            withdrawStmt = conn.prepareStatement(withdrawSQL);
+            creditStmt = conn.prepareStatement(creditSQL);
+            logStmt = conn.prepareStatement(logSQL);
+
+            for (int i = 0; i < movements.size(); i++) {
+                LedgerEntry movement = movements.get(i);
+                Money amount = Money.ofMinor(movement.getAmountMinor());
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    if (movement.getIdempotencyKey() != null && !IdempotencyDAO.record(conn,
+                            movement.getIdempotencyKey(), movement.getSenderId(), movement.getType().name())) {
+                        results[i] = true;
+                        outcomes[i] = "DUPLICATE";
+                        continue;
+                    }
+                    if (movement.getType() == TransactionType.TRANSFER) {
+                        MoneyColumns.set(withdrawStmt, 1, amount);
+                        withdrawStmt.setInt(2, movement.getSenderId());
+                        MoneyColumns.set(withdrawStmt, 3, amount);
+                        int withdrawn = withdrawStmt.executeUpdate();
+                        if (withdrawn == 0 && WalletShards.consolidate(conn, movement.getSenderId()).isPositive()) {
+                            withdrawn = withdrawStmt.executeUpdate();
+                        }
+                        if (withdrawn == 0) {
+                            outcomes[i] = "INSUFFICIENT_FUNDS";
+                            conn.rollback(savepoint);
+                            continue;
+                        }
+                    }
+
+                    int credited = WalletShards.creditShard(conn, movement.getReceiverId(), amount, movement.getSenderId());
+                    if (credited == 0) {
+                        MoneyColumns.set(creditStmt, 1, amount);
+                        creditStmt.setInt(2, movement.getReceiverId());
+                        credited = creditStmt.executeUpdate();
+                    }
+                    if (credited == 0) {
+                        outcomes[i] = "INVALID_RECEIVER";
+                        conn.rollback(savepoint);
+                        continue;
+                    }
+
+                    logStmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
+
+                    logStmt.setInt(2, movement.getSenderId());
+                    logStmt.setInt(3, movement.getReceiverId());
+                    MoneyColumns.set(logStmt, 4, amount);
+                    logStmt.setString(5, movement.getType().name());
+                    logStmt.setString(6, TransactionStatus.SUCCESS.name());
+                    MoneyColumns.set(logStmt, 7, balanceAfter(conn, movement.getSenderId()));
+                    MoneyColumns.set(logStmt, 8, balanceAfter(conn, movement.getReceiverId()));
+                    logStmt.executeUpdate();
+
+                    results[i] = true;
+                    outcomes[i] = "SUCCESS";
+                } catch (SQLException e) {
+                    logger.error("  Group item failed (" + movement + "). Rolling back this item only", e);
+                    outcomes[i] = "ERROR";
+                    conn.rollback(savepoint);
+                }
+            }
+
+            conn.commit();
+            logger.debug("Group commit of " + movements.size() + " movements");
+
+        } catch (SQLException e) {
+            sw.fail();
+            Arrays.fill(results, false);
+            Arrays.fill(outcomes, "ERROR");
+            if (conn != null) {
+                try {
+                    logger.error("  Group commit failed. Rolling back " + movements.size() + " movements...", e);
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Critical: Rollback failed!", ex);
+                }
+            }
+        } finally {
+            sw.stop();
+            for (int i = 0; i < movements.size(); i++) {
+                LedgerEntry movement = movements.get(i);
+                commitEvent(events[i], movement.getType(), movement.getSenderId(), movement.getReceiverId(),
+                        Money.ofMinor(movement.getAmountMinor()), outcomes[i] == null ? "ERROR" : outcomes[i]);
+            }
+            closeResources(withdrawStmt, creditStmt, logStmt, conn);
+        }
+        return results;
+    }
+
+    /**
+     * Settles a window of movements by multilateral netting.
+     * <p>
+     * The wallets involved are locked and each movement is validated in order by a
+     * {@link NettingBatch}. Only the resulting net delta per user is written to
+     * {@code wallets} (one row update per user instead of two per transfer), while
+     * every accepted movement is still inserted into {@code transactions} for audit.
+     * Idempotency keys are recorded first; a movement whose key already committed is
+     * reported as successful without being applied again. Everything commits together.
+     * </p>
+     * <p>
+     * Funds are checked against the main row plus shards, but a net debit is written to
+     * the main row, so the shards of a net-debited sharded wallet are consolidated first.
+     * </p>
+     *
+     * @param movements TRANSFER or DEPOSIT entries, in arrival order.
+     * @return One outcome per movement; all {@code false} if the window could not be committed.
+     */
+    public boolean[] settleNetted(List<LedgerEntry> movements) {
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.settleNetted");
+        boolean[] results = new boolean[movements.size()];
+        String[] outcomes = new String[movements.size()];
+        MoneyMovementEvent[] events = new MoneyMovementEvent[movements.size()];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new MoneyMovementEvent();
+            events[i].begin(); // Each caller waits for the whole window
+        }
+        Connection conn = null;
+
+        String walletSQL = "/* netting.wallet */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?";
+        String logSQL = "/* netting.log */ INSERT INTO transactions (transaction_id, sender_id, receiver_id, amount, transaction_type, status, sender_balance_after, receiver_balance_after) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        Set<Integer> userIds = new TreeSet<>();
+        for (LedgerEntry movement : movements) {
+            userIds.add(movement.getSenderId());
+            userIds.add(movement.getReceiverId());
+        }
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // 0. Record retry keys before any wallet lock; movements whose key already committed are skipped
+            boolean[] duplicate = new boolean[movements.size()];
+            for (int i = 0; i < movements.size(); i++) {
+                LedgerEntry movement = movements.get(i);
+                duplicate[i] = movement.getIdempotencyKey() != null && !IdempotencyDAO.record(conn,
+                        movement.getIdempotencyKey(), movement.getSenderId(), movement.getType().name());
+            }
+
+            // 1. Lock every wallet in the window and read its total (main row + shards)
+            // Movements are checked against available funds (balance minus debit holds)
+            // Running balances are recorded as each movement is checked (not for sharded wallets)
+            Map<Integer, Long> held = new HashMap<>();
+            Map<Integer, Long> sharded = new HashMap<>();
+            Map<Integer, Long> available = lockBalances(conn, userIds, held, sharded);
+            NettingBatch batch = new NettingBatch(available);
+            Money[][] balancesAfter = new Money[movements.size()][];
+            for (int i = 0; i < movements.size(); i++) {
+                LedgerEntry movement = movements.get(i);
+                if (duplicate[i]) {
+                    outcomes[i] = "DUPLICATE";
+                    continue;
+                }
+                results[i] = batch.apply(movement);
+                if (results[i]) {
+                    outcomes[i] = "SUCCESS";
+                    balancesAfter[i] = new Money[] {
+                            runningBalance(batch, held, sharded, movement.getSenderId()),
+                            runningBalance(batch, held, sharded, movement.getReceiverId())};
+                    continue;
+                }
+                outcomes[i] = available.containsKey(movement.getReceiverId()) ? "INSUFFICIENT_FUNDS" : "INVALID_RECEIVER";
+                if (movement.getIdempotencyKey() != null) {
+                    // Refused movements must not leave their key behind, or a retry would be ignored
+                    IdempotencyDAO.forget(conn, movement.getIdempotencyKey());
+                }
+            }
+
+            // 2. One update per user whose net position changed; a net debit may exceed the
+            // main row of a sharded wallet, so its shards are folded in first
+            Map<Integer, Long> netDeltas = batch.getNetDeltas();
+            for (Map.Entry<Integer, Long> delta : netDeltas.entrySet()) {
+                if (delta.getValue() < 0 && sharded.getOrDefault(delta.getKey(), 0L) > 0) {
+                    WalletShards.consolidate(conn, delta.getKey());
+                }
+            }
+            try (PreparedStatement walletStmt = conn.prepareStatement(walletSQL)) {
+                for (Map.Entry<Integer, Long> delta : netDeltas.entrySet()) {
+                    MoneyColumns.set(walletStmt, 1, Money.ofMinor(delta.getValue()));
+                    walletStmt.setInt(2, delta.getKey());
+                    walletStmt.addBatch();
+                }
+                walletStmt.executeBatch();
+            }
+
+            // 3. Every accepted movement is still logged individually
+            try (PreparedStatement logStmt = conn.prepareStatement(logSQL)) {
+                for (int i = 0; i < movements.size(); i++) {
+                    if (!results[i] || duplicate[i]) {
+                        continue;
+                    }
+                    LedgerEntry movement = movements.get(i);
+                    logStmt.setLong(1, idAllocator.next(conn, IdAllocator.TRANSACTIONS));
+                    logStmt.setInt(2, movement.getSenderId());
+                    logStmt.setInt(3, movement.getReceiverId());
+                    MoneyColumns.set(logStmt, 4, Money.ofMinor(movement.getAmountMinor()));
+                    logStmt.setString(5, movement.getType().name());
+                    logStmt.setString(6, TransactionStatus.SUCCESS.name());
+                    MoneyColumns.set(logStmt, 7, balancesAfter[i][0]);
+                    MoneyColumns.set(logStmt, 8, balancesAfter[i][1]);
+                    logStmt.addBatch();
+                }
+                logStmt.executeBatch();
+            }
+
+            conn.commit();
+            for (int i = 0; i < movements.size(); i++) {
+                results[i] |= duplicate[i];
+            }
+            MetricsRegistry.counter("ledger.netting.movements").add(batch.getAccepted());
+            MetricsRegistry.counter("ledger.netting.walletUpdates").add(netDeltas.size());
+            logger.debug("Netted " + batch.getAccepted() + " movements into " + netDeltas.size() + " wallet updates");
+
+        } catch (SQLException e) {
+            sw.fail();
+            Arrays.fill(results, false);
+            Arrays.fill(outcomes, "ERROR");
+            if (conn != null) {
+                try {
+                    logger.error("  Netting settlement failed. Rolling back " + movements.size() + " movements...", e);
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Critical: Rollback failed!", ex);
+                }
+            }
+        } finally {
+            sw.stop();
+            for (int i = 0; i < movements.size(); i++) {
+                LedgerEntry movement = movements.get(i);
+                commitEvent(events[i], movement.getType(), movement.getSenderId(), movement.getReceiverId(),
+                        Money.ofMinor(movement.getAmountMinor()), outcomes[i] == null ? "ERROR" : outcomes[i]);
+            }
+            closeResources(null, null, null, conn);
+        }
+        return results;
+    }
+
+    // Locks the given wallets (in user ID order) and returns their available balances in minor
+    // units: main row plus shards, minus debit holds. Holds are also put into held and shard
+    // totals into sharded.
+    private Map<Integer, Long> lockBalances(Connection conn, Set<Integer> userIds, Map<Integer, Long> held,
+                                            Map<Integer, Long> sharded) throws SQLException {
+        Map<Integer, Long> balances = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += 500) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + 500, ids.size()));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+
+            String lockSQL = "/* netting.lock */ SELECT user_id, balance, held FROM wallets WHERE user_id IN (" + in + ") ORDER BY user_id FOR UPDATE";
+            try (PreparedStatement stmt = conn.prepareStatement(lockSQL)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    long heldMinor = MoneyColumns.getMinor(rs, 3);
+                    balances.put(rs.getInt(1), MoneyColumns.getMinor(rs, 2) - heldMinor);
+                    held.put(rs.getInt(1), heldMinor);
+                }
+            }
+
+            // Shards only ever grow while the main row is locked, so this read is conservative
+            String shardSQL = "/* netting.shards */ SELECT user_id, SUM(balance) FROM wallet_shards WHERE user_id IN (" + in + ") GROUP BY user_id";
+            try (PreparedStatement stmt = conn.prepareStatement(shardSQL)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    balances.merge(rs.getInt(1), MoneyColumns.getMinor(rs, 2), Long::sum);
+                    sharded.put(rs.getInt(1), MoneyColumns.getMinor(rs, 2));
+                }
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Lists users with ledger rows that still lack a running balance.
+     *
+     * @param before Only rows older than this are considered (recent ones may still be committing).
+     * @return User IDs in ascending order. Empty on error.
+     */
+    public List<Integer> findUsersMissingBalances(Timestamp before) {
+        String sql = "/* balances.pending */ SELECT sender_id FROM transactions WHERE sender_balance_after IS NULL AND status = 'SUCCESS' AND sender_id IS NOT NULL AND txn_timestamp < ?"
+                + " AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " UNION SELECT receiver_id FROM transactions WHERE receiver_balance_after IS NULL AND status = 'SUCCESS' AND receiver_id IS NOT NULL AND txn_timestamp < ?"
+                + " AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " ORDER BY 1";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.findUsersMissingBalances");
+        List<Integer> userIds = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, before);
+            stmt.setTimestamp(2, before);
+            stmt.setFetchSize(1000);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                userIds.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Error listing users with missing running balances", e);
+            userIds.clear();
+        } finally {
+            sw.stop();
+        }
+        return userIds;
+    }
+
+    /**
+     * Fills in the missing running balances of one user.
+     * <p>
+     * The user's hot ledger is streamed in time order and the balance is carried
+     * forward from the net totals of the archived months (zero if none): a row that
+     * already records a balance resets the running value, a row
+     * without one gets the running value written. Updates are committed every
+     * {@value #BACKFILL_CHUNK} rows, so an interrupted run simply resumes next time.
+     * </p>
+     *
+     * @param userId The user whose rows are completed.
+     * @param before Only rows older than this are considered.
+     * @return The number of balance columns written, or -1 on error.
+     */
+    public int backfillRunningBalances(int userId, Timestamp before) {
+        // The opening balance is read by the same statement as the rows (one snapshot), so a
+        // month archived meanwhile is either in both or in neither
+        String readSQL = "/* balances.read */ SELECT transaction_id, sender_id, receiver_id, amount, transaction_type, sender_balance_after, receiver_balance_after,"
+                + " (SELECT NVL(SUM(net_amount), 0) FROM archived_balances WHERE user_id = ?) AS opening"
+                + " FROM transactions WHERE (sender_id = ? OR receiver_id = ?) AND status = 'SUCCESS' AND txn_timestamp < ?"
+                + " AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM
+                + " ORDER BY txn_timestamp, transaction_id";
+        String senderSQL = "/* balances.sender */ UPDATE transactions SET sender_balance_after = ? WHERE transaction_id = ? AND sender_balance_after IS NULL";
+        String receiverSQL = "/* balances.receiver */ UPDATE transactions SET receiver_balance_after = ? WHERE transaction_id = ? AND receiver_balance_after IS NULL";
+        Stopwatch sw = MetricsRegistry.start("dao.TransactionDAO.backfillRunningBalances");
+        Connection conn = null;
+        int written = 0;
+
+        try {
+            conn = DatabaseConnection.getConnection(Workload.HEAVY);
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement read = conn.prepareStatement(readSQL);
+                 PreparedStatement senderStmt = conn.prepareStatement(senderSQL);
+                 PreparedStatement receiverStmt = conn.prepareStatement(receiverSQL)) {
+
+                read.setInt(1, userId);
+                read.setInt(2, userId);
+                read.setInt(3, userId);
+                read.setTimestamp(4, before);
+                read.setFetchSize(1000);
+                ResultSet rs = read.executeQuery();
+
+                Money running = null;
+                int pending = 0;
+                while (rs.next()) {
+                    if (running == null) {
+                        running = MoneyColumns.get(rs, "opening");
+                    }
+                    long transactionId = rs.getLong("transaction_id");
+                    boolean isSender = rs.getInt("sender_id") == userId;
+                    boolean isReceiver = rs.getInt("receiver_id") == userId;
+                    String type = rs.getString("transaction_type");
+                    Money amount = MoneyColumns.get(rs, "amount");
+
+                    if (isReceiver && CREDIT_TYPES.contains(type)) {
+                        running = running.plus(amount);
+                    }
+                    if (isSender && DEBIT_TYPES.contains(type)) {
+                        running = running.minus(amount);
+                    }
+
+                    // A recorded balance is authoritative (it also covers manual adjustments)
+                    Money recorded = MoneyColumns.get(rs, isReceiver ? "receiver_balance_after" : "sender_balance_after");
+                    if (recorded != null) {
+                        running = recorded;
+                    }
+                    if (isSender && rs.getBigDecimal("sender_balance_after") == null) {
+                        MoneyColumns.set(senderStmt, 1, running);
+                        senderStmt.setLong(2, transactionId);
+                        senderStmt.addBatch();
+                        pending++;
+                    }
+                    if (isReceiver && rs.getBigDecimal("receiver_balance_after") == null) {
+                        MoneyColumns.set(receiverStmt, 1, running);
+                        receiverStmt.setLong(2, transactionId);
+                        receiverStmt.addBatch();
+                        pending++;
+                    }
+
+                    if (pending >= BACKFILL_CHUNK) {
+                        senderStmt.executeBatch();
+                        receiverStmt.executeBatch();
+                        conn.commit();
+                        written += pending;
+                        pending = 0;
+                    }
+                }
+                senderStmt.executeBatch();
+                receiverStmt.executeBatch();
+                conn.commit();
+                written += pending;
+            }
+            return written;
+
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("  Running balance backfill failed for User ID " + userId + " after " + written + " rows", e);
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    logger.error("Critical: Rollback failed!", ex);
+                }
+            }
+            return -1;
+        } finally {
+            sw.stop();
+            closeResources(null, null, null, conn);
+        }
+    }
+
+    // Reads a wallet's balance inside the current transaction, after this movement's update.
+    // Sharded wallets return null: their shards are credited concurrently, so the exact
+    // figure is left to the backfill job. Sharding is checked in the same statement rather
+    // than in the process-local shard cache, which may be stale or failed to load.
+    private Money balanceAfter(Connection conn, int userId) throws SQLException {
+        String sql = "/* balance.after */ SELECT CASE WHEN EXISTS (SELECT 1 FROM wallet_shards s WHERE s.user_id = w.user_id)"
+                + " THEN NULL ELSE w.balance END FROM wallets w WHERE w.user_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? MoneyColumns.get(rs, 1) : null;
+        }
+    }
+
+    // Running balance of a netting participant, or null for sharded wallets (see balanceAfter);
+    // sharded holds the wallets lockBalances found shard rows for
+    private Money runningBalance(NettingBatch batch, Map<Integer, Long> held, Map<Integer, Long> sharded, int userId) {
+        if (sharded.containsKey(userId)) {
+            return null;
+        }
+        return Money.ofMinor(batch.getBalance(userId) + held.getOrDefault(userId, 0L));
+    }
+
+    // Converts a caller's amount; amounts with more than two decimals are refused, not rounded
+    private static Money toMoney(BigDecimal amount) {
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            logger.warn("Rejected amount with more than two decimals: " + amount);
+            return null;
+        }
+    }
+
+    // Completes the JFR event for a money movement (no-op unless a recording is running)
+    private void commitEvent(MoneyMovementEvent event, TransactionType type, int senderId, int receiverId,
+                             Money amount, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type.name();
+            event.senderId = senderId;
+            event.receiverId = receiverId;
+            event.amount = amount == null ? 0.0 : amount.getMinor() / 100.0;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
     // Helper to close resources safely
     private void closeResources(PreparedStatement s1, PreparedStatement s2, PreparedStatement s3, Connection conn) {
         try {
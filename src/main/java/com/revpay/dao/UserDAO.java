@@ -1,8 +1,9 @@
 package com.revpay.dao;
 
 import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import com.revpay.model.User;
-import com.revpay.model.Role;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,17 +20,19 @@ public class UserDAO {
 
 
     public boolean registerUser(User user) {
-        String sql = "INSERT INTO users (email, phone_number, password_hash, transaction_pin, full_name, role) VALUES (?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO users (user_id, email, phone_number, password_hash, transaction_pin, full_name, role) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        Stopwatch sw = MetricsRegistry.start("dao.UserDAO.registerUser");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, user.getEmail());
-            stmt.setString(2, user.getPhoneNumber());
-            stmt.setString(3, user.getPasswordHash());
-            stmt.setString(4, user.getTransactionPin());
-            stmt.setString(5, user.getFullName());
-            stmt.setString(6, user.getRole().name());
+            stmt.setLong(1, IdAllocator.get().next(conn, IdAllocator.USERS));
+            stmt.setString(2, user.getEmail());
+            stmt.setString(3, user.getPhoneNumber());
+            stmt.setString(4, user.getPasswordHash());
+            stmt.setString(5, user.getTransactionPin());
+            stmt.setString(6, user.getFullName());
+            stmt.setString(7, user.getRole().name());
 
             int rowsInserted = stmt.executeUpdate();
 
@@ -39,6 +42,7 @@ public class UserDAO {
             }
 
         } catch (SQLException e) {
+            sw.fail();
             // 🔍 CHECK: Is this a "Duplicate Entry" error? (SQLState 23000 is for integrity violations)
             if ("23000".equals(e.getSQLState())) {
                 // Log a clean warning WITHOUT the stack trace
@@ -47,12 +51,15 @@ public class UserDAO {
                 // If it's some other weird error (like DB connection lost), print the full log
                 logger.error("  Unexpected DB Error for " + user.getEmail(), e);
             }
+        } finally {
+            sw.stop();
         }
         return false;
     }
 
     public User getUserByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE email = ?";
+        String sql = RowMappers.USER.select() + " WHERE email = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.UserDAO.getUserByEmail");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -61,29 +68,19 @@ public class UserDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                User user = new User();
-                user.setUserId(rs.getInt("user_id"));
-                user.setEmail(rs.getString("email"));
-                user.setPhoneNumber(rs.getString("phone_number"));
-                user.setPasswordHash(rs.getString("password_hash"));
-                user.setTransactionPin(rs.getString("transaction_pin"));
-                user.setFullName(rs.getString("full_name"));
-                // Safely parse Role
-                try {
-                    user.setRole(Role.valueOf(rs.getString("role")));
-                } catch (Exception e) {
-                    logger.warn("Invalid Role found for user " + email);
-                    user.setRole(Role.PERSONAL); // Default fallback
-                }
-                return user;
+                return RowMappers.USER.map(rs);
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("  Error fetching user by email: " + email, e);
+        } finally {
+            sw.stop();
         }
         return null;
     }
 
     public boolean deleteUser(int userId) {
+        Stopwatch sw = MetricsRegistry.start("dao.UserDAO.deleteUser");
         logger.warn("⚠️ Attempting to delete User ID: " + userId);
 
         String[] sqlSteps = {
@@ -118,6 +115,7 @@ public class UserDAO {
             return true;
 
         } catch (SQLException e) {
+            sw.fail();
             logger.error("❌ Error deleting user " + userId + ". Rolling back...", e);
             if (conn != null) {
                 try { conn.rollback(); } catch (SQLException ex) { logger.error("Rollback failed", ex); }
@@ -125,6 +123,7 @@ public class UserDAO {
             return false;
 
         } finally {
+            sw.stop();
             if (conn != null) {
                 try {
                     conn.setAutoCommit(true);
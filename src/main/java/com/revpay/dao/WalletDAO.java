@@ -1,6 +1,11 @@
 package com.revpay.dao;
 
+import com.revpay.config.AppConfig;
 import com.revpay.config.DatabaseConnection;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.Money;
+import com.revpay.model.Wallet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -9,6 +14,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
 
 /**
  * Data Access Object (DAO) for managing User Wallets.
@@ -16,8 +24,9 @@ import java.sql.SQLException;
  * This class handles the low-level database operations for creating wallets,
  * retrieving current balances, and updating funds.
  * <br>
- * <b>Note:</b> Direct usage of {@code updateBalance} should be done carefully to avoid
- * race conditions. Prefer using {@link TransactionDAO} for money movements.
+ * <b>Note:</b> Balance changes that are computed from the current balance go through
+ * {@code adjustBalance}, which compare-and-sets on the row version instead of locking.
+ * Prefer using {@link TransactionDAO} for money movements.
  * </p>
  *
  * @author RevPay Dev Team
@@ -38,6 +47,7 @@ public class WalletDAO {
      */
     public void createWallet(int userId) {
         String sql = "INSERT INTO wallets (user_id, balance) VALUES (?, 0.00)";
+        Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.createWallet");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -48,7 +58,10 @@ public class WalletDAO {
             logger.info("✅ Wallet created for User ID: " + userId);
 
         } catch (SQLException e) {
+            sw.fail();
             logger.error("❌ Failed to create wallet for User ID: " + userId, e);
+        } finally {
+            sw.stop();
         }
     }
 
@@ -59,7 +72,9 @@ public class WalletDAO {
      * @return The current balance as a {@link BigDecimal}. Returns {@link BigDecimal#ZERO} if not found or on error.
      */
     public BigDecimal getBalance(int userId) {
-        String sql = "SELECT balance FROM wallets WHERE user_id = ?";
+        // Sharded wallets (see WalletShards) report the main row plus every shard
+        String sql = "SELECT " + WalletShards.TOTAL_BALANCE + " AS balance FROM wallets w WHERE w.user_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.getBalance");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -71,15 +86,228 @@ public class WalletDAO {
                 return rs.getBigDecimal("balance");
             }
         } catch (SQLException e) {
+            sw.fail();
             logger.error("❌ Error fetching balance for User ID: " + userId, e);
+        } finally {
+            sw.stop();
         }
         return BigDecimal.ZERO; // Default safe fallback
     }
 
     /**
-     * Updates the wallet balance directly.
+     * Retrieves a user's balance as it was at a point in time.
+     * <p>
+     * Every ledger row records the balance of both parties right after it, so this
+     * is the balance recorded by the user's latest row at or before {@code at}: one
+     * descending index probe on (sender_id, txn_timestamp) and one on
+     * (receiver_id, txn_timestamp), each stopping at the first row. Rows whose
+     * balance has not been backfilled yet (see {@code RunningBalanceBackfillJob}),
+     * and users with no hot row before {@code at}, fall back to summing the user's
+     * history up to {@code at}: the net totals of archived months plus the hot rows
+     * after them. A point inside an archived month therefore gets the balance at the
+     * start of that month, since its rows are only in the archive file.
+     * </p>
+     *
+     * @param userId The unique ID of the user.
+     * @param at     The point in time.
+     * @return The balance at {@code at} ({@link BigDecimal#ZERO} before the first movement), or {@code null} on error.
+     */
+    public BigDecimal getBalanceAt(int userId, Timestamp at) {
+        String probe = "SELECT txn_timestamp, transaction_id, %1$s_balance_after AS balance_after FROM transactions"
+                + " WHERE %1$s_id = ? AND txn_timestamp <= ? AND status = 'SUCCESS' ORDER BY txn_timestamp DESC, transaction_id DESC";
+        String sql = "/* wallet.balanceAt */ SELECT balance_after FROM ("
+                + " SELECT * FROM (" + String.format(probe, "sender") + ") WHERE ROWNUM = 1"
+                + " UNION ALL"
+                + " SELECT * FROM (" + String.format(probe, "receiver") + ") WHERE ROWNUM = 1"
+                + " ORDER BY txn_timestamp DESC, transaction_id DESC"
+                + ") WHERE ROWNUM = 1";
+        String sumSQL = "/* wallet.balanceAtSum */ SELECT"
+                + " NVL((SELECT SUM(net_amount) FROM archived_balances WHERE user_id = ? AND ADD_MONTHS(archive_month, 1) <= ?), 0)"
+                + " + (SELECT NVL(SUM(CASE WHEN receiver_id = ? AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT') THEN amount ELSE 0 END), 0)"
+                + " - NVL(SUM(CASE WHEN sender_id = ? AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL') THEN amount ELSE 0 END), 0)"
+                + " FROM transactions WHERE (sender_id = ? OR receiver_id = ?) AND txn_timestamp <= ? AND status = 'SUCCESS'"
+                + " AND txn_timestamp >= " + TransactionArchiveDAO.HOT_FROM + ") FROM dual";
+        Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.getBalanceAt");
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, userId);
+                stmt.setTimestamp(2, at);
+                stmt.setInt(3, userId);
+                stmt.setTimestamp(4, at);
+                ResultSet rs = stmt.executeQuery();
+                // No hot row: either no movement yet (wallets start empty) or only archived ones
+                BigDecimal recorded = rs.next() ? rs.getBigDecimal(1) : null;
+                if (recorded != null) {
+                    return recorded;
+                }
+            }
+
+            MetricsRegistry.counter("wallet.balanceAt.fallback").increment();
+            logger.debug("Running balance not recorded in the hot table for User ID " + userId + ". Summing history");
+            try (PreparedStatement stmt = conn.prepareStatement(sumSQL)) {
+                stmt.setInt(1, userId);
+                stmt.setTimestamp(2, at);
+                stmt.setInt(3, userId);
+                stmt.setInt(4, userId);
+                stmt.setInt(5, userId);
+                stmt.setInt(6, userId);
+                stmt.setTimestamp(7, at);
+                ResultSet rs = stmt.executeQuery();
+                return rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("❌ Error fetching balance at " + at + " for User ID: " + userId, e);
+        } finally {
+            sw.stop();
+        }
+        return null;
+    }
+
+    /**
+     * Reads a wallet's balance together with its row version and holds.
+     * <p>
+     * The totals of pending holds are kept on the wallet row by {@link HoldDAO}, so
+     * the available balance costs no more than the balance.
+     * </p>
+     *
+     * @param userId The unique ID of the user.
+     * @return The wallet (balance includes shards), or {@code null} if not found or on error.
+     */
+    public Wallet getWallet(int userId) {
+        String sql = "/* wallet.read */ SELECT " + WalletShards.TOTAL_BALANCE + ", w.version, w.held, w.pending FROM wallets w WHERE w.user_id = ?";
+        Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.getWallet");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                Wallet wallet = new Wallet(userId, rs.getBigDecimal(1));
+                wallet.setVersion(rs.getLong(2));
+                wallet.setHeld(rs.getBigDecimal(3));
+                wallet.setPending(rs.getBigDecimal(4));
+                return wallet;
+            }
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("❌ Error fetching wallet for User ID: " + userId, e);
+        } finally {
+            sw.stop();
+        }
+        return null;
+    }
+
+    /**
+     * Moves a wallet from the balance read in {@code expected} to {@code newBalance},
+     * provided nobody updated it since.
+     * <p>
+     * The difference is applied to the main row only if its version is still the one
+     * read. Every update of a wallet row bumps the version, and shards only shrink
+     * when they are folded into that row, so a matching version means the balance can
+     * only have grown by credits to shards; those are kept. The update is also refused
+     * if it would leave less than the funds held by pending debit holds.
+     * </p>
+     *
+     * @param expected   The wallet as read by {@link #getWallet(int)}.
+     * @param newBalance The balance computed from {@code expected}.
+     * @return {@code TRUE} if applied, {@code FALSE} if the wallet changed since it was
+     *         read (or the held funds would not be covered), or {@code null} on error,
+     *         including an amount with more than two decimals.
+     */
+    public Boolean compareAndSetBalance(Wallet expected, BigDecimal newBalance) {
+        String sql = "/* wallet.cas */ UPDATE wallets w SET balance = balance + ?, version = version + 1"
+                + " WHERE user_id = ? AND version = ? AND " + WalletShards.TOTAL_BALANCE + " + ? - held >= 0";
+        Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.compareAndSetBalance");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            Money delta = Money.of(newBalance.subtract(expected.getBalance()));
+            MoneyColumns.set(stmt, 1, delta);
+            stmt.setInt(2, expected.getUserId());
+            stmt.setLong(3, expected.getVersion());
+            MoneyColumns.set(stmt, 4, delta);
+            return stmt.executeUpdate() > 0;
+        } catch (ArithmeticException e) {
+            sw.fail();
+            logger.warn("Rejected balance with more than two decimals for User ID " + expected.getUserId() + ": " + newBalance);
+        } catch (SQLException e) {
+            sw.fail();
+            logger.error("❌ Failed to update balance for User ID: " + expected.getUserId(), e);
+        } finally {
+            sw.stop();
+        }
+        return null;
+    }
+
+    /**
+     * Applies a read-modify-write change to a balance without locking the wallet.
+     * <p>
+     * The balance is read, {@code adjustment} computes the new one and the result is
+     * written with {@link #compareAndSetBalance(Wallet, BigDecimal)}. If another update
+     * got in between, the whole cycle is retried after a short random pause, up to
+     * {@code revpay.wallet.casRetries} times, so no update is lost. The adjustment may
+     * therefore run more than once and must have no side effects. A database error is
+     * not a conflict and ends the call at once. A new balance below the funds held by
+     * debit holds is refused without writing.
+     * </p>
+     *
+     * @param userId     The unique ID of the user.
+     * @param adjustment Computes the new balance from the current one; returns {@code null} to cancel.
+     * @return The balance written, or {@code null} if the wallet was not found, the
+     *         adjustment cancelled or did not cover the held funds, the retries ran out, or on error.
+     */
+    public BigDecimal adjustBalance(int userId, UnaryOperator<BigDecimal> adjustment) {
+        int maxAttempts = Math.max(1, AppConfig.getInt("revpay.wallet.casRetries", 10) + 1);
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            Wallet current = getWallet(userId);
+            if (current == null) {
+                return null;
+            }
+            BigDecimal newBalance = adjustment.apply(current.getBalance());
+            if (newBalance == null) {
+                return null;
+            }
+            if (newBalance.compareTo(current.getHeld()) < 0) {
+                logger.warn("⚠️ Balance update for User ID " + userId + " refused: $" + newBalance
+                        + " would not cover $" + current.getHeld() + " held");
+                return null;
+            }
+            Boolean applied = compareAndSetBalance(current, newBalance);
+            if (applied == null) {
+                return null; // Error, already logged; retrying would not help
+            }
+            if (applied) {
+                logger.debug("💰 Balance updated for User ID " + userId + ": $" + newBalance);
+                return newBalance;
+            }
+            MetricsRegistry.counter("wallet.cas.conflicts").increment();
+            try {
+                // Spread the retries of colliding callers; the window doubles up to 32 ms
+                Thread.sleep(ThreadLocalRandom.current().nextInt(1 << Math.min(attempt, 5)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        MetricsRegistry.counter("wallet.cas.exhausted").increment();
+        logger.warn("⚠️ Balance update for User ID " + userId + " gave up after " + maxAttempts + " conflicting attempts");
+        return null;
+    }
+
+    /**
+     * Sets the wallet balance.
      * <p>
      * <b>Warning:</b> This sets the absolute balance. Ensure calculation correctness before calling.
+     * It goes through {@link #adjustBalance(int, UnaryOperator)}: a movement that
+     * updates the wallet row while it runs makes it retry, and the retry still writes
+     * {@code newBalance}, so that movement is overwritten. Only credits to shards
+     * made during the final write are kept on top. To change a balance by an amount,
+     * use {@code adjustBalance} with a delta.
      * </p>
      *
      * @param userId     The unique ID of the user.
@@ -87,23 +315,86 @@ public class WalletDAO {
      * @return {@code true} if the update was successful, {@code false} otherwise.
      */
     public boolean updateBalance(int userId, BigDecimal newBalance) {
-        String sql = "UPDATE wallets SET balance = ? WHERE user_id = ?";
+        return adjustBalance(userId, current -> newBalance) != null;
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Splits a hot receiver's wallet into {@code shards} credit rows.
+     * <p>
+     * Incoming payments are then spread over the shards by payer, so they no longer
+     * queue on a single row lock. Balances and debits stay transparent to callers.
+     * Calling it again with a different count rebuilds the shards.
+     * </p>
+     *
+     * @param userId The unique ID of the user (typically a BUSINESS account).
+     * @param shards Number of shard rows (at least 2), or {@code 0} to remove sharding.
+     * @return {@code true} if the change was committed.
+     */
+    public boolean enableSharding(int userId, int shards) {
+        String deleteSQL = "DELETE FROM wallet_shards WHERE user_id = ?";
+        String insertSQL = "INSERT INTO wallet_shards (user_id, shard_no, balance) VALUES (?, ?, 0)";
+        Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.enableSharding");
+        Connection conn = null;
 
-            stmt.setBigDecimal(1, newBalance);
-            stmt.setInt(2, userId);
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
 
-            int rows = stmt.executeUpdate();
+            // Fold existing shards back first so no money is lost when the layout changes
+            WalletShards.consolidate(conn, userId);
+            try (PreparedStatement delete = conn.prepareStatement(deleteSQL);
+                 PreparedStatement insert = conn.prepareStatement(insertSQL)) {
 
-            if (rows > 0) {
-                logger.debug("💰 Balance updated for User ID " + userId + ": $" + newBalance);
-                return true;
+                delete.setInt(1, userId);
+                delete.executeUpdate();
+                for (int shard = 0; shards > 1 && shard < shards; shard++) {
+                    insert.setInt(1, userId);
+                    insert.setInt(2, shard);
+                    insert.addBatch();
+                }
+                if (shards > 1) {
+                    insert.executeBatch();
+                }
             }
+            conn.commit();
+
+            if (shards > 1) {
+                WalletShards.register(userId, shards);
+                logger.info("Wallet of User ID " + userId + " sharded into " + shards + " rows");
+            } else {
+                WalletShards.unregister(userId);
+                logger.info("Wallet sharding removed for User ID " + userId);
+            }
+            return true;
         } catch (SQLException e) {
-            logger.error("❌ Failed to update balance for User ID: " + userId, e);
+            sw.fail();
+            logger.error("❌ Failed to shard wallet for User ID: " + userId, e);
+            rollback(conn);
+            return false;
+        } finally {
+            sw.stop();
+            close(conn);
+        }
+    }
+
+    private void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                logger.error("Rollback failed", ex);
+            }
+        }
+    }
+
+    private void close(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                logger.error("Error closing connection", e);
+            }
         }
-        return false;
     }
 }
\ No newline at end of file
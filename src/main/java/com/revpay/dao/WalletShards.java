@@ -0,0 +1,149 @@
+package com.revpay.dao;
+
+import com.revpay.config.AppConfig;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.model.Money;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Balance sharding for hot receiver wallets.
+ * <p>
+ * A sharded wallet keeps its main {@code wallets} row plus N rows in
+ * {@code wallet_shards}. Credits go to one shard picked by hashing the payer, so
+ * concurrent payers to the same merchant lock different rows. The balance is the main
+ * row plus all shards. Debits are taken from the main row; when it is short, the
+ * shards are first folded back into it with {@link #consolidate(Connection, int)}.
+ * </p>
+ * <p>
+ * Used only by DAOs in this package, on the caller's connection and transaction.
+ * Which wallets are sharded is cached and re-read on the caller's connection every
+ * {@code revpay.wallet.shardRefreshMs}, by one caller at a time; the others keep using
+ * the cached map meanwhile. A failed read waits for the next interval too, so a
+ * database blip never takes a second connection or serialises credits.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+final class WalletShards {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(WalletShards.class);
+
+    /** SQL fragment giving a wallet's total balance (alias {@code w} for {@code wallets}). */
+    static final String TOTAL_BALANCE =
+            "w.balance + NVL((SELECT SUM(s.balance) FROM wallet_shards s WHERE s.user_id = w.user_id), 0)";
+
+    private static volatile Map<Integer, Integer> shardCounts = new ConcurrentHashMap<>();
+    private static volatile long nextRefreshAt;
+    private static final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private WalletShards() {}
+
+    /**
+     * @return The number of shards for the user, or 0 if the wallet is not sharded.
+     */
+    static int shardCount(Connection conn, int userId) {
+        refresh(conn);
+        Integer shards = shardCounts.get(userId);
+        return shards == null ? 0 : shards;
+    }
+
+    /**
+     * Credits one shard of a sharded wallet.
+     *
+     * @param salt Spreads concurrent credits (usually the payer's ID).
+     * @return Rows updated; {@code 0} if the wallet is not sharded and the caller must credit the main row.
+     */
+    static int creditShard(Connection conn, int userId, Money amount, int salt) throws SQLException {
+        int shards = shardCount(conn, userId);
+        if (shards == 0) {
+            return 0;
+        }
+        int shard = Math.floorMod(salt * 0x9E3779B9, shards);
+        String sql = "/* wallet.shard.credit */ UPDATE wallet_shards SET balance = balance + ? WHERE user_id = ? AND shard_no = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            MoneyColumns.set(stmt, 1, amount);
+            stmt.setInt(2, userId);
+            stmt.setInt(3, shard);
+            int rows = stmt.executeUpdate();
+            if (rows == 0) {
+                // Shards were removed by another process; forget them and use the main row
+                shardCounts.remove(userId);
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Moves every shard balance into the main wallet row, within the caller's transaction.
+     *
+     * @return The amount moved ({@link Money#ZERO} if nothing was sharded).
+     */
+    static Money consolidate(Connection conn, int userId) throws SQLException {
+        Money total = Money.ZERO;
+        String lockSQL = "/* wallet.shard.lock */ SELECT balance FROM wallet_shards WHERE user_id = ? FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(lockSQL)) {
+            stmt.setInt(1, userId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                total = total.plus(MoneyColumns.get(rs, 1));
+            }
+        }
+        if (!total.isPositive()) {
+            return Money.ZERO;
+        }
+
+        try (PreparedStatement clear = conn.prepareStatement("/* wallet.shard.clear */ UPDATE wallet_shards SET balance = 0 WHERE user_id = ?");
+             PreparedStatement fold = conn.prepareStatement("/* wallet.shard.fold */ UPDATE wallets SET balance = balance + ?, version = version + 1 WHERE user_id = ?")) {
+            clear.setInt(1, userId);
+            clear.executeUpdate();
+            MoneyColumns.set(fold, 1, total);
+            fold.setInt(2, userId);
+            fold.executeUpdate();
+        }
+        MetricsRegistry.counter("wallet.shard.consolidations").increment();
+        logger.debug("Consolidated $" + total + " of shards into wallet of User ID " + userId);
+        return total;
+    }
+
+    static void register(int userId, int shards) {
+        shardCounts.put(userId, shards);
+    }
+
+    static void unregister(int userId) {
+        shardCounts.remove(userId);
+    }
+
+    private static void refresh(Connection conn) {
+        long now = System.currentTimeMillis();
+        if (now < nextRefreshAt || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        String sql = "/* wallet.shard.counts */ SELECT user_id, COUNT(*) FROM wallet_shards GROUP BY user_id";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Map<Integer, Integer> counts = new ConcurrentHashMap<>();
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                counts.put(rs.getInt(1), rs.getInt(2));
+            }
+            shardCounts = counts;
+            logger.debug("Loaded " + counts.size() + " sharded wallets");
+        } catch (SQLException e) {
+            // Credits fall back to the main row, which is always correct, just slower; retried next interval
+            logger.error("Could not load wallet shards", e);
+        } finally {
+            nextRefreshAt = now + Math.max(0, AppConfig.getLong("revpay.wallet.shardRefreshMs", 60000));
+            refreshing.set(false);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.InvoiceDAO;
+import com.revpay.model.Invoice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over {@link InvoiceDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncInvoiceDAO {
+
+    private final InvoiceDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncInvoiceDAO() {
+        this(new InvoiceDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncInvoiceDAO(InvoiceDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see InvoiceDAO#createInvoice(Invoice) */
+    public CompletableFuture<Boolean> createInvoice(Invoice inv) {
+        return executor.submit("InvoiceDAO.createInvoice", () -> dao.createInvoice(inv));
+    }
+
+    /** @see InvoiceDAO#getInvoicesByBusiness(int) */
+    public CompletableFuture<List<Invoice>> getInvoicesByBusiness(int businessId) {
+        return executor.submit("InvoiceDAO.getInvoicesByBusiness", () -> dao.getInvoicesByBusiness(businessId));
+    }
+
+    /** @see InvoiceDAO#getInvoicesForCustomer(String) */
+    public CompletableFuture<List<Invoice>> getInvoicesForCustomer(String email) {
+        return executor.submit("InvoiceDAO.getInvoicesForCustomer", () -> dao.getInvoicesForCustomer(email));
+    }
+
+    /** @see InvoiceDAO#markAsPaid(int) */
+    public CompletableFuture<Boolean> markAsPaid(int invoiceId) {
+        return executor.submit("InvoiceDAO.markAsPaid", () -> dao.markAsPaid(invoiceId));
+    }
+
+    /** @see InvoiceDAO#getInvoiceById(int) */
+    public CompletableFuture<Invoice> getInvoiceById(int id) {
+        return executor.submit("InvoiceDAO.getInvoiceById", () -> dao.getInvoiceById(id));
+    }
+
+    /** @see InvoiceDAO#getDescription(int) */
+    public CompletableFuture<String> getDescription(int invoiceId) {
+        return executor.submit("InvoiceDAO.getDescription", () -> dao.getDescription(invoiceId));
+    }
+}
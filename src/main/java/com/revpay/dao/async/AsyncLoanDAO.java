@@ -0,0 +1,55 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.LoanDAO;
+import com.revpay.model.Loan;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over {@link LoanDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncLoanDAO {
+
+    private final LoanDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncLoanDAO() {
+        this(new LoanDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncLoanDAO(LoanDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see LoanDAO#applyForLoan(Loan) */
+    public CompletableFuture<Boolean> applyForLoan(Loan loan) {
+        return executor.submit("LoanDAO.applyForLoan", () -> dao.applyForLoan(loan));
+    }
+
+    /** @see LoanDAO#getLoansByUserId(int) */
+    public CompletableFuture<List<Loan>> getLoansByUserId(int userId) {
+        return executor.submit("LoanDAO.getLoansByUserId", () -> dao.getLoansByUserId(userId));
+    }
+
+    /** @see LoanDAO#getReason(int, int) */
+    public CompletableFuture<String> getReason(int loanId, int userId) {
+        return executor.submit("LoanDAO.getReason", () -> dao.getReason(loanId, userId));
+    }
+}
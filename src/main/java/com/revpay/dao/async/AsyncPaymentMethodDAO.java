@@ -0,0 +1,50 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.PaymentMethodDAO;
+import com.revpay.model.PaymentMethod;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over {@link PaymentMethodDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncPaymentMethodDAO {
+
+    private final PaymentMethodDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncPaymentMethodDAO() {
+        this(new PaymentMethodDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncPaymentMethodDAO(PaymentMethodDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see PaymentMethodDAO#addPaymentMethod(PaymentMethod) */
+    public CompletableFuture<Boolean> addPaymentMethod(PaymentMethod pm) {
+        return executor.submit("PaymentMethodDAO.addPaymentMethod", () -> dao.addPaymentMethod(pm));
+    }
+
+    /** @see PaymentMethodDAO#getMethodsByUserId(int) */
+    public CompletableFuture<List<PaymentMethod>> getMethodsByUserId(int userId) {
+        return executor.submit("PaymentMethodDAO.getMethodsByUserId", () -> dao.getMethodsByUserId(userId));
+    }
+}
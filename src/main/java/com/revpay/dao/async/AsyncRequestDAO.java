@@ -0,0 +1,60 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.RequestDAO;
+import com.revpay.model.PaymentRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over {@link RequestDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncRequestDAO {
+
+    private final RequestDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncRequestDAO() {
+        this(new RequestDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncRequestDAO(RequestDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see RequestDAO#createRequest(PaymentRequest) */
+    public CompletableFuture<Boolean> createRequest(PaymentRequest req) {
+        return executor.submit("RequestDAO.createRequest", () -> dao.createRequest(req));
+    }
+
+    /** @see RequestDAO#getIncomingRequests(int) */
+    public CompletableFuture<List<PaymentRequest>> getIncomingRequests(int userId) {
+        return executor.submit("RequestDAO.getIncomingRequests", () -> dao.getIncomingRequests(userId));
+    }
+
+    /** @see RequestDAO#updateStatus(int, String) */
+    public CompletableFuture<Boolean> updateStatus(int requestId, String status) {
+        return executor.submit("RequestDAO.updateStatus", () -> dao.updateStatus(requestId, status));
+    }
+
+    /** @see RequestDAO#getRequestById(int) */
+    public CompletableFuture<PaymentRequest> getRequestById(int requestId) {
+        return executor.submit("RequestDAO.getRequestById", () -> dao.getRequestById(requestId));
+    }
+}
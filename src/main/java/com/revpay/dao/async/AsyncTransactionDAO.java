@@ -0,0 +1,79 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.TransactionDAO;
+import com.revpay.model.Money;
+import com.revpay.model.Transaction;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over {@link TransactionDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ * <p>
+ * A money movement that times out may still commit: cancellation stops the
+ * statement in flight, but the commit itself cannot be recalled. Callers that retry
+ * should go through {@code TransactionService} with an idempotency key. The batch
+ * methods used by the ledger engines and jobs are not exposed here.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncTransactionDAO {
+
+    private final TransactionDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncTransactionDAO() {
+        this(new TransactionDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncTransactionDAO(TransactionDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see TransactionDAO#transferMoney(int, int, Money) */
+    public CompletableFuture<Boolean> transferMoney(int senderId, int receiverId, Money amount) {
+        return executor.submit("TransactionDAO.transferMoney", () -> dao.transferMoney(senderId, receiverId, amount));
+    }
+
+    /** @see TransactionDAO#transferMoney(int, int, BigDecimal) */
+    public CompletableFuture<Boolean> transferMoney(int senderId, int receiverId, BigDecimal amount) {
+        return executor.submit("TransactionDAO.transferMoney", () -> dao.transferMoney(senderId, receiverId, amount));
+    }
+
+    /** @see TransactionDAO#depositMoney(int, Money) */
+    public CompletableFuture<Boolean> depositMoney(int userId, Money amount) {
+        return executor.submit("TransactionDAO.depositMoney", () -> dao.depositMoney(userId, amount));
+    }
+
+    /** @see TransactionDAO#depositMoney(int, BigDecimal) */
+    public CompletableFuture<Boolean> depositMoney(int userId, BigDecimal amount) {
+        return executor.submit("TransactionDAO.depositMoney", () -> dao.depositMoney(userId, amount));
+    }
+
+    /** @see TransactionDAO#getTransactionHistory(int) */
+    public CompletableFuture<List<Transaction>> getTransactionHistory(int userId) {
+        return executor.submit("TransactionDAO.getTransactionHistory", () -> dao.getTransactionHistory(userId));
+    }
+
+    /** @see TransactionDAO#getTransactionHistory(int, Timestamp, Timestamp) */
+    public CompletableFuture<List<Transaction>> getTransactionHistory(int userId, Timestamp from, Timestamp to) {
+        return executor.submit("TransactionDAO.getTransactionHistory", () -> dao.getTransactionHistory(userId, from, to));
+    }
+}
@@ -0,0 +1,54 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.UserDAO;
+import com.revpay.model.User;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade over {@link UserDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncUserDAO {
+
+    private final UserDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncUserDAO() {
+        this(new UserDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncUserDAO(UserDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see UserDAO#registerUser(User) */
+    public CompletableFuture<Boolean> registerUser(User user) {
+        return executor.submit("UserDAO.registerUser", () -> dao.registerUser(user));
+    }
+
+    /** @see UserDAO#getUserByEmail(String) */
+    public CompletableFuture<User> getUserByEmail(String email) {
+        return executor.submit("UserDAO.getUserByEmail", () -> dao.getUserByEmail(email));
+    }
+
+    /** @see UserDAO#deleteUser(int) */
+    public CompletableFuture<Boolean> deleteUser(int userId) {
+        return executor.submit("UserDAO.deleteUser", () -> dao.deleteUser(userId));
+    }
+}
@@ -0,0 +1,74 @@
+package com.revpay.dao.async;
+
+import com.revpay.dao.WalletDAO;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+/**
+ * Asynchronous facade over {@link WalletDAO}.
+ * <p>
+ * Each method runs the DAO method of the same name on a {@link DaoExecutor} and
+ * completes with its result, error values included. Cancelling the future, or
+ * letting it time out, cancels the SQL statement that is running.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AsyncWalletDAO {
+
+    private final WalletDAO dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade over a new DAO, on the shared executor.
+     */
+    public AsyncWalletDAO() {
+        this(new WalletDAO(), DaoExecutor.get());
+    }
+
+    /**
+     * @param dao      The blocking DAO.
+     * @param executor Runs its calls.
+     */
+    public AsyncWalletDAO(WalletDAO dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /** @see WalletDAO#createWallet(int) */
+    public CompletableFuture<Void> createWallet(int userId) {
+        return executor.submit("WalletDAO.createWallet", () -> {
+            dao.createWallet(userId);
+            return null;
+        });
+    }
+
+    /** @see WalletDAO#getBalance(int) */
+    public CompletableFuture<BigDecimal> getBalance(int userId) {
+        return executor.submit("WalletDAO.getBalance", () -> dao.getBalance(userId));
+    }
+
+    /** @see WalletDAO#getBalanceAt(int, Timestamp) */
+    public CompletableFuture<BigDecimal> getBalanceAt(int userId, Timestamp at) {
+        return executor.submit("WalletDAO.getBalanceAt", () -> dao.getBalanceAt(userId, at));
+    }
+
+    /** @see WalletDAO#adjustBalance(int, UnaryOperator) */
+    public CompletableFuture<BigDecimal> adjustBalance(int userId, UnaryOperator<BigDecimal> adjustment) {
+        return executor.submit("WalletDAO.adjustBalance", () -> dao.adjustBalance(userId, adjustment));
+    }
+
+    /** @see WalletDAO#updateBalance(int, BigDecimal) */
+    public CompletableFuture<Boolean> updateBalance(int userId, BigDecimal newBalance) {
+        return executor.submit("WalletDAO.updateBalance", () -> dao.updateBalance(userId, newBalance));
+    }
+
+    /** @see WalletDAO#enableSharding(int, int) */
+    public CompletableFuture<Boolean> enableSharding(int userId, int shards) {
+        return executor.submit("WalletDAO.enableSharding", () -> dao.enableSharding(userId, shards));
+    }
+}
@@ -0,0 +1,160 @@
+package com.revpay.dao.async;
+
+import com.revpay.config.AppConfig;
+import com.revpay.config.CancelScope;
+import com.revpay.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking DAO calls off the caller's thread and hands back a {@link CompletableFuture}.
+ * <p>
+ * Every call gets a timeout and its own {@link CancelScope}. If the future is
+ * cancelled or times out, a call that has not started yet never runs, and one that
+ * is running has its current statement cancelled on the server
+ * ({@link java.sql.Statement#cancel()}). The DAO then sees ORA-01013 and returns its
+ * usual error value, which nobody is waiting for any more.
+ * </p>
+ * <p>
+ * The shared executor is chosen with {@code revpay.dao.async.executor}: {@code bounded}
+ * (default) uses {@code revpay.dao.async.threads} daemon threads; {@code virtual}
+ * starts a virtual thread per call on JVMs that have them (21+) and falls back to
+ * the bounded pool otherwise. The default timeout is {@code revpay.dao.async.timeoutMs}.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class DaoExecutor {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(DaoExecutor.class);
+
+    private static volatile DaoExecutor shared;
+
+    private final ExecutorService executor;
+    private final long defaultTimeoutMillis;
+
+    /**
+     * @param executor             Runs the blocking calls.
+     * @param defaultTimeoutMillis Timeout of calls that do not give their own ({@code <= 0} for none).
+     */
+    public DaoExecutor(ExecutorService executor, long defaultTimeoutMillis) {
+        this.executor = executor;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    /**
+     * @return The process-wide executor, created from configuration on first call.
+     */
+    public static DaoExecutor get() {
+        DaoExecutor executor = shared;
+        if (executor == null) {
+            synchronized (DaoExecutor.class) {
+                executor = shared;
+                if (executor == null) {
+                    executor = new DaoExecutor(createPool(AppConfig.getString("revpay.dao.async.executor", "bounded")),
+                            AppConfig.getLong("revpay.dao.async.timeoutMs", 5000));
+                    shared = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Runs a DAO call with the default timeout.
+     *
+     * @param operation Name used in log messages, e.g. {@code UserDAO.getUserByEmail}.
+     * @param call      The blocking call.
+     */
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> call) {
+        return submit(operation, call, defaultTimeoutMillis);
+    }
+
+    /**
+     * Runs a DAO call.
+     *
+     * @param operation     Name used in log messages, e.g. {@code UserDAO.getUserByEmail}.
+     * @param call          The blocking call.
+     * @param timeoutMillis Time after which the future fails with {@link TimeoutException}
+     *                      and the call is cancelled ({@code <= 0} for none).
+     * @return A future of the call's result. It fails with {@link RejectedExecutionException}
+     *         if the executor is shut down.
+     */
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> call, long timeoutMillis) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CancelScope scope = new CancelScope();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(scope.call(call));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (timeoutMillis > 0) {
+            future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                return;
+            }
+            // Stops a queued call from starting and a running one at its current statement
+            task.cancel(false);
+            scope.cancel();
+            if (error instanceof TimeoutException) {
+                MetricsRegistry.counter("dao.async.timeouts").increment();
+                logger.warn(operation + " timed out after " + timeoutMillis + " ms; cancelled");
+            } else if (error instanceof CancellationException) {
+                MetricsRegistry.counter("dao.async.cancelled").increment();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stops accepting calls and interrupts running ones.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createPool(String kind) {
+        if ("virtual".equalsIgnoreCase(kind)) {
+            try {
+                ExecutorService virtual = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                logger.info("Async DAO calls run on virtual threads");
+                return virtual;
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Virtual threads are not available on this JVM; using a bounded pool");
+            }
+        }
+        int threads = Math.max(1, AppConfig.getInt("revpay.dao.async.threads", 16));
+        logger.info("Async DAO calls run on " + threads + " threads");
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "dao-async");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
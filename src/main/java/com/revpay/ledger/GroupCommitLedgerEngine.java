@@ -0,0 +1,243 @@
+package com.revpay.ledger;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.TransactionDAO;
+import com.revpay.dao.WalletDAO;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.Money;
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger engine that commits concurrent movements together.
+ * <p>
+ * Callers enqueue their transfer or deposit and get a future. A dispatcher thread
+ * collects up to {@code batchSize} requests, waiting at most {@code lingerMillis}
+ * for stragglers, and applies them with {@link TransactionDAO#applyGroup(List)}:
+ * one connection, one savepoint per movement and a single commit. Every future then
+ * completes with that movement's own outcome, so one payer's insufficient funds does
+ * not fail the rest of the batch. Idempotency keys travel with their movement and are
+ * recorded in the same commit. Throughput is no longer bounded by one redo-log
+ * fsync per transfer.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class GroupCommitLedgerEngine implements LedgerEngine {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(GroupCommitLedgerEngine.class);
+
+    protected final TransactionDAO transactionDAO;
+    private final WalletDAO walletDAO = new WalletDAO();
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * Creates an engine configured from {@code revpay.ledger.groupCommit.batchSize}
+     * and {@code revpay.ledger.groupCommit.lingerMs}.
+     */
+    public GroupCommitLedgerEngine() {
+        this(new TransactionDAO(),
+                AppConfig.getInt("revpay.ledger.groupCommit.batchSize", 64),
+                AppConfig.getLong("revpay.ledger.groupCommit.lingerMs", 2));
+    }
+
+    /**
+     * @param transactionDAO The DAO that applies each batch.
+     * @param batchSize      Maximum movements per commit.
+     * @param lingerMillis   Maximum time the first request of a batch waits for company.
+     */
+    public GroupCommitLedgerEngine(TransactionDAO transactionDAO, int batchSize, long lingerMillis) {
+        this.transactionDAO = transactionDAO;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.dispatcher = new Thread(this::dispatchLoop, "ledger-group-commit");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        MetricsRegistry.gauge("ledger.groupCommit.queued", queue::size);
+    }
+
+    /**
+     * Queues a transfer for the next batch.
+     *
+     * @return A future completing with {@code true} once the batch containing the
+     *         transfer has committed, or {@code false} if it failed.
+     */
+    public CompletableFuture<Boolean> submitTransfer(int senderId, int receiverId, Money amount) {
+        return submit(TransactionType.TRANSFER, senderId, receiverId, amount, null);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #submitTransfer(int, int, Money)}.
+     */
+    public CompletableFuture<Boolean> submitTransfer(int senderId, int receiverId, BigDecimal amount) {
+        Money money = LedgerEngine.toMoney(amount);
+        return money == null ? CompletableFuture.completedFuture(false) : submitTransfer(senderId, receiverId, money);
+    }
+
+    /**
+     * Queues a deposit for the next batch.
+     *
+     * @return A future completing with the deposit's outcome after its batch commits.
+     */
+    public CompletableFuture<Boolean> submitDeposit(int userId, Money amount) {
+        return submit(TransactionType.DEPOSIT, userId, userId, amount, null);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #submitDeposit(int, Money)}.
+     */
+    public CompletableFuture<Boolean> submitDeposit(int userId, BigDecimal amount) {
+        Money money = LedgerEngine.toMoney(amount);
+        return money == null ? CompletableFuture.completedFuture(false) : submitDeposit(userId, money);
+    }
+
+    @Override
+    public boolean transfer(int senderId, int receiverId, Money amount, String idempotencyKey) {
+        return await(submit(TransactionType.TRANSFER, senderId, receiverId, amount, idempotencyKey));
+    }
+
+    @Override
+    public boolean deposit(int userId, Money amount, String idempotencyKey) {
+        return await(submit(TransactionType.DEPOSIT, userId, userId, amount, idempotencyKey));
+    }
+
+    @Override
+    public BigDecimal getBalance(int userId) {
+        return walletDAO.getBalance(userId);
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Request leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.result.complete(false);
+        }
+    }
+
+    /**
+     * Applies one collected batch. Subclasses may settle the batch differently, as
+     * long as they return one outcome per movement.
+     *
+     * @param movements The batch, in arrival order.
+     * @return The outcome of each movement.
+     */
+    protected boolean[] applyBatch(List<LedgerEntry> movements) {
+        return transactionDAO.applyGroup(movements);
+    }
+
+    // --- Internals ---
+
+    private CompletableFuture<Boolean> submit(TransactionType type, int senderId, int receiverId, Money amount,
+                                              String idempotencyKey) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        long minor = amount.getMinor();
+        if (!running) {
+            result.complete(false);
+            return result;
+        }
+        queue.add(new Request(new LedgerEntry(type, senderId, receiverId, minor, System.currentTimeMillis(), 0L, idempotencyKey),
+                result));
+        return result;
+    }
+
+    private boolean await(CompletableFuture<Boolean> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.error("Group commit failed", e.getCause());
+            return false;
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        List<LedgerEntry> movements = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    Request next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: flush whatever was collected, then drain the queue
+            }
+            if (!batch.isEmpty()) {
+                commit(batch, movements);
+            }
+        }
+    }
+
+    private void commit(List<Request> batch, List<LedgerEntry> movements) {
+        Stopwatch sw = MetricsRegistry.start("ledger.groupCommit.batch");
+        try {
+            for (Request request : batch) {
+                movements.add(request.movement);
+            }
+            boolean[] outcomes = applyBatch(movements);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(outcomes[i]);
+            }
+            MetricsRegistry.counter("ledger.groupCommit.movements").add(batch.size());
+        } catch (RuntimeException e) {
+            sw.fail();
+            logger.error("Group commit of " + batch.size() + " movements failed", e);
+            for (Request request : batch) {
+                request.result.complete(false);
+            }
+        } finally {
+            sw.stop();
+            batch.clear();
+            movements.clear();
+        }
+    }
+
+    /**
+     * A queued movement and the future its caller waits on.
+     */
+    private static final class Request {
+        final LedgerEntry movement;
+        final CompletableFuture<Boolean> result;
+
+        Request(LedgerEntry movement, CompletableFuture<Boolean> result) {
+            this.movement = movement;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.revpay.ledger;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.LedgerDAO;
+import com.revpay.ledger.journal.MappedJournal;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.model.Money;
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger engine that keeps wallet balances in memory and persists asynchronously.
+ * <p>
+ * All movements are applied by a single writer thread, in submission order, so no
+ * wallet locks are needed and a busy merchant account no longer serialises callers
+ * on an Oracle row lock. Each applied movement is queued for a persister thread,
+ * which writes them in batches through {@link LedgerDAO#persist(List)}. A batch the
+ * database rejects outright (e.g. a deleted user) is split until the offending entry
+ * is isolated; that entry is quarantined and the rest are written. Idempotency keys
+ * are checked on the writer thread and persisted in the same batch as their movement.
+ * </p>
+ * <p>
+ * With a {@link MappedJournal}, every movement is first appended to the write-ahead
+ * journal and the caller only returns once it has been fsynced (shared with other
+ * callers by the journal's group fsync). On startup {@link #recover()} rebuilds
+ * balances from the {@code transactions} table and then re-applies and re-queues
+ * journal records newer than the persisted checkpoint, keys included, so a retry after
+ * the restart is still a duplicate. A journal that ends below the checkpoint is refused.
+ * Without a journal, queued
+ * movements are lost if the JVM dies before they are flushed.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class InMemoryLedgerEngine implements LedgerEngine {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(InMemoryLedgerEngine.class);
+
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+
+    private final LedgerDAO ledgerDAO;
+    private final int batchSize;
+    private final Map<Integer, Long> balances = new ConcurrentHashMap<>();
+    private final BlockingQueue<LedgerEntry> pending = new LinkedBlockingQueue<>();
+    private final List<LedgerEntry> quarantined = new CopyOnWriteArrayList<>();
+    private final Set<String> unpersistedKeys = ConcurrentHashMap.newKeySet();
+    private final MappedJournal wal;
+    private final ExecutorService writer;
+    private final Thread persister;
+    private volatile boolean running = true;
+
+    /**
+     * Creates an engine configured from {@code revpay.ledger.batchSize}.
+     *
+     * @param wal The write-ahead journal, or {@code null} to run without one.
+     */
+    public InMemoryLedgerEngine(MappedJournal wal) {
+        this(new LedgerDAO(), AppConfig.getInt("revpay.ledger.batchSize", 500), wal);
+    }
+
+    /**
+     * @param ledgerDAO The DAO used for recovery, wallet loading and persistence.
+     * @param batchSize Maximum number of entries written per DB transaction.
+     * @param wal       The write-ahead journal, or {@code null} to run without one.
+     */
+    public InMemoryLedgerEngine(LedgerDAO ledgerDAO, int batchSize, MappedJournal wal) {
+        this.ledgerDAO = ledgerDAO;
+        this.batchSize = Math.max(1, batchSize);
+        this.wal = wal;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ledger-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.persister = new Thread(this::persistLoop, "ledger-persister");
+        this.persister.setDaemon(true);
+        this.persister.start();
+        MetricsRegistry.gauge("ledger.journal.pending", pending::size);
+    }
+
+    /**
+     * Replaces the in-memory balances with those rebuilt from the transactions table,
+     * then replays journal records that had not been persisted yet.
+     * Must be called before the engine accepts traffic.
+     *
+     * @return The number of wallets recovered, or {@code -1} if the journal could not be replayed
+     *         (including a journal that ends below the database checkpoint).
+     */
+    public int recover() {
+        Map<Integer, Long> rebuilt = ledgerDAO.rebuildBalances();
+        balances.clear();
+        balances.putAll(rebuilt);
+        logger.info("In-memory ledger recovered " + rebuilt.size() + " wallets");
+
+        if (wal != null) {
+            long checkpoint = ledgerDAO.loadCheckpoint();
+            if (checkpoint < 0) {
+                logger.error("Ledger checkpoint unavailable; cannot replay journal safely");
+                return -1;
+            }
+            try {
+                wal.alignWithCheckpoint(checkpoint);
+                int before = pending.size();
+                wal.replay(checkpoint, (seq, type, sender, receiver, amount, ts, key) -> {
+                    // Replayed records were validated when first applied; re-apply them unconditionally
+                    if (type != TransactionType.DEPOSIT) {
+                        replayDelta(sender, -amount);
+                    }
+                    if (type != TransactionType.WITHDRAWAL) {
+                        replayDelta(receiver, amount);
+                    }
+                    remember(key);
+                    pending.add(new LedgerEntry(type, sender, receiver, amount, ts, seq, key));
+                });
+                logger.info("Replayed " + (pending.size() - before) + " journal records after checkpoint #" + checkpoint);
+            } catch (IOException e) {
+                logger.error("Failed to replay ledger journal", e);
+                return -1;
+            }
+        }
+        return balances.size();
+    }
+
+    @Override
+    public boolean transfer(int senderId, int receiverId, Money amount, String idempotencyKey) {
+        long minor = amount.getMinor();
+        if (minor <= 0) {
+            return false;
+        }
+        return awaitDurable(submit(() -> applyTransfer(senderId, receiverId, minor, idempotencyKey)));
+    }
+
+    @Override
+    public boolean deposit(int userId, Money amount, String idempotencyKey) {
+        long minor = amount.getMinor();
+        if (minor <= 0) {
+            return false;
+        }
+        return awaitDurable(submit(() -> applyDeposit(userId, minor, idempotencyKey)));
+    }
+
+    @Override
+    public BigDecimal getBalance(int userId) {
+        Long minor = balances.get(userId);
+        if (minor == null) {
+            minor = ledgerDAO.loadBalance(userId);
+        }
+        return minor == null ? BigDecimal.ZERO : BigDecimal.valueOf(minor, 2);
+    }
+
+    /**
+     * @return Number of applied entries not yet written to the database.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return Entries the database rejected; they are applied in memory but were never persisted.
+     */
+    public List<LedgerEntry> getQuarantined() {
+        return new ArrayList<>(quarantined);
+    }
+
+    @Override
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        persister.interrupt();
+        try {
+            persister.join(30000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            logger.error("Ledger shut down with " + pending.size() + " unpersisted entries"
+                    + (wal != null ? " (kept in the journal for replay)" : ""));
+        }
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    // --- Writer thread ---
+
+    /** @return The journal sequence (0 without a journal or for a duplicate key), or -1 if rejected. */
+    private long applyTransfer(int senderId, int receiverId, long minor, String key) {
+        Boolean duplicate = isDuplicate(key);
+        if (duplicate == null || duplicate) {
+            return duplicate == null ? -1 : 0;
+        }
+        Long senderBalance = wallet(senderId);
+        Long receiverBalance = wallet(receiverId);
+        if (senderBalance == null || receiverBalance == null) {
+            logger.warn("Ledger transfer rejected: unknown wallet (" + senderId + " -> " + receiverId + ")");
+            return -1;
+        }
+        if (senderBalance < minor) {
+            logger.warn("Ledger transfer rejected: insufficient funds for User " + senderId);
+            return -1;
+        }
+        long now = System.currentTimeMillis();
+        long seq = writeAhead(TransactionType.TRANSFER, senderId, receiverId, minor, now, key);
+        if (seq < 0) {
+            return -1;
+        }
+        balances.put(senderId, senderBalance - minor);
+        balances.put(receiverId, receiverBalance + minor);
+        remember(key);
+        pending.add(new LedgerEntry(TransactionType.TRANSFER, senderId, receiverId, minor, now, seq, key));
+        return seq;
+    }
+
+    /** @return The journal sequence (0 without a journal or for a duplicate key), or -1 if rejected. */
+    private long applyDeposit(int userId, long minor, String key) {
+        Boolean duplicate = isDuplicate(key);
+        if (duplicate == null || duplicate) {
+            return duplicate == null ? -1 : 0;
+        }
+        Long balance = wallet(userId);
+        if (balance == null) {
+            logger.warn("Ledger deposit rejected: unknown wallet for User " + userId);
+            return -1;
+        }
+        long now = System.currentTimeMillis();
+        long seq = writeAhead(TransactionType.DEPOSIT, userId, userId, minor, now, key);
+        if (seq < 0) {
+            return -1;
+        }
+        balances.put(userId, balance + minor);
+        remember(key);
+        pending.add(new LedgerEntry(TransactionType.DEPOSIT, userId, userId, minor, now, seq, key));
+        return seq;
+    }
+
+    /**
+     * A key is a duplicate if its movement is applied but not yet persisted, or already
+     * persisted. Keys leave the unpersisted set only after their batch commits, so
+     * checking the set before the database cannot miss one.
+     *
+     * @return Whether the key was used, or {@code null} if the database could not tell.
+     */
+    private Boolean isDuplicate(String key) {
+        if (key == null) {
+            return false;
+        }
+        if (unpersistedKeys.contains(key)) {
+            return true;
+        }
+        Boolean recorded = ledgerDAO.isKeyRecorded(key);
+        if (recorded == null) {
+            logger.warn("Ledger movement rejected: could not verify idempotency key " + key);
+        }
+        return recorded;
+    }
+
+    private void remember(String key) {
+        if (key != null) {
+            unpersistedKeys.add(key);
+        }
+    }
+
+    private void replayDelta(int userId, long delta) {
+        Long balance = wallet(userId);
+        balances.put(userId, (balance == null ? 0L : balance) + delta);
+    }
+
+    private long writeAhead(TransactionType type, int senderId, int receiverId, long minor, long now, String key) {
+        if (wal == null) {
+            return 0L;
+        }
+        try {
+            return wal.append(type, senderId, receiverId, minor, now, key);
+        } catch (IOException e) {
+            logger.error("Ledger journal append failed; rejecting " + type + " " + senderId + " -> " + receiverId, e);
+            return -1L;
+        }
+    }
+
+    /** Current balance, loading it from the DB the first time a wallet is touched. */
+    private Long wallet(int userId) {
+        Long balance = balances.get(userId);
+        if (balance == null) {
+            balance = ledgerDAO.loadBalance(userId);
+            if (balance != null) {
+                balances.put(userId, balance);
+            }
+        }
+        return balance;
+    }
+
+    private long submit(Callable<Long> task) {
+        try {
+            Future<Long> result = writer.submit(task);
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1L;
+        } catch (ExecutionException | RejectedExecutionException e) {
+            logger.error("Ledger engine failed to apply movement", e);
+            return -1L;
+        }
+    }
+
+    /** Waits outside the writer thread, so concurrent callers share one fsync. */
+    private boolean awaitDurable(long seq) {
+        if (seq < 0) {
+            return false;
+        }
+        if (seq > 0) {
+            try {
+                wal.awaitDurable(seq);
+            } catch (InterruptedException e) {
+                // Already applied in memory and journaled; only the fsync wait was cut short
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    // --- Persister thread ---
+
+    private void persistLoop() {
+        // Batches waiting to be written, oldest first; a rejected batch is replaced by its halves
+        Deque<List<LedgerEntry>> work = new ArrayDeque<>();
+        long backoff = 50;
+        while (running || !pending.isEmpty() || !work.isEmpty()) {
+            try {
+                if (work.isEmpty()) {
+                    LedgerEntry first = pending.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    List<LedgerEntry> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    pending.drainTo(batch, batchSize - 1);
+                    work.add(batch);
+                }
+                List<LedgerEntry> batch = work.peekFirst();
+                switch (ledgerDAO.persist(batch)) {
+                    case COMMITTED:
+                        work.pollFirst();
+                        forgetKeys(batch);
+                        if (wal != null) {
+                            wal.release(batch.get(batch.size() - 1).getSequence());
+                        }
+                        backoff = 50;
+                        break;
+                    case REJECTED:
+                        work.pollFirst();
+                        if (batch.size() == 1) {
+                            quarantine(batch.get(0));
+                        } else {
+                            // Split to isolate the bad entry; the others are written in their original order
+                            int half = batch.size() / 2;
+                            work.addFirst(batch.subList(half, batch.size()));
+                            work.addFirst(batch.subList(0, half));
+                        }
+                        backoff = 50;
+                        break;
+                    default:
+                        Thread.sleep(backoff);
+                        backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+                        break;
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: keep looping until the queue is drained (bounded by shutdown's join)
+            }
+        }
+    }
+
+    private void quarantine(LedgerEntry entry) {
+        quarantined.add(entry);
+        MetricsRegistry.counter("ledger.persist.quarantined").increment();
+        logger.error("Quarantined ledger entry the database rejected: " + entry.getType() + " " + entry.getSenderId()
+                + " -> " + entry.getReceiverId() + ", " + Money.ofMinor(entry.getAmountMinor()) + " at "
+                + entry.getTimestampMillis() + " (journal #" + entry.getSequence() + ")");
+        if (wal != null && entry.getSequence() > 0) {
+            wal.release(entry.getSequence());
+        }
+        // The movement stays applied in memory, so its key keeps blocking retries until restart
+    }
+
+    private void forgetKeys(List<LedgerEntry> batch) {
+        for (LedgerEntry entry : batch) {
+            if (entry.getIdempotencyKey() != null) {
+                unpersistedKeys.remove(entry.getIdempotencyKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.revpay.ledger;
+
+import com.revpay.dao.TransactionDAO;
+import com.revpay.dao.WalletDAO;
+import com.revpay.model.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Default engine: every movement is a synchronous, row-locking Oracle transaction
+ * executed by {@link TransactionDAO}.
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class JdbcLedgerEngine implements LedgerEngine {
+
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final WalletDAO walletDAO = new WalletDAO();
+
+    @Override
+    public boolean transfer(int senderId, int receiverId, Money amount, String idempotencyKey) {
+        return transactionDAO.transferMoney(senderId, receiverId, amount, idempotencyKey);
+    }
+
+    @Override
+    public boolean deposit(int userId, Money amount, String idempotencyKey) {
+        return transactionDAO.depositMoney(userId, amount, idempotencyKey);
+    }
+
+    @Override
+    public BigDecimal getBalance(int userId) {
+        return walletDAO.getBalance(userId);
+    }
+
+    @Override
+    public void shutdown() {
+        // Nothing buffered: every call commits before returning
+    }
+}
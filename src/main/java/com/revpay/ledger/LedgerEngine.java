@@ -0,0 +1,115 @@
+package com.revpay.ledger;
+
+import com.revpay.model.Money;
+import org.apache.logging.log4j.LogManager;
+
+import java.math.BigDecimal;
+
+/**
+ * Strategy for applying money movements to wallets.
+ * <p>
+ * {@link com.revpay.service.TransactionService} talks to the engine chosen by
+ * {@link LedgerEngines} instead of a fixed DAO, so the balance store can be
+ * swapped through configuration without touching business rules.
+ * </p>
+ * <p>
+ * Amounts are {@link Money}; the {@link BigDecimal} variants only convert and
+ * refuse amounts with more than two decimals.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public interface LedgerEngine {
+
+    /**
+     * Moves money from one wallet to another.
+     *
+     * @param senderId   The ID of the user sending money.
+     * @param receiverId The ID of the user receiving money.
+     * @param amount     The (already validated, positive) amount.
+     * @return {@code true} if the transfer was applied, {@code false} on insufficient
+     *         funds, unknown wallet or system error.
+     */
+    default boolean transfer(int senderId, int receiverId, Money amount) {
+        return transfer(senderId, receiverId, amount, null);
+    }
+
+    /**
+     * Moves money from one wallet to another at most once per idempotency key. The
+     * key is stored together with the movement (in the same database transaction),
+     * so it is recorded if and only if the movement is.
+     *
+     * @param senderId       The ID of the user sending money.
+     * @param receiverId     The ID of the user receiving money.
+     * @param amount         The (already validated, positive) amount.
+     * @param idempotencyKey The user-scoped key, or {@code null} for no deduplication.
+     * @return {@code true} if the transfer was applied now or under the same key before.
+     */
+    boolean transfer(int senderId, int receiverId, Money amount, String idempotencyKey);
+
+    /**
+     * Adds money to a wallet.
+     *
+     * @param userId The ID of the user.
+     * @param amount The (already validated, positive) amount.
+     * @return {@code true} if the deposit was applied.
+     */
+    default boolean deposit(int userId, Money amount) {
+        return deposit(userId, amount, null);
+    }
+
+    /**
+     * Adds money to a wallet at most once per idempotency key (see
+     * {@link #transfer(int, int, Money, String)}).
+     *
+     * @param userId         The ID of the user.
+     * @param amount         The (already validated, positive) amount.
+     * @param idempotencyKey The user-scoped key, or {@code null} for no deduplication.
+     * @return {@code true} if the deposit was applied now or under the same key before.
+     */
+    boolean deposit(int userId, Money amount, String idempotencyKey);
+
+    /**
+     * {@link BigDecimal} variant of {@link #transfer(int, int, Money)}.
+     */
+    default boolean transfer(int senderId, int receiverId, BigDecimal amount) {
+        Money money = toMoney(amount);
+        return money != null && transfer(senderId, receiverId, money);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #deposit(int, Money)}.
+     */
+    default boolean deposit(int userId, BigDecimal amount) {
+        Money money = toMoney(amount);
+        return money != null && deposit(userId, money);
+    }
+
+    /**
+     * Returns the balance as seen by this engine.
+     *
+     * @param userId The ID of the user.
+     * @return The current balance, or {@link BigDecimal#ZERO} if the wallet is unknown.
+     */
+    BigDecimal getBalance(int userId);
+
+    /**
+     * Flushes pending work and releases threads. The engine must not be used afterwards.
+     */
+    void shutdown();
+
+    /**
+     * Converts an amount exactly.
+     *
+     * @return The amount, or {@code null} (logged) if it has more than two decimals.
+     */
+    static Money toMoney(BigDecimal amount) {
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            LogManager.getLogger(LedgerEngine.class).warn("Ledger rejected amount with more than two decimals: " + amount);
+            return null;
+        }
+    }
+}
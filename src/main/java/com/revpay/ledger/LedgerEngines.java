@@ -0,0 +1,89 @@
+package com.revpay.ledger;
+
+import com.revpay.config.AppConfig;
+import com.revpay.ledger.journal.MappedJournal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Chooses and holds the process-wide {@link LedgerEngine}.
+ * <p>
+ * Selected with {@code -Drevpay.ledger.engine}: {@code jdbc} (default),
+ * {@code group}, {@code netting} or {@code memory}. The in-memory engine writes ahead to a
+ * {@link MappedJournal} in {@code revpay.journal.dir} (use {@code off} to disable),
+ * is recovered from the transactions table plus the journal on first use, and is
+ * flushed by a shutdown hook.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class LedgerEngines {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(LedgerEngines.class);
+
+    private static volatile LedgerEngine instance;
+
+    private LedgerEngines() {}
+
+    /**
+     * @return The configured engine, created on first call.
+     */
+    public static LedgerEngine get() {
+        LedgerEngine engine = instance;
+        if (engine == null) {
+            synchronized (LedgerEngines.class) {
+                engine = instance;
+                if (engine == null) {
+                    engine = create(AppConfig.getString("revpay.ledger.engine", "jdbc"));
+                    final LedgerEngine created = engine;
+                    Runtime.getRuntime().addShutdownHook(new Thread(created::shutdown, "ledger-shutdown"));
+                    instance = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    private static LedgerEngine create(String name) {
+        switch (name.toLowerCase()) {
+            case "memory":
+                MappedJournal wal = null;
+                String dir = AppConfig.getString("revpay.journal.dir", "journal");
+                if (!"off".equalsIgnoreCase(dir)) {
+                    try {
+                        wal = new MappedJournal(Paths.get(dir),
+                                AppConfig.getInt("revpay.journal.segmentMb", 64) * 1024 * 1024,
+                                AppConfig.getLong("revpay.journal.fsyncMs", 5),
+                                AppConfig.getBoolean("revpay.journal.retain", false));
+                    } catch (IOException e) {
+                        logger.error("Could not open ledger journal in '" + dir + "'. Falling back to jdbc", e);
+                        return new JdbcLedgerEngine();
+                    }
+                }
+                InMemoryLedgerEngine memory = new InMemoryLedgerEngine(wal);
+                if (memory.recover() < 0) {
+                    logger.error("In-memory ledger recovery failed. Falling back to jdbc");
+                    memory.shutdown();
+                    return new JdbcLedgerEngine();
+                }
+                logger.info("Ledger engine: in-memory single writer" + (wal != null ? ", journal in '" + dir + "'" : ", no journal"));
+                return memory;
+            case "group":
+                logger.info("Ledger engine: group commit");
+                return new GroupCommitLedgerEngine();
+            case "netting":
+                logger.info("Ledger engine: netting settlement");
+                return new NettingLedgerEngine();
+            case "jdbc":
+                return new JdbcLedgerEngine();
+            default:
+                logger.warn("Unknown ledger engine '" + name + "'. Falling back to jdbc");
+                return new JdbcLedgerEngine();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.revpay.ledger;
+
+import com.revpay.model.TransactionType;
+
+/**
+ * One applied money movement waiting to be persisted.
+ * <p>
+ * Amounts are held in minor units (paise/cents) so the in-memory engine never
+ * allocates {@link java.math.BigDecimal}s on the hot path.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class LedgerEntry {
+
+    private final TransactionType type;
+    private final int senderId;
+    private final int receiverId;
+    private final long amountMinor;
+    private final long timestampMillis;
+    private final long sequence;
+    private final String idempotencyKey;
+
+    /**
+     * @param type            TRANSFER or DEPOSIT.
+     * @param senderId        The debited user (same as receiver for deposits).
+     * @param receiverId      The credited user.
+     * @param amountMinor     The amount in minor units.
+     * @param timestampMillis When the movement was applied in memory.
+     */
+    public LedgerEntry(TransactionType type, int senderId, int receiverId, long amountMinor, long timestampMillis) {
+        this(type, senderId, receiverId, amountMinor, timestampMillis, 0L);
+    }
+
+    /**
+     * @param type            TRANSFER, DEPOSIT or WITHDRAWAL.
+     * @param senderId        The debited user (same as receiver for deposits).
+     * @param receiverId      The credited user (same as sender for withdrawals).
+     * @param amountMinor     The amount in minor units.
+     * @param timestampMillis When the movement was applied in memory.
+     * @param sequence        The write-ahead journal sequence number, or 0 if not journaled.
+     */
+    public LedgerEntry(TransactionType type, int senderId, int receiverId, long amountMinor, long timestampMillis, long sequence) {
+        this(type, senderId, receiverId, amountMinor, timestampMillis, sequence, null);
+    }
+
+    /**
+     * @param type            TRANSFER, DEPOSIT or WITHDRAWAL.
+     * @param senderId        The debited user (same as receiver for deposits).
+     * @param receiverId      The credited user (same as sender for withdrawals).
+     * @param amountMinor     The amount in minor units.
+     * @param timestampMillis When the movement was applied in memory.
+     * @param sequence        The write-ahead journal sequence number, or 0 if not journaled.
+     * @param idempotencyKey  The user-scoped key recorded with the movement, or {@code null}.
+     */
+    public LedgerEntry(TransactionType type, int senderId, int receiverId, long amountMinor, long timestampMillis,
+                       long sequence, String idempotencyKey) {
+        this.type = type;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.amountMinor = amountMinor;
+        this.timestampMillis = timestampMillis;
+        this.sequence = sequence;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public TransactionType getType() { return type; }
+
+    public int getSenderId() { return senderId; }
+
+    public int getReceiverId() { return receiverId; }
+
+    public long getAmountMinor() { return amountMinor; }
+
+    public long getTimestampMillis() { return timestampMillis; }
+
+    public long getSequence() { return sequence; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry [#" + sequence + ", " + type + ", From=" + senderId + ", To=" + receiverId + ", Minor=" + amountMinor + "]";
+    }
+}
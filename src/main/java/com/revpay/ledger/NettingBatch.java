@@ -0,0 +1,91 @@
+package com.revpay.ledger;
+
+import com.revpay.model.TransactionType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Multilateral netting of one settlement window.
+ * <p>
+ * Movements are checked one by one, in arrival order, against running balances that
+ * start from the locked wallet balances, so every movement gets the same outcome it
+ * would have had if applied alone. Accepted movements only accumulate a net delta per
+ * user; the wallets table then receives one update per user whose position changed,
+ * instead of two per transfer.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class NettingBatch {
+
+    private final Map<Integer, Long> balances;
+    private final Map<Integer, Long> deltas = new TreeMap<>();
+    private int accepted;
+
+    /**
+     * @param startingBalances Current balances (minor units) of every wallet that exists;
+     *                         users missing from the map are treated as unknown wallets.
+     */
+    public NettingBatch(Map<Integer, Long> startingBalances) {
+        this.balances = new HashMap<>(startingBalances);
+    }
+
+    /**
+     * Checks and applies one movement to the running balances.
+     *
+     * @param movement A TRANSFER or DEPOSIT.
+     * @return {@code true} if accepted, {@code false} for insufficient funds or an unknown wallet.
+     */
+    public boolean apply(LedgerEntry movement) {
+        long amount = movement.getAmountMinor();
+        Long receiverBalance = balances.get(movement.getReceiverId());
+        if (receiverBalance == null || amount <= 0) {
+            return false;
+        }
+        if (movement.getType() == TransactionType.TRANSFER) {
+            Long senderBalance = balances.get(movement.getSenderId());
+            if (senderBalance == null || senderBalance < amount || movement.getSenderId() == movement.getReceiverId()) {
+                return false;
+            }
+            balances.put(movement.getSenderId(), senderBalance - amount);
+            deltas.merge(movement.getSenderId(), -amount, Long::sum);
+            receiverBalance = balances.get(movement.getReceiverId());
+        } else if (movement.getType() != TransactionType.DEPOSIT) {
+            return false;
+        }
+        balances.put(movement.getReceiverId(), receiverBalance + amount);
+        deltas.merge(movement.getReceiverId(), amount, Long::sum);
+        accepted++;
+        return true;
+    }
+
+    /**
+     * @return Non-zero net change per user, in user ID order (a stable lock order).
+     */
+    public Map<Integer, Long> getNetDeltas() {
+        Map<Integer, Long> net = new TreeMap<>();
+        for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+            if (delta.getValue() != 0L) {
+                net.put(delta.getKey(), delta.getValue());
+            }
+        }
+        return net;
+    }
+
+    /**
+     * @return A user's balance after the movements applied so far (minor units), or 0 if unknown.
+     */
+    public long getBalance(int userId) {
+        return balances.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * @return The number of accepted movements.
+     */
+    public int getAccepted() {
+        return accepted;
+    }
+}
@@ -0,0 +1,52 @@
+package com.revpay.ledger;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.TransactionDAO;
+
+import java.util.List;
+
+/**
+ * Ledger engine that settles each window of movements by multilateral netting.
+ * <p>
+ * Requests are collected exactly like {@link GroupCommitLedgerEngine}, but over a
+ * longer window ({@code revpay.ledger.netting.windowMs}, up to
+ * {@code revpay.ledger.netting.maxBatch} movements). The window is then settled by
+ * {@link TransactionDAO#settleNetted(List)}: each movement is still checked for
+ * funds in arrival order and logged to {@code transactions}, but wallets only
+ * receive the net change per user. Users who pay each other back and forth within
+ * a window cost one row update each instead of two per transfer.
+ * </p>
+ * <p>
+ * Callers wait up to one window for their outcome, so this engine suits bulk or
+ * settlement traffic rather than interactive use.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class NettingLedgerEngine extends GroupCommitLedgerEngine {
+
+    /**
+     * Creates an engine configured from {@code revpay.ledger.netting.maxBatch}
+     * and {@code revpay.ledger.netting.windowMs}.
+     */
+    public NettingLedgerEngine() {
+        this(new TransactionDAO(),
+                AppConfig.getInt("revpay.ledger.netting.maxBatch", 1000),
+                AppConfig.getLong("revpay.ledger.netting.windowMs", 50));
+    }
+
+    /**
+     * @param transactionDAO The DAO that settles each window.
+     * @param maxBatch       Maximum movements per window.
+     * @param windowMillis   How long a window stays open after its first movement.
+     */
+    public NettingLedgerEngine(TransactionDAO transactionDAO, int maxBatch, long windowMillis) {
+        super(transactionDAO, maxBatch, windowMillis);
+    }
+
+    @Override
+    protected boolean[] applyBatch(List<LedgerEntry> movements) {
+        return transactionDAO.settleNetted(movements);
+    }
+}
@@ -0,0 +1,320 @@
+package com.revpay.ledger.archive;
+
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped reader for files written by {@link ColumnarArchiveWriter}.
+ * <p>
+ * Filters are pushed down to the blocks: a block is skipped using only its footer
+ * stats when its time range or user range cannot match. In the remaining blocks the
+ * user and time columns are decoded first, and the other columns only if at least
+ * one row matches. Decoding reuses per-reader scratch arrays, so a scan allocates
+ * nothing per row; rows are handed to a {@link RowVisitor} as primitives.
+ * </p>
+ * <p>
+ * A reader is not thread-safe; open one per thread. Files are limited to 2 GB
+ * (one mapping), far above a month of rows.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class ColumnarArchiveReader implements Closeable {
+
+    /**
+     * Receives matching rows. Balances are {@link ColumnarArchiveWriter#NO_BALANCE} when missing.
+     */
+    public interface RowVisitor {
+        void visit(long transactionId, int senderId, int receiverId, long amountMinor, TransactionType type,
+                   TransactionStatus status, long timestampMillis, long senderBalanceAfter, long receiverBalanceAfter);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long rows;
+    private final int blocks;
+    private final int indexOffset;
+    private final TransactionType[] types;
+    private final TransactionStatus[] statuses;
+
+    // Scratch columns of the current block
+    private final long[] ids;
+    private final int[] senders;
+    private final int[] receivers;
+    private final long[] amounts;
+    private final long[] timestamps;
+    private final long[] senderBalances;
+    private final long[] receiverBalances;
+    private final int[] matches;
+    private int pos;
+    private int blocksSkipped;
+
+    /**
+     * Maps a file and reads its footer.
+     *
+     * @param file A file written by {@link ColumnarArchiveWriter}.
+     * @throws IOException If the file is missing, too large or not a columnar archive.
+     */
+    public ColumnarArchiveReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 8 + ColumnarArchiveWriter.TRAILER || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a columnar archive (size " + size + "): " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int trailer = (int) size - ColumnarArchiveWriter.TRAILER;
+            if (buffer.getInt(0) != ColumnarArchiveWriter.MAGIC || buffer.getInt(trailer + 16) != ColumnarArchiveWriter.MAGIC) {
+                throw new IOException("Not a columnar archive: " + file);
+            }
+            int blockRows = buffer.getInt(4);
+            int footer = (int) buffer.getLong(trailer);
+            rows = buffer.getLong(trailer + 8);
+            blocks = buffer.getInt(footer);
+            indexOffset = footer + 4;
+
+            pos = indexOffset + blocks * ColumnarArchiveWriter.INDEX_ENTRY;
+            String[] typeNames = readDictionary();
+            types = new TransactionType[typeNames.length];
+            for (int i = 0; i < typeNames.length; i++) types[i] = TransactionType.valueOf(typeNames[i]);
+            String[] statusNames = readDictionary();
+            statuses = new TransactionStatus[statusNames.length];
+            for (int i = 0; i < statusNames.length; i++) statuses[i] = TransactionStatus.valueOf(statusNames[i]);
+
+            ids = new long[blockRows];
+            senders = new int[blockRows];
+            receivers = new int[blockRows];
+            amounts = new long[blockRows];
+            timestamps = new long[blockRows];
+            senderBalances = new long[blockRows];
+            receiverBalances = new long[blockRows];
+            matches = new int[blockRows];
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupt columnar archive: " + file, e);
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the columnar archive magic number.
+     */
+    public static boolean isColumnar(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && ch.read(magic) >= 0) {
+                // Keep reading until four bytes or end of file
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == ColumnarArchiveWriter.MAGIC;
+        }
+    }
+
+    /**
+     * @return Rows in the file.
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    /**
+     * @return Blocks in the file.
+     */
+    public int getBlockCount() {
+        return blocks;
+    }
+
+    /**
+     * @return Blocks the last {@link #scan} skipped without decoding any column.
+     */
+    public int getBlocksSkipped() {
+        return blocksSkipped;
+    }
+
+    /**
+     * Visits the rows of one user (or all rows) within a time range, in file order.
+     *
+     * @param userId     Only rows where the user is sender or receiver; {@code 0} for all rows.
+     * @param fromMillis Earliest timestamp (inclusive).
+     * @param toMillis   Latest timestamp (exclusive).
+     * @param visitor    Receives each matching row; {@code null} only counts them.
+     * @return The number of matching rows.
+     */
+    public long scan(int userId, long fromMillis, long toMillis, RowVisitor visitor) {
+        long visited = 0;
+        blocksSkipped = 0;
+        for (int b = 0; b < blocks; b++) {
+            int entry = indexOffset + b * ColumnarArchiveWriter.INDEX_ENTRY;
+            int offset = (int) buffer.getLong(entry);
+            int n = buffer.getInt(entry + 12);
+            long minTs = buffer.getLong(entry + 32);
+            long maxTs = buffer.getLong(entry + 40);
+            int minUser = buffer.getInt(entry + 48);
+            int maxUser = buffer.getInt(entry + 52);
+            if (maxTs < fromMillis || minTs >= toMillis
+                    || (userId != 0 && (userId < minUser || userId > maxUser))) {
+                blocksSkipped++;
+                continue;
+            }
+
+            // Filter columns first
+            boolean timeCovered = minTs >= fromMillis && maxTs < toMillis;
+            if (userId != 0) {
+                decodeUsers(offset, 1, senders, n);
+                decodeUsers(offset, 2, receivers, n);
+            }
+            if (!timeCovered || visitor != null) {
+                decodeTimestamps(offset, n);
+            }
+            int matched = 0;
+            for (int i = 0; i < n; i++) {
+                if (userId != 0 && senders[i] != userId && receivers[i] != userId) {
+                    continue;
+                }
+                if (!timeCovered && (timestamps[i] < fromMillis || timestamps[i] >= toMillis)) {
+                    continue;
+                }
+                matches[matched++] = i;
+            }
+            visited += matched;
+            if (matched == 0 || visitor == null) {
+                continue;
+            }
+
+            // Then the rest, only for blocks with hits
+            if (userId == 0) {
+                decodeUsers(offset, 1, senders, n);
+                decodeUsers(offset, 2, receivers, n);
+            }
+            decodeIds(offset, n);
+            decodeAmounts(offset, n);
+            decodeOptional(offset, 7, senderBalances, n);
+            decodeOptional(offset, 8, receiverBalances, n);
+            int typeColumn = offset + column(offset, 4);
+            int statusColumn = offset + column(offset, 5);
+            for (int m = 0; m < matched; m++) {
+                int i = matches[m];
+                visitor.visit(ids[i], senders[i], receivers[i], amounts[i], types[buffer.get(typeColumn + i)],
+                        statuses[buffer.get(statusColumn + i)], timestamps[i], senderBalances[i], receiverBalances[i]);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Counts the rows and sums the amounts of the whole file, to verify it after writing.
+     *
+     * @return {@code {rows, amountSumMinor}}.
+     */
+    public long[] totals() {
+        long count = 0;
+        long sum = 0;
+        for (int b = 0; b < blocks; b++) {
+            int entry = indexOffset + b * ColumnarArchiveWriter.INDEX_ENTRY;
+            int offset = (int) buffer.getLong(entry);
+            int n = buffer.getInt(offset);
+            decodeAmounts(offset, n);
+            for (int i = 0; i < n; i++) {
+                sum += amounts[i];
+            }
+            count += n;
+        }
+        return new long[] {count, sum};
+    }
+
+    /**
+     * Closes the file. The mapping itself is released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int column(int block, int column) {
+        return buffer.getInt(block + 4 + 4 * column);
+    }
+
+    private void decodeIds(int block, int n) {
+        pos = block + column(block, 0);
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += zigZag();
+            ids[i] = previous;
+        }
+    }
+
+    private void decodeUsers(int block, int column, int[] target, int n) {
+        pos = block + column(block, column);
+        for (int i = 0; i < n; i++) {
+            target[i] = (int) varint();
+        }
+    }
+
+    private void decodeAmounts(int block, int n) {
+        pos = block + column(block, 3);
+        for (int i = 0; i < n; i++) {
+            amounts[i] = zigZag();
+        }
+    }
+
+    private void decodeTimestamps(int block, int n) {
+        pos = block + column(block, 6);
+        long previous = 0;
+        long delta = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0) {
+                previous = zigZag();
+            } else {
+                delta += zigZag();
+                previous += delta;
+            }
+            timestamps[i] = previous;
+        }
+    }
+
+    private void decodeOptional(int block, int column, long[] target, int n) {
+        int bitmap = block + column(block, column);
+        pos = bitmap + (n + 7) / 8;
+        for (int i = 0; i < n; i++) {
+            boolean present = (buffer.get(bitmap + (i >> 3)) & (1 << (i & 7))) != 0;
+            target[i] = present ? zigZag() : ColumnarArchiveWriter.NO_BALANCE;
+        }
+    }
+
+    private long zigZag() {
+        long value = varint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long varint() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(pos++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private String[] readDictionary() {
+        String[] names = new String[buffer.get(pos++) & 0xFF];
+        for (int i = 0; i < names.length; i++) {
+            int length = buffer.getShort(pos) & 0xFFFF;
+            byte[] utf = new byte[length];
+            buffer.get(pos + 2, utf);
+            names[i] = new String(utf, StandardCharsets.UTF_8);
+            pos += 2 + length;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,354 @@
+package com.revpay.ledger.archive;
+
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes ledger rows to a compact, block-oriented columnar file.
+ * <p>
+ * Rows are grouped into blocks of {@value #BLOCK_ROWS}. Inside a block every column
+ * is stored contiguously and encoded for its shape:
+ * </p>
+ * <ul>
+ * <li>transaction IDs: first ID, then zig-zag varint deltas (usually one byte)</li>
+ * <li>sender / receiver: unsigned varints ({@code 0} = none)</li>
+ * <li>amounts: zig-zag varints of the scaled long (minor units)</li>
+ * <li>type / status: one dictionary code byte each</li>
+ * <li>timestamps: first value, first delta, then zig-zag delta-of-delta</li>
+ * <li>running balances: presence bitmap, then zig-zag varints</li>
+ * </ul>
+ * <p>
+ * Each block's ID, time and user ranges are kept in a footer index so readers can
+ * skip blocks without touching them. Only one block is buffered at a time, so
+ * memory does not grow with the file. The file is written under a temporary name,
+ * forced to disk and renamed.
+ * </p>
+ *
+ * <pre>
+ * File:    [magic:int][blockRows:int] blocks... footer [footerOffset:long][rows:long][magic:int]
+ * Block:   [rows:int][columnOffset:int * 9] columns...
+ * Footer:  [blocks:int] ([offset:long][length:int][rows:int][minId:long][maxId:long]
+ *          [minTs:long][maxTs:long][minUser:int][maxUser:int]) * blocks
+ *          [types:byte][name * types][statuses:byte][name * statuses]   (name = [len:short][UTF-8])
+ * </pre>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class ColumnarArchiveWriter implements Closeable {
+
+    static final int MAGIC = 0x52504132; // "RPA2"
+    static final int BLOCK_ROWS = 4096;
+    static final int COLUMNS = 9;
+    static final int BLOCK_HEADER = 4 + 4 * COLUMNS;
+    static final int INDEX_ENTRY = 8 + 4 + 4 + 8 * 4 + 4 + 4;
+    static final int TRAILER = 8 + 8 + 4;
+    /** Marks a missing running balance. */
+    public static final long NO_BALANCE = Long.MIN_VALUE;
+
+    private final Path file;
+    private final Path temp;
+    private final FileChannel channel;
+    private final List<String> types = new ArrayList<>();
+    private final List<String> statuses = new ArrayList<>();
+
+    // Current block, column by column
+    private final long[] ids = new long[BLOCK_ROWS];
+    private final int[] senders = new int[BLOCK_ROWS];
+    private final int[] receivers = new int[BLOCK_ROWS];
+    private final long[] amounts = new long[BLOCK_ROWS];
+    private final byte[] typeCodes = new byte[BLOCK_ROWS];
+    private final byte[] statusCodes = new byte[BLOCK_ROWS];
+    private final long[] timestamps = new long[BLOCK_ROWS];
+    private final long[] senderBalances = new long[BLOCK_ROWS];
+    private final long[] receiverBalances = new long[BLOCK_ROWS];
+    private int blockRows;
+
+    private final Encoder encoder = new Encoder();
+    private ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_ENTRY * 64);
+    private long rows;
+    private int blocks;
+    private long position;
+
+    /**
+     * @param file The file to create (replaced when the writer is closed).
+     * @throws IOException If the temporary file cannot be created.
+     */
+    public ColumnarArchiveWriter(Path file) throws IOException {
+        this.file = file;
+        this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(BLOCK_ROWS);
+        header.flip();
+        write(header);
+    }
+
+    /**
+     * Adds one row.
+     *
+     * @param transactionId        The row ID.
+     * @param senderId             Sender user ID ({@code 0} if none).
+     * @param receiverId           Receiver user ID ({@code 0} if none).
+     * @param amountMinor          Amount in minor units.
+     * @param type                 Transaction type.
+     * @param status               Transaction status.
+     * @param timestampMillis      Transaction time.
+     * @param senderBalanceAfter   Sender balance after the row in minor units, or {@link #NO_BALANCE}.
+     * @param receiverBalanceAfter Receiver balance after the row in minor units, or {@link #NO_BALANCE}.
+     * @throws IOException If a full block cannot be written.
+     */
+    public void add(long transactionId, int senderId, int receiverId, long amountMinor, TransactionType type,
+                    TransactionStatus status, long timestampMillis, long senderBalanceAfter, long receiverBalanceAfter)
+            throws IOException {
+        int i = blockRows;
+        ids[i] = transactionId;
+        senders[i] = senderId;
+        receivers[i] = receiverId;
+        amounts[i] = amountMinor;
+        typeCodes[i] = code(types, type.name());
+        statusCodes[i] = code(statuses, status.name());
+        timestamps[i] = timestampMillis;
+        senderBalances[i] = senderBalanceAfter;
+        receiverBalances[i] = receiverBalanceAfter;
+        if (++blockRows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * @return Rows added so far.
+     */
+    public long getRowCount() {
+        return rows + blockRows;
+    }
+
+    /**
+     * Writes the last block and the footer, forces the file to disk and moves it into place.
+     *
+     * @throws IOException If the file cannot be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (blockRows > 0) {
+                flushBlock();
+            }
+            long footerOffset = position;
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(blocks);
+            count.flip();
+            write(count);
+            indexBuffer.flip();
+            write(indexBuffer);
+
+            encoder.reset();
+            encoder.dictionary(types);
+            encoder.dictionary(statuses);
+            write(encoder.toBuffer());
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER).putLong(footerOffset).putLong(rows).putInt(MAGIC);
+            trailer.flip();
+            write(trailer);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Abandons the file: closes it and deletes the temporary file.
+     */
+    public void discard() {
+        try {
+            channel.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // Nothing was published; a leftover temporary file is overwritten next time
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        int n = blockRows;
+        int[] offsets = new int[COLUMNS];
+        encoder.reset();
+        encoder.skip(BLOCK_HEADER);
+
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE, minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        int minUser = Integer.MAX_VALUE, maxUser = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            minId = Math.min(minId, ids[i]);
+            maxId = Math.max(maxId, ids[i]);
+            minTs = Math.min(minTs, timestamps[i]);
+            maxTs = Math.max(maxTs, timestamps[i]);
+            if (senders[i] != 0) {
+                minUser = Math.min(minUser, senders[i]);
+                maxUser = Math.max(maxUser, senders[i]);
+            }
+            if (receivers[i] != 0) {
+                minUser = Math.min(minUser, receivers[i]);
+                maxUser = Math.max(maxUser, receivers[i]);
+            }
+        }
+
+        // 0: IDs as deltas
+        offsets[0] = encoder.size();
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            encoder.zigZag(ids[i] - previous);
+            previous = ids[i];
+        }
+        // 1, 2: users
+        offsets[1] = encoder.size();
+        for (int i = 0; i < n; i++) encoder.varint(senders[i] & 0xFFFFFFFFL);
+        offsets[2] = encoder.size();
+        for (int i = 0; i < n; i++) encoder.varint(receivers[i] & 0xFFFFFFFFL);
+        // 3: amounts
+        offsets[3] = encoder.size();
+        for (int i = 0; i < n; i++) encoder.zigZag(amounts[i]);
+        // 4, 5: dictionary codes
+        offsets[4] = encoder.size();
+        encoder.bytes(typeCodes, n);
+        offsets[5] = encoder.size();
+        encoder.bytes(statusCodes, n);
+        // 6: timestamps as delta-of-delta
+        offsets[6] = encoder.size();
+        long previousTs = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < n; i++) {
+            long delta = timestamps[i] - previousTs;
+            encoder.zigZag(i == 0 ? timestamps[i] : delta - previousDelta);
+            previousDelta = i == 0 ? 0 : delta;
+            previousTs = timestamps[i];
+        }
+        // 7, 8: optional balances
+        offsets[7] = encoder.size();
+        encoder.optional(senderBalances, n);
+        offsets[8] = encoder.size();
+        encoder.optional(receiverBalances, n);
+
+        ByteBuffer block = encoder.toBuffer();
+        block.putInt(0, n);
+        for (int c = 0; c < COLUMNS; c++) {
+            block.putInt(4 + 4 * c, offsets[c]);
+        }
+
+        if (indexBuffer.remaining() < INDEX_ENTRY) {
+            indexBuffer = ByteBuffer.allocate(indexBuffer.capacity() * 2).put(indexBuffer.flip());
+        }
+        indexBuffer.putLong(position).putInt(block.remaining()).putInt(n)
+                .putLong(minId).putLong(maxId).putLong(minTs).putLong(maxTs).putInt(minUser).putInt(maxUser);
+
+        write(block);
+        rows += n;
+        blocks++;
+        blockRows = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private static byte code(List<String> dictionary, String name) {
+        int code = dictionary.indexOf(name);
+        if (code < 0) {
+            code = dictionary.size();
+            dictionary.add(name);
+        }
+        return (byte) code;
+    }
+
+    /**
+     * Growable byte buffer with the variable-length encodings used by the format.
+     */
+    private static final class Encoder {
+        private byte[] buffer = new byte[BLOCK_ROWS * 16];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void skip(int bytes) {
+            ensure(bytes);
+            Arrays.fill(buffer, size, size + bytes, (byte) 0);
+            size += bytes;
+        }
+
+        void zigZag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void bytes(byte[] values, int n) {
+            ensure(n);
+            System.arraycopy(values, 0, buffer, size, n);
+            size += n;
+        }
+
+        void optional(long[] values, int n) {
+            int bitmap = (n + 7) / 8;
+            ensure(bitmap);
+            int start = size;
+            Arrays.fill(buffer, start, start + bitmap, (byte) 0);
+            size += bitmap;
+            for (int i = 0; i < n; i++) {
+                if (values[i] != NO_BALANCE) {
+                    buffer[start + (i >> 3)] |= (byte) (1 << (i & 7));
+                    zigZag(values[i]);
+                }
+            }
+        }
+
+        void dictionary(List<String> names) {
+            ensure(1);
+            buffer[size++] = (byte) names.size();
+            for (String name : names) {
+                byte[] utf = name.getBytes(StandardCharsets.UTF_8);
+                ensure(2 + utf.length);
+                buffer[size++] = (byte) (utf.length >> 8);
+                buffer[size++] = (byte) utf.length;
+                System.arraycopy(utf, 0, buffer, size, utf.length);
+                size += utf.length;
+            }
+        }
+
+        ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(buffer, 0, size).order(ByteOrder.BIG_ENDIAN);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.revpay.ledger.archive;
+
+import com.revpay.model.Transaction;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads archive files written by {@link MonthArchiveWriter}.
+ * <p>
+ * Current files are block-columnar and read through a {@link ColumnarArchiveReader},
+ * which skips blocks that cannot match. Files from the first archive format (one
+ * GZIP stream, magic {@code RPA1}) are still readable: they are decoded into
+ * primitive arrays and filtered on the user and time columns. Either way
+ * {@link Transaction} objects are only built for the matching rows.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class MonthArchiveReader {
+
+    /** Magic number of the first, GZIP-compressed format. */
+    static final int LEGACY_MAGIC = 0x52504131; // "RPA1"
+
+    private MonthArchiveReader() {}
+
+    /**
+     * Reads the rows of one user (or all rows) within a time range.
+     *
+     * @param file   The archive file.
+     * @param userId Only rows where the user is sender or receiver; {@code 0} for all rows.
+     * @param from   Earliest timestamp (inclusive), or {@code null}.
+     * @param to     Latest timestamp (exclusive), or {@code null}.
+     * @return Matching rows, newest first.
+     * @throws IOException If the file is missing, corrupt or not an archive.
+     */
+    public static List<Transaction> read(Path file, int userId, Timestamp from, Timestamp to) throws IOException {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.getTime();
+        long toMillis = to == null ? Long.MAX_VALUE : to.getTime();
+        List<Transaction> result = new ArrayList<>();
+
+        if (ColumnarArchiveReader.isColumnar(file)) {
+            try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+                reader.scan(userId, fromMillis, toMillis, (id, sender, receiver, amount, type, status, timestamp,
+                                                          senderAfter, receiverAfter) -> {
+                    Transaction t = new Transaction();
+                    t.setTransactionId((int) id);
+                    t.setSenderId(sender);
+                    t.setReceiverId(receiver);
+                    t.setAmount(BigDecimal.valueOf(amount, 2));
+                    t.setType(type);
+                    t.setStatus(status);
+                    t.setTimestamp(new Timestamp(timestamp));
+                    t.setSenderBalanceAfter(balance(senderAfter));
+                    t.setReceiverBalanceAfter(balance(receiverAfter));
+                    result.add(t);
+                });
+            }
+            result.sort(Comparator.comparing(Transaction::getTimestamp).reversed());
+            return result;
+        }
+
+        Columns c = loadLegacy(file);
+        for (int i = 0; i < c.rows; i++) {
+            if (userId != 0 && c.senders[i] != userId && c.receivers[i] != userId) {
+                continue;
+            }
+            if (c.timestamps[i] < fromMillis || c.timestamps[i] >= toMillis) {
+                continue;
+            }
+            Transaction t = new Transaction();
+            t.setTransactionId((int) c.ids[i]);
+            t.setSenderId(c.senders[i]);
+            t.setReceiverId(c.receivers[i]);
+            t.setAmount(BigDecimal.valueOf(c.amounts[i], 2));
+            t.setType(TransactionType.valueOf(c.typeNames[c.typeCodes[i]]));
+            t.setStatus(TransactionStatus.valueOf(c.statusNames[c.statusCodes[i]]));
+            t.setTimestamp(new Timestamp(c.timestamps[i]));
+            t.setSenderBalanceAfter(balance(c.senderBalances[i]));
+            t.setReceiverBalanceAfter(balance(c.receiverBalances[i]));
+            result.add(t);
+        }
+        result.sort(Comparator.comparing(Transaction::getTimestamp).reversed());
+        return result;
+    }
+
+    /**
+     * Counts the rows of a file and sums their amounts, to verify it after writing.
+     *
+     * @return {@code {rows, amountSumMinor}}.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long[] totals(Path file) throws IOException {
+        if (ColumnarArchiveReader.isColumnar(file)) {
+            try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+                return reader.totals();
+            }
+        }
+        Columns c = loadLegacy(file);
+        long sum = 0;
+        for (int i = 0; i < c.rows; i++) {
+            sum += c.amounts[i];
+        }
+        return new long[] {c.rows, sum};
+    }
+
+    private static Columns loadLegacy(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16))) {
+
+            if (data.readInt() != LEGACY_MAGIC) {
+                throw new IOException("Not a transaction archive: " + file);
+            }
+            Columns c = new Columns(data.readInt());
+            c.typeNames = readDictionary(data);
+            c.statusNames = readDictionary(data);
+            for (int i = 0; i < c.rows; i++) c.ids[i] = data.readLong();
+            for (int i = 0; i < c.rows; i++) c.senders[i] = data.readInt();
+            for (int i = 0; i < c.rows; i++) c.receivers[i] = data.readInt();
+            for (int i = 0; i < c.rows; i++) c.amounts[i] = data.readLong();
+            data.readFully(c.typeCodes);
+            data.readFully(c.statusCodes);
+            for (int i = 0; i < c.rows; i++) c.timestamps[i] = data.readLong();
+            for (int i = 0; i < c.rows; i++) c.senderBalances[i] = data.readLong();
+            for (int i = 0; i < c.rows; i++) c.receiverBalances[i] = data.readLong();
+            return c;
+        }
+    }
+
+    private static String[] readDictionary(DataInputStream data) throws IOException {
+        String[] names = new String[data.readUnsignedByte()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = data.readUTF();
+        }
+        return names;
+    }
+
+    private static BigDecimal balance(long minor) {
+        return minor == ColumnarArchiveWriter.NO_BALANCE ? null : BigDecimal.valueOf(minor, 2);
+    }
+
+    /**
+     * Decoded columns of one legacy file.
+     */
+    private static final class Columns {
+        final int rows;
+        final long[] ids;
+        final int[] senders;
+        final int[] receivers;
+        final long[] amounts;
+        final byte[] typeCodes;
+        final byte[] statusCodes;
+        final long[] timestamps;
+        final long[] senderBalances;
+        final long[] receiverBalances;
+        String[] typeNames;
+        String[] statusNames;
+
+        Columns(int rows) {
+            this.rows = rows;
+            ids = new long[rows];
+            senders = new int[rows];
+            receivers = new int[rows];
+            amounts = new long[rows];
+            typeCodes = new byte[rows];
+            statusCodes = new byte[rows];
+            timestamps = new long[rows];
+            senderBalances = new long[rows];
+            receiverBalances = new long[rows];
+        }
+    }
+}
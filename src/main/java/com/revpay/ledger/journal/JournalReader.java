@@ -0,0 +1,162 @@
+package com.revpay.ledger.journal;
+
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Sequential reader for {@link MappedJournal} segments.
+ * <p>
+ * Records are validated by checksum and by sequence continuity. Reading stops at
+ * the first unused slot, torn record or gap, so a crash in the middle of an append
+ * simply ends the journal at the last complete record.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class JournalReader {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(JournalReader.class);
+
+    private JournalReader() {}
+
+    /**
+     * Receives decoded records without allocating an object per record.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * @param idempotencyKey The key journaled with the movement, or {@code null} if it had none.
+         */
+        void accept(long sequence, TransactionType type, int senderId, int receiverId, long amountMinor, long timestampMillis,
+                    String idempotencyKey);
+    }
+
+    /**
+     * Where a scan stopped.
+     */
+    static final class ScanResult {
+        long lastSequence;
+        long recordsVisited;
+        Path lastSegment;
+        int endOffset;
+        /** True if reading stopped before the final segment (the journal is damaged, not just torn). */
+        boolean brokenBeforeTail;
+        /** True if the final segment never got a valid header (crash during rollover). */
+        boolean tailHeaderInvalid;
+    }
+
+    /**
+     * Replays every valid record with a sequence greater than {@code afterSequence}.
+     *
+     * @param directory     The journal directory.
+     * @param afterSequence Records up to and including this sequence are skipped.
+     * @param visitor       Receives the records in sequence order.
+     * @return The last valid sequence in the journal (0 if empty).
+     * @throws IOException If a segment cannot be read.
+     */
+    public static long replay(Path directory, long afterSequence, RecordVisitor visitor) throws IOException {
+        return scan(directory, afterSequence, visitor).lastSequence;
+    }
+
+    static ScanResult scan(Path directory, long afterSequence, RecordVisitor visitor) throws IOException {
+        ScanResult result = new ScanResult();
+        List<Path> segments = listSegments(directory);
+        byte[] record = new byte[MappedJournal.RECORD_SIZE + MappedJournal.MAX_KEY_BYTES];
+        ByteBuffer view = ByteBuffer.wrap(record);
+        CRC32C crc = new CRC32C();
+        long expected = -1;
+
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            result.lastSegment = segment;
+            result.endOffset = MappedJournal.HEADER_SIZE;
+
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.capacity() < MappedJournal.HEADER_SIZE || buffer.getInt(0) != MappedJournal.MAGIC
+                        || buffer.getInt(4) != MappedJournal.RECORD_SIZE) {
+                    logger.error("Journal segment " + segment + " has an invalid header");
+                    result.brokenBeforeTail = i < segments.size() - 1;
+                    result.tailHeaderInvalid = !result.brokenBeforeTail;
+                    return result;
+                }
+                long firstSequence = buffer.getLong(8);
+                if (expected == -1) {
+                    expected = firstSequence;
+                } else if (firstSequence != expected) {
+                    logger.error("Journal gap: expected #" + expected + " but " + segment + " starts at #" + firstSequence);
+                    result.brokenBeforeTail = true;
+                    return result;
+                }
+
+                int offset = MappedJournal.HEADER_SIZE;
+                while (offset + MappedJournal.RECORD_SIZE <= buffer.capacity()) {
+                    buffer.get(offset, record, 0, MappedJournal.RECORD_SIZE);
+                    long sequence = view.getLong(0);
+                    if (sequence == 0L) {
+                        break; // Unused tail of the segment
+                    }
+                    int keyLength = view.getShort(MappedJournal.KEY_LENGTH_OFFSET);
+                    int size = MappedJournal.RECORD_SIZE + keyLength;
+                    // A torn record can carry any length; only a plausible one is read and checksummed
+                    boolean intact = keyLength >= 0 && keyLength <= MappedJournal.MAX_KEY_BYTES && offset + size <= buffer.capacity();
+                    if (intact) {
+                        buffer.get(offset + MappedJournal.RECORD_SIZE, record, MappedJournal.RECORD_SIZE, keyLength);
+                        crc.reset();
+                        crc.update(record, 0, MappedJournal.CRC_OFFSET + keyLength);
+                        intact = (int) crc.getValue() == view.getInt(MappedJournal.CRC_OFFSET + keyLength);
+                    }
+                    if (sequence != expected || !intact) {
+                        logger.warn("Journal ends at torn record in " + segment + " @" + offset + " (expected #" + expected + ")");
+                        result.brokenBeforeTail = i < segments.size() - 1;
+                        return result;
+                    }
+                    if (sequence > afterSequence) {
+                        String key = keyLength == 0 ? null
+                                : new String(record, MappedJournal.CRC_OFFSET, keyLength, StandardCharsets.UTF_8);
+                        visitor.accept(sequence, MappedJournal.TYPES[view.get(8)], view.getInt(12), view.getInt(16),
+                                view.getLong(20), view.getLong(28), key);
+                        result.recordsVisited++;
+                    }
+                    result.lastSequence = sequence;
+                    expected = sequence + 1;
+                    offset += size;
+                    result.endOffset = offset;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Segment files in sequence order.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().endsWith(MappedJournal.SUFFIX))
+                    .sorted() // Names are zero-padded first sequences
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+}
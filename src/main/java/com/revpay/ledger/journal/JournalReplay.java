@@ -0,0 +1,66 @@
+package com.revpay.ledger.journal;
+
+import com.revpay.model.TransactionType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Command-line tool that rebuilds wallet balances from journal segments.
+ * <p>
+ * Usage: {@code java com.revpay.ledger.journal.JournalReplay <journal-dir> [--balances]}.
+ * The result is the net movement per wallet across the segments on disk, which equals
+ * the full balance when segments are retained ({@code -Drevpay.journal.retain=true}).
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class JournalReplay {
+
+    private JournalReplay() {}
+
+    /**
+     * Applies every record in {@code directory} to {@code balances}.
+     *
+     * @param directory The journal directory.
+     * @param balances  Net balance per user ID in minor units; updated in place.
+     * @return The last sequence replayed (0 if the journal is empty).
+     * @throws IOException If a segment cannot be read.
+     */
+    public static long rebuild(Path directory, Map<Integer, Long> balances) throws IOException {
+        return JournalReader.replay(directory, 0L, (seq, type, sender, receiver, amount, ts, key) -> {
+            if (type != TransactionType.DEPOSIT) {
+                balances.merge(sender, -amount, Long::sum);
+            }
+            if (type != TransactionType.WITHDRAWAL) {
+                balances.merge(receiver, amount, Long::sum);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JournalReplay <journal-dir> [--balances]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        long start = System.nanoTime();
+        Map<Integer, Long> balances = new TreeMap<>();
+        long lastSequence = rebuild(directory, balances);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Replayed journal up to #" + lastSequence + " in " + elapsedMillis + " ms ("
+                + balances.size() + " wallets)");
+
+        if (args.length > 1 && "--balances".equals(args[1])) {
+            for (Map.Entry<Integer, Long> entry : balances.entrySet()) {
+                System.out.println(entry.getKey() + "\t" + BigDecimal.valueOf(entry.getValue(), 2));
+            }
+        }
+    }
+}
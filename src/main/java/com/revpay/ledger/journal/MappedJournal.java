@@ -0,0 +1,375 @@
+package com.revpay.ledger.journal;
+
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.TransactionType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal for money movements, backed by memory-mapped segments.
+ * <p>
+ * Every record is a 40-byte slot holding a sequence number, the movement and a
+ * CRC32C checksum, followed by the movement's idempotency key (UTF-8, at most
+ * {@link #MAX_KEY_BYTES}) when it has one, so a movement replayed after a crash still
+ * blocks a retry of its key. Records without a key keep the original layout. Appends only copy bytes into the mapped segment; a background
+ * thread forces the segment to disk every {@code fsyncIntervalMillis} so that many
+ * appends share one fsync (group commit). Callers that need durability wait with
+ * {@link #awaitDurable(long)}.
+ * </p>
+ * <p>
+ * When a segment is full a new one is created, named after its first sequence.
+ * Segments whose records are all persisted elsewhere can be deleted with
+ * {@link #release(long)}. On open, the tail is validated and a torn last record is
+ * discarded. Numbering continues after the last record, or after the first sequence
+ * of an empty last segment, never from 1 again: the database checkpoint only moves
+ * forward, so a reused sequence would be skipped by the next recovery. See also
+ * {@link #alignWithCheckpoint(long)}.
+ * </p>
+ *
+ * <pre>
+ * Segment: [magic:int][recordSize:int][firstSeq:long] then records
+ * Record:  [seq:long][type:byte][pad:1][keyLength:short][sender:int][receiver:int][amountMinor:long][timestamp:long][key:keyLength][crc32c:int]
+ * </pre>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class MappedJournal implements Closeable {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(MappedJournal.class);
+
+    static final int MAGIC = 0x52504A31; // "RPJ1"
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 40;
+    static final int CRC_OFFSET = 36;
+    static final int KEY_LENGTH_OFFSET = 10;
+    /** Longest key accepted, in UTF-8 bytes: the 120-character key column at four bytes a character. */
+    public static final int MAX_KEY_BYTES = 480;
+    static final String SUFFIX = ".wal";
+    static final TransactionType[] TYPES = TransactionType.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean retainSegments;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final byte[] record = new byte[RECORD_SIZE + MAX_KEY_BYTES];
+    private final ByteBuffer recordView = ByteBuffer.wrap(record);
+    private final CRC32C crc = new CRC32C();
+    private final Object durableMonitor = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private MappedByteBuffer current;
+    private int position;
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    private boolean fresh;
+
+    /**
+     * Opens (or creates) the journal in {@code directory}.
+     *
+     * @param directory           Where segments are stored.
+     * @param segmentBytes        Size of each segment file; rounded down to whole keyless records.
+     * @param fsyncIntervalMillis How often appended records are forced to disk.
+     * @param retainSegments      If {@code true}, {@link #release(long)} never deletes segments.
+     * @throws IOException If the directory cannot be used or the journal is damaged before its tail.
+     */
+    public MappedJournal(Path directory, int segmentBytes, long fsyncIntervalMillis, boolean retainSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = HEADER_SIZE + Math.max(1, (segmentBytes - HEADER_SIZE) / RECORD_SIZE) * RECORD_SIZE;
+        this.retainSegments = retainSegments;
+        Files.createDirectories(directory);
+        openTail();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-fsync");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, fsyncIntervalMillis);
+        flusher.scheduleWithFixedDelay(this::syncQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        MetricsRegistry.gauge("journal.unsynced", () -> lastSequenceSnapshot() - durableSequence);
+    }
+
+    /**
+     * Appends one movement without an idempotency key.
+     *
+     * @see #append(TransactionType, int, int, long, long, String)
+     */
+    public long append(TransactionType type, int senderId, int receiverId, long amountMinor, long timestampMillis) throws IOException {
+        return append(type, senderId, receiverId, amountMinor, timestampMillis, null);
+    }
+
+    /**
+     * Appends one movement. The record is visible to readers immediately but is only
+     * durable once {@link #awaitDurable(long)} returns for its sequence.
+     *
+     * @param idempotencyKey The user-scoped key applied with the movement, or {@code null}.
+     * @return The sequence number assigned to the record.
+     * @throws IOException If the key is longer than {@link #MAX_KEY_BYTES} (or than a segment holds), or a new
+     *                     segment cannot be created.
+     */
+    public synchronized long append(TransactionType type, int senderId, int receiverId, long amountMinor, long timestampMillis,
+                                    String idempotencyKey) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        byte[] key = idempotencyKey == null ? new byte[0] : idempotencyKey.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES || HEADER_SIZE + RECORD_SIZE + key.length > segmentSize) {
+            throw new IOException("Idempotency key of " + key.length + " bytes does not fit a journal record");
+        }
+        int size = RECORD_SIZE + key.length;
+        if (position + size > segmentSize) {
+            roll();
+        }
+        long sequence = lastSequence + 1;
+        recordView.putLong(0, sequence);
+        recordView.put(8, (byte) type.ordinal());
+        recordView.putShort(KEY_LENGTH_OFFSET, (short) key.length);
+        recordView.putInt(12, senderId);
+        recordView.putInt(16, receiverId);
+        recordView.putLong(20, amountMinor);
+        recordView.putLong(28, timestampMillis);
+        System.arraycopy(key, 0, record, CRC_OFFSET, key.length);
+        crc.reset();
+        crc.update(record, 0, CRC_OFFSET + key.length);
+        recordView.putInt(CRC_OFFSET + key.length, (int) crc.getValue());
+
+        current.put(position, record, 0, size);
+        position += size;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Blocks until the record with {@code sequence} has been forced to disk.
+     *
+     * @throws InterruptedException If the caller is interrupted while waiting.
+     */
+    public void awaitDurable(long sequence) throws InterruptedException {
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence && !closed) {
+                durableMonitor.wait(100);
+            }
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public void sync() {
+        long target;
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            target = lastSequence;
+            buffer = current;
+        }
+        if (target <= durableSequence) {
+            return;
+        }
+        Stopwatch sw = MetricsRegistry.start("journal.fsync");
+        try {
+            buffer.force();
+        } finally {
+            sw.stop();
+        }
+        markDurable(target);
+    }
+
+    /**
+     * Deletes segments whose records all have a sequence of at most {@code persistedSequence}.
+     * The active segment is never deleted.
+     */
+    public synchronized void release(long persistedSequence) {
+        if (retainSegments) {
+            return;
+        }
+        Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Path> segment = it.next();
+            Long next = segments.higherKey(segment.getKey());
+            if (next == null || next - 1 > persistedSequence) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segment.getValue());
+                it.remove();
+                logger.debug("Released journal segment " + segment.getValue());
+            } catch (IOException e) {
+                logger.warn("Could not delete journal segment " + segment.getValue(), e);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Checks the journal against the highest sequence the database has persisted. A new,
+     * empty journal (no segments when opened, nothing appended since) continues after
+     * the checkpoint; any other journal that ends below it is not the journal the
+     * checkpoint came from, or lost records, and is refused.
+     *
+     * @param checkpoint The persisted checkpoint ({@code ledger_checkpoint.last_seq}).
+     * @throws IOException If the journal ends below the checkpoint, or its first segment cannot be replaced.
+     */
+    public synchronized void alignWithCheckpoint(long checkpoint) throws IOException {
+        if (checkpoint <= lastSequence) {
+            return;
+        }
+        if (!fresh || lastSequence > 0) {
+            throw new IOException("Journal in " + directory + " ends at #" + lastSequence + " but the database checkpoint is #"
+                    + checkpoint + "; refusing to append");
+        }
+        Path empty = segments.remove(segments.firstKey());
+        Files.deleteIfExists(empty);
+        createSegment(checkpoint + 1);
+        lastSequence = checkpoint;
+        markDurable(checkpoint);
+        logger.warn("New journal in " + directory + " starts after database checkpoint #" + checkpoint);
+    }
+
+    /**
+     * Replays records after {@code afterSequence}; see {@link JournalReader#replay}.
+     */
+    public long replay(long afterSequence, JournalReader.RecordVisitor visitor) throws IOException {
+        sync();
+        return JournalReader.replay(directory, afterSequence, visitor);
+    }
+
+    /**
+     * @return The sequence of the last appended record (0 if empty).
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return The highest sequence known to be on disk.
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+        closed = true;
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+        }
+        logger.info("Journal closed at #" + durableSequence);
+    }
+
+    // --- Internals ---
+
+    private void openTail() throws IOException {
+        JournalReader.ScanResult tail = JournalReader.scan(directory, Long.MAX_VALUE, (s, t, a, b, c, d, k) -> { });
+        if (tail.brokenBeforeTail) {
+            throw new IOException("Journal in " + directory + " is damaged before its last segment; refusing to append");
+        }
+        for (Path segment : JournalReader.listSegments(directory)) {
+            segments.put(Long.parseLong(segment.getFileName().toString().replace(SUFFIX, "")), segment);
+        }
+        fresh = segments.isEmpty();
+        // A last segment without records (rolled just before a crash, or all that release() left)
+        // still says where numbering continues; its name is its first sequence
+        lastSequence = fresh ? tail.lastSequence : Math.max(tail.lastSequence, segments.lastKey() - 1);
+        durableSequence = lastSequence;
+
+        if (tail.lastSegment == null || tail.tailHeaderInvalid) {
+            if (tail.lastSegment != null) {
+                segments.values().remove(tail.lastSegment);
+                Files.deleteIfExists(tail.lastSegment);
+            }
+            createSegment(lastSequence + 1);
+            return;
+        }
+
+        current = map(tail.lastSegment);
+        position = tail.endOffset;
+        // Zero everything past the valid tail: a torn record, or records from pages that
+        // reached disk ahead of an earlier one, must never be read back as new appends
+        byte[] zeros = new byte[RECORD_SIZE * 256];
+        for (int i = position; i < current.capacity(); i += zeros.length) {
+            current.put(i, zeros, 0, Math.min(zeros.length, current.capacity() - i));
+        }
+        current.force();
+        logger.info("Journal opened in " + directory + " at #" + lastSequence + " (" + segments.size() + " segments)");
+    }
+
+    private void roll() throws IOException {
+        current.force();
+        markDurable(lastSequence);
+        createSegment(lastSequence + 1);
+    }
+
+    private void createSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        current = map(file);
+        current.putInt(0, MAGIC);
+        current.putInt(4, RECORD_SIZE);
+        current.putLong(8, firstSequence);
+        current.force();
+        position = HEADER_SIZE;
+        segments.put(firstSequence, file);
+        MetricsRegistry.counter("journal.segments.created").increment();
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (durableMonitor) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            logger.error("Journal fsync failed", e);
+        }
+    }
+
+    private synchronized long lastSequenceSnapshot() {
+        return lastSequence;
+    }
+}
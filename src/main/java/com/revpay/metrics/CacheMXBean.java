@@ -0,0 +1,22 @@
+package com.revpay.metrics;
+
+/**
+ * JMX view of an in-process cache, registered under {@code com.revpay:type=Cache,name=<cache>}.
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public interface CacheMXBean {
+
+    /** @return The cache name. */
+    String getName();
+
+    /** @return Number of lookups served from the cache. */
+    long getHits();
+
+    /** @return Number of lookups that fell through to the backing store. */
+    long getMisses();
+
+    /** @return hits / (hits + misses), or 0 when the cache was never queried. */
+    double getHitRatio();
+}
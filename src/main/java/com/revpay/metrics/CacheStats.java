@@ -0,0 +1,42 @@
+package com.revpay.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters for one in-process cache.
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class CacheStats implements CacheMXBean {
+
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheStats(String name) {
+        this.name = name;
+    }
+
+    /** Records a lookup that was answered by the cache. */
+    public void hit() { hits.increment(); }
+
+    /** Records a lookup that had to go to the backing store. */
+    public void miss() { misses.increment(); }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public long getHits() { return hits.sum(); }
+
+    @Override
+    public long getMisses() { return misses.sum(); }
+
+    @Override
+    public double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+}
@@ -0,0 +1,25 @@
+package com.revpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event covering the time a DAO waited for a database connection.
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+@Name("com.revpay.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category({"RevPay", "Database"})
+@Description("Time spent obtaining a JDBC connection")
+@StackTrace(false)
+public class ConnectionAcquireEvent extends Event {
+
+    @Label("Success")
+    public boolean success;
+}
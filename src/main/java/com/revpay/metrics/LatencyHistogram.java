@@ -0,0 +1,121 @@
+package com.revpay.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets.
+ * <p>
+ * Every power-of-two range is split into 4 sub-buckets, so any recorded value is
+ * reported with at most 25% relative error while the whole histogram stays a
+ * fixed array of 256 counters. Recording is a handful of arithmetic operations
+ * and one atomic increment, which keeps it cheap enough for the transfer hot path.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 256;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one observation.
+     *
+     * @param nanos The elapsed time in nanoseconds. Negative values are treated as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+
+        long currentMax = maxNanos.get();
+        while (value > currentMax && !maxNanos.compareAndSet(currentMax, value)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return The number of recorded observations.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * @return The sum of all recorded observations in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return The largest recorded observation in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @return The arithmetic mean in nanoseconds, or 0 when nothing was recorded.
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) getTotalNanos() / count;
+    }
+
+    /**
+     * Estimates a percentile from the bucket counts.
+     *
+     * @param quantile A value between 0.0 and 1.0 (e.g. 0.99 for p99).
+     * @return The upper bound of the bucket holding the requested rank, in nanoseconds.
+     */
+    public long getPercentileNanos(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    // Maps a value to its bucket: 0-3 are exact, above that 4 buckets per power of two
+    static int indexOf(long value) {
+        if (value < 4) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 2)) & 3;
+        return (exponent - 1) * 4 + sub;
+    }
+
+    // Exclusive upper bound of the values that land in the given bucket
+    static long upperBoundOf(int index) {
+        if (index < 4) {
+            return index + 1;
+        }
+        int exponent = index / 4 + 1;
+        int sub = index % 4;
+        return (5L + sub) << (exponent - 2);
+    }
+}
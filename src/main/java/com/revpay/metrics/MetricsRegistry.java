@@ -0,0 +1,137 @@
+package com.revpay.metrics;
+
+import com.revpay.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of runtime metrics.
+ * <p>
+ * Holds operation timers (DAO methods, service calls, connection acquisition),
+ * cache hit/miss counters, plain counters and gauges. Operation and cache
+ * metrics are also published over JMX (disable with {@code -Drevpay.metrics.jmx=false});
+ * everything is available in Prometheus text format through {@link PrometheusExporter}.
+ * </p>
+ * <p>
+ * Lookups are a single {@link ConcurrentHashMap} read once an entry exists, so the
+ * registry can stay enabled on the transfer hot path.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class MetricsRegistry {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(MetricsRegistry.class);
+
+    private static final boolean JMX_ENABLED = AppConfig.getBoolean("revpay.metrics.jmx", true);
+
+    private static final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private static final Map<String, CacheStats> caches = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<? extends Number>> gauges = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {}
+
+    /**
+     * Starts timing one call of the named operation.
+     *
+     * @param operation The operation name, e.g. {@code dao.TransactionDAO.transferMoney}.
+     * @return A {@link Stopwatch} that must be stopped when the call finishes.
+     */
+    public static Stopwatch start(String operation) {
+        return new Stopwatch(operation(operation));
+    }
+
+    /**
+     * Returns (creating on first use) the statistics for an operation.
+     *
+     * @param name The operation name.
+     * @return The shared {@link OperationStats} instance.
+     */
+    public static OperationStats operation(String name) {
+        OperationStats stats = operations.get(name);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(name, n -> {
+                OperationStats created = new OperationStats(n);
+                registerMBean("Operation", n, created);
+                return created;
+            });
+        }
+        return stats;
+    }
+
+    /**
+     * Returns (creating on first use) the hit/miss counters for a cache.
+     *
+     * @param name The cache name.
+     * @return The shared {@link CacheStats} instance.
+     */
+    public static CacheStats cache(String name) {
+        CacheStats stats = caches.get(name);
+        if (stats == null) {
+            stats = caches.computeIfAbsent(name, n -> {
+                CacheStats created = new CacheStats(n);
+                registerMBean("Cache", n, created);
+                return created;
+            });
+        }
+        return stats;
+    }
+
+    /**
+     * Returns (creating on first use) a monotonically increasing counter.
+     *
+     * @param name The counter name, e.g. {@code admission.rejected}.
+     * @return The shared counter.
+     */
+    public static LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Registers a gauge whose value is sampled at scrape time.
+     * Registering the same name again replaces the previous supplier.
+     *
+     * @param name     The gauge name, e.g. {@code admission.queue.depth}.
+     * @param supplier Supplies the current value.
+     */
+    public static void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    static Map<String, OperationStats> operations() { return operations; }
+
+    static Map<String, CacheStats> caches() { return caches; }
+
+    static Map<String, LongAdder> counters() { return counters; }
+
+    static Map<String, Supplier<? extends Number>> gauges() { return gauges; }
+
+    private static void registerMBean(String type, String name, Object mbean) {
+        if (!JMX_ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.revpay:type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (Exception e) {
+            // Metrics must never break the caller; the Prometheus view still works.
+            logger.warn("Could not register JMX bean for " + type + " " + name, e);
+        }
+    }
+}
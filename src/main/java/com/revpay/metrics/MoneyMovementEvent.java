@@ -0,0 +1,43 @@
+package com.revpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event spanning a whole money movement (transfer or deposit).
+ * <p>
+ * The {@link ConnectionAcquireEvent} and {@link SqlExecutionEvent}s recorded on the
+ * same thread inside this event's time window show where the time went.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+@Name("com.revpay.MoneyMovement")
+@Label("Money Movement")
+@Category({"RevPay", "Ledger"})
+@Description("A transfer or deposit executed by TransactionDAO")
+@StackTrace(false)
+public class MoneyMovementEvent extends Event {
+
+    @Label("Type")
+    @Description("TRANSFER or DEPOSIT")
+    public String type;
+
+    @Label("Sender Id")
+    public int senderId;
+
+    @Label("Receiver Id")
+    public int receiverId;
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Outcome")
+    @Description("SUCCESS, INSUFFICIENT_FUNDS, INVALID_RECEIVER or ERROR")
+    public String outcome;
+}
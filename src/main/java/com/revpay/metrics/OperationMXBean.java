@@ -0,0 +1,38 @@
+package com.revpay.metrics;
+
+/**
+ * JMX view of a single instrumented operation (a DAO method or service call).
+ * <p>
+ * Instances are registered under {@code com.revpay:type=Operation,name=<operation>}
+ * and can be browsed with JConsole or VisualVM.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public interface OperationMXBean {
+
+    /** @return The operation name, e.g. {@code dao.TransactionDAO.transferMoney}. */
+    String getName();
+
+    /** @return Total number of completed calls. */
+    long getCalls();
+
+    /** @return Number of calls that ended in an error. */
+    long getErrors();
+
+    /** @return Mean latency in milliseconds. */
+    double getMeanMillis();
+
+    /** @return Median latency in milliseconds. */
+    double getP50Millis();
+
+    /** @return 95th percentile latency in milliseconds. */
+    double getP95Millis();
+
+    /** @return 99th percentile latency in milliseconds. */
+    double getP99Millis();
+
+    /** @return Slowest observed call in milliseconds. */
+    double getMaxMillis();
+}
@@ -0,0 +1,70 @@
+package com.revpay.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency histogram for one named operation.
+ * <p>
+ * Obtain instances through {@link MetricsRegistry#operation(String)}; they are
+ * created once and shared by all threads.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class OperationStats implements OperationMXBean {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one completed call.
+     *
+     * @param nanos  The elapsed time in nanoseconds.
+     * @param failed {@code true} if the call ended in an error.
+     */
+    public void record(long nanos, boolean failed) {
+        latency.record(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * @return The underlying latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public long getCalls() { return latency.getCount(); }
+
+    @Override
+    public long getErrors() { return errors.sum(); }
+
+    @Override
+    public double getMeanMillis() { return latency.getMeanNanos() / NANOS_PER_MILLI; }
+
+    @Override
+    public double getP50Millis() { return latency.getPercentileNanos(0.50) / NANOS_PER_MILLI; }
+
+    @Override
+    public double getP95Millis() { return latency.getPercentileNanos(0.95) / NANOS_PER_MILLI; }
+
+    @Override
+    public double getP99Millis() { return latency.getPercentileNanos(0.99) / NANOS_PER_MILLI; }
+
+    @Override
+    public double getMaxMillis() { return latency.getMaxNanos() / NANOS_PER_MILLI; }
+}
@@ -0,0 +1,34 @@
+package com.revpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for BCrypt hashing and verification in {@code SecurityUtil}.
+ * <p>
+ * BCrypt is deliberately slow (cost 12 is ~250 ms), so these events make it easy to
+ * tell login latency apart from database latency.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+@Name("com.revpay.PasswordHash")
+@Label("Password Hash")
+@Category({"RevPay", "Security"})
+@Description("BCrypt password hashing or verification")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    @Description("HASH or VERIFY")
+    public String operation;
+
+    @Label("Verified")
+    @Description("Result of a VERIFY operation")
+    public boolean verified;
+}
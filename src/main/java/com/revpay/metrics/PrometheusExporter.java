@@ -0,0 +1,146 @@
+package com.revpay.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Renders the {@link MetricsRegistry} in the Prometheus text exposition format
+ * and optionally serves it over HTTP at {@code /metrics}.
+ * <p>
+ * Operation latencies are exported as summaries ({@code revpay_operation_seconds})
+ * with p50/p95/p99 quantiles, plus an error counter per operation.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class PrometheusExporter {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(PrometheusExporter.class);
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private static HttpServer server;
+
+    private PrometheusExporter() {}
+
+    /**
+     * Builds the current scrape body.
+     *
+     * @return All metrics in Prometheus text format (version 0.0.4).
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# HELP revpay_operation_seconds Latency of DAO and service operations.\n");
+        out.append("# TYPE revpay_operation_seconds summary\n");
+        Map<String, OperationStats> operations = new TreeMap<>(MetricsRegistry.operations());
+        for (OperationStats stats : operations.values()) {
+            LatencyHistogram latency = stats.getLatency();
+            String label = "operation=\"" + escape(stats.getName()) + "\"";
+            for (double q : QUANTILES) {
+                out.append("revpay_operation_seconds{").append(label).append(",quantile=\"").append(q).append("\"} ")
+                        .append(latency.getPercentileNanos(q) / NANOS_PER_SECOND).append('\n');
+            }
+            out.append("revpay_operation_seconds_sum{").append(label).append("} ")
+                    .append(latency.getTotalNanos() / NANOS_PER_SECOND).append('\n');
+            out.append("revpay_operation_seconds_count{").append(label).append("} ")
+                    .append(latency.getCount()).append('\n');
+        }
+
+        out.append("# HELP revpay_operation_errors_total Operations that ended in an error.\n");
+        out.append("# TYPE revpay_operation_errors_total counter\n");
+        for (OperationStats stats : operations.values()) {
+            out.append("revpay_operation_errors_total{operation=\"").append(escape(stats.getName())).append("\"} ")
+                    .append(stats.getErrors()).append('\n');
+        }
+
+        out.append("# HELP revpay_cache_requests_total Cache lookups by result.\n");
+        out.append("# TYPE revpay_cache_requests_total counter\n");
+        for (CacheStats stats : new TreeMap<>(MetricsRegistry.caches()).values()) {
+            String name = escape(stats.getName());
+            out.append("revpay_cache_requests_total{cache=\"").append(name).append("\",result=\"hit\"} ")
+                    .append(stats.getHits()).append('\n');
+            out.append("revpay_cache_requests_total{cache=\"").append(name).append("\",result=\"miss\"} ")
+                    .append(stats.getMisses()).append('\n');
+        }
+
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(MetricsRegistry.counters()).entrySet()) {
+            String metric = "revpay_" + sanitize(e.getKey()) + "_total";
+            out.append("# TYPE ").append(metric).append(" counter\n");
+            out.append(metric).append(' ').append(e.getValue().sum()).append('\n');
+        }
+
+        for (Map.Entry<String, Supplier<? extends Number>> e : MetricsRegistry.gauges().entrySet()) {
+            String metric = "revpay_" + sanitize(e.getKey());
+            Number value;
+            try {
+                value = e.getValue().get();
+            } catch (RuntimeException ex) {
+                logger.warn("Gauge " + e.getKey() + " failed to report", ex);
+                continue;
+            }
+            out.append("# TYPE ").append(metric).append(" gauge\n");
+            out.append(metric).append(' ').append(value == null ? 0 : value).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Starts a small HTTP server exposing {@code GET /metrics}.
+     * Calling it again while the server is running has no effect.
+     *
+     * @param port The TCP port to listen on.
+     */
+    public static synchronized void start(int port) {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            server.start();
+            logger.info("Metrics endpoint listening on http://localhost:" + port + "/metrics");
+        } catch (IOException e) {
+            server = null;
+            logger.error("Failed to start metrics endpoint on port " + port, e);
+        }
+    }
+
+    /**
+     * Stops the HTTP server if it is running.
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,38 @@
+package com.revpay.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every JDBC statement execution.
+ * <p>
+ * The event duration covers the round trip to Oracle, including any row-lock
+ * wait (e.g. the withdraw {@code UPDATE wallets} in a transfer).
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+@Name("com.revpay.SqlExecution")
+@Label("SQL Execution")
+@Category({"RevPay", "Database"})
+@Description("Execution of one JDBC statement issued by a DAO")
+@StackTrace(false)
+public class SqlExecutionEvent extends Event {
+
+    @Label("SQL Id")
+    @Description("Stable identifier of the statement, e.g. transfer.withdraw")
+    public String sqlId;
+
+    @Label("Rows Affected")
+    @Description("Update count, or -1 for queries")
+    public long rowsAffected;
+
+    @Label("Outcome")
+    @Description("OK, or ERROR followed by the SQLState")
+    public String outcome;
+}
@@ -0,0 +1,55 @@
+package com.revpay.metrics;
+
+/**
+ * Measures a single call of an instrumented operation.
+ * <p>
+ * Typical usage inside a DAO method:
+ * </p>
+ * <pre>
+ * Stopwatch sw = MetricsRegistry.start("dao.WalletDAO.getBalance");
+ * try (...) {
+ *     ...
+ * } catch (SQLException e) {
+ *     sw.fail();
+ *     ...
+ * } finally {
+ *     sw.stop();
+ * }
+ * </pre>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class Stopwatch {
+
+    private final OperationStats stats;
+    private final long startNanos;
+    private boolean failed;
+    private boolean stopped;
+
+    Stopwatch(OperationStats stats) {
+        this.stats = stats;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the call as failed. The error is counted when {@link #stop()} runs.
+     */
+    public void fail() {
+        failed = true;
+    }
+
+    /**
+     * Records the elapsed time. Calling it more than once has no further effect.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long stop() {
+        long elapsed = System.nanoTime() - startNanos;
+        if (!stopped) {
+            stopped = true;
+            stats.record(elapsed, failed);
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,66 @@
+package com.revpay.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Model class representing a wallet whose balance disagrees with its ledger.
+ * <p>
+ * Produced by the reconciliation job: the ledger balance is the sum of the user's
+ * successful credits minus debits in {@code transactions}; the wallet balance is the
+ * stored balance including shards ({@code null} if the wallet row is missing).
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class BalanceDiscrepancy {
+    private final int userId;
+    private final BigDecimal walletBalance;
+    private final BigDecimal ledgerBalance;
+
+    /**
+     * @param userId        The user whose balances disagree.
+     * @param walletBalance The stored wallet balance, or {@code null} if there is no wallet.
+     * @param ledgerBalance The balance implied by the transactions table.
+     */
+    public BalanceDiscrepancy(int userId, BigDecimal walletBalance, BigDecimal ledgerBalance) {
+        this.userId = userId;
+        this.walletBalance = walletBalance;
+        this.ledgerBalance = ledgerBalance;
+    }
+
+    /**
+     * Gets the User ID.
+     * @return The user ID.
+     */
+    public int getUserId() { return userId; }
+
+    /**
+     * Gets the stored wallet balance.
+     * @return The balance, or {@code null} if the wallet is missing.
+     */
+    public BigDecimal getWalletBalance() { return walletBalance; }
+
+    /**
+     * Gets the balance implied by the ledger.
+     * @return The ledger balance.
+     */
+    public BigDecimal getLedgerBalance() { return ledgerBalance; }
+
+    /**
+     * Gets how much the wallet holds beyond what the ledger explains.
+     * @return Wallet minus ledger balance (a missing wallet counts as zero).
+     */
+    public BigDecimal getDifference() {
+        return (walletBalance == null ? BigDecimal.ZERO : walletBalance).subtract(ledgerBalance);
+    }
+
+    /**
+     * Returns a string representation of the discrepancy.
+     * @return A formatted string with user, wallet, ledger and difference.
+     */
+    @Override
+    public String toString() {
+        return "BalanceDiscrepancy [User=" + userId + ", Wallet=" + walletBalance + ", Ledger=" + ledgerBalance + ", Difference=" + getDifference() + "]";
+    }
+}
@@ -0,0 +1,171 @@
+package com.revpay.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Model class representing a hold on a wallet while a slow payment network decides.
+ * <p>
+ * A {@link Type#DEBIT} hold reserves spendable funds (e.g. a card payout awaiting
+ * confirmation); a {@link Type#CREDIT} hold marks incoming funds as pending (e.g. a
+ * card deposit awaiting settlement). A hold is {@link Status#PENDING} until it is
+ * settled (the money moves) or released (nothing moves). A hold still pending at
+ * {@code expiresAt} is settled or released by the sweeper, as chosen when it was placed.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class BalanceHold {
+
+    /** What the hold does to the wallet while pending. */
+    public enum Type {
+        /** Reserves funds: available balance = balance - debit holds. */
+        DEBIT,
+        /** Incoming funds, shown as pending but not spendable. */
+        CREDIT
+    }
+
+    /** Lifecycle of a hold. */
+    public enum Status { PENDING, SETTLED, RELEASED }
+
+    private int holdId;
+    private int userId;
+    private Type type;
+    private Money amount;
+    private Status status = Status.PENDING;
+    private String reference;
+    private Timestamp expiresAt;
+    private boolean settleOnExpiry;
+
+    /**
+     * Default constructor.
+     */
+    public BalanceHold() {}
+
+    /**
+     * Parameterized constructor for placing a new hold.
+     *
+     * @param userId         The wallet owner.
+     * @param type           DEBIT or CREDIT.
+     * @param amount         The amount held (positive).
+     * @param reference      Reference of the external payment, e.g. a card authorization.
+     * @param expiresAt      When the sweeper resolves the hold if nobody did.
+     * @param settleOnExpiry {@code true} to settle at expiry, {@code false} to release.
+     */
+    public BalanceHold(int userId, Type type, Money amount, String reference, Timestamp expiresAt, boolean settleOnExpiry) {
+        this.userId = userId;
+        this.type = type;
+        this.amount = amount;
+        this.reference = reference;
+        this.expiresAt = expiresAt;
+        this.settleOnExpiry = settleOnExpiry;
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the hold ID.
+     * @return The hold ID.
+     */
+    public int getHoldId() { return holdId; }
+
+    /**
+     * Sets the hold ID.
+     * @param holdId The hold ID.
+     */
+    public void setHoldId(int holdId) { this.holdId = holdId; }
+
+    /**
+     * Gets the wallet owner's User ID.
+     * @return The user ID.
+     */
+    public int getUserId() { return userId; }
+
+    /**
+     * Sets the wallet owner's User ID.
+     * @param userId The user ID.
+     */
+    public void setUserId(int userId) { this.userId = userId; }
+
+    /**
+     * Gets the hold type.
+     * @return DEBIT or CREDIT.
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Sets the hold type.
+     * @param type DEBIT or CREDIT.
+     */
+    public void setType(Type type) { this.type = type; }
+
+    /**
+     * Gets the amount held.
+     * @return The amount.
+     */
+    public Money getAmount() { return amount; }
+
+    /**
+     * Sets the amount held.
+     * @param amount The amount.
+     */
+    public void setAmount(Money amount) { this.amount = amount; }
+
+    /**
+     * Gets the hold status.
+     * @return PENDING, SETTLED or RELEASED.
+     */
+    public Status getStatus() { return status; }
+
+    /**
+     * Sets the hold status.
+     * @param status PENDING, SETTLED or RELEASED.
+     */
+    public void setStatus(Status status) { this.status = status; }
+
+    /**
+     * Gets the external payment reference.
+     * @return The reference, e.g. a card authorization.
+     */
+    public String getReference() { return reference; }
+
+    /**
+     * Sets the external payment reference.
+     * @param reference The reference, e.g. a card authorization.
+     */
+    public void setReference(String reference) { this.reference = reference; }
+
+    /**
+     * Gets when the sweeper resolves the hold.
+     * @return The expiry time.
+     */
+    public Timestamp getExpiresAt() { return expiresAt; }
+
+    /**
+     * Sets when the sweeper resolves the hold.
+     * @param expiresAt The expiry time.
+     */
+    public void setExpiresAt(Timestamp expiresAt) { this.expiresAt = expiresAt; }
+
+    /**
+     * Tells what the sweeper does at expiry.
+     * @return {@code true} to settle, {@code false} to release.
+     */
+    public boolean isSettleOnExpiry() { return settleOnExpiry; }
+
+    /**
+     * Sets what the sweeper does at expiry.
+     * @param settleOnExpiry {@code true} to settle, {@code false} to release.
+     */
+    public void setSettleOnExpiry(boolean settleOnExpiry) { this.settleOnExpiry = settleOnExpiry; }
+
+    /**
+     * Returns a string representation of the hold.
+     * @return A formatted string with ID, user, type, amount, status and expiry.
+     */
+    @Override
+    public String toString() {
+        return "Hold #" + holdId + " [User=" + userId + ", " + type + " $" + amount + ", " + status
+                + ", expires " + expiresAt + "]";
+    }
+}
@@ -0,0 +1,210 @@
+package com.revpay.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable amount of money held as a {@code long} in minor units (paise/cents).
+ * <p>
+ * Used on the money-movement path instead of {@link BigDecimal}: checks and
+ * arithmetic are plain {@code long} operations, and common small amounts are
+ * cached so they allocate nothing. Arithmetic is exact and throws
+ * {@link ArithmeticException} on overflow, and conversion from a
+ * {@link BigDecimal} with more than two decimals fails rather than rounding.
+ * </p>
+ * <p>
+ * The database keeps amounts in {@code NUMBER(15,2)} columns; an amount outside
+ * {@link #MAX_COLUMN_MINOR} cannot be stored.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class Money implements Comparable<Money> {
+
+    /** Number of decimals of every amount. */
+    public static final int SCALE = 2;
+
+    /** Largest absolute amount a {@code NUMBER(15,2)} column holds, in minor units. */
+    public static final long MAX_COLUMN_MINOR = 999_999_999_999_999L;
+
+    private static final int CACHED = 10_000; // 0.00 to 99.99
+    private static final Money[] CACHE = new Money[CACHED];
+
+    static {
+        for (int i = 0; i < CACHED; i++) {
+            CACHE[i] = new Money(i);
+        }
+    }
+
+    public static final Money ZERO = CACHE[0];
+
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    /**
+     * @param minor An amount in minor units, e.g. {@code 1050} for 10.50.
+     * @return The amount.
+     */
+    public static Money ofMinor(long minor) {
+        return minor >= 0 && minor < CACHED ? CACHE[(int) minor] : new Money(minor);
+    }
+
+    /**
+     * Converts a decimal amount exactly.
+     *
+     * @param amount An amount with at most two decimals.
+     * @return The amount.
+     * @throws ArithmeticException If the amount has more decimals or does not fit in a {@code long}.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.movePointRight(SCALE).longValueExact());
+    }
+
+    /**
+     * Parses user input such as {@code "12"}, {@code "12.5"} or {@code "-0.05"}
+     * without going through {@link BigDecimal}.
+     *
+     * @param text The amount.
+     * @return The amount.
+     * @throws NumberFormatException If the text is not a number with at most two decimals.
+     */
+    public static Money parse(String text) {
+        String s = text.trim();
+        int i = 0;
+        boolean negative = false;
+        if (i < s.length() && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || decimals == SCALE) {
+                throw new NumberFormatException("Not an amount with at most " + SCALE + " decimals: " + text);
+            }
+            if (units > MAX_COLUMN_MINOR) {
+                throw new NumberFormatException("Amount too large: " + text);
+            }
+            units = units * 10 + (c - '0');
+            digits++;
+            if (decimals >= 0) {
+                decimals++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not an amount: " + text);
+        }
+        for (int d = Math.max(decimals, 0); d < SCALE; d++) {
+            units *= 10;
+        }
+        return ofMinor(negative ? -units : units);
+    }
+
+    /**
+     * @return The amount in minor units.
+     */
+    public long getMinor() {
+        return minor;
+    }
+
+    /**
+     * @return This amount plus {@code other}.
+     * @throws ArithmeticException On overflow.
+     */
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    /**
+     * @return This amount minus {@code other}.
+     * @throws ArithmeticException On overflow.
+     */
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minor, other.minor));
+    }
+
+    /**
+     * @return This amount multiplied by a whole number.
+     * @throws ArithmeticException On overflow.
+     */
+    public Money times(long factor) {
+        return ofMinor(Math.multiplyExact(minor, factor));
+    }
+
+    /**
+     * @return The amount with the opposite sign.
+     * @throws ArithmeticException On overflow.
+     */
+    public Money negate() {
+        return ofMinor(Math.negateExact(minor));
+    }
+
+    public boolean isPositive() { return minor > 0; }
+
+    public boolean isNegative() { return minor < 0; }
+
+    public boolean isZero() { return minor == 0; }
+
+    /**
+     * @return {@code -1}, {@code 0} or {@code 1} for a negative, zero or positive amount.
+     */
+    public int signum() {
+        return Long.signum(minor);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minor < other.minor;
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return minor > other.minor;
+    }
+
+    /**
+     * @return {@code true} if a {@code NUMBER(15,2)} column can store the amount.
+     */
+    public boolean fitsColumn() {
+        return minor >= -MAX_COLUMN_MINOR && minor <= MAX_COLUMN_MINOR;
+    }
+
+    /**
+     * @return The amount as a {@link BigDecimal} with scale 2 (allocates; for JDBC and display).
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minor == minor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    /**
+     * @return The amount with two decimals, e.g. {@code "10.50"} or {@code "-0.05"}.
+     */
+    @Override
+    public String toString() {
+        long units = Math.abs(minor / 100);
+        long cents = Math.abs(minor % 100);
+        return (minor < 0 ? "-" : "") + units + (cents < 10 ? ".0" : ".") + cents;
+    }
+}
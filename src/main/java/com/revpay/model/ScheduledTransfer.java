@@ -0,0 +1,243 @@
+package com.revpay.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Model class representing a future-dated or recurring transfer (a standing order).
+ * <p>
+ * Run {@code n} (counting from 0) is due at {@code startAt} plus {@code n} times the
+ * frequency. Occurrences are always computed from the start rather than from the
+ * previous run, so a monthly order started on the 31st pays on the last day of
+ * shorter months and returns to the 31st afterwards. {@code runNumber} counts the
+ * runs already handled; the order completes after {@code maxRuns} runs (0 means until
+ * cancelled), or after its only run for {@link Frequency#ONCE}.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class ScheduledTransfer {
+
+    /** How often the transfer repeats. */
+    public enum Frequency { ONCE, DAILY, WEEKLY, MONTHLY }
+
+    /** Lifecycle of a standing order. */
+    public enum Status { ACTIVE, COMPLETED, CANCELLED }
+
+    private int scheduleId;
+    private int senderId;
+    private int receiverId;
+    private Money amount;
+    private Frequency frequency;
+    private Timestamp startAt;
+    private Timestamp nextRunAt;
+    private int runNumber;
+    private int maxRuns;
+    private Status status = Status.ACTIVE;
+    private String lastStatus;
+
+    /**
+     * Default constructor.
+     */
+    public ScheduledTransfer() {}
+
+    /**
+     * Parameterized constructor for creating a new standing order.
+     *
+     * @param senderId   The ID of the user paying.
+     * @param receiverId The ID of the user paid.
+     * @param amount     The amount of each run.
+     * @param frequency  How often it repeats.
+     * @param startAt    When the first run is due.
+     * @param maxRuns    Number of runs, or 0 until cancelled (ignored for ONCE).
+     */
+    public ScheduledTransfer(int senderId, int receiverId, Money amount, Frequency frequency, Timestamp startAt,
+                             int maxRuns) {
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.amount = amount;
+        this.frequency = frequency;
+        this.startAt = startAt;
+        this.nextRunAt = startAt;
+        this.maxRuns = frequency == Frequency.ONCE ? 1 : Math.max(0, maxRuns);
+    }
+
+    /**
+     * Computes when a run is due.
+     *
+     * @param run The run number, counting from 0.
+     * @return The due time of that run.
+     */
+    public Timestamp occurrence(int run) {
+        switch (frequency) {
+            case DAILY:
+                return Timestamp.valueOf(startAt.toLocalDateTime().plusDays(run));
+            case WEEKLY:
+                return Timestamp.valueOf(startAt.toLocalDateTime().plusWeeks(run));
+            case MONTHLY:
+                return Timestamp.valueOf(startAt.toLocalDateTime().plusMonths(run));
+            default:
+                return startAt;
+        }
+    }
+
+    /**
+     * Records that the current run was handled and moves to the next one, completing
+     * the order after its last run.
+     *
+     * @param outcome SUCCESS or FAILED, kept as the last status.
+     */
+    public void completeRun(String outcome) {
+        runNumber++;
+        lastStatus = outcome;
+        nextRunAt = occurrence(runNumber);
+        if (frequency == Frequency.ONCE || (maxRuns > 0 && runNumber >= maxRuns)) {
+            status = Status.COMPLETED;
+        }
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the schedule ID.
+     * @return The schedule ID.
+     */
+    public int getScheduleId() { return scheduleId; }
+
+    /**
+     * Sets the schedule ID.
+     * @param scheduleId The schedule ID.
+     */
+    public void setScheduleId(int scheduleId) { this.scheduleId = scheduleId; }
+
+    /**
+     * Gets the sender's User ID.
+     * @return The sender ID.
+     */
+    public int getSenderId() { return senderId; }
+
+    /**
+     * Sets the sender's User ID.
+     * @param senderId The sender ID.
+     */
+    public void setSenderId(int senderId) { this.senderId = senderId; }
+
+    /**
+     * Gets the receiver's User ID.
+     * @return The receiver ID.
+     */
+    public int getReceiverId() { return receiverId; }
+
+    /**
+     * Sets the receiver's User ID.
+     * @param receiverId The receiver ID.
+     */
+    public void setReceiverId(int receiverId) { this.receiverId = receiverId; }
+
+    /**
+     * Gets the amount of each run.
+     * @return The amount.
+     */
+    public Money getAmount() { return amount; }
+
+    /**
+     * Sets the amount of each run.
+     * @param amount The amount.
+     */
+    public void setAmount(Money amount) { this.amount = amount; }
+
+    /**
+     * Gets the frequency.
+     * @return ONCE, DAILY, WEEKLY or MONTHLY.
+     */
+    public Frequency getFrequency() { return frequency; }
+
+    /**
+     * Sets the frequency.
+     * @param frequency ONCE, DAILY, WEEKLY or MONTHLY.
+     */
+    public void setFrequency(Frequency frequency) { this.frequency = frequency; }
+
+    /**
+     * Gets when the first run is due.
+     * @return The start time.
+     */
+    public Timestamp getStartAt() { return startAt; }
+
+    /**
+     * Sets when the first run is due.
+     * @param startAt The start time.
+     */
+    public void setStartAt(Timestamp startAt) { this.startAt = startAt; }
+
+    /**
+     * Gets when the next run is due.
+     * @return The next run time.
+     */
+    public Timestamp getNextRunAt() { return nextRunAt; }
+
+    /**
+     * Sets when the next run is due.
+     * @param nextRunAt The next run time.
+     */
+    public void setNextRunAt(Timestamp nextRunAt) { this.nextRunAt = nextRunAt; }
+
+    /**
+     * Gets the number of runs already handled.
+     * @return The run number of the next run.
+     */
+    public int getRunNumber() { return runNumber; }
+
+    /**
+     * Sets the number of runs already handled.
+     * @param runNumber The run number of the next run.
+     */
+    public void setRunNumber(int runNumber) { this.runNumber = runNumber; }
+
+    /**
+     * Gets the number of runs after which the order completes.
+     * @return The run limit, or 0 until cancelled.
+     */
+    public int getMaxRuns() { return maxRuns; }
+
+    /**
+     * Sets the number of runs after which the order completes.
+     * @param maxRuns The run limit, or 0 until cancelled.
+     */
+    public void setMaxRuns(int maxRuns) { this.maxRuns = maxRuns; }
+
+    /**
+     * Gets the status.
+     * @return ACTIVE, COMPLETED or CANCELLED.
+     */
+    public Status getStatus() { return status; }
+
+    /**
+     * Sets the status.
+     * @param status ACTIVE, COMPLETED or CANCELLED.
+     */
+    public void setStatus(Status status) { this.status = status; }
+
+    /**
+     * Gets the outcome of the last run.
+     * @return SUCCESS, FAILED, or {@code null} before the first run.
+     */
+    public String getLastStatus() { return lastStatus; }
+
+    /**
+     * Sets the outcome of the last run.
+     * @param lastStatus SUCCESS, FAILED, or {@code null} before the first run.
+     */
+    public void setLastStatus(String lastStatus) { this.lastStatus = lastStatus; }
+
+    /**
+     * Returns a string representation of the standing order.
+     * @return A formatted string with ID, receiver, amount, frequency, next run and status.
+     */
+    @Override
+    public String toString() {
+        return "Schedule #" + scheduleId + " [To User " + receiverId + ", $" + amount + " " + frequency
+                + (status == Status.ACTIVE ? ", next " + nextRunAt : "") + ", " + status
+                + (lastStatus != null ? ", last " + lastStatus : "") + "]";
+    }
+}
@@ -22,6 +22,8 @@ public class Transaction {
     private TransactionType type;     // Enum: TRANSFER, DEPOSIT, WITHDRAWAL
     private TransactionStatus status; // Enum: SUCCESS, FAILED, PENDING
     private Timestamp timestamp;
+    private BigDecimal senderBalanceAfter;   // null until recorded or backfilled
+    private BigDecimal receiverBalanceAfter;
 
     /**
      * Default constructor.
@@ -131,6 +133,30 @@ public class Transaction {
      */
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
 
+    /**
+     * Gets the sender's wallet balance right after this transaction.
+     * @return The balance, or {@code null} if not recorded yet.
+     */
+    public BigDecimal getSenderBalanceAfter() { return senderBalanceAfter; }
+
+    /**
+     * Sets the sender's wallet balance right after this transaction.
+     * @param senderBalanceAfter The balance.
+     */
+    public void setSenderBalanceAfter(BigDecimal senderBalanceAfter) { this.senderBalanceAfter = senderBalanceAfter; }
+
+    /**
+     * Gets the receiver's wallet balance right after this transaction.
+     * @return The balance, or {@code null} if not recorded yet.
+     */
+    public BigDecimal getReceiverBalanceAfter() { return receiverBalanceAfter; }
+
+    /**
+     * Sets the receiver's wallet balance right after this transaction.
+     * @param receiverBalanceAfter The balance.
+     */
+    public void setReceiverBalanceAfter(BigDecimal receiverBalanceAfter) { this.receiverBalanceAfter = receiverBalanceAfter; }
+
     /**
      * Returns a string representation of the Transaction.
      * @return A formatted string with ID, Sender, Receiver, Amount, and Status.
@@ -0,0 +1,85 @@
+package com.revpay.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Model class representing one line of a user's transaction summary.
+ * <p>
+ * Counts and totals the user's successful transactions of one type, in one
+ * direction, over one day or month (identified by its first day).
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class TransactionSummary {
+
+    /**
+     * Whether the money came in (revenue, deposits) or went out (spending).
+     */
+    public enum Direction {
+        IN,
+        OUT
+    }
+
+    private final LocalDate periodStart;
+    private final TransactionType type;
+    private final Direction direction;
+    private final long count;
+    private final BigDecimal total;
+
+    /**
+     * @param periodStart First day of the day or month summarized.
+     * @param type        The transaction type.
+     * @param direction   IN if the user was credited, OUT if debited.
+     * @param count       Number of transactions.
+     * @param total       Sum of their amounts.
+     */
+    public TransactionSummary(LocalDate periodStart, TransactionType type, Direction direction, long count, BigDecimal total) {
+        this.periodStart = periodStart;
+        this.type = type;
+        this.direction = direction;
+        this.count = count;
+        this.total = total;
+    }
+
+    /**
+     * Gets the first day of the period.
+     * @return The period start.
+     */
+    public LocalDate getPeriodStart() { return periodStart; }
+
+    /**
+     * Gets the transaction type.
+     * @return The {@link TransactionType}.
+     */
+    public TransactionType getType() { return type; }
+
+    /**
+     * Gets the direction of the money.
+     * @return The {@link Direction}.
+     */
+    public Direction getDirection() { return direction; }
+
+    /**
+     * Gets the number of transactions.
+     * @return The count.
+     */
+    public long getCount() { return count; }
+
+    /**
+     * Gets the sum of the amounts.
+     * @return The total.
+     */
+    public BigDecimal getTotal() { return total; }
+
+    /**
+     * Returns a string representation of the summary line.
+     * @return A formatted string with period, type, direction, count and total.
+     */
+    @Override
+    public String toString() {
+        return "TransactionSummary [Period=" + periodStart + ", Type=" + type + ", Direction=" + direction + ", Count=" + count + ", Total=" + total + "]";
+    }
+}
@@ -16,6 +16,9 @@ public class Wallet {
     private int walletId;
     private int userId;
     private BigDecimal balance;
+    private long version;
+    private BigDecimal held = BigDecimal.ZERO;
+    private BigDecimal pending = BigDecimal.ZERO;
 
     /**
      * Default constructor.
@@ -71,6 +74,48 @@ public class Wallet {
      */
     public void setBalance(BigDecimal balance) { this.balance = balance; }
 
+    /**
+     * Gets the row version, bumped by every balance update.
+     * @return The version read with the balance.
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Sets the row version.
+     * @param version The version read with the balance.
+     */
+    public void setVersion(long version) { this.version = version; }
+
+    /**
+     * Gets the funds reserved by pending debit holds.
+     * @return The held amount.
+     */
+    public BigDecimal getHeld() { return held; }
+
+    /**
+     * Sets the funds reserved by pending debit holds.
+     * @param held The held amount.
+     */
+    public void setHeld(BigDecimal held) { this.held = held; }
+
+    /**
+     * Gets the incoming funds of pending credit holds (not spendable yet).
+     * @return The pending amount.
+     */
+    public BigDecimal getPending() { return pending; }
+
+    /**
+     * Sets the incoming funds of pending credit holds.
+     * @param pending The pending amount.
+     */
+    public void setPending(BigDecimal pending) { this.pending = pending; }
+
+    /**
+     * Gets the balance that can be spent now.
+     * @return The balance minus funds held.
+     */
+    public BigDecimal getAvailableBalance() { return balance.subtract(held); }
+
     /**
      * Returns a string representation of the Wallet.
      * @return A formatted string with User ID and Balance.
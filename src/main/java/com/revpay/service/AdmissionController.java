@@ -0,0 +1,280 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how much work the service layer lets through to the database at once.
+ * <p>
+ * The concurrency limit adapts to observed latency (AIMD): while calls finish
+ * within the target latency and the limit is being reached, each call grows it by
+ * {@code 1/limit}, about one per round of calls; when a call is slower than the
+ * target, it shrinks by 10% (at most once per target interval, so one burst
+ * does not collapse it).
+ * </p>
+ * <p>
+ * Callers that find the limit reached wait in a short, bounded queue. Money
+ * movements ({@link Priority#PAYMENT}) may use the whole limit and are admitted
+ * before any waiting read; reads ({@link Priority#READ}) may only use a share of
+ * it. A caller that cannot be admitted in time is rejected at once with a
+ * retry-after hint, instead of adding to the pile-up.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class AdmissionController {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(AdmissionController.class);
+
+    /** Priority classes, highest first. */
+    public enum Priority {
+        /** Transfers and deposits. */
+        PAYMENT,
+        /** History and other reads. */
+        READ
+    }
+
+    private static volatile AdmissionController shared;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final double readShare;
+    private final LongSupplier nanoClock;
+
+    private double limit;
+    private int inFlight;
+    private final int[] queued = new int[Priority.values().length];
+    private long lastDecrease;
+    // Bumped whenever the limit is reached, so a call can tell if it ran at the limit
+    private long saturations;
+    private double avgLatencyNanos;
+
+    /**
+     * @param initialLimit   Starting concurrency limit.
+     * @param minLimit       Lowest the limit may shrink to.
+     * @param maxLimit       Highest the limit may grow to.
+     * @param targetMillis   Latency above which the limit shrinks.
+     * @param maxQueue       Callers allowed to wait at once; more are rejected immediately.
+     * @param queueMillis    How long a caller waits for admission.
+     * @param readShare      Fraction of the limit reads may use (0..1].
+     * @param nanoClock      Time source in nanoseconds (for tests).
+     */
+    public AdmissionController(int initialLimit, int minLimit, int maxLimit, long targetMillis,
+                               int maxQueue, long queueMillis, double readShare, LongSupplier nanoClock) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetMillis));
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, queueMillis));
+        this.readShare = Math.min(1.0, Math.max(0.05, readShare));
+        this.nanoClock = nanoClock;
+        this.avgLatencyNanos = targetNanos / 2.0;
+    }
+
+    /**
+     * @return The process-wide controller, configured by {@code revpay.admission.*}.
+     */
+    public static AdmissionController get() {
+        AdmissionController controller = shared;
+        if (controller == null) {
+            synchronized (AdmissionController.class) {
+                controller = shared;
+                if (controller == null) {
+                    controller = new AdmissionController(
+                            AppConfig.getInt("revpay.admission.initialLimit", 20),
+                            AppConfig.getInt("revpay.admission.minLimit", 2),
+                            AppConfig.getInt("revpay.admission.maxLimit", 200),
+                            AppConfig.getLong("revpay.admission.targetMs", 200),
+                            AppConfig.getInt("revpay.admission.maxQueue", 50),
+                            AppConfig.getLong("revpay.admission.queueMs", 100),
+                            readShare(),
+                            System::nanoTime);
+                    controller.registerGauges();
+                    shared = controller;
+                }
+            }
+        }
+        return controller;
+    }
+
+    /**
+     * Asks to run one call, waiting briefly if the limit is reached.
+     *
+     * @param priority The call's priority class.
+     * @return A ticket; if {@link Ticket#isAdmitted() admitted}, it must be closed when the call ends.
+     */
+    public Ticket enter(Priority priority) {
+        synchronized (this) {
+            if (canAdmit(priority)) {
+                return admit();
+            }
+            saturations++;
+            if (totalQueued() >= maxQueue || queueTimeoutNanos == 0) {
+                return reject(priority);
+            }
+            queued[priority.ordinal()]++;
+            try {
+                long deadline = nanoClock.getAsLong() + queueTimeoutNanos;
+                while (!canAdmit(priority)) {
+                    long remaining = deadline - nanoClock.getAsLong();
+                    if (remaining <= 0) {
+                        return reject(priority);
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return reject(priority);
+            } finally {
+                queued[priority.ordinal()]--;
+            }
+            return admit();
+        }
+    }
+
+    /**
+     * @return The current concurrency limit.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return Calls currently admitted.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return Callers currently waiting for admission.
+     */
+    public synchronized int getQueueDepth() {
+        return totalQueued();
+    }
+
+    // Caller holds the monitor
+    private Ticket admit() {
+        inFlight++;
+        if (inFlight >= (int) limit) {
+            saturations++;
+        }
+        return new Ticket(nanoClock.getAsLong(), 0, saturations);
+    }
+
+    private boolean canAdmit(Priority priority) {
+        if (priority == Priority.PAYMENT) {
+            return inFlight < (int) limit;
+        }
+        // Reads never overtake a waiting payment and leave headroom for payments
+        return queued[Priority.PAYMENT.ordinal()] == 0 && inFlight < Math.max(1, (int) (limit * readShare));
+    }
+
+    private int totalQueued() {
+        int total = 0;
+        for (int q : queued) {
+            total += q;
+        }
+        return total;
+    }
+
+    // Caller holds the monitor
+    private Ticket reject(Priority priority) {
+        MetricsRegistry.counter("admission.rejected").increment();
+        MetricsRegistry.counter("admission.rejected." + priority.name().toLowerCase()).increment();
+        // Roughly how long until the calls ahead of a retry have drained
+        double rounds = Math.ceil((inFlight + totalQueued() + 1) / Math.max(1.0, limit));
+        long retryAfter = Math.max(100, TimeUnit.NANOSECONDS.toMillis((long) (rounds * avgLatencyNanos)));
+        return new Ticket(0, retryAfter, saturations);
+    }
+
+    private synchronized void complete(long latencyNanos, long saturationsAtStart) {
+        boolean wasSaturated = saturations != saturationsAtStart || inFlight >= (int) limit;
+        inFlight--;
+        avgLatencyNanos = avgLatencyNanos * 0.9 + latencyNanos * 0.1;
+        long now = nanoClock.getAsLong();
+        if (latencyNanos > targetNanos) {
+            if (now - lastDecrease >= targetNanos) {
+                double before = limit;
+                limit = Math.max(minLimit, limit * 0.9);
+                lastDecrease = now;
+                if ((int) before != (int) limit) {
+                    logger.info("Admission limit lowered to " + (int) limit + " (call took "
+                            + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + " ms)");
+                }
+            }
+        } else if (wasSaturated) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        notifyAll();
+    }
+
+    private void registerGauges() {
+        MetricsRegistry.gauge("admission.queue.depth", this::getQueueDepth);
+        MetricsRegistry.gauge("admission.inFlight", this::getInFlight);
+        MetricsRegistry.gauge("admission.limit", this::getLimit);
+    }
+
+    private static double readShare() {
+        try {
+            return Double.parseDouble(AppConfig.getString("revpay.admission.readShare", "0.5"));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid revpay.admission.readShare. Using default 0.5");
+            return 0.5;
+        }
+    }
+
+    /**
+     * The outcome of {@link #enter(Priority)}.
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final long startNanos;
+        private final long retryAfterMillis;
+        private final long saturationsAtStart;
+        private boolean closed;
+
+        private Ticket(long startNanos, long retryAfterMillis, long saturationsAtStart) {
+            this.startNanos = startNanos;
+            this.retryAfterMillis = retryAfterMillis;
+            this.saturationsAtStart = saturationsAtStart;
+        }
+
+        /**
+         * @return {@code true} if the call may run.
+         */
+        public boolean isAdmitted() {
+            return retryAfterMillis == 0;
+        }
+
+        /**
+         * @return For a rejected call, how long to wait before retrying (ms); 0 if admitted.
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+
+        /**
+         * Ends an admitted call and feeds its latency to the limit. Safe to call more than once.
+         */
+        @Override
+        public void close() {
+            if (!isAdmitted() || closed) {
+                return;
+            }
+            closed = true;
+            complete(nanoClock.getAsLong() - startNanos, saturationsAtStart);
+        }
+    }
+}
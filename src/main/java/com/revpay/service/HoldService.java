@@ -0,0 +1,207 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.HoldDAO;
+import com.revpay.ledger.InMemoryLedgerEngine;
+import com.revpay.ledger.LedgerEngine;
+import com.revpay.ledger.LedgerEngines;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.BalanceHold;
+import com.revpay.model.Money;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Service class for authorizations: money that is promised but not yet final.
+ * <p>
+ * A card deposit is no longer credited the moment the card is charged. It is
+ * placed as a CREDIT hold, shown as pending, and credited when the card payment
+ * settles (at the latest when the hold expires, see {@link HoldSweepJob}). A DEBIT
+ * hold reserves funds so that transfers cannot spend them; available balance is
+ * balance minus debit holds.
+ * </p>
+ * <p>
+ * Settling a CREDIT hold credits the wallet in the same transaction that marks the
+ * hold settled, so a sweep that dies half-way leaves the hold pending and uncredited.
+ * The in-memory ledger engine keeps balances of its own, so with it the deposit goes
+ * through the engine under the idempotency key {@code hold-<id>} before the hold is
+ * marked; a retry after a failure between the two cannot credit twice.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class HoldService {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(HoldService.class);
+
+    private final HoldDAO holdDAO;
+    private final TransactionService transactionService;
+    private final LedgerEngine ledgerEngine;
+    private final LongSupplier cardSettleSeconds;
+
+    /**
+     * Creates a service whose card deposits settle after
+     * {@code revpay.holds.cardSettleSeconds} (read on each deposit).
+     */
+    public HoldService() {
+        this(new HoldDAO(), new TransactionService(), LedgerEngines.get(),
+                () -> AppConfig.getLong("revpay.holds.cardSettleSeconds", 30));
+    }
+
+    /**
+     * @param holdDAO            The hold store.
+     * @param transactionService Books the deposit when a CREDIT hold settles on the in-memory engine.
+     * @param ledgerEngine       The engine holding balances.
+     * @param cardSettleSeconds  How long a card deposit stays pending; 0 settles it at once.
+     */
+    public HoldService(HoldDAO holdDAO, TransactionService transactionService, LedgerEngine ledgerEngine,
+                       LongSupplier cardSettleSeconds) {
+        this.holdDAO = holdDAO;
+        this.transactionService = transactionService;
+        this.ledgerEngine = ledgerEngine;
+        this.cardSettleSeconds = cardSettleSeconds;
+    }
+
+    /**
+     * Records a card charge as pending funds, settled when the hold expires. With a
+     * settle time of 0 the deposit is settled right away; if that fails, the hold stays
+     * pending and the sweeper settles it.
+     *
+     * @param userId    The ID of the user.
+     * @param amount    The amount charged (must be positive).
+     * @param reference The card authorization reference.
+     * @return The hold (PENDING, or SETTLED if credited at once), or {@code null} on invalid amount or error.
+     */
+    public BalanceHold authorizeCardDeposit(int userId, Money amount, String reference) {
+        if (!amount.isPositive()) {
+            logger.warn("Invalid Deposit: User " + userId + " attempted to deposit non-positive amount: " + amount);
+            System.out.println("❌ Deposit amount must be positive.");
+            return null;
+        }
+        long settleSeconds = cardSettleSeconds.getAsLong();
+        BalanceHold hold = new BalanceHold(userId, BalanceHold.Type.CREDIT, amount, reference,
+                expiry(settleSeconds), true);
+        if (place(hold) == -1) {
+            return null;
+        }
+        if (settleSeconds <= 0) {
+            settle(hold);
+        }
+        return hold;
+    }
+
+    /**
+     * Reserves funds, released when the hold expires unless settled before.
+     *
+     * @param userId     The ID of the user.
+     * @param amount     The amount to reserve (must be positive).
+     * @param reference  The external payment reference.
+     * @param ttlSeconds How long the reservation lasts.
+     * @return The hold ID, or -1 on invalid amount, insufficient available funds or error.
+     */
+    public int reserve(int userId, Money amount, String reference, long ttlSeconds) {
+        if (!amount.isPositive()) {
+            logger.warn("Invalid Hold: User " + userId + " attempted to reserve non-positive amount: " + amount);
+            return -1;
+        }
+        if (ledgerEngine instanceof InMemoryLedgerEngine) {
+            // That engine checks funds against its own balances, which do not see holds
+            logger.warn("Hold refused: the in-memory ledger engine does not support reservations");
+            return -1;
+        }
+        return place(new BalanceHold(userId, BalanceHold.Type.DEBIT, amount, reference, expiry(ttlSeconds), false));
+    }
+
+    /**
+     * Settles a pending hold now: a CREDIT hold is deposited, a DEBIT hold is withdrawn.
+     *
+     * @param holdId The hold ID.
+     * @return {@code true} if the hold was pending and is now settled.
+     */
+    public boolean settle(int holdId) {
+        BalanceHold hold = holdDAO.getHold(holdId);
+        return hold != null && hold.getStatus() == BalanceHold.Status.PENDING && settle(hold);
+    }
+
+    /**
+     * Releases a pending hold without moving money.
+     *
+     * @param holdId The hold ID.
+     * @return {@code true} if the hold was pending and is now released.
+     */
+    public boolean release(int holdId) {
+        BalanceHold hold = holdDAO.getHold(holdId);
+        if (hold == null || hold.getStatus() != BalanceHold.Status.PENDING) {
+            return false;
+        }
+        List<BalanceHold> one = new ArrayList<>();
+        one.add(hold);
+        return holdDAO.release(one) == 1;
+    }
+
+    /**
+     * Resolves one batch of expired holds: each is settled or released as chosen
+     * when it was placed. Releases share one transaction.
+     *
+     * @param now   Holds expiring at or before this are due.
+     * @param batch Maximum number of holds handled.
+     * @return The number of holds resolved.
+     */
+    public int sweep(Timestamp now, int batch) {
+        Stopwatch sw = MetricsRegistry.start("service.HoldService.sweep");
+        try {
+            List<BalanceHold> due = holdDAO.findDue(now, batch);
+            List<BalanceHold> toRelease = new ArrayList<>();
+            int resolved = 0;
+            for (BalanceHold hold : due) {
+                if (hold.isSettleOnExpiry()) {
+                    if (settle(hold)) {
+                        resolved++;
+                    }
+                } else {
+                    toRelease.add(hold);
+                }
+            }
+            if (!toRelease.isEmpty()) {
+                resolved += Math.max(0, holdDAO.release(toRelease));
+            }
+            MetricsRegistry.counter("holds.swept").add(resolved);
+            return resolved;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    private boolean settle(BalanceHold hold) {
+        if (hold.getType() == BalanceHold.Type.DEBIT) {
+            return holdDAO.settleDebit(hold);
+        }
+        if (!(ledgerEngine instanceof InMemoryLedgerEngine)) {
+            return holdDAO.settleCredit(hold);
+        }
+        // Deposit first: if marking the hold fails, the next sweep retries and the key makes the deposit a no-op
+        return transactionService.processDeposit(hold.getUserId(), hold.getAmount(), "hold-" + hold.getHoldId())
+                && holdDAO.completeCredit(hold);
+    }
+
+    private int place(BalanceHold hold) {
+        Stopwatch sw = MetricsRegistry.start("service.HoldService.place");
+        try {
+            return holdDAO.placeHold(hold);
+        } finally {
+            sw.stop();
+        }
+    }
+
+    private static Timestamp expiry(long seconds) {
+        return new Timestamp(System.currentTimeMillis() + Math.max(0, seconds) * 1000);
+    }
+}
@@ -0,0 +1,92 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that resolves expired balance holds.
+ * <p>
+ * Every {@code revpay.holds.sweepSeconds} it settles or releases holds whose expiry
+ * passed, {@code revpay.holds.sweepBatch} at a time, until no due hold is left.
+ * Each batch is read through the partial index of pending holds, so the cost
+ * follows the backlog rather than the size of the table.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class HoldSweepJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(HoldSweepJob.class);
+
+    private static ScheduledExecutorService scheduler;
+
+    private HoldSweepJob() {}
+
+    /**
+     * Starts the periodic sweep. Calling it again has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        long periodSeconds = Math.max(1, AppConfig.getLong("revpay.holds.sweepSeconds", 15));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hold-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(HoldSweepJob::runSafely, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        logger.info("Balance hold sweep scheduled every " + periodSeconds + " s");
+    }
+
+    /**
+     * Stops the periodic sweep.
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Resolves all holds due now, batch by batch.
+     * <p>
+     * Stops early when a batch resolves nothing (e.g. the database is down), so a
+     * stuck hold cannot keep the job spinning; it is retried on the next run.
+     * </p>
+     *
+     * @param holdService The hold service.
+     * @return The number of holds resolved.
+     */
+    public static int runOnce(HoldService holdService) {
+        int batch = Math.max(1, AppConfig.getInt("revpay.holds.sweepBatch", 500));
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int total = 0;
+        int resolved;
+        do {
+            resolved = holdService.sweep(now, batch);
+            total += resolved;
+        } while (resolved == batch);
+        if (total > 0) {
+            logger.info("Resolved " + total + " expired balance holds");
+        }
+        return total;
+    }
+
+    private static void runSafely() {
+        try {
+            runOnce(new HoldService());
+        } catch (RuntimeException e) {
+            logger.error("Balance hold sweep failed", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.IdempotencyDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that deletes expired idempotency keys so the table stays small.
+ * <p>
+ * Keys older than {@code revpay.idempotency.ttlHours} are removed every
+ * {@code revpay.idempotency.cleanupMinutes}, in chunks.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class IdempotencyCleanupJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(IdempotencyCleanupJob.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static ScheduledExecutorService scheduler;
+
+    private IdempotencyCleanupJob() {}
+
+    /**
+     * Starts the periodic cleanup. Calling it again has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        long periodMinutes = Math.max(1, AppConfig.getLong("revpay.idempotency.cleanupMinutes", 60));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idempotency-cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(IdempotencyCleanupJob::runSafely, 1, periodMinutes, TimeUnit.MINUTES);
+        logger.info("Idempotency key cleanup scheduled every " + periodMinutes + " min");
+    }
+
+    /**
+     * Stops the periodic cleanup.
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Deletes keys older than the configured TTL once.
+     *
+     * @param idempotencyDAO The key store.
+     * @return The number of keys deleted.
+     */
+    public static int runOnce(IdempotencyDAO idempotencyDAO) {
+        long ttlMillis = AppConfig.getLong("revpay.idempotency.ttlHours", 24) * 60 * 60 * 1000;
+        int deleted = idempotencyDAO.deleteOlderThan(new Timestamp(System.currentTimeMillis() - ttlMillis), CHUNK_SIZE);
+        if (deleted > 0) {
+            logger.info("Removed " + deleted + " expired idempotency keys");
+        }
+        return deleted;
+    }
+
+    private static void runSafely() {
+        try {
+            runOnce(new IdempotencyDAO());
+        } catch (RuntimeException e) {
+            logger.error("Idempotency key cleanup failed", e);
+        }
+    }
+}
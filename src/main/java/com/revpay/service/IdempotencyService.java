@@ -0,0 +1,124 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.metrics.CacheStats;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Service that makes money movements safe to retry.
+ * <p>
+ * A client-supplied key is scoped to the user and handed to the ledger engine,
+ * which records it in {@code idempotency_keys} in the same database transaction
+ * as the movement. The key therefore exists if and only if the movement committed:
+ * a retry with the same key returns the original success without touching wallets,
+ * and a failed attempt (e.g. insufficient funds) leaves no key behind, so the same
+ * key may be used again once the problem is fixed. Recently completed keys are kept
+ * in a small LRU cache so most duplicates never reach the database.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class IdempotencyService {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(IdempotencyService.class);
+
+    /** Longest key a client may send (the column also holds the user prefix). */
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final Map<String, Long> recentKeys;
+    private final long ttlMillis;
+    private final CacheStats cacheStats = MetricsRegistry.cache("idempotency.keys");
+
+    /**
+     * Creates a service sized by {@code revpay.idempotency.cacheSize} and
+     * {@code revpay.idempotency.ttlHours}.
+     */
+    public IdempotencyService() {
+        this(AppConfig.getInt("revpay.idempotency.cacheSize", 10000),
+                AppConfig.getLong("revpay.idempotency.ttlHours", 24) * 60 * 60 * 1000);
+    }
+
+    /**
+     * @param cacheSize Maximum number of recent keys held in memory.
+     * @param ttlMillis How long a completed key is honoured.
+     */
+    public IdempotencyService(int cacheSize, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        final int capacity = Math.max(1, cacheSize);
+        this.recentKeys = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code action} at most once successfully per key.
+     *
+     * @param userId    The user performing the operation (keys are scoped per user).
+     * @param key       The client's idempotency key; {@code null} or blank runs the action unguarded.
+     * @param operation TRANSFER or DEPOSIT, for logging.
+     * @param action    The money movement, given the user-scoped key ({@code null} when unguarded)
+     *                  to record in its own transaction; returns {@code true} if it committed now
+     *                  or under that key before.
+     * @return The action's result, or {@code true} if the key is known to have succeeded.
+     */
+    public boolean execute(int userId, String key, String operation, Predicate<String> action) {
+        if (key == null || key.trim().isEmpty()) {
+            return action.test(null);
+        }
+        Stopwatch sw = MetricsRegistry.start("service.IdempotencyService.execute");
+        try {
+            if (key.trim().length() > MAX_KEY_LENGTH) {
+                logger.warn("Rejected idempotency key longer than " + MAX_KEY_LENGTH + " chars from User " + userId);
+                return false;
+            }
+            String scopedKey = userId + ":" + key.trim();
+
+            if (isRecent(scopedKey)) {
+                cacheStats.hit();
+                logger.info("Duplicate " + operation + " ignored (cached key " + scopedKey + ")");
+                return true;
+            }
+            cacheStats.miss();
+
+            boolean success = action.test(scopedKey);
+            if (success) {
+                remember(scopedKey);
+            }
+            return success;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    private boolean isRecent(String scopedKey) {
+        synchronized (recentKeys) {
+            Long completedAt = recentKeys.get(scopedKey);
+            if (completedAt == null) {
+                return false;
+            }
+            if (System.currentTimeMillis() - completedAt > ttlMillis) {
+                recentKeys.remove(scopedKey);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void remember(String scopedKey) {
+        synchronized (recentKeys) {
+            recentKeys.put(scopedKey, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.ReconciliationDAO;
+import com.revpay.model.BalanceDiscrepancy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Job that checks every wallet balance against the ledger and writes a discrepancy report.
+ * <p>
+ * User IDs are walked in ranges of {@code revpay.reconcile.rangeSize}. Each range is
+ * split on a fork-join pool ({@code revpay.reconcile.parallelism} workers) into
+ * slices of at most {@code revpay.reconcile.leafSize} users, and each slice is
+ * reconciled by {@link ReconciliationDAO#reconcileRange(int, int)} on its own
+ * connection. Memory is bounded by the range size, not by the number of transactions.
+ * </p>
+ * <p>
+ * The report is a CSV file. After each completed range its lines are forced to disk
+ * and a {@code .progress} file next to it records where to continue, so an
+ * interrupted run resumes from the last completed range instead of starting over.
+ * </p>
+ * <p>
+ * Usage: {@code java com.revpay.service.ReconciliationJob [report.csv] [--restart]}.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class ReconciliationJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(ReconciliationJob.class);
+
+    private static final String HEADER = "user_id,wallet_balance,ledger_balance,difference\n";
+
+    private final ReconciliationDAO reconciliationDAO;
+    private final Path report;
+    private final Path progress;
+    private final int rangeSize;
+    private final int leafSize;
+    private final int parallelism;
+
+    /**
+     * @param reconciliationDAO The DAO that reconciles each slice.
+     * @param report            The CSV report; its progress is kept in {@code <report>.progress}.
+     * @param rangeSize         Users per checkpointed range.
+     * @param leafSize          Users per database query.
+     * @param parallelism       Slices reconciled concurrently.
+     */
+    public ReconciliationJob(ReconciliationDAO reconciliationDAO, Path report, int rangeSize, int leafSize, int parallelism) {
+        this.reconciliationDAO = reconciliationDAO;
+        this.report = report;
+        this.progress = report.resolveSibling(report.getFileName() + ".progress");
+        this.rangeSize = Math.max(1, rangeSize);
+        this.leafSize = Math.max(1, Math.min(leafSize, this.rangeSize));
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Reconciles all users, resuming an earlier run of the same report if one was interrupted.
+     *
+     * @param restart {@code true} to discard earlier progress and start from the first user.
+     * @return The total number of discrepancies in the report, or -1 if the run stopped on an error
+     *         (run again to resume).
+     * @throws IOException If the report or progress file cannot be written.
+     */
+    public long run(boolean restart) throws IOException {
+        long[] state = restart ? null : readProgress();
+        int nextUserId = state == null ? 0 : (int) state[0];
+        long found = state == null ? 0 : state[2];
+
+        int maxUserId = reconciliationDAO.findMaxUserId();
+        if (maxUserId < 0) {
+            return -1;
+        }
+        if (state != null) {
+            logger.info("Resuming reconciliation at User ID " + nextUserId + " (" + found + " discrepancies so far)");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel out = FileChannel.open(report, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (state == null) {
+                out.truncate(0);
+                out.write(ByteBuffer.wrap(HEADER.getBytes(StandardCharsets.UTF_8)));
+            } else {
+                out.truncate(state[1]); // Drop lines of a range that never completed
+            }
+            out.position(out.size());
+            saveProgress(nextUserId, out.size(), found);
+
+            while (nextUserId <= maxUserId) {
+                int end = (int) Math.min((long) nextUserId + rangeSize, (long) maxUserId + 1);
+                List<BalanceDiscrepancy> discrepancies = pool.invoke(new Slice(nextUserId, end));
+                if (discrepancies == null) {
+                    logger.error("Reconciliation stopped at User ID " + nextUserId + ". Run again to resume");
+                    return -1;
+                }
+
+                StringBuilder lines = new StringBuilder();
+                for (BalanceDiscrepancy d : discrepancies) {
+                    lines.append(d.getUserId()).append(',')
+                            .append(d.getWalletBalance() == null ? "" : d.getWalletBalance().toPlainString()).append(',')
+                            .append(d.getLedgerBalance().toPlainString()).append(',')
+                            .append(d.getDifference().toPlainString()).append('\n');
+                }
+                out.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+                out.force(false);
+
+                found += discrepancies.size();
+                nextUserId = end;
+                saveProgress(nextUserId, out.size(), found);
+                logger.info("Reconciled users up to " + (end - 1) + " of " + maxUserId + ": " + found + " discrepancies");
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return found;
+    }
+
+    // Progress: next user ID, committed report length, discrepancies so far
+    private long[] readProgress() throws IOException {
+        if (!Files.exists(progress) || !Files.exists(report)) {
+            return null;
+        }
+        String[] fields = new String(Files.readAllBytes(progress), StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            return new long[] {Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2])};
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            logger.warn("Ignoring unreadable reconciliation progress in " + progress);
+            return null;
+        }
+    }
+
+    private void saveProgress(int nextUserId, long reportBytes, long found) throws IOException {
+        Path temp = progress.resolveSibling(progress.getFileName() + ".tmp");
+        Files.write(temp, (nextUserId + " " + reportBytes + " " + found).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, progress, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reconciles {@code [from, to)}, halving the range until it fits one query.
+     * Results stay in user ID order; {@code null} means a slice failed.
+     */
+    private final class Slice extends RecursiveTask<List<BalanceDiscrepancy>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        Slice(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<BalanceDiscrepancy> compute() {
+            if (to - from <= leafSize) {
+                return reconciliationDAO.reconcileRange(from, to);
+            }
+            int middle = from + (to - from) / 2;
+            Slice left = new Slice(from, middle);
+            left.fork();
+            List<BalanceDiscrepancy> right = new Slice(middle, to).compute();
+            List<BalanceDiscrepancy> first = left.join();
+            if (first == null || right == null) {
+                return null;
+            }
+            List<BalanceDiscrepancy> all = new ArrayList<>(first.size() + right.size());
+            all.addAll(first);
+            all.addAll(right);
+            return all;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path report = Paths.get(args.length > 0 && !args[0].startsWith("--") ? args[0] : "reconciliation.csv");
+        boolean restart = args.length > 0 && "--restart".equals(args[args.length - 1]);
+
+        ReconciliationJob job = new ReconciliationJob(new ReconciliationDAO(), report,
+                AppConfig.getInt("revpay.reconcile.rangeSize", 100000),
+                AppConfig.getInt("revpay.reconcile.leafSize", 10000),
+                AppConfig.getInt("revpay.reconcile.parallelism", 4));
+        long start = System.nanoTime();
+        long found = job.run(restart);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (found < 0) {
+            System.out.println("❌ Reconciliation interrupted after " + elapsedMillis + " ms. Run again to resume.");
+            System.exit(1);
+        }
+        System.out.println("Reconciliation finished in " + elapsedMillis + " ms: " + found + " discrepancies in " + report);
+    }
+}
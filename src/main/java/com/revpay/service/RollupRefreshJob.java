@@ -0,0 +1,103 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.RollupDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that keeps the transaction rollups up to date.
+ * <p>
+ * Every {@code revpay.rollup.refreshSeconds} it folds new transactions into the
+ * daily and monthly rollups, in steps of at most {@value #STEP} transaction IDs per
+ * database transaction, starting from the watermark left by the previous run.
+ * Transactions younger than {@value #SETTLE_SECONDS} seconds wait for the next run,
+ * since a row with a lower ID may still be committing.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class RollupRefreshJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(RollupRefreshJob.class);
+
+    private static final long STEP = 100000;
+    private static final int SETTLE_SECONDS = 10;
+
+    private static ScheduledExecutorService scheduler;
+
+    private RollupRefreshJob() {}
+
+    /**
+     * Starts the periodic refresh. Calling it again has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        long periodSeconds = Math.max(1, AppConfig.getLong("revpay.rollup.refreshSeconds", 60));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollup-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(RollupRefreshJob::runSafely, 5, periodSeconds, TimeUnit.SECONDS);
+        logger.info("Transaction rollup refresh scheduled every " + periodSeconds + " s");
+    }
+
+    /**
+     * Stops the periodic refresh.
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Catches the rollups up with all settled transactions once.
+     *
+     * @param rollupDAO The rollup store.
+     * @return The new watermark, or -1 if the refresh failed (it resumes from the last committed step).
+     */
+    public static long runOnce(RollupDAO rollupDAO) {
+        Timestamp settledBefore = new Timestamp(System.currentTimeMillis() - SETTLE_SECONDS * 1000L);
+        long watermark = rollupDAO.loadWatermark();
+        if (watermark < 0) {
+            return -1;
+        }
+        long bound = rollupDAO.findRefreshBound(watermark, settledBefore);
+        if (bound < 0) {
+            return -1;
+        }
+
+        long start = watermark;
+        while (watermark < bound) {
+            long upTo = Math.min(bound, watermark + STEP);
+            if (!rollupDAO.refresh(watermark, upTo)) {
+                return -1;
+            }
+            watermark = upTo;
+        }
+        if (watermark > start) {
+            logger.info("Transaction rollups refreshed up to transaction " + watermark);
+        }
+        return watermark;
+    }
+
+    private static void runSafely() {
+        try {
+            runOnce(new RollupDAO());
+        } catch (RuntimeException e) {
+            logger.error("Transaction rollup refresh failed", e);
+        }
+    }
+}
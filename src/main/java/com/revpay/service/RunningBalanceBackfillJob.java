@@ -0,0 +1,101 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.TransactionDAO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job that fills in missing running balances on {@code transactions}.
+ * <p>
+ * Rows written before running balances existed, credits to sharded wallets and
+ * batches persisted by the in-memory ledger carry no balance. Each affected user is
+ * processed as an independent task on a pool of {@code revpay.balances.backfillThreads}
+ * workers. Rows from the last {@value #SETTLE_SECONDS} seconds are skipped because
+ * transactions with an earlier timestamp may still be committing.
+ * </p>
+ * <p>
+ * Usage: {@code java com.revpay.service.RunningBalanceBackfillJob}. Safe to run
+ * repeatedly; a run only touches rows that are still missing a balance.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class RunningBalanceBackfillJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(RunningBalanceBackfillJob.class);
+
+    private static final int SETTLE_SECONDS = 60;
+
+    private RunningBalanceBackfillJob() {}
+
+    /**
+     * Backfills every user with missing balances once.
+     *
+     * @param transactionDAO The ledger DAO.
+     * @param threads        Number of users processed in parallel.
+     * @return The number of balance columns written; users that failed are logged and skipped.
+     */
+    public static long runOnce(TransactionDAO transactionDAO, int threads) {
+        Timestamp before = new Timestamp(System.currentTimeMillis() - SETTLE_SECONDS * 1000L);
+        List<Integer> userIds = transactionDAO.findUsersMissingBalances(before);
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        logger.info("Backfilling running balances for " + userIds.size() + " users on " + threads + " threads");
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "balance-backfill");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Integer>> results = new ArrayList<>(userIds.size());
+            for (int userId : userIds) {
+                results.add(pool.submit(() -> transactionDAO.backfillRunningBalances(userId, before)));
+            }
+
+            long written = 0;
+            int failed = 0;
+            for (Future<Integer> result : results) {
+                int rows = result.get();
+                if (rows < 0) {
+                    failed++;
+                } else {
+                    written += rows;
+                }
+            }
+            logger.info("Running balance backfill wrote " + written + " balances"
+                    + (failed > 0 ? ", " + failed + " users failed (retried next run)" : ""));
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Running balance backfill interrupted");
+            return 0;
+        } catch (ExecutionException e) {
+            logger.error("Running balance backfill failed", e.getCause());
+            return 0;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) {
+        int threads = AppConfig.getInt("revpay.balances.backfillThreads", 4);
+        long start = System.nanoTime();
+        long written = runOnce(new TransactionDAO(), threads);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Backfilled " + written + " running balances in " + elapsedMillis + " ms");
+    }
+}
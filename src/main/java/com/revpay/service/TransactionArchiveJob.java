@@ -0,0 +1,139 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.TransactionArchiveDAO;
+import com.revpay.ledger.archive.MonthArchiveReader;
+import com.revpay.ledger.archive.MonthArchiveWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.TreeMap;
+
+/**
+ * Job that moves cold months of {@code transactions} to compressed archive files.
+ * <p>
+ * Months older than {@code revpay.archive.retainMonths} are processed oldest first.
+ * Each month is exported to {@code <revpay.archive.dir>/transactions-YYYY-MM.rpa},
+ * read back and checked (row count and amount total), recorded in
+ * {@code transaction_archive}, and only then deleted from the hot table. History
+ * queries read archived months from the files, so nothing disappears for users.
+ * </p>
+ * <p>
+ * A run that stops halfway is safe to repeat: a month already in the catalog is not
+ * exported again, only its remaining hot rows are deleted.
+ * </p>
+ * <p>
+ * Usage: {@code java com.revpay.service.TransactionArchiveJob}.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class TransactionArchiveJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(TransactionArchiveJob.class);
+
+    private static final int DELETE_CHUNK = 10000;
+
+    private TransactionArchiveJob() {}
+
+    /**
+     * Archives every month older than the retention period.
+     *
+     * @param archiveDAO   The partition DAO.
+     * @param archiveDir   Where archive files are written.
+     * @param retainMonths Months kept in the hot table, counting the current one.
+     * @return The number of months moved, or -1 if the run stopped on an error.
+     */
+    public static int runOnce(TransactionArchiveDAO archiveDAO, Path archiveDir, int retainMonths) {
+        YearMonth cutoff = YearMonth.now().minusMonths(Math.max(1, retainMonths) - 1);
+        TreeMap<YearMonth, String> archived = archiveDAO.loadArchivedMonths();
+        if (archived == null) {
+            return -1;
+        }
+
+        int moved = 0;
+        YearMonth month;
+        while ((month = archiveDAO.findOldestMonth()) != null && month.isBefore(cutoff)) {
+            if (!archived.isEmpty() && month.isBefore(archived.lastKey())) {
+                // Rows dated inside an older archived month arrived after it was archived
+                logger.error("Hot rows found in " + month + ", before archived month " + archived.lastKey()
+                        + ". Archive them manually before continuing");
+                return -1;
+            }
+            if (!archived.containsKey(month)) {
+                String fileName = archive(archiveDAO, archiveDir, month);
+                if (fileName == null) {
+                    return -1;
+                }
+                archived.put(month, fileName);
+            }
+
+            int deleted = archiveDAO.deleteArchivedRows(month, DELETE_CHUNK);
+            if (deleted < 0) {
+                return -1;
+            }
+            if (deleted == 0) {
+                logger.error("Rows of " + month + " newer than its archive remain in the hot table");
+                return -1;
+            }
+            logger.info("Archived " + month + ": " + deleted + " rows dropped from the hot table");
+            moved++;
+        }
+        return moved;
+    }
+
+    // Writes, verifies and records one month; returns the file name or null on failure
+    private static String archive(TransactionArchiveDAO archiveDAO, Path archiveDir, YearMonth month) {
+        String fileName = "transactions-" + month + ".rpa";
+        Path file = archiveDir.resolve(fileName);
+        try {
+            Files.createDirectories(archiveDir);
+            MonthArchiveWriter writer = new MonthArchiveWriter(file);
+            int rows;
+            try {
+                rows = archiveDAO.exportMonth(month, writer);
+            } catch (UncheckedIOException e) {
+                writer.discard();
+                throw e.getCause();
+            }
+            if (rows < 0) {
+                writer.discard();
+                return null;
+            }
+            writer.close();
+
+            long[] totals = MonthArchiveReader.totals(file);
+            if (totals[0] != rows || totals[1] != writer.getAmountSum()) {
+                logger.error("Archive " + file + " failed verification: " + totals[0] + " rows read back, " + rows + " written");
+                return null;
+            }
+            if (!archiveDAO.recordArchive(month, fileName, rows, writer.getMaxTransactionId())) {
+                return null;
+            }
+            logger.info("Exported " + rows + " rows of " + month + " to " + file + " (" + Files.size(file) + " bytes)");
+            return fileName;
+        } catch (IOException e) {
+            logger.error("Failed to write archive " + file, e);
+            return null;
+        }
+    }
+
+    public static void main(String[] args) {
+        Path archiveDir = Paths.get(AppConfig.getString("revpay.archive.dir", "archive"));
+        int retainMonths = AppConfig.getInt("revpay.archive.retainMonths", 12);
+        int moved = runOnce(new TransactionArchiveDAO(), archiveDir, retainMonths);
+        if (moved < 0) {
+            System.out.println("❌ Archiving stopped on an error. See the log; it is safe to run again.");
+            System.exit(1);
+        }
+        System.out.println("Archived " + moved + " months to " + archiveDir.toAbsolutePath());
+    }
+}
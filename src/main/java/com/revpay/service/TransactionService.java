@@ -1,12 +1,24 @@
 package com.revpay.service;
 
+import com.revpay.dao.ScheduledTransferDAO;
 import com.revpay.dao.TransactionDAO;
+import com.revpay.ledger.LedgerEngine;
+import com.revpay.ledger.LedgerEngines;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.Money;
+import com.revpay.model.ScheduledTransfer;
 import com.revpay.model.Transaction;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service class for handling Financial Business Logic.
@@ -19,6 +31,16 @@ import java.util.List;
  * <li>Receiver emails must exist in the system.</li>
  * </ul>
  * </p>
+ * <p>
+ * Amounts are {@link Money}. The {@link BigDecimal} overloads convert once and
+ * refuse amounts with more than two decimals instead of rounding them.
+ * </p>
+ * <p>
+ * Calls that reach the database pass the {@link AdmissionController} first:
+ * transfers and deposits as {@link AdmissionController.Priority#PAYMENT}, history
+ * as {@link AdmissionController.Priority#READ}. When the system is saturated they
+ * fail at once with a retry hint.
+ * </p>
  *
  * @author RevPay Dev Team
  * @version 1.0
@@ -29,7 +51,11 @@ public class TransactionService {
     private static final Logger logger = LogManager.getLogger(TransactionService.class);
 
     private TransactionDAO transactionDAO = new TransactionDAO();
+    private ScheduledTransferDAO scheduledTransferDAO = new ScheduledTransferDAO();
+    private LedgerEngine ledgerEngine = LedgerEngines.get();
     private UserService userService = new UserService();
+    private IdempotencyService idempotencyService = new IdempotencyService();
+    private AdmissionController admission = AdmissionController.get();
 
     /**
      * Processes a money transfer using the receiver's email address.
@@ -44,7 +70,7 @@ public class TransactionService {
      * @return {@code true} if successful, {@code false} if email not found or
      *         validation fails.
      */
-    public boolean processTransfer(int senderId, String receiverEmail, BigDecimal amount) {
+    public boolean processTransfer(int senderId, String receiverEmail, Money amount) {
         // 1. Get Receiver ID from Email
         int receiverId = userService.getUserIdByEmail(receiverEmail);
 
@@ -72,24 +98,58 @@ public class TransactionService {
      *         operation fails.
      */
 
-    public boolean processTransfer(int senderId, int receiverId, BigDecimal amount) {
-        // 1. Validation: Positive Amount
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            logger.warn("Invalid Transfer: User " + senderId + " attempted to send non-positive amount: " + amount);
-            System.out.println("❌ Amount must be greater than 0.");
-            return false;
-        }
+    public boolean processTransfer(int senderId, int receiverId, Money amount) {
+        return transfer(senderId, receiverId, amount, null);
+    }
 
-        // 2. Validation: Prevent sending to self
-        if (senderId == receiverId) {
-            logger.warn("Invalid Transfer: User " + senderId + " attempted to send money to themselves.");
-            System.out.println("❌ You cannot send money to yourself.");
-            return false;
+    // Validates and admits the transfer; the scoped key (if any) is recorded by the ledger engine
+    private boolean transfer(int senderId, int receiverId, Money amount, String scopedKey) {
+        Stopwatch sw = MetricsRegistry.start("service.TransactionService.processTransfer");
+        try {
+            // 1. Validation: Positive Amount
+            if (!amount.isPositive()) {
+                logger.warn("Invalid Transfer: User " + senderId + " attempted to send non-positive amount: " + amount);
+                System.out.println("❌ Amount must be greater than 0.");
+                return false;
+            }
+
+            // 2. Validation: Prevent sending to self
+            if (senderId == receiverId) {
+                logger.warn("Invalid Transfer: User " + senderId + " attempted to send money to themselves.");
+                System.out.println("❌ You cannot send money to yourself.");
+                return false;
+            }
+
+            // 3. Execute Transaction via the configured ledger engine, if the system has room
+            try (AdmissionController.Ticket ticket = admission.enter(AdmissionController.Priority.PAYMENT)) {
+                if (!ticket.isAdmitted()) {
+                    return busy("Transfer", senderId, ticket);
+                }
+                logger.info("Initiating Transfer: " + senderId + " -> " + receiverId + " ($" + amount + ")");
+                return ledgerEngine.transfer(senderId, receiverId, amount, scopedKey);
+            }
+        } finally {
+            sw.stop();
         }
+    }
 
-        // 3. Execute Transaction via DAO
-        logger.info("Initiating Transfer: " + senderId + " -> " + receiverId + " ($" + amount + ")");
-        return transactionDAO.transferMoney(senderId, receiverId, amount);
+    /**
+     * Processes a money transfer that is safe to retry.
+     * <p>
+     * If a transfer with the same {@code idempotencyKey} already succeeded for this
+     * sender, {@code true} is returned without moving money again. The key is written
+     * in the transfer's own transaction, after admission control.
+     * </p>
+     *
+     * @param senderId       The ID of the user sending money.
+     * @param receiverId     The ID of the user receiving money.
+     * @param amount         The amount to transfer.
+     * @param idempotencyKey Client-chosen key identifying this transfer ({@code null} disables deduplication).
+     * @return {@code true} if the transfer succeeded now or earlier.
+     */
+    public boolean processTransfer(int senderId, int receiverId, Money amount, String idempotencyKey) {
+        return idempotencyService.execute(senderId, idempotencyKey, "TRANSFER",
+                scopedKey -> transfer(senderId, receiverId, amount, scopedKey));
     }
 
     /**
@@ -99,22 +159,271 @@ public class TransactionService {
      * @param amount The amount to deposit (must be positive).
      * @return {@code true} if successful.
      */
+    public boolean processDeposit(int userId, Money amount) {
+        return deposit(userId, amount, null);
+    }
+
+    private boolean deposit(int userId, Money amount, String scopedKey) {
+        Stopwatch sw = MetricsRegistry.start("service.TransactionService.processDeposit");
+        try {
+            if (!amount.isPositive()) {
+                logger.warn("Invalid Deposit: User " + userId + " attempted to deposit non-positive amount: " + amount);
+                System.out.println("❌ Deposit amount must be positive.");
+                return false;
+            }
+            try (AdmissionController.Ticket ticket = admission.enter(AdmissionController.Priority.PAYMENT)) {
+                if (!ticket.isAdmitted()) {
+                    return busy("Deposit", userId, ticket);
+                }
+                return ledgerEngine.deposit(userId, amount, scopedKey);
+            }
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Processes a deposit that is safe to retry.
+     *
+     * @param userId         The ID of the user.
+     * @param amount         The amount to deposit (must be positive).
+     * @param idempotencyKey Client-chosen key identifying this deposit ({@code null} disables deduplication).
+     * @return {@code true} if the deposit succeeded now or earlier.
+     */
+    public boolean processDeposit(int userId, Money amount, String idempotencyKey) {
+        return idempotencyService.execute(userId, idempotencyKey, "DEPOSIT",
+                scopedKey -> deposit(userId, amount, scopedKey));
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #processTransfer(int, String, Money)}.
+     */
+    public boolean processTransfer(int senderId, String receiverEmail, BigDecimal amount) {
+        Money money = toMoney(amount);
+        return money != null && processTransfer(senderId, receiverEmail, money);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #processTransfer(int, int, Money)}.
+     */
+    public boolean processTransfer(int senderId, int receiverId, BigDecimal amount) {
+        Money money = toMoney(amount);
+        return money != null && processTransfer(senderId, receiverId, money);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #processTransfer(int, int, Money, String)}.
+     */
+    public boolean processTransfer(int senderId, int receiverId, BigDecimal amount, String idempotencyKey) {
+        Money money = toMoney(amount);
+        return money != null && processTransfer(senderId, receiverId, money, idempotencyKey);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #processDeposit(int, Money)}.
+     */
     public boolean processDeposit(int userId, BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            logger.warn("Invalid Deposit: User " + userId + " attempted to deposit non-positive amount: " + amount);
-            System.out.println("❌ Deposit amount must be positive.");
-            return false;
+        Money money = toMoney(amount);
+        return money != null && processDeposit(userId, money);
+    }
+
+    /**
+     * {@link BigDecimal} variant of {@link #processDeposit(int, Money, String)}.
+     */
+    public boolean processDeposit(int userId, BigDecimal amount, String idempotencyKey) {
+        Money money = toMoney(amount);
+        return money != null && processDeposit(userId, money, idempotencyKey);
+    }
+
+    /**
+     * Creates a standing order: a transfer that runs at {@code startAt} and then
+     * repeats at the given frequency. Runs are executed by the {@link TransferScheduler}.
+     *
+     * @param senderId      The ID of the user paying.
+     * @param receiverEmail The email address of the recipient.
+     * @param amount        The amount of each run (must be positive).
+     * @param frequency     ONCE for a single future-dated transfer, or how often it repeats.
+     * @param startAt       When the first run is due.
+     * @param maxRuns       Number of runs, or 0 until cancelled.
+     * @return The schedule ID, or -1 if validation fails or on error.
+     */
+    public int scheduleTransfer(int senderId, String receiverEmail, Money amount,
+                                ScheduledTransfer.Frequency frequency, Timestamp startAt, int maxRuns) {
+        Stopwatch sw = MetricsRegistry.start("service.TransactionService.scheduleTransfer");
+        try {
+            if (!amount.isPositive()) {
+                logger.warn("Invalid Schedule: User " + senderId + " attempted to schedule non-positive amount: " + amount);
+                System.out.println("❌ Amount must be greater than 0.");
+                return -1;
+            }
+            int receiverId = userService.getUserIdByEmail(receiverEmail);
+            if (receiverId == -1) {
+                logger.warn("Schedule Failed: Receiver email not found (" + receiverEmail + ")");
+                System.out.println("❌ Receiver email not found.");
+                return -1;
+            }
+            if (senderId == receiverId) {
+                logger.warn("Invalid Schedule: User " + senderId + " attempted to schedule money to themselves.");
+                System.out.println("❌ You cannot send money to yourself.");
+                return -1;
+            }
+            return scheduledTransferDAO.createSchedule(
+                    new ScheduledTransfer(senderId, receiverId, amount, frequency, startAt, maxRuns));
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Retrieves the standing orders a user pays.
+     *
+     * @param userId The ID of the user.
+     * @return The orders, newest first.
+     */
+    public List<ScheduledTransfer> getScheduledTransfers(int userId) {
+        return scheduledTransferDAO.getSchedulesBySender(userId);
+    }
+
+    /**
+     * Cancels a standing order; runs already made are not affected.
+     *
+     * @param userId     The ID of the paying user.
+     * @param scheduleId The schedule ID.
+     * @return {@code true} if the order was active and belongs to the user.
+     */
+    public boolean cancelScheduledTransfer(int userId, int scheduleId) {
+        boolean cancelled = scheduledTransferDAO.cancelSchedule(scheduleId, userId);
+        if (cancelled) {
+            logger.info("Standing order " + scheduleId + " cancelled by User " + userId);
         }
-        return transactionDAO.depositMoney(userId, amount);
+        return cancelled;
     }
 
     /**
      * Retrieves the transaction history for a user.
      *
      * @param userId The ID of the user.
-     * @return List of past transactions.
+     * @return List of past transactions; empty if the system is too busy.
      */
     public List<Transaction> getHistory(int userId) {
-        return transactionDAO.getTransactionHistory(userId);
+        Stopwatch sw = MetricsRegistry.start("service.TransactionService.getHistory");
+        try (AdmissionController.Ticket ticket = admission.enter(AdmissionController.Priority.READ)) {
+            if (!ticket.isAdmitted()) {
+                busy("History", userId, ticket);
+                return new ArrayList<>();
+            }
+            return transactionDAO.getTransactionHistory(userId);
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Streams the transaction history for a user, newest first.
+     * <p>
+     * Rows are read only as the subscriber requests them, on the requesting thread,
+     * so long histories can be paged through without holding them in memory.
+     * </p>
+     * <p>
+     * The first request, which opens the cursor, passes the {@link AdmissionController}
+     * as a {@link AdmissionController.Priority#READ}. The call ends with the first
+     * row, so the time a user spends paging is not counted against the limit. A
+     * rejected stream ends with {@code onError} before anything is read.
+     * </p>
+     *
+     * @param userId The ID of the user.
+     * @return A publisher of past transactions.
+     */
+    public Flow.Publisher<Transaction> streamHistory(int userId) {
+        Flow.Publisher<Transaction> rows = transactionDAO.streamTransactionHistory(userId, null, null, Runnable::run);
+        return subscriber -> rows.subscribe(new AdmittedStream(userId, subscriber));
+    }
+
+    private static boolean busy(String operation, int userId, AdmissionController.Ticket ticket) {
+        long seconds = Math.max(1, (ticket.getRetryAfterMillis() + 999) / 1000);
+        logger.warn(operation + " for User " + userId + " rejected by admission control; retry after "
+                + ticket.getRetryAfterMillis() + " ms");
+        System.out.println("❌ The system is busy. Please retry in " + seconds + "s.");
+        return false;
+    }
+
+    private static Money toMoney(BigDecimal amount) {
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            logger.warn("Invalid amount: " + amount + " has more than two decimals");
+            System.out.println("❌ Amounts can have at most two decimals.");
+            return null;
+        }
+    }
+
+    // Sits between a history stream and its subscriber: admits the stream on its first
+    // request and ends the admitted call when the cursor has produced its first signal
+    private final class AdmittedStream implements Flow.Subscriber<Transaction>, Flow.Subscription {
+
+        private final int userId;
+        private final Flow.Subscriber<? super Transaction> downstream;
+        private final AtomicReference<AdmissionController.Ticket> ticket = new AtomicReference<>();
+        private Flow.Subscription upstream;
+        private boolean entered;
+
+        AdmittedStream(int userId, Flow.Subscriber<? super Transaction> downstream) {
+            this.userId = userId;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (!entered) {
+                entered = true;
+                AdmissionController.Ticket admitted = admission.enter(AdmissionController.Priority.READ);
+                if (!admitted.isAdmitted()) {
+                    busy("History", userId, admitted);
+                    upstream.cancel();
+                    downstream.onError(new RejectedExecutionException(
+                            "History rejected by admission control; retry after " + admitted.getRetryAfterMillis() + " ms"));
+                    return;
+                }
+                ticket.set(admitted);
+            }
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            release();
+            upstream.cancel();
+        }
+
+        @Override
+        public void onNext(Transaction item) {
+            release();
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            release();
+            downstream.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            release();
+            downstream.onComplete();
+        }
+
+        private void release() {
+            AdmissionController.Ticket admitted = ticket.getAndSet(null);
+            if (admitted != null) {
+                admitted.close();
+            }
+        }
     }
-}
\ No newline at end of file
+}
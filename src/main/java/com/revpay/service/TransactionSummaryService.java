@@ -0,0 +1,76 @@
+package com.revpay.service;
+
+import com.revpay.dao.RollupDAO;
+import com.revpay.model.TransactionSummary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service for revenue and spending summaries.
+ * <p>
+ * Summaries are served from the daily and monthly rollup tables maintained by
+ * {@link RollupRefreshJob}, plus the handful of transactions not rolled up yet, so
+ * they cost a few index lookups instead of a scan of the user's whole history.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class TransactionSummaryService {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(TransactionSummaryService.class);
+
+    private final RollupDAO rollupDAO;
+
+    public TransactionSummaryService() {
+        this(new RollupDAO());
+    }
+
+    /**
+     * @param rollupDAO The rollup store.
+     */
+    public TransactionSummaryService(RollupDAO rollupDAO) {
+        this.rollupDAO = rollupDAO;
+    }
+
+    /**
+     * Summarizes a user's transactions per day.
+     *
+     * @param userId The user.
+     * @param from   First day (inclusive).
+     * @param to     Last day (inclusive).
+     * @return One line per day, type and direction with activity. Empty if the range is invalid.
+     */
+    public List<TransactionSummary> getDailySummary(int userId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            logger.warn("Invalid daily summary range " + from + " to " + to + " for User ID " + userId);
+            return Collections.emptyList();
+        }
+        return rollupDAO.loadSummaries(userId, false,
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Summarizes a user's transactions per month.
+     *
+     * @param userId The user.
+     * @param from   First month (inclusive).
+     * @param to     Last month (inclusive).
+     * @return One line per month, type and direction with activity. Empty if the range is invalid.
+     */
+    public List<TransactionSummary> getMonthlySummary(int userId, YearMonth from, YearMonth to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            logger.warn("Invalid monthly summary range " + from + " to " + to + " for User ID " + userId);
+            return Collections.emptyList();
+        }
+        return rollupDAO.loadSummaries(userId, true,
+                Timestamp.valueOf(from.atDay(1).atStartOfDay()), Timestamp.valueOf(to.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+}
@@ -0,0 +1,243 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import com.revpay.dao.ScheduledTransferDAO;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
+import com.revpay.model.ScheduledTransfer;
+import com.revpay.util.TimerWheel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Executes standing orders when their runs fall due.
+ * <p>
+ * The database is read once per {@link #loadUpcoming()}, for the runs due within
+ * the next {@code horizon} only (through the index of active orders, so the cost
+ * follows the number of upcoming runs, not of orders). Those runs wait in a
+ * {@link TimerWheel}; {@link #tick()} takes the ones that fell due, re-reads them in
+ * batches to skip orders cancelled meanwhile, transfers through
+ * {@link TransactionService} and records the runs with one batched update.
+ * </p>
+ * <p>
+ * Each run transfers under the idempotency key {@code sched-<id>-<run>} and is
+ * recorded with a compare-and-set on the run number, so a crash between the two, or
+ * a second scheduler, cannot pay a run twice. Runs missed while the application was
+ * down are overdue at the next load and are paid one by one, oldest first. A failed
+ * transfer (e.g. insufficient funds) is retried after {@code revpay.scheduler.retrySeconds},
+ * up to {@code revpay.scheduler.maxAttempts} times, and then recorded as FAILED.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public class TransferScheduler {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(TransferScheduler.class);
+
+    // 64 slots per level over three levels cover 2^18 ticks (three days at 1 s)
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_LEVELS = 3;
+
+    private final ScheduledTransferDAO scheduledTransferDAO;
+    private final TransactionService transactionService;
+    private final TimerWheel<ScheduledTransfer> wheel;
+    private final long horizonMillis;
+    private final int batchSize;
+    private final int loadLimit;
+    private final LongSupplier clock;
+
+    // Run number waiting in the wheel per order; older entries left in the wheel are ignored
+    private final Map<Integer, Integer> loaded = new HashMap<>();
+    private final Map<Integer, Integer> attempts = new HashMap<>();
+    private boolean truncated;
+
+    /**
+     * Creates a scheduler configured from {@code revpay.scheduler.*}.
+     */
+    public TransferScheduler() {
+        this(new ScheduledTransferDAO(), new TransactionService(),
+                AppConfig.getLong("revpay.scheduler.tickMs", 1000),
+                AppConfig.getLong("revpay.scheduler.horizonSeconds", 300) * 1000,
+                AppConfig.getInt("revpay.scheduler.batch", 200),
+                AppConfig.getInt("revpay.scheduler.loadLimit", 10000),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param scheduledTransferDAO The order store.
+     * @param transactionService   Executes the transfers.
+     * @param tickMillis           Resolution of the timer wheel.
+     * @param horizonMillis        How far ahead runs are loaded into memory.
+     * @param batchSize            Runs re-read and recorded per database round trip.
+     * @param loadLimit            Maximum number of runs read per load.
+     * @param clock                Source of the current time in milliseconds.
+     */
+    public TransferScheduler(ScheduledTransferDAO scheduledTransferDAO, TransactionService transactionService,
+                             long tickMillis, long horizonMillis, int batchSize, int loadLimit, LongSupplier clock) {
+        this.scheduledTransferDAO = scheduledTransferDAO;
+        this.transactionService = transactionService;
+        this.horizonMillis = horizonMillis;
+        this.batchSize = Math.max(1, batchSize);
+        this.loadLimit = Math.max(1, loadLimit);
+        this.clock = clock;
+        this.wheel = new TimerWheel<>(tickMillis, WHEEL_BITS, WHEEL_LEVELS, clock.getAsLong());
+        MetricsRegistry.gauge("scheduler.pending", this::getPendingCount);
+    }
+
+    /**
+     * Loads the runs due within the horizon, including overdue ones, that are not
+     * waiting in the wheel yet.
+     *
+     * @return The number of runs added.
+     */
+    public synchronized int loadUpcoming() {
+        Stopwatch sw = MetricsRegistry.start("service.TransferScheduler.loadUpcoming");
+        try {
+            long until = clock.getAsLong() + horizonMillis;
+            List<ScheduledTransfer> upcoming = scheduledTransferDAO.findDueBefore(new Timestamp(until), loadLimit);
+            int added = 0;
+            for (ScheduledTransfer schedule : upcoming) {
+                Integer waiting = loaded.get(schedule.getScheduleId());
+                if (waiting == null || waiting != schedule.getRunNumber()) {
+                    enqueue(schedule, schedule.getNextRunAt().getTime());
+                    added++;
+                }
+            }
+            // A full load may have left out later runs; load again as soon as the wheel drains
+            truncated = upcoming.size() >= loadLimit;
+            if (added > 0) {
+                logger.debug("Loaded " + added + " upcoming standing order runs");
+            }
+            return added;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Executes the runs that fell due since the last tick.
+     *
+     * @return The number of runs that transferred money.
+     */
+    public synchronized int tick() {
+        long now = clock.getAsLong();
+        List<ScheduledTransfer> due = new ArrayList<>();
+        for (ScheduledTransfer schedule : wheel.advance(now)) {
+            Integer waiting = loaded.get(schedule.getScheduleId());
+            if (waiting != null && waiting == schedule.getRunNumber()) {
+                due.add(schedule);
+            }
+        }
+        int paid = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            paid += runBatch(due.subList(from, Math.min(due.size(), from + batchSize)), now);
+        }
+        if (truncated && wheel.size() == 0) {
+            loadUpcoming();
+        }
+        return paid;
+    }
+
+    /**
+     * @return The number of runs waiting in memory.
+     */
+    public synchronized int getPendingCount() {
+        return loaded.size();
+    }
+
+    private int runBatch(List<ScheduledTransfer> batch, long now) {
+        Stopwatch sw = MetricsRegistry.start("service.TransferScheduler.runBatch");
+        try {
+            List<Integer> ids = new ArrayList<>();
+            batch.forEach(s -> ids.add(s.getScheduleId()));
+            List<ScheduledTransfer> current = scheduledTransferDAO.getSchedules(ids);
+            if (current == null) {
+                // Database unavailable: try the whole batch again later
+                batch.forEach(s -> enqueue(s, now + retryMillis()));
+                return 0;
+            }
+            Map<Integer, ScheduledTransfer> byId = new HashMap<>();
+            current.forEach(s -> byId.put(s.getScheduleId(), s));
+
+            List<ScheduledTransfer> handled = new ArrayList<>();
+            int paid = 0;
+            for (ScheduledTransfer loadedRun : batch) {
+                ScheduledTransfer schedule = byId.get(loadedRun.getScheduleId());
+                if (schedule == null || schedule.getStatus() != ScheduledTransfer.Status.ACTIVE
+                        || schedule.getRunNumber() != loadedRun.getRunNumber()) {
+                    // Cancelled, deleted or already run elsewhere since it was loaded
+                    forget(loadedRun.getScheduleId());
+                    continue;
+                }
+                String key = "sched-" + schedule.getScheduleId() + "-" + schedule.getRunNumber();
+                boolean success = transactionService.processTransfer(schedule.getSenderId(), schedule.getReceiverId(),
+                        schedule.getAmount(), key);
+                if (!success && attempts.merge(schedule.getScheduleId(), 1, Integer::sum) < maxAttempts()) {
+                    enqueue(schedule, now + retryMillis());
+                    continue;
+                }
+                attempts.remove(schedule.getScheduleId());
+                if (success) {
+                    paid++;
+                } else {
+                    logger.warn("Standing order " + schedule.getScheduleId() + " run " + schedule.getRunNumber()
+                            + " failed after " + maxAttempts() + " attempts; moving to the next run");
+                    MetricsRegistry.counter("scheduler.runs.failed").increment();
+                }
+                schedule.completeRun(success ? "SUCCESS" : "FAILED");
+                handled.add(schedule);
+            }
+            MetricsRegistry.counter("scheduler.runs.paid").add(paid);
+            if (!handled.isEmpty()) {
+                record(handled, now);
+            }
+            return paid;
+        } finally {
+            sw.stop();
+        }
+    }
+
+    private void record(List<ScheduledTransfer> handled, long now) {
+        if (scheduledTransferDAO.recordRuns(handled) < 0) {
+            // Reloaded from the database later; the idempotency keys keep the paid runs from paying again
+            handled.forEach(s -> forget(s.getScheduleId()));
+            return;
+        }
+        for (ScheduledTransfer schedule : handled) {
+            long next = schedule.getNextRunAt().getTime();
+            if (schedule.getStatus() == ScheduledTransfer.Status.ACTIVE && next <= now + horizonMillis) {
+                // Short intervals and missed runs go straight back into the wheel
+                enqueue(schedule, next);
+            } else {
+                forget(schedule.getScheduleId());
+            }
+        }
+    }
+
+    private void enqueue(ScheduledTransfer schedule, long dueMillis) {
+        loaded.put(schedule.getScheduleId(), schedule.getRunNumber());
+        wheel.add(dueMillis, schedule);
+    }
+
+    private void forget(int scheduleId) {
+        loaded.remove(scheduleId);
+        attempts.remove(scheduleId);
+    }
+
+    private static int maxAttempts() {
+        return Math.max(1, AppConfig.getInt("revpay.scheduler.maxAttempts", 3));
+    }
+
+    private static long retryMillis() {
+        return AppConfig.getLong("revpay.scheduler.retrySeconds", 60) * 1000;
+    }
+}
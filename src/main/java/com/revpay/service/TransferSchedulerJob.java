@@ -0,0 +1,87 @@
+package com.revpay.service;
+
+import com.revpay.config.AppConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that drives the {@link TransferScheduler}.
+ * <p>
+ * Upcoming runs are loaded at start (which also picks up runs missed while the
+ * application was down) and then every {@code revpay.scheduler.loadSeconds}; the
+ * wheel ticks every {@code revpay.scheduler.tickMs}. Both run on one thread, so a
+ * load never overlaps a tick. A new standing order is picked up by the next load,
+ * hence the load period should stay well below the horizon.
+ * </p>
+ *
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class TransferSchedulerJob {
+
+    // Initialize Log4j Logger
+    private static final Logger logger = LogManager.getLogger(TransferSchedulerJob.class);
+
+    private static ScheduledExecutorService scheduler;
+
+    private TransferSchedulerJob() {}
+
+    /**
+     * Starts loading and executing standing orders. Calling it again has no effect.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        TransferScheduler transferScheduler = new TransferScheduler();
+        long loadSeconds = Math.max(1, AppConfig.getLong("revpay.scheduler.loadSeconds", 60));
+        long tickMillis = Math.max(1, AppConfig.getLong("revpay.scheduler.tickMs", 1000));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "transfer-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> runSafely(transferScheduler::loadUpcoming, "load"),
+                0, loadSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(() -> runSafely(transferScheduler::tick, "tick"),
+                tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        logger.info("Standing orders loaded every " + loadSeconds + " s, executed on a " + tickMillis + " ms tick");
+    }
+
+    /**
+     * Stops the scheduler. Runs not yet executed are picked up by the next start.
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Loads upcoming runs and executes those already due, once.
+     *
+     * @param transferScheduler The scheduler.
+     * @return The number of runs that transferred money.
+     */
+    public static int runOnce(TransferScheduler transferScheduler) {
+        transferScheduler.loadUpcoming();
+        int paid = transferScheduler.tick();
+        if (paid > 0) {
+            logger.info("Executed " + paid + " standing order runs");
+        }
+        return paid;
+    }
+
+    private static void runSafely(Runnable step, String name) {
+        try {
+            step.run();
+        } catch (RuntimeException e) {
+            logger.error("Standing order " + name + " failed", e);
+        }
+    }
+}
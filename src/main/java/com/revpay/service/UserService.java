@@ -2,7 +2,11 @@ package com.revpay.service;
 
 import com.revpay.dao.UserDAO;
 import com.revpay.dao.WalletDAO;
+import com.revpay.ledger.LedgerEngines;
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.Stopwatch;
 import com.revpay.model.User;
+import com.revpay.model.Wallet;
 import com.revpay.util.SecurityUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -35,24 +39,29 @@ public class UserService {
      * @return The {@link User} object if authentication succeeds, {@code null} otherwise.
      */
     public User login(String email, String password) {
-        // 1. Get the user from the DB
-        User user = userDAO.getUserByEmail(email);
+        Stopwatch sw = MetricsRegistry.start("service.UserService.login");
+        try {
+            // 1. Get the user from the DB
+            User user = userDAO.getUserByEmail(email);
 
-        // 2. Check if user exists
-        if (user == null) {
-            logger.warn("Login Failed: Account not found for email " + email);
-            System.out.println(" Account not found.");
-            return null;
-        }
+            // 2. Check if user exists
+            if (user == null) {
+                logger.warn("Login Failed: Account not found for email " + email);
+                System.out.println(" Account not found.");
+                return null;
+            }
 
-        // 3. Verify the password using SecurityUtil (BCrypt)
-        if (SecurityUtil.verifyPassword(password, user.getPasswordHash())) {
-            logger.info(" User Logged In: " + email);
-            return user;
-        } else {
-            logger.warn("Login Failed: Invalid password for email " + email);
-            System.out.println(" Wrong password.");
-            return null;
+            // 3. Verify the password using SecurityUtil (BCrypt)
+            if (SecurityUtil.verifyPassword(password, user.getPasswordHash())) {
+                logger.info(" User Logged In: " + email);
+                return user;
+            } else {
+                logger.warn("Login Failed: Invalid password for email " + email);
+                System.out.println(" Wrong password.");
+                return null;
+            }
+        } finally {
+            sw.stop();
         }
     }
 
@@ -63,21 +72,26 @@ public class UserService {
      * @return {@code true} if registration and wallet creation are successful.
      */
     public boolean registerUser(User user) {
-        // 1. Register the User in the DB
-        boolean isRegistered = userDAO.registerUser(user);
+        Stopwatch sw = MetricsRegistry.start("service.UserService.registerUser");
+        try {
+            // 1. Register the User in the DB
+            boolean isRegistered = userDAO.registerUser(user);
 
-        // 2. If successful, find their new ID and create a Wallet
-        if (isRegistered) {
-            User savedUser = userDAO.getUserByEmail(user.getEmail());
-            if (savedUser != null) {
-                walletDAO.createWallet(savedUser.getUserId());
-                logger.info(" Registration Complete: Wallet created for " + user.getEmail());
-            } else {
-                logger.error(" Registration Error: Could not fetch new user ID for wallet creation.");
-                return false;
+            // 2. If successful, find their new ID and create a Wallet
+            if (isRegistered) {
+                User savedUser = userDAO.getUserByEmail(user.getEmail());
+                if (savedUser != null) {
+                    walletDAO.createWallet(savedUser.getUserId());
+                    logger.info(" Registration Complete: Wallet created for " + user.getEmail());
+                } else {
+                    logger.error(" Registration Error: Could not fetch new user ID for wallet creation.");
+                    return false;
+                }
             }
+            return isRegistered;
+        } finally {
+            sw.stop();
         }
-        return isRegistered;
     }
 
     /**
@@ -87,7 +101,27 @@ public class UserService {
      * @return The current balance.
      */
     public BigDecimal getBalance(int userId) {
-        return walletDAO.getBalance(userId);
+        Stopwatch sw = MetricsRegistry.start("service.UserService.getBalance");
+        try {
+            return LedgerEngines.get().getBalance(userId);
+        } finally {
+            sw.stop();
+        }
+    }
+
+    /**
+     * Retrieves the wallet with its hold totals (available and pending funds).
+     *
+     * @param userId The unique User ID.
+     * @return The wallet, or {@code null} if not found or on error.
+     */
+    public Wallet getWallet(int userId) {
+        Stopwatch sw = MetricsRegistry.start("service.UserService.getWallet");
+        try {
+            return walletDAO.getWallet(userId);
+        } finally {
+            sw.stop();
+        }
     }
 
     /**
@@ -97,8 +131,13 @@ public class UserService {
      * @return {@code true} if deletion was successful.
      */
     public boolean deleteAccount(int userId) {
-        logger.info("🗑️ Deleting account for User ID: " + userId);
-        return userDAO.deleteUser(userId);
+        Stopwatch sw = MetricsRegistry.start("service.UserService.deleteAccount");
+        try {
+            logger.info("🗑️ Deleting account for User ID: " + userId);
+            return userDAO.deleteUser(userId);
+        } finally {
+            sw.stop();
+        }
     }
 
     /**
@@ -108,11 +147,16 @@ public class UserService {
      * @return The User ID if found, or -1 if not found.
      */
     public int getUserIdByEmail(String email) {
-        User user = userDAO.getUserByEmail(email);
-        if (user != null) {
-            return user.getUserId();
+        Stopwatch sw = MetricsRegistry.start("service.UserService.getUserIdByEmail");
+        try {
+            User user = userDAO.getUserByEmail(email);
+            if (user != null) {
+                return user.getUserId();
+            }
+            logger.warn("User lookup failed: " + email);
+            return -1;
+        } finally {
+            sw.stop();
         }
-        logger.warn("User lookup failed: " + email);
-        return -1;
     }
 }
\ No newline at end of file
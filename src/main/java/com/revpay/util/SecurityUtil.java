@@ -1,6 +1,7 @@
 package com.revpay.util;
 
 import at.favre.lib.crypto.bcrypt.BCrypt;
+import com.revpay.metrics.PasswordHashEvent;
 
 /**
  * Utility class for handling Security and Encryption.
@@ -26,8 +27,16 @@ public class SecurityUtil {
      * @return A secure BCrypt hash string (e.g., "$2a$12$...").
      */
     public static String hashPassword(String plainPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
         // Cost factor 12 is a good balance between security and performance (takes ~200-300ms)
-        return BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
+        String hash = BCrypt.withDefaults().hashToString(12, plainPassword.toCharArray());
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "HASH";
+            event.commit();
+        }
+        return hash;
     }
 
 
@@ -42,7 +51,15 @@ public class SecurityUtil {
         if (hashedPassword == null || plainPassword == null) {
             return false;
         }
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
         BCrypt.Result result = BCrypt.verifyer().verify(plainPassword.toCharArray(), hashedPassword);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "VERIFY";
+            event.verified = result.verified;
+            event.commit();
+        }
         return result.verified;
     }
 }
\ No newline at end of file
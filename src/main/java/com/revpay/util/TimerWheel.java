@@ -0,0 +1,165 @@
+package com.revpay.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel: holds items until their deadline, with O(1) insertion
+ * and work per tick that does not depend on how many items are waiting.
+ * <p>
+ * Time is cut into ticks of {@code tickMillis}. Level 0 has one slot per tick for
+ * the next {@code slots} ticks; each higher level has slots that are {@code slots}
+ * times wider. An item is placed on the lowest level whose range covers its deadline
+ * and moves down ("cascades") when the wheel reaches its slot, so each item is
+ * touched at most once per level. Deadlines beyond the top level wait in an overflow
+ * list that is looked at once per revolution of the top level. Deadlines are rounded
+ * up to the next tick; an item is never returned early.
+ * </p>
+ * <p>
+ * Not thread-safe: the owner serializes {@link #add} and {@link #advance}.
+ * </p>
+ *
+ * @param <T> The item type.
+ * @author RevPay Dev Team
+ * @version 1.0
+ */
+public final class TimerWheel<T> {
+
+    private static final class Entry<T> {
+        final long deadlineTick;
+        final T item;
+
+        Entry(long deadlineTick, T item) {
+            this.deadlineTick = deadlineTick;
+            this.item = item;
+        }
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final long mask;
+    private final List<List<ArrayDeque<Entry<T>>>> levels = new ArrayList<>();
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    private final List<T> expired = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Resolution of the wheel.
+     * @param bits       Slots per level as a power of two (e.g. 6 for 64 slots).
+     * @param levelCount Number of levels; together they cover {@code 2^(bits * levelCount)} ticks.
+     * @param nowMillis  The current time; the wheel starts at this tick.
+     */
+    public TimerWheel(long tickMillis, int bits, int levelCount, long nowMillis) {
+        if (tickMillis <= 0 || bits < 1 || levelCount < 1 || (long) bits * levelCount > 62) {
+            throw new IllegalArgumentException("Invalid wheel: tick " + tickMillis + " ms, " + bits + " bits, "
+                    + levelCount + " levels");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1L << bits) - 1;
+        for (int l = 0; l < levelCount; l++) {
+            List<ArrayDeque<Entry<T>>> slots = new ArrayList<>();
+            for (int s = 0; s <= mask; s++) {
+                slots.add(new ArrayDeque<>());
+            }
+            levels.add(slots);
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Adds an item. An item whose deadline has already passed is returned by the
+     * next {@link #advance}.
+     *
+     * @param deadlineMillis When the item is due.
+     * @param item           The item.
+     */
+    public void add(long deadlineMillis, T item) {
+        // Round up so that an item is never due before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        place(new Entry<>(deadlineTick, item));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and removes the items that fell due.
+     *
+     * @param nowMillis The current time; going backwards has no effect.
+     * @return The due items, in deadline order across ticks (insertion order within one).
+     */
+    public List<T> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>(expired);
+        expired.clear();
+        while (currentTick < target) {
+            if (size == due.size()) {
+                // Nothing left waiting: jump instead of visiting empty slots
+                currentTick = target;
+                break;
+            }
+            currentTick++;
+            if (isBoundary(levels.size()) && !overflow.isEmpty()) {
+                List<Entry<T>> waiting = new ArrayList<>(overflow);
+                overflow.clear();
+                waiting.forEach(this::place);
+            }
+            for (int l = levels.size() - 1; l >= 1; l--) {
+                if (isBoundary(l)) {
+                    ArrayDeque<Entry<T>> slot = levels.get(l).get(slotIndex(currentTick, l));
+                    List<Entry<T>> moving = new ArrayList<>(slot);
+                    slot.clear();
+                    moving.forEach(this::place);
+                }
+            }
+            ArrayDeque<Entry<T>> slot = levels.get(0).get(slotIndex(currentTick, 0));
+            for (Entry<T> entry : slot) {
+                due.add(entry.item);
+            }
+            slot.clear();
+            due.addAll(expired);
+            expired.clear();
+        }
+        size -= due.size();
+        return due;
+    }
+
+    /**
+     * @return The number of items waiting (including those due but not yet returned).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The time the wheel has advanced to, in milliseconds (a tick boundary).
+     */
+    public long currentMillis() {
+        return currentTick * tickMillis;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expired.add(entry.item);
+            return;
+        }
+        for (int l = 0; l < levels.size(); l++) {
+            if (delta < 1L << (bits * (l + 1))) {
+                levels.get(l).get(slotIndex(entry.deadlineTick, l)).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    // True when the current tick starts a new slot on the given level
+    private boolean isBoundary(int level) {
+        return (currentTick & ((1L << (bits * level)) - 1)) == 0;
+    }
+
+    private int slotIndex(long tick, int level) {
+        return (int) ((tick >> (bits * level)) & mask);
+    }
+}
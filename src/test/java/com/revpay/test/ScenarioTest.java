@@ -22,12 +22,15 @@ public class ScenarioTest {
     public void setUp() {
         testOut = new ByteArrayOutputStream();
         System.setOut(new PrintStream(testOut));
+        // Card deposits settle at once, so the scenario can spend them right away
+        System.setProperty("revpay.holds.cardSettleSeconds", "0");
     }
 
     @After
     public void tearDown() {
         System.setIn(originalIn);
         System.setOut(originalOut);
+        System.clearProperty("revpay.holds.cardSettleSeconds");
     }
 
     private void prepareInput(String data) throws Exception {
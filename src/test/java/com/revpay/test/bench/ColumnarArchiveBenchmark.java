@@ -0,0 +1,97 @@
+package com.revpay.test.bench;
+
+import com.revpay.ledger.archive.ColumnarArchiveReader;
+import com.revpay.ledger.archive.ColumnarArchiveWriter;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures write and scan throughput of the columnar archive format.
+ * <p>
+ * Not a unit test: run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.ColumnarArchiveBenchmark 5000000 100000}
+ * for one month of 5M rows among 100k users. No database is needed; the file is
+ * written to a temporary directory and deleted afterwards. Reported: bytes per row
+ * (fixed-width columns would take 50), rows per second for the write, a full scan,
+ * a one-day range (most blocks skipped from the footer) and single-user lookups.
+ * </p>
+ */
+public class ColumnarArchiveBenchmark {
+
+    private static final long MONTH_START = 1_709_251_200_000L; // 2024-03-01 UTC
+    private static final long MONTH_MILLIS = 31L * 24 * 60 * 60 * 1000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path dir = Files.createTempDirectory("columnar-bench");
+        Path file = dir.resolve("transactions.rpa");
+
+        try {
+            Random random = new Random(42);
+            long meanGap = MONTH_MILLIS / rows;
+            long start = System.nanoTime();
+            try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file)) {
+                long ts = MONTH_START;
+                long balance = 1_000_000;
+                for (int i = 0; i < rows; i++) {
+                    ts += random.nextInt((int) Math.max(1, 2 * meanGap));
+                    long amount = 100 + random.nextInt(50_000);
+                    boolean deposit = random.nextInt(10) == 0;
+                    int receiver = 1 + random.nextInt(users);
+                    int sender = deposit ? receiver : 1 + random.nextInt(users);
+                    balance += random.nextInt(2_000_001) - 1_000_000;
+                    writer.add(1_000_000L + i, sender, receiver, amount,
+                            deposit ? TransactionType.DEPOSIT : TransactionType.TRANSFER,
+                            random.nextInt(100) == 0 ? TransactionStatus.FAILED : TransactionStatus.SUCCESS,
+                            ts, Math.abs(balance), Math.abs(balance) + amount);
+                }
+            }
+            report("write", rows, System.nanoTime() - start);
+            System.out.printf("file: %,d bytes, %.1f bytes/row%n", Files.size(file), (double) Files.size(file) / rows);
+
+            try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+                long[] sum = new long[1];
+                ColumnarArchiveReader.RowVisitor visitor =
+                        (id, sender, receiver, amount, type, status, ts, sa, ra) -> sum[0] += amount;
+
+                for (int warmup = 0; warmup < 3; warmup++) {
+                    reader.scan(0, Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+                }
+                start = System.nanoTime();
+                long matched = reader.scan(0, Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+                report("full scan", matched, System.nanoTime() - start);
+
+                long day = 24L * 60 * 60 * 1000;
+                long from = MONTH_START + 14 * day;
+                start = System.nanoTime();
+                matched = reader.scan(0, from, from + day, visitor);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("one day: %,d rows in %.2f ms, %d of %d blocks skipped%n",
+                        matched, elapsed / 1e6, reader.getBlocksSkipped(), reader.getBlockCount());
+
+                int lookups = 200;
+                long found = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    found += reader.scan(1 + random.nextInt(users), Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+                }
+                elapsed = System.nanoTime() - start;
+                System.out.printf("user lookup: %.2f ms each (%,d rows per user), %,.0f rows/s scanned%n",
+                        elapsed / 1e6 / lookups, found / lookups, (double) rows * lookups / (elapsed / 1e9));
+                System.out.println("checksum " + sum[0]);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void report(String label, long rows, long nanos) {
+        System.out.printf("%s: %,d rows in %.0f ms, %,.0f rows/s%n", label, rows, nanos / 1e6, rows / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,113 @@
+package com.revpay.test.bench;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.config.Workload;
+import com.revpay.dao.IdAllocator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Bulk insert benchmark: IDs from a {@code BEFORE INSERT} trigger (NOCACHE and cached
+ * sequence) versus IDs supplied by {@link IdAllocator}.
+ * <p>
+ * Needs the Oracle database from {@code database_setup.sql}. Run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.IdAllocationBenchmark 50000 500}
+ * (rows per variant, rows per batch). A scratch table, its trigger and sequences
+ * shaped like the {@code transactions} ones are created and dropped afterwards.
+ * </p>
+ */
+public class IdAllocationBenchmark {
+
+    private static final String[] SETUP = {
+            "CREATE TABLE bench_ids (id NUMBER PRIMARY KEY, payload VARCHAR2(50))",
+            "CREATE SEQUENCE seq_bench_nocache START WITH 1 INCREMENT BY 1 NOCACHE",
+            "CREATE SEQUENCE seq_bench_cache START WITH 1 INCREMENT BY 1 CACHE 20",
+            "CREATE SEQUENCE seq_bench_block START WITH 1 INCREMENT BY 100 CACHE 20"};
+    private static final String[] TEARDOWN = {
+            "DROP TABLE bench_ids", "DROP SEQUENCE seq_bench_nocache",
+            "DROP SEQUENCE seq_bench_cache", "DROP SEQUENCE seq_bench_block"};
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        try (Connection conn = DatabaseConnection.getConnection(Workload.HEAVY)) {
+            try {
+                execute(conn, TEARDOWN);
+                execute(conn, SETUP);
+                for (int round = 0; round < 2; round++) {
+                    boolean warmUp = round == 0;
+                    int n = warmUp ? rows / 10 : rows;
+                    measure(conn, "trigger, NOCACHE", n, warmUp, () -> viaTrigger(conn, "seq_bench_nocache", n, batch));
+                    measure(conn, "trigger, CACHE 20", n, warmUp, () -> viaTrigger(conn, "seq_bench_cache", n, batch));
+                    measure(conn, "allocator", n, warmUp, () -> viaAllocator(conn, n, batch));
+                }
+            } finally {
+                execute(conn, TEARDOWN);
+            }
+        }
+    }
+
+    private static void viaTrigger(Connection conn, String sequence, int rows, int batch) throws SQLException {
+        execute(conn, "CREATE OR REPLACE TRIGGER trg_bench_ids BEFORE INSERT ON bench_ids FOR EACH ROW"
+                + " BEGIN IF :NEW.id IS NULL THEN SELECT " + sequence + ".NEXTVAL INTO :NEW.id FROM DUAL; END IF; END;");
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO bench_ids (payload) VALUES (?)")) {
+            for (int i = 0; i < rows; i++) {
+                stmt.setString(1, "row " + i);
+                stmt.addBatch();
+                if ((i + 1) % batch == 0 || i == rows - 1) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+        }
+    }
+
+    private static void viaAllocator(Connection conn, int rows, int batch) throws SQLException {
+        IdAllocator ids = IdAllocator.get();
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO bench_ids (id, payload) VALUES (?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                stmt.setLong(1, ids.next(conn, "seq_bench_block"));
+                stmt.setString(2, "row " + i);
+                stmt.addBatch();
+                if ((i + 1) % batch == 0 || i == rows - 1) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+        }
+    }
+
+    private interface Run {
+        void run() throws SQLException;
+    }
+
+    private static void measure(Connection conn, String name, int rows, boolean warmUp, Run run) throws SQLException {
+        conn.setAutoCommit(false);
+        long start = System.nanoTime();
+        run.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        execute(conn, "TRUNCATE TABLE bench_ids");
+        if (!warmUp) {
+            System.out.printf("%-18s %,10.0f rows/s  (%.1f us/row)%n", name, rows / seconds, seconds * 1e6 / rows);
+        }
+    }
+
+    private static void execute(Connection conn, String... statements) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    // Dropping what is not there (first run, failed setup) is fine; anything else is fatal
+                    if (!sql.startsWith("DROP")) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+}
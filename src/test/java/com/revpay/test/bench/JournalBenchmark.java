@@ -0,0 +1,72 @@
+package com.revpay.test.bench;
+
+import com.revpay.ledger.journal.JournalReader;
+import com.revpay.ledger.journal.MappedJournal;
+import com.revpay.model.TransactionType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Measures journal append throughput and replay (recovery) time.
+ * <p>
+ * Not a unit test: run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.JournalBenchmark 100000000 /data/bench-journal}.
+ * 100M records need about 4 GB of disk. The directory is deleted afterwards.
+ * </p>
+ */
+public class JournalBenchmark {
+
+    private static final int WALLETS = 100_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long entries = args.length > 0 ? Long.parseLong(args[0]) : 100_000_000L;
+        Path dir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("journal-bench");
+
+        try {
+            // Append: one writer, background group fsync every 5 ms
+            MappedJournal journal = new MappedJournal(dir, 256 * 1024 * 1024, 5, true);
+            long start = System.nanoTime();
+            long last = 0;
+            for (long i = 0; i < entries; i++) {
+                int sender = (int) (i % WALLETS);
+                int receiver = (int) ((i * 31 + 7) % WALLETS);
+                last = journal.append(TransactionType.TRANSFER, sender, receiver, 100 + (i & 1023), i);
+            }
+            journal.awaitDurable(last);
+            long appendNanos = System.nanoTime() - start;
+            journal.close();
+
+            report("append", entries, appendNanos);
+
+            // Recovery: checksum-validate every record and fold it into balances
+            long[] balances = new long[WALLETS];
+            start = System.nanoTime();
+            long replayed = JournalReader.replay(dir, 0L, (seq, type, sender, receiver, amount, ts, key) -> {
+                balances[sender] -= amount;
+                balances[receiver] += amount;
+            });
+            long replayNanos = System.nanoTime() - start;
+
+            report("replay", replayed, replayNanos);
+            long total = 0;
+            for (long b : balances) {
+                total += b;
+            }
+            System.out.println("conservation check (must be 0): " + total);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static void report(String phase, long records, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-7s %,d records in %.2f s = %,.0f records/s%n", phase, records, seconds, records / seconds);
+    }
+}
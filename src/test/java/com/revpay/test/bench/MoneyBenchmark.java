@@ -0,0 +1,98 @@
+package com.revpay.test.bench;
+
+import com.revpay.model.Money;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares {@link BigDecimal} and {@link Money} on the work a money movement does:
+ * validate the amount, check the balance, debit one side and credit the other.
+ * <p>
+ * Not a unit test: run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.MoneyBenchmark 20000000}.
+ * Reports operations per second and bytes allocated per operation (from the
+ * HotSpot per-thread allocation counter). No database is needed. Each variant is
+ * run a few times to warm up before it is measured.
+ * </p>
+ */
+public class MoneyBenchmark {
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        long[] minors = new long[4096];
+        Random random = new Random(42);
+        for (int i = 0; i < minors.length; i++) {
+            minors[i] = 1 + random.nextInt(500_000);
+        }
+        BigDecimal[] decimals = new BigDecimal[minors.length];
+        Money[] monies = new Money[minors.length];
+        for (int i = 0; i < minors.length; i++) {
+            decimals[i] = BigDecimal.valueOf(minors[i], 2);
+            monies[i] = Money.ofMinor(minors[i]);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            bigDecimal(decimals, operations / 10);
+            money(monies, operations / 10);
+        }
+        measure("BigDecimal", operations, () -> bigDecimal(decimals, operations));
+        measure("Money", operations, () -> money(monies, operations));
+    }
+
+    private static long bigDecimal(BigDecimal[] amounts, int operations) {
+        BigDecimal sender = new BigDecimal("1000000000.00");
+        BigDecimal receiver = BigDecimal.ZERO;
+        long rejected = 0;
+        for (int i = 0; i < operations; i++) {
+            BigDecimal amount = amounts[i & (amounts.length - 1)];
+            if (amount.compareTo(BigDecimal.ZERO) <= 0 || sender.compareTo(amount) < 0) {
+                rejected++;
+                continue;
+            }
+            sender = sender.subtract(amount);
+            receiver = receiver.add(amount);
+            if (sender.compareTo(amount) < 0) {
+                sender = sender.add(receiver);
+                receiver = BigDecimal.ZERO;
+            }
+        }
+        return rejected + sender.hashCode() + receiver.hashCode();
+    }
+
+    private static long money(Money[] amounts, int operations) {
+        Money sender = Money.parse("1000000000.00");
+        Money receiver = Money.ZERO;
+        long rejected = 0;
+        for (int i = 0; i < operations; i++) {
+            Money amount = amounts[i & (amounts.length - 1)];
+            if (!amount.isPositive() || sender.isLessThan(amount)) {
+                rejected++;
+                continue;
+            }
+            sender = sender.minus(amount);
+            receiver = receiver.plus(amount);
+            if (sender.isLessThan(amount)) {
+                sender = sender.plus(receiver);
+                receiver = Money.ZERO;
+            }
+        }
+        return rejected + sender.hashCode() + receiver.hashCode();
+    }
+
+    private static void measure(String label, int operations, LongSupplier body) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long sink = body.getAsLong();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("%-10s %,14.0f ops/s %8.1f bytes/op  (%d)%n",
+                label, operations / (elapsed / 1e9), (double) allocated / operations, sink & 1);
+    }
+}
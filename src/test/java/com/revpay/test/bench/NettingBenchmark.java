@@ -0,0 +1,80 @@
+package com.revpay.test.bench;
+
+import com.revpay.ledger.LedgerEntry;
+import com.revpay.ledger.NettingBatch;
+import com.revpay.model.TransactionType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the wallet row updates needed to settle the same traffic gross
+ * (two per transfer) and netted per window.
+ * <p>
+ * Not a unit test: run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.NettingBenchmark 1000000 1000 2000}
+ * for 1M transfers in windows of 1000 among 2000 users. Traffic is synthetic and
+ * skewed: most transfers go between a small set of merchants and their regular
+ * customers, who are also paid back (refunds, settlements). No database is needed;
+ * the printed row-update counts are what {@code settleNetted} would send to
+ * {@code wallets}.
+ * </p>
+ */
+public class NettingBenchmark {
+
+    public static void main(String[] args) {
+        int transfers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int merchants = Math.max(1, users / 100);
+
+        Map<Integer, Long> balances = new HashMap<>();
+        for (int u = 0; u < users; u++) {
+            balances.put(u, 1_000_000L);
+        }
+
+        Random random = new Random(42);
+        List<LedgerEntry> traffic = new ArrayList<>(transfers);
+        for (int i = 0; i < transfers; i++) {
+            int customer = merchants + random.nextInt(users - merchants);
+            int merchant = random.nextInt(merchants);
+            long amount = 100 + random.nextInt(10_000);
+            // Three in four are purchases, the rest payouts back to customers
+            traffic.add(random.nextInt(4) == 0
+                    ? new LedgerEntry(TransactionType.TRANSFER, merchant, customer, amount, i)
+                    : new LedgerEntry(TransactionType.TRANSFER, customer, merchant, amount, i));
+        }
+
+        long accepted = 0;
+        long nettedUpdates = 0;
+        long start = System.nanoTime();
+        for (int from = 0; from < transfers; from += window) {
+            NettingBatch batch = new NettingBatch(balances);
+            for (LedgerEntry movement : traffic.subList(from, Math.min(from + window, transfers))) {
+                batch.apply(movement);
+            }
+            Map<Integer, Long> net = batch.getNetDeltas();
+            for (Map.Entry<Integer, Long> delta : net.entrySet()) {
+                balances.merge(delta.getKey(), delta.getValue(), Long::sum);
+            }
+            accepted += batch.getAccepted();
+            nettedUpdates += net.size();
+        }
+        long nanos = System.nanoTime() - start;
+
+        long grossUpdates = accepted * 2;
+        long total = 0;
+        for (long balance : balances.values()) {
+            total += balance;
+        }
+
+        System.out.printf("transfers accepted  %,d of %,d (window %,d, %,d users)%n", accepted, transfers, window, users);
+        System.out.printf("gross row updates   %,d%n", grossUpdates);
+        System.out.printf("netted row updates  %,d (%.1fx fewer)%n", nettedUpdates, grossUpdates / (double) Math.max(1, nettedUpdates));
+        System.out.printf("netting cost        %.2f s = %,.0f transfers/s%n", nanos / 1e9, transfers / (nanos / 1e9));
+        System.out.println("conservation check (must be " + (users * 1_000_000L) + "): " + total);
+    }
+}
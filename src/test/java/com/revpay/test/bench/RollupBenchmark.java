@@ -0,0 +1,175 @@
+package com.revpay.test.bench;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.dao.RollupDAO;
+import com.revpay.dao.UserDAO;
+import com.revpay.model.Role;
+import com.revpay.model.TransactionSummary;
+import com.revpay.model.User;
+import com.revpay.service.RollupRefreshJob;
+import com.revpay.service.TransactionSummaryService;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Compares a 12-month summary served from the rollups with the same summary
+ * aggregated from raw transactions.
+ * <p>
+ * Needs the Oracle database from {@code database_setup.sql}. Run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.RollupBenchmark 10000000 1000}
+ * (rows, users). Rows are generated server-side over the past year; test users and
+ * their transactions are deleted afterwards.
+ * </p>
+ */
+public class RollupBenchmark {
+
+    private static final int CHUNK = 500_000;
+    private static final int QUERIES = 200;
+
+    private final UserDAO userDAO = new UserDAO();
+
+    public static void main(String[] args) throws SQLException {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        new RollupBenchmark().run(rows, users);
+    }
+
+    private void run(long rows, int users) throws SQLException {
+        String tag = "rollup" + System.currentTimeMillis();
+        int firstUser = createUser(tag + "_0@revpay.com");
+        int lastUser = firstUser;
+        for (int i = 1; i < users; i++) {
+            lastUser = createUser(tag + "_" + i + "@revpay.com");
+        }
+        try {
+            if (lastUser - firstUser != users - 1) {
+                System.out.println("User IDs are not contiguous (concurrent registrations?). Aborting.");
+                return;
+            }
+
+            long start = System.nanoTime();
+            seed(firstUser, users, rows);
+            report("seed", rows, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            RollupRefreshJob.runOnce(new RollupDAO());
+            report("rollup refresh", rows, System.nanoTime() - start);
+
+            TransactionSummaryService service = new TransactionSummaryService();
+            YearMonth to = YearMonth.now();
+            YearMonth from = to.minusMonths(11);
+            Timestamp fromTs = Timestamp.valueOf(from.atDay(1).atStartOfDay());
+            Timestamp toTs = Timestamp.valueOf(to.plusMonths(1).atDay(1).atStartOfDay());
+
+            long rawNanos = 0;
+            long rollupNanos = 0;
+            int mismatches = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                int userId = firstUser + (q * 7919) % users;
+
+                long t0 = System.nanoTime();
+                BigDecimal raw = rawTotal(userId, fromTs, toTs);
+                long t1 = System.nanoTime();
+                List<TransactionSummary> summary = service.getMonthlySummary(userId, from, to);
+                long t2 = System.nanoTime();
+
+                rawNanos += t1 - t0;
+                rollupNanos += t2 - t1;
+                BigDecimal total = BigDecimal.ZERO;
+                for (TransactionSummary line : summary) {
+                    total = total.add(line.getTotal());
+                }
+                if (raw.compareTo(total) != 0) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("raw aggregation  %.2f ms per 12-month summary%n", rawNanos / 1e6 / QUERIES);
+            System.out.printf("from rollups     %.2f ms per 12-month summary (%.0fx faster, %d mismatches)%n",
+                    rollupNanos / 1e6 / QUERIES, rawNanos / (double) Math.max(1, rollupNanos), mismatches);
+        } finally {
+            cleanUp(firstUser, lastUser);
+        }
+    }
+
+    // Server-side generation: transfers between bench users, every tenth row a deposit
+    private void seed(int firstUser, int users, long rows) throws SQLException {
+        String sql = "INSERT INTO transactions (sender_id, receiver_id, amount, transaction_type, status, txn_timestamp)"
+                + " SELECT ? + MOD(n, ?), CASE WHEN MOD(n, 10) = 0 THEN ? + MOD(n, ?) ELSE ? + MOD(n * 7 + 1, ?) END,"
+                + " 1 + MOD(n, 500), CASE WHEN MOD(n, 10) = 0 THEN 'DEPOSIT' ELSE 'TRANSFER' END, 'SUCCESS',"
+                + " SYSTIMESTAMP - NUMTODSINTERVAL(MOD(n * 13, 360 * 86400), 'SECOND')"
+                + " FROM (SELECT ? + LEVEL AS n FROM dual CONNECT BY LEVEL <= ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (long offset = 0; offset < rows; offset += CHUNK) {
+                stmt.setInt(1, firstUser);
+                stmt.setInt(2, users);
+                stmt.setInt(3, firstUser);
+                stmt.setInt(4, users);
+                stmt.setInt(5, firstUser);
+                stmt.setInt(6, users);
+                stmt.setLong(7, offset);
+                stmt.setLong(8, Math.min(CHUNK, rows - offset));
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // The query a summary needed before rollups: every IN and OUT row of the year
+    private BigDecimal rawTotal(int userId, Timestamp from, Timestamp to) throws SQLException {
+        String sql = "SELECT NVL(SUM(total), 0) FROM ("
+                + " SELECT TRUNC(txn_timestamp, 'MM'), transaction_type, SUM(amount) AS total FROM transactions"
+                + "  WHERE receiver_id = ? AND status = 'SUCCESS' AND transaction_type IN ('DEPOSIT', 'TRANSFER', 'PAYMENT')"
+                + "  AND txn_timestamp >= ? AND txn_timestamp < ? GROUP BY TRUNC(txn_timestamp, 'MM'), transaction_type"
+                + " UNION ALL"
+                + " SELECT TRUNC(txn_timestamp, 'MM'), transaction_type, SUM(amount) FROM transactions"
+                + "  WHERE sender_id = ? AND status = 'SUCCESS' AND transaction_type IN ('TRANSFER', 'PAYMENT', 'WITHDRAWAL')"
+                + "  AND txn_timestamp >= ? AND txn_timestamp < ? GROUP BY TRUNC(txn_timestamp, 'MM'), transaction_type)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int part = 0; part < 2; part++) {
+                stmt.setInt(part * 3 + 1, userId);
+                stmt.setTimestamp(part * 3 + 2, from);
+                stmt.setTimestamp(part * 3 + 3, to);
+            }
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+
+    private void cleanUp(int firstUser, int lastUser) throws SQLException {
+        String sql = "DELETE FROM transactions WHERE (sender_id BETWEEN ? AND ? OR receiver_id BETWEEN ? AND ?) AND ROWNUM <= ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int deleted;
+            do {
+                stmt.setInt(1, firstUser);
+                stmt.setInt(2, lastUser);
+                stmt.setInt(3, firstUser);
+                stmt.setInt(4, lastUser);
+                stmt.setInt(5, CHUNK);
+                deleted = stmt.executeUpdate();
+            } while (deleted > 0);
+        }
+        for (int userId = firstUser; userId <= lastUser; userId++) {
+            userDAO.deleteUser(userId); // Cascades to wallets and rollups
+        }
+    }
+
+    private int createUser(String email) {
+        userDAO.registerUser(new User(email, "0000000000", "pass", "0000", "Bench", Role.BUSINESS));
+        return userDAO.getUserByEmail(email).getUserId();
+    }
+
+    private static void report(String phase, long rows, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s %,d rows in %.2f s = %,.0f rows/s%n", phase, rows, seconds, rows / seconds);
+    }
+}
@@ -0,0 +1,107 @@
+package com.revpay.test.bench;
+
+import com.revpay.dao.RowMappers;
+import com.revpay.model.Transaction;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Compares mapping transaction rows by column name (the old {@code SELECT *} mappers)
+ * with the positional mapper in {@link RowMappers#TRANSACTION}.
+ * <p>
+ * Not a unit test: run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.RowMapperBenchmark 1000000}.
+ * Rows come from an in-memory result set whose name lookups scan the column labels
+ * case-insensitively, as JDBC drivers do; no database is needed. Each variant is run a
+ * few times to warm up before it is measured.
+ * </p>
+ */
+public class RowMapperBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> labels = RowMappers.TRANSACTION.getColumns().stream().map(String::toUpperCase).toList();
+        Object[] values = {42, 1, 2, new BigDecimal("10.50"), "TRANSFER", "SUCCESS",
+                new Timestamp(1_700_000_000_000L), new BigDecimal("89.50"), new BigDecimal("110.50")};
+        ResultSet rs = resultSet(labels, values);
+
+        for (int round = 0; round < 3; round++) {
+            byName(rs, rows / 10);
+            byPosition(rs, rows / 10);
+        }
+        measure("by name", rows, () -> byName(rs, rows));
+        measure("by position", rows, () -> byPosition(rs, rows));
+    }
+
+    private static long byName(ResultSet rs, int rows) throws SQLException {
+        long checksum = 0;
+        for (int i = 0; i < rows; i++) {
+            Transaction t = new Transaction();
+            t.setTransactionId(rs.getInt("transaction_id"));
+            t.setSenderId(rs.getInt("sender_id"));
+            t.setReceiverId(rs.getInt("receiver_id"));
+            t.setAmount(rs.getBigDecimal("amount"));
+            t.setType(TransactionType.valueOf(rs.getString("transaction_type")));
+            t.setStatus(TransactionStatus.valueOf(rs.getString("status")));
+            t.setTimestamp(rs.getTimestamp("txn_timestamp"));
+            t.setSenderBalanceAfter(rs.getBigDecimal("sender_balance_after"));
+            t.setReceiverBalanceAfter(rs.getBigDecimal("receiver_balance_after"));
+            checksum += t.getTransactionId();
+        }
+        return checksum;
+    }
+
+    private static long byPosition(ResultSet rs, int rows) throws SQLException {
+        long checksum = 0;
+        for (int i = 0; i < rows; i++) {
+            checksum += RowMappers.TRANSACTION.map(rs).getTransactionId();
+        }
+        return checksum;
+    }
+
+    /**
+     * A result set positioned on one row; name getters resolve the label first.
+     */
+    private static ResultSet resultSet(List<String> labels, Object[] values) {
+        return (ResultSet) Proxy.newProxyInstance(
+                RowMapperBenchmark.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object column = args[0];
+                    int index;
+                    if (column instanceof String) {
+                        index = -1;
+                        for (int i = 0; i < labels.size(); i++) {
+                            if (labels.get(i).equalsIgnoreCase((String) column)) {
+                                index = i + 1;
+                                break;
+                            }
+                        }
+                        if (index < 0) {
+                            throw new SQLException("Invalid column name " + column);
+                        }
+                    } else {
+                        index = (Integer) column;
+                    }
+                    return values[index - 1];
+                });
+    }
+
+    private interface Run {
+        long run() throws SQLException;
+    }
+
+    private static void measure(String name, int rows, Run run) throws SQLException {
+        long start = System.nanoTime();
+        long checksum = run.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-12s %,12.0f rows/s  (%.0f ns/row, checksum %d)%n",
+                name, rows / seconds, seconds * 1e9 / rows, checksum);
+    }
+}
@@ -0,0 +1,105 @@
+package com.revpay.test.bench;
+
+import com.revpay.dao.TransactionDAO;
+import com.revpay.dao.UserDAO;
+import com.revpay.dao.WalletDAO;
+import com.revpay.model.Role;
+import com.revpay.model.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contention benchmark: 64 payers paying one merchant concurrently, with the
+ * merchant's wallet unsharded and then sharded.
+ * <p>
+ * Needs the Oracle database from {@code database_setup.sql}. Run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.ShardedWalletBenchmark 200 16}
+ * (payments per payer, shard count). Test users are deleted afterwards.
+ * </p>
+ */
+public class ShardedWalletBenchmark {
+
+    private static final int PAYERS = 64;
+
+    private final UserDAO userDAO = new UserDAO();
+    private final WalletDAO walletDAO = new WalletDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+
+    public static void main(String[] args) throws InterruptedException {
+        int paymentsPerPayer = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        new ShardedWalletBenchmark().run(paymentsPerPayer, shards);
+    }
+
+    private void run(int paymentsPerPayer, int shards) throws InterruptedException {
+        String tag = "bench" + System.currentTimeMillis();
+        int merchantId = createUser(tag + "_merchant@revpay.com", Role.BUSINESS);
+        List<Integer> payers = new ArrayList<>();
+        for (int i = 0; i < PAYERS; i++) {
+            payers.add(createUser(tag + "_payer" + i + "@revpay.com", Role.PERSONAL));
+        }
+
+        try {
+            for (int payer : payers) {
+                walletDAO.updateBalance(payer, new BigDecimal("1000000.00"));
+            }
+            walletDAO.updateBalance(merchantId, BigDecimal.ZERO);
+
+            walletDAO.enableSharding(merchantId, 0);
+            measure("unsharded", merchantId, payers, paymentsPerPayer);
+
+            walletDAO.enableSharding(merchantId, shards);
+            measure(shards + " shards", merchantId, payers, paymentsPerPayer);
+
+            BigDecimal expected = new BigDecimal("1.00").multiply(BigDecimal.valueOf(2L * PAYERS * paymentsPerPayer));
+            System.out.println("merchant balance " + walletDAO.getBalance(merchantId) + " (expected " + expected + ")");
+        } finally {
+            userDAO.deleteUser(merchantId);
+            for (int payer : payers) {
+                userDAO.deleteUser(payer);
+            }
+        }
+    }
+
+    private void measure(String label, int merchantId, List<Integer> payers, int paymentsPerPayer) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(PAYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        for (int payer : payers) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < paymentsPerPayer; i++) {
+                    if (!transactionDAO.transferMoney(payer, merchantId, new BigDecimal("1.00"))) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        int total = PAYERS * paymentsPerPayer;
+        System.out.printf("%-10s %,d payments in %.2f s = %,.0f payments/s (%d failed)%n",
+                label, total, seconds, total / seconds, failures.get());
+    }
+
+    private int createUser(String email, Role role) {
+        userDAO.registerUser(new User(email, "0000000000", "pass", "0000", "Bench", role));
+        return userDAO.getUserByEmail(email).getUserId();
+    }
+}
@@ -0,0 +1,134 @@
+package com.revpay.test.bench;
+
+import com.revpay.config.DatabaseConnection;
+import com.revpay.dao.UserDAO;
+import com.revpay.dao.WalletDAO;
+import com.revpay.model.Role;
+import com.revpay.model.User;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-modify-write balance adjustments: optimistic compare-and-set on the row
+ * version ({@link WalletDAO#adjustBalance}) versus a pessimistic
+ * {@code SELECT ... FOR UPDATE} followed by an update.
+ * <p>
+ * Needs the Oracle database from {@code database_setup.sql}. Run manually, e.g.
+ * {@code java -cp <classpath> com.revpay.test.bench.WalletCasBenchmark 16 200 4}
+ * (threads, adjustments per thread, wallets shared by the threads). Fewer wallets
+ * means more contention. Each variant adds 1.00 per adjustment and checks the final
+ * balances, so a lost update shows up as a shortfall. Test users are deleted afterwards.
+ * </p>
+ */
+public class WalletCasBenchmark {
+
+    private final UserDAO userDAO = new UserDAO();
+    private final WalletDAO walletDAO = new WalletDAO();
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int wallets = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        new WalletCasBenchmark().run(threads, perThread, wallets);
+    }
+
+    private interface Adjustment {
+        boolean apply(int userId);
+    }
+
+    private void run(int threads, int perThread, int walletCount) throws InterruptedException {
+        String tag = "cas" + System.currentTimeMillis();
+        List<Integer> wallets = new ArrayList<>();
+        for (int i = 0; i < walletCount; i++) {
+            String email = tag + "_" + i + "@revpay.com";
+            userDAO.registerUser(new User(email, "0000000000", "pass", "0000", "Bench", Role.PERSONAL));
+            wallets.add(userDAO.getUserByEmail(email).getUserId());
+        }
+
+        try {
+            measure("optimistic", threads, perThread, wallets,
+                    userId -> walletDAO.adjustBalance(userId, b -> b.add(BigDecimal.ONE)) != null);
+            measure("pessimistic", threads, perThread, wallets, this::lockAndAdd);
+        } finally {
+            for (int userId : wallets) {
+                userDAO.deleteUser(userId);
+            }
+        }
+    }
+
+    private void measure(String label, int threads, int perThread, List<Integer> wallets, Adjustment adjustment)
+            throws InterruptedException {
+        for (int userId : wallets) {
+            walletDAO.updateBalance(userId, BigDecimal.ZERO);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger applied = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    if (adjustment.apply(wallets.get((offset + i) % wallets.size()))) {
+                        applied.incrementAndGet();
+                    }
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (int userId : wallets) {
+            total = total.add(walletDAO.getBalance(userId));
+        }
+        int attempted = threads * perThread;
+        System.out.printf("%-12s %,d adjustments in %.2f s = %,.0f/s (%d applied, balances sum %s, %s)%n",
+                label, attempted, seconds, attempted / seconds, applied.get(), total,
+                total.intValue() == applied.get() ? "no lost updates" : "LOST UPDATES");
+    }
+
+    private boolean lockAndAdd(int userId) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement lock = conn.prepareStatement("SELECT balance FROM wallets WHERE user_id = ? FOR UPDATE");
+                 PreparedStatement update = conn.prepareStatement(
+                         "UPDATE wallets SET balance = ?, version = version + 1 WHERE user_id = ?")) {
+                lock.setInt(1, userId);
+                ResultSet rs = lock.executeQuery();
+                if (!rs.next()) {
+                    conn.rollback();
+                    return false;
+                }
+                update.setBigDecimal(1, rs.getBigDecimal(1).add(BigDecimal.ONE));
+                update.setInt(2, userId);
+                update.executeUpdate();
+                conn.commit();
+                return true;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.revpay.test.config;
+
+import com.revpay.config.Bulkhead;
+import com.revpay.config.CircuitBreaker;
+import com.revpay.config.JdbcInterceptor;
+import com.revpay.config.Workload;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Bulkhead} and the per-workload limits applied by {@link JdbcInterceptor}.
+ * <p>
+ * Uses an in-memory fake driver connection, so no database is required.
+ * </p>
+ */
+public class BulkheadTest {
+
+    /**
+     * At most {@code capacity} permits are out; a released permit can be taken again.
+     */
+    @Test
+    public void testLimitsConcurrentUse() {
+        Bulkhead bulkhead = new Bulkhead("test.bulkhead", 2, 10);
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse("Full bulkhead refuses after the wait", bulkhead.tryAcquire());
+        assertEquals(2, bulkhead.inUse());
+
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    /**
+     * Statements get their workload's query timeout, or their own budget by statement id.
+     */
+    @Test
+    public void testQueryTimeoutBudgets() throws Exception {
+        List<Integer> timeouts = new ArrayList<>();
+        Connection conn = JdbcInterceptor.wrap(fakeConnection(timeouts, null), Workload.HEAVY, null, null);
+        conn.prepareStatement("/* test.scan */ SELECT * FROM transactions");
+
+        System.setProperty("revpay.sql.timeout.test.quick", "2");
+        try {
+            conn.prepareStatement("/* test.quick */ SELECT 1 FROM dual");
+        } finally {
+            System.clearProperty("revpay.sql.timeout.test.quick");
+        }
+        assertEquals(Integer.valueOf(Workload.HEAVY.queryTimeoutSeconds(null)), timeouts.get(0));
+        assertEquals(Integer.valueOf(2), timeouts.get(1));
+        assertTrue(Workload.INTERACTIVE.queryTimeoutSeconds(null) < Workload.HEAVY.queryTimeoutSeconds(null));
+    }
+
+    /**
+     * Closing the connection runs the release hook once; timeouts feed the breaker.
+     */
+    @Test
+    public void testReleaseAndBreaker() throws Exception {
+        int[] released = {0};
+        CircuitBreaker breaker = new CircuitBreaker("test.breaker", 2, 60_000);
+        Connection conn = JdbcInterceptor.wrap(fakeConnection(new ArrayList<>(),
+                new SQLTimeoutException("ORA-01013", "72000", 1013)), Workload.INTERACTIVE, breaker, () -> released[0]++);
+
+        PreparedStatement stmt = conn.prepareStatement("/* test.slow */ SELECT 1 FROM dual");
+        for (int i = 0; i < 2; i++) {
+            try {
+                stmt.executeQuery();
+                fail("Expected the fake timeout");
+            } catch (SQLTimeoutException expected) {
+                // counted by the breaker
+            }
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        conn.close();
+        conn.close();
+        assertEquals(1, released[0]);
+    }
+
+    /**
+     * Builds a fake connection recording query timeouts; executions throw {@code error} if given.
+     */
+    private static Connection fakeConnection(List<Integer> timeouts, SQLException error) {
+        PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                BulkheadTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if ("setQueryTimeout".equals(method.getName())) {
+                        timeouts.add((Integer) args[0]);
+                    } else if (method.getName().startsWith("execute") && error != null) {
+                        throw error;
+                    }
+                    return null;
+                });
+        return (Connection) Proxy.newProxyInstance(
+                BulkheadTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> "prepareStatement".equals(method.getName()) ? stmt : null);
+    }
+}
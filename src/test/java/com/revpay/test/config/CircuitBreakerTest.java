@@ -0,0 +1,93 @@
+package com.revpay.test.config;
+
+import com.revpay.config.CircuitBreaker;
+import com.revpay.config.JdbcInterceptor;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CircuitBreaker}, using a fake clock.
+ */
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final CircuitBreaker breaker = new CircuitBreaker("test.breaker", 3, 500, now::get);
+
+    /**
+     * Consecutive failures open the breaker; a success in between resets the count.
+     */
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allow());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse("Open breaker fails fast", breaker.allow());
+    }
+
+    /**
+     * After the open period one trial goes through; its outcome decides the state.
+     */
+    @Test
+    public void testHalfOpenTrial() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        now.addAndGet(500);
+        assertTrue("Trial allowed", breaker.allow());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse("Only one trial at a time", breaker.allow());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allow());
+
+        now.addAndGet(500);
+        assertTrue(breaker.allow());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allow());
+    }
+
+    /**
+     * A trial that never reports back does not keep the breaker half-open forever.
+     */
+    @Test
+    public void testLostTrialIsRetried() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        now.addAndGet(500);
+        assertTrue(breaker.allow());
+        now.addAndGet(499);
+        assertFalse(breaker.allow());
+        now.addAndGet(1);
+        assertTrue(breaker.allow());
+    }
+
+    /**
+     * Only errors showing the database is unreachable or slow count as failures.
+     */
+    @Test
+    public void testDegradedErrors() {
+        assertTrue(JdbcInterceptor.isDegraded(new SQLTimeoutException("ORA-01013", "72000", 1013)));
+        assertTrue(JdbcInterceptor.isDegraded(new SQLRecoverableException("IO Error")));
+        assertTrue(JdbcInterceptor.isDegraded(new SQLException("No more data", "08006", 17410)));
+        assertTrue(JdbcInterceptor.isDegraded(new SQLException("ORA-03113", "61000", 3113)));
+        assertFalse(JdbcInterceptor.isDegraded(new SQLIntegrityConstraintViolationException("ORA-00001", "23000", 1)));
+        assertFalse(JdbcInterceptor.isDegraded(new SQLException("ORA-00942", "42000", 942)));
+    }
+}
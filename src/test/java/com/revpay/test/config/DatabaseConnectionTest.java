@@ -52,7 +52,7 @@ import static org.junit.Assert.*;
 public class DatabaseConnectionTest {
 
     @Test
-    public void testGetConnection() {
+    public void testGetConnection() throws SQLException {
         // 1. Attempt to get connection
         Connection conn = DatabaseConnection.getConnection();
 
@@ -0,0 +1,78 @@
+package com.revpay.test.config;
+
+import com.revpay.config.JdbcInterceptor;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JdbcInterceptor}.
+ * <p>
+ * Uses an in-memory fake driver connection, so no database is required.
+ * </p>
+ */
+public class JdbcInterceptorTest {
+
+    /**
+     * Builds a fake connection whose statements report one updated row.
+     */
+    private static Connection fakeConnection() {
+        PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                JdbcInterceptorTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> "executeUpdate".equals(method.getName()) ? Integer.valueOf(1) : null);
+        return (Connection) Proxy.newProxyInstance(
+                JdbcInterceptorTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> "prepareStatement".equals(method.getName()) ? stmt : null);
+    }
+
+    /**
+     * Null connections pass through untouched.
+     */
+    @Test
+    public void testWrapNull() {
+        assertNull(JdbcInterceptor.wrap(null));
+    }
+
+    /**
+     * Executing a wrapped statement emits a SqlExecution event with id, rows and outcome.
+     */
+    @Test
+    public void testEmitsSqlExecutionEvent() throws Exception {
+        Path file = Files.createTempFile("revpay-jdbc", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.revpay.SqlExecution").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+
+            Connection conn = JdbcInterceptor.wrap(fakeConnection());
+            PreparedStatement stmt = conn.prepareStatement("/* test.update */ UPDATE wallets SET balance = ?");
+            assertEquals(1, stmt.executeUpdate());
+            assertSame("Statements report the wrapped connection", conn, stmt.getConnection());
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.deleteIfExists(file);
+
+        RecordedEvent found = null;
+        for (RecordedEvent e : events) {
+            if ("test.update".equals(e.getString("sqlId"))) {
+                found = e;
+            }
+        }
+        assertNotNull("SqlExecution event should be recorded", found);
+        assertEquals(1L, found.getLong("rowsAffected"));
+        assertEquals("OK", found.getString("outcome"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.revpay.test.config;
+
+import com.revpay.config.SqlBindMasker;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SqlBindMasker}.
+ * <p>
+ * Card numbers and password hashes must never reach the slow-query log.
+ * </p>
+ */
+public class SqlBindMaskerTest {
+
+    /**
+     * INSERT column lists map binds positionally; the card column is masked.
+     */
+    @Test
+    public void testInsertMasksCardColumn() {
+        String sql = "INSERT INTO payment_methods (user_id, card_number_encrypted, card_type, expiry_date) VALUES (?, ?, ?, ?)";
+        Object[] binds = {null, 7, "4111-xxxx", "VISA", null};
+
+        String out = SqlBindMasker.render(sql, binds);
+
+        assertEquals("[1=7, 2=****, 3='VISA', 4=NULL]", out);
+    }
+
+    /**
+     * WHERE/SET comparisons are matched to the column on their left.
+     */
+    @Test
+    public void testComparisonMasksPasswordColumn() {
+        String sql = "UPDATE users SET password_hash = ? WHERE email = ?";
+        Object[] binds = {null, "secret", "a@b.com"};
+
+        assertEquals("[1=****, 2='a@b.com']", SqlBindMasker.render(sql, binds));
+    }
+
+    /**
+     * Values that look like card numbers or BCrypt hashes are masked wherever they appear.
+     */
+    @Test
+    public void testValueHeuristics() {
+        String sql = "SELECT * FROM audit WHERE note = ? OR other = ?";
+        Object[] binds = {null, "4111111111111111", "$2a$12$abcdefghijklmnopqrstuv"};
+
+        assertEquals("[1=****, 2=****]", SqlBindMasker.render(sql, binds));
+    }
+
+    /**
+     * Question marks inside string literals are not placeholders.
+     */
+    @Test
+    public void testLiteralQuestionMarkIgnored() {
+        String sql = "SELECT * FROM users WHERE full_name = 'who?' AND transaction_pin = ?";
+        Object[] binds = {null, "1234"};
+
+        assertEquals("[1=****]", SqlBindMasker.render(sql, binds));
+    }
+}
@@ -0,0 +1,42 @@
+package com.revpay.test.config;
+
+import com.revpay.config.SqlIds;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SqlIds}.
+ */
+public class SqlIdsTest {
+
+    /**
+     * A leading comment names the statement.
+     */
+    @Test
+    public void testTaggedStatement() {
+        assertEquals("transfer.withdraw",
+                SqlIds.of("/* transfer.withdraw */ UPDATE wallets SET balance = balance - ? WHERE user_id = ?"));
+    }
+
+    /**
+     * Untagged statements are identified by verb and table.
+     */
+    @Test
+    public void testDerivedIds() {
+        assertTrue(SqlIds.of("SELECT * FROM invoices WHERE invoice_id = ?").startsWith("select.invoices."));
+        assertTrue(SqlIds.of("INSERT INTO loans (user_id) VALUES (?)").startsWith("insert.loans."));
+        assertTrue(SqlIds.of("UPDATE payment_requests SET status = ?").startsWith("update.payment_requests."));
+        assertTrue(SqlIds.of("DELETE FROM wallets WHERE user_id = ?").startsWith("delete.wallets."));
+    }
+
+    /**
+     * The same text always maps to the same id, and null is tolerated.
+     */
+    @Test
+    public void testStableAndNullSafe() {
+        String sql = "SELECT balance FROM wallets WHERE user_id = ?";
+        assertEquals(SqlIds.of(sql), SqlIds.of(new String(sql)));
+        assertEquals("unknown", SqlIds.of(null));
+    }
+}
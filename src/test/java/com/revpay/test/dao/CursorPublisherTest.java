@@ -0,0 +1,216 @@
+package com.revpay.test.dao;
+
+import com.revpay.dao.CursorPublisher;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CursorPublisher}, using an in-memory cursor.
+ */
+public class CursorPublisherTest {
+
+    /**
+     * Rows are read only as far as the subscriber has requested.
+     */
+    @Test
+    public void testReadsOnlyRequestedRows() {
+        CountingCursor cursor = new CountingCursor(100);
+        Recorder recorder = new Recorder(0);
+        publisher(cursor).subscribe(recorder);
+
+        assertEquals("Nothing is opened before the first request", 0, cursor.opened);
+        recorder.subscription.request(3);
+        assertEquals(List.of(1, 2, 3), recorder.rows);
+        assertEquals(3, cursor.reads);
+
+        recorder.subscription.request(2);
+        assertEquals(5, cursor.reads);
+        assertFalse(cursor.closed);
+    }
+
+    /**
+     * Cancelling closes the cursor at once; nothing is signalled afterwards.
+     */
+    @Test
+    public void testCancelClosesCursor() {
+        CountingCursor cursor = new CountingCursor(100);
+        Recorder recorder = new Recorder(0);
+        publisher(cursor).subscribe(recorder);
+        recorder.subscription.request(2);
+
+        recorder.subscription.cancel();
+        assertTrue(cursor.closed);
+        recorder.subscription.request(5);
+        assertEquals(2, recorder.rows.size());
+        assertFalse(recorder.completed);
+    }
+
+    /**
+     * The cursor is closed before onComplete, and errors close it before onError.
+     */
+    @Test
+    public void testCompletionAndErrorClose() {
+        CountingCursor cursor = new CountingCursor(2);
+        boolean[] closedAtComplete = {false};
+        Recorder recorder = new Recorder(10) {
+            @Override
+            public void onComplete() {
+                closedAtComplete[0] = cursor.closed;
+                super.onComplete();
+            }
+        };
+        publisher(cursor).subscribe(recorder);
+        assertTrue(recorder.completed);
+        assertTrue("Closed before onComplete", closedAtComplete[0]);
+
+        CountingCursor failing = new CountingCursor(5);
+        failing.failAt = 3;
+        Recorder failed = new Recorder(10);
+        publisher(failing).subscribe(failed);
+        assertEquals(2, failed.rows.size());
+        assertNotNull(failed.error);
+        assertTrue(failing.closed);
+
+        Recorder invalid = new Recorder(0);
+        CountingCursor unused = new CountingCursor(5);
+        publisher(unused).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Requesting one row at a time from onNext does not recurse.
+     */
+    @Test
+    public void testRequestFromOnNextDoesNotRecurse() {
+        int rows = 200_000;
+        CountingCursor cursor = new CountingCursor(rows);
+        Recorder recorder = new Recorder(1) {
+            @Override
+            public void onNext(Integer row) {
+                count++;
+                subscription.request(1);
+            }
+        };
+        publisher(cursor).subscribe(recorder);
+        assertEquals(rows, recorder.count);
+        assertTrue(recorder.completed);
+    }
+
+    /**
+     * With a pool, rows are read off the subscriber's thread, still one request at a time.
+     */
+    @Test
+    public void testRunsOnExecutor() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            CountingCursor cursor = new CountingCursor(1000);
+            Recorder recorder = new Recorder(1) {
+                @Override
+                public void onNext(Integer row) {
+                    rows.add(row);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onComplete() {
+                    super.onComplete();
+                    done.countDown();
+                }
+            };
+            new CursorPublisher<>("test.stream", () -> cursor, pool).subscribe(recorder);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1000, recorder.rows.size());
+            assertEquals(Integer.valueOf(1000), recorder.rows.get(999));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static CursorPublisher<Integer> publisher(CountingCursor cursor) {
+        return new CursorPublisher<>("test.stream", () -> {
+            cursor.opened++;
+            return cursor;
+        }, Runnable::run);
+    }
+
+    /**
+     * Yields 1..size and records how it was used.
+     */
+    private static class CountingCursor implements CursorPublisher.Cursor<Integer> {
+        final int size;
+        int opened;
+        int reads;
+        int failAt = -1;
+        volatile boolean closed;
+
+        CountingCursor(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Integer next() throws Exception {
+            assertFalse("Read after close", closed);
+            reads++;
+            if (reads == failAt) {
+                throw new java.sql.SQLException("connection reset");
+            }
+            return reads <= size ? reads : null;
+        }
+
+        @Override
+        public void close() {
+            assertFalse("Closed twice", closed);
+            closed = true;
+        }
+    }
+
+    /**
+     * Records signals; requests {@code initial} rows on subscribe.
+     */
+    private static class Recorder implements Flow.Subscriber<Integer> {
+        final long initial;
+        final List<Integer> rows = new ArrayList<>();
+        Flow.Subscription subscription;
+        int count;
+        volatile boolean completed;
+        Throwable error;
+
+        Recorder(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initial > 0) {
+                subscription.request(initial);
+            }
+        }
+
+        @Override
+        public void onNext(Integer row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.revpay.test.dao;
+
+import com.revpay.dao.IdAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link IdAllocator}, with sequences simulated in memory.
+ */
+public class IdAllocatorTest {
+
+    private static final int INCREMENT = 100;
+
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+    private final AtomicLong reservations = new AtomicLong();
+    private long now;
+    private IdAllocator allocator;
+
+    @Before
+    public void setUp() {
+        allocator = new IdAllocator((conn, sequence) -> {
+            reservations.incrementAndGet();
+            long value = sequences.computeIfAbsent(sequence, s -> new AtomicLong(1 - INCREMENT)).addAndGet(INCREMENT);
+            return new IdAllocator.Block(value, INCREMENT);
+        }, 5000, () -> now);
+    }
+
+    /**
+     * IDs come from memory until the block is used up; each sequence has its own block.
+     */
+    @Test
+    public void testOneRoundTripPerBlock() throws SQLException {
+        for (long expected = 1; expected <= 250; expected++) {
+            assertEquals(expected, allocator.next(null, IdAllocator.TRANSACTIONS));
+        }
+        assertEquals(3, reservations.get());
+        assertEquals(1, allocator.next(null, IdAllocator.INVOICES));
+        assertEquals(4, reservations.get());
+    }
+
+    /**
+     * A block older than the maximum age is abandoned for a fresh one.
+     */
+    @Test
+    public void testOldBlockIsAbandoned() throws SQLException {
+        assertEquals(1, allocator.next(null, IdAllocator.TRANSACTIONS));
+        now += 5000;
+        assertEquals(2, allocator.next(null, IdAllocator.TRANSACTIONS));
+        now += 5001;
+        assertEquals(101, allocator.next(null, IdAllocator.TRANSACTIONS));
+        assertEquals(2, reservations.get());
+    }
+
+    /**
+     * A failed reservation reaches the caller and the next call tries again.
+     */
+    @Test
+    public void testFailedReservation() throws SQLException {
+        IdAllocator failing = new IdAllocator((conn, sequence) -> {
+            if (reservations.incrementAndGet() == 1) {
+                throw new SQLException("ORA-03113: end-of-file on communication channel");
+            }
+            return new IdAllocator.Block(501, 1);
+        }, 5000, () -> now);
+
+        try {
+            failing.next(null, IdAllocator.LOANS);
+            fail("Expected the reservation error");
+        } catch (SQLException expected) {
+            assertTrue(expected.getMessage().startsWith("ORA-03113"));
+        }
+        assertEquals(501, failing.next(null, IdAllocator.LOANS));
+    }
+
+    /**
+     * Concurrent callers never receive the same ID.
+     */
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(allocator.next(null, IdAllocator.TRANSACTIONS));
+                }
+                return ids;
+            }));
+        }
+        Set<Long> all = Collections.synchronizedSet(new HashSet<>());
+        for (Future<List<Long>> future : futures) {
+            all.addAll(future.get());
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(8000, all.size());
+        assertEquals(80, reservations.get());
+    }
+}
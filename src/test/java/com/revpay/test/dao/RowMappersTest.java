@@ -0,0 +1,167 @@
+package com.revpay.test.dao;
+
+import com.revpay.dao.Projection;
+import com.revpay.dao.RowMappers;
+import com.revpay.model.BalanceHold;
+import com.revpay.model.Invoice;
+import com.revpay.model.Loan;
+import com.revpay.model.Role;
+import com.revpay.model.Transaction;
+import com.revpay.model.TransactionType;
+import com.revpay.model.User;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RowMappers}.
+ * <p>
+ * Rows come from an in-memory result set that rejects access by column name, so
+ * every mapper is checked to read exactly the columns its projection selects.
+ * </p>
+ */
+public class RowMappersTest {
+
+    /**
+     * Builds a one-row result set over {@code values}; name-based getters throw.
+     */
+    private static ResultSet row(Object... values) {
+        boolean[] consumed = {false};
+        return (ResultSet) Proxy.newProxyInstance(
+                RowMappersTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if ("next".equals(method.getName())) {
+                        boolean hasRow = !consumed[0];
+                        consumed[0] = true;
+                        return hasRow;
+                    }
+                    if (args == null || args.length != 1 || !(args[0] instanceof Integer)) {
+                        throw new UnsupportedOperationException(method.getName() + " by name");
+                    }
+                    int index = (Integer) args[0];
+                    if (index < 1 || index > values.length) {
+                        throw new IndexOutOfBoundsException("column " + index + " of " + values.length);
+                    }
+                    Object value = values[index - 1];
+                    if (value == null && method.getReturnType() == int.class) {
+                        return 0;
+                    }
+                    return value;
+                });
+    }
+
+    /**
+     * Selects are built from the explicit column list, never {@code SELECT *}.
+     */
+    @Test
+    public void testSelectListsColumns() {
+        assertEquals("SELECT request_id, requester_id, payer_id, amount, status FROM payment_requests",
+                RowMappers.PAYMENT_REQUEST.select());
+        for (Projection<?> p : Arrays.asList(RowMappers.USER, RowMappers.PAYMENT_METHOD, RowMappers.TRANSACTION,
+                RowMappers.PAYMENT_REQUEST, RowMappers.INVOICE, RowMappers.LOAN, RowMappers.BALANCE_HOLD,
+                RowMappers.SCHEDULED_TRANSFER)) {
+            assertFalse(p.select().contains("*"));
+            assertTrue(p.select().endsWith(" FROM " + p.getTable()));
+        }
+    }
+
+    /**
+     * The user mapper reads its seven columns by position and falls back to PERSONAL.
+     */
+    @Test
+    public void testUser() throws Exception {
+        User user = RowMappers.USER.map(row(7, "a@b.c", "555", "hash", "pin", "Ann", "BUSINESS"));
+        assertEquals(7, user.getUserId());
+        assertEquals("Ann", user.getFullName());
+        assertEquals(Role.BUSINESS, user.getRole());
+
+        User legacy = RowMappers.USER.map(row(8, "x@y.z", "556", "hash", "pin", "Bob", "UNKNOWN"));
+        assertEquals(Role.PERSONAL, legacy.getRole());
+        assertEquals(7, RowMappers.USER.getColumns().size());
+    }
+
+    /**
+     * Transactions map all nine columns, including nullable balances.
+     */
+    @Test
+    public void testTransaction() throws Exception {
+        Timestamp ts = new Timestamp(1_700_000_000_000L);
+        Transaction t = RowMappers.TRANSACTION.map(row(11, 1, 2, new BigDecimal("10.50"), "TRANSFER", "SUCCESS",
+                ts, new BigDecimal("89.50"), null));
+        assertEquals(11, t.getTransactionId());
+        assertEquals(2, t.getReceiverId());
+        assertEquals(TransactionType.TRANSFER, t.getType());
+        assertEquals(ts, t.getTimestamp());
+        assertEquals(new BigDecimal("89.50"), t.getSenderBalanceAfter());
+        assertNull(t.getReceiverBalanceAfter());
+        assertEquals(9, RowMappers.TRANSACTION.getColumns().size());
+    }
+
+    /**
+     * Invoices, loans and payment methods read the columns their projections list.
+     */
+    @Test
+    public void testInvoiceLoanAndCard() throws Exception {
+        Timestamp ts = new Timestamp(1_700_000_000_000L);
+        List<Invoice> invoices = RowMappers.INVOICE.mapAll(
+                row(3, 9, "c@d.e", new BigDecimal("99.00"), "Consulting", "UNPAID", ts));
+        assertEquals(1, invoices.size());
+        assertEquals("Consulting", invoices.get(0).getDescription());
+        assertEquals(ts, invoices.get(0).getCreatedAt());
+
+        Loan loan = RowMappers.LOAN.map(row(4, 9, new BigDecimal("500.00"), "Stock", "NOT_A_STATUS", ts));
+        assertEquals("Stock", loan.getReason());
+        assertNull("Unknown status is left unset", loan.getStatus());
+        assertEquals(ts, loan.getAppliedAt());
+
+        Date expiry = Date.valueOf("2030-01-31");
+        assertEquals(expiry, RowMappers.PAYMENT_METHOD.map(row(5, 9, "enc", "VISA", expiry)).getExpiryDate());
+    }
+
+    /**
+     * Holds map their type, status and expiry action from the stored codes.
+     */
+    @Test
+    public void testBalanceHold() throws Exception {
+        Timestamp ts = new Timestamp(1_700_000_000_000L);
+        BalanceHold hold = RowMappers.BALANCE_HOLD.map(row(6, 9, "CREDIT", new BigDecimal("40.00"), "PENDING",
+                "card-4242", ts, "SETTLE"));
+        assertEquals(6, hold.getHoldId());
+        assertEquals(BalanceHold.Type.CREDIT, hold.getType());
+        assertEquals(4000, hold.getAmount().getMinor());
+        assertEquals(BalanceHold.Status.PENDING, hold.getStatus());
+        assertEquals(ts, hold.getExpiresAt());
+        assertTrue(hold.isSettleOnExpiry());
+        assertFalse(RowMappers.BALANCE_HOLD.map(row(7, 9, "DEBIT", BigDecimal.ONE, "RELEASED", null, ts, "RELEASE"))
+                .isSettleOnExpiry());
+    }
+
+    /**
+     * Summary projections select a CLOB prefix and cut long text to a marked preview.
+     */
+    @Test
+    public void testSummaryPreviews() throws Exception {
+        assertFalse(RowMappers.INVOICE_SUMMARY.select().contains("amount, description"));
+        assertTrue(RowMappers.INVOICE_SUMMARY.select().contains("DBMS_LOB.SUBSTR(description, 81, 1) AS description"));
+        assertTrue(RowMappers.LOAN_SUMMARY.select().contains("DBMS_LOB.SUBSTR(reason, 81, 1) AS reason"));
+
+        String longText = "x".repeat(RowMappers.PREVIEW_CHARS + 1);
+        Loan loan = RowMappers.LOAN_SUMMARY.map(row(4, 9, new BigDecimal("500.00"), longText, "PENDING", null));
+        assertEquals(RowMappers.PREVIEW_CHARS, loan.getReason().length());
+        assertTrue(loan.getReason().endsWith("…"));
+
+        String exact = "y".repeat(RowMappers.PREVIEW_CHARS);
+        assertSame(exact, RowMappers.preview(exact));
+        assertNull(RowMappers.preview(null));
+        Invoice invoice = RowMappers.INVOICE_SUMMARY.map(row(3, 9, "c@d.e", BigDecimal.ONE, "Short", "PAID", null));
+        assertEquals("Short", invoice.getDescription());
+    }
+}
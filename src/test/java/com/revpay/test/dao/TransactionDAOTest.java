@@ -3,9 +3,11 @@ package com.revpay.test.dao;
 import com.revpay.config.DatabaseConnection;
 import com.revpay.dao.TransactionDAO;
 import com.revpay.dao.UserDAO;
+import com.revpay.ledger.LedgerEntry;
 import com.revpay.model.Role;
 import com.revpay.model.User;
 import com.revpay.model.Transaction;
+import com.revpay.model.TransactionType;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -13,7 +15,12 @@ import org.junit.Test;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -104,4 +111,73 @@ public class TransactionDAOTest {
 
         System.out.println("✅ Transaction Logic Test Passed");
     }
+
+    /**
+     * Test Scenario: A group commit applies each movement on its own savepoint,
+     * so an overdrawn transfer does not undo its siblings.
+     */
+    @Test
+    public void testApplyGroupIsolatesFailures() {
+        long now = System.currentTimeMillis();
+        List<LedgerEntry> movements = Arrays.asList(
+                new LedgerEntry(TransactionType.DEPOSIT, senderId, senderId, 5000, now),           // +50.00
+                new LedgerEntry(TransactionType.TRANSFER, senderId, receiverId, 2000, now),        // -20.00
+                new LedgerEntry(TransactionType.TRANSFER, senderId, receiverId, 100000, now),      // Overdraw
+                new LedgerEntry(TransactionType.TRANSFER, senderId, -1, 100, now));                // Bad receiver
+
+        boolean[] results = transactionDAO.applyGroup(movements);
+
+        assertTrue(results[0]);
+        assertTrue(results[1]);
+        assertFalse("Overdrawn transfer should fail alone", results[2]);
+        assertFalse("Unknown receiver should fail alone", results[3]);
+        assertEquals(2, transactionDAO.getTransactionHistory(senderId).size());
+    }
+
+    /**
+     * Test Scenario: Streaming the history yields the same rows as the list, page by page.
+     */
+    @Test
+    public void testStreamedHistoryMatchesList() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(transactionDAO.depositMoney(senderId, new BigDecimal(i + ".00")));
+        }
+        List<Transaction> expected = transactionDAO.getTransactionHistory(senderId);
+
+        List<Transaction> streamed = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        transactionDAO.streamTransactionHistory(senderId, null, null, Runnable::run).subscribe(new Flow.Subscriber<Transaction>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(2);
+            }
+
+            @Override
+            public void onNext(Transaction t) {
+                streamed.add(t);
+                if (streamed.size() % 2 == 0) {
+                    subscription.request(2);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        done.get(10, TimeUnit.SECONDS);
+        assertEquals(expected.size(), streamed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTransactionId(), streamed.get(i).getTransactionId());
+        }
+    }
 }
\ No newline at end of file
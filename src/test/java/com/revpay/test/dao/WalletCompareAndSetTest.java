@@ -0,0 +1,147 @@
+package com.revpay.test.dao;
+
+import com.revpay.dao.WalletDAO;
+import com.revpay.model.Wallet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress tests for {@link WalletDAO#adjustBalance}, with the versioned wallet row
+ * kept in memory.
+ */
+public class WalletCompareAndSetTest {
+
+    private InMemoryWalletDAO walletDAO;
+
+    @Before
+    public void setUp() {
+        System.setProperty("revpay.wallet.casRetries", "1000");
+        walletDAO = new InMemoryWalletDAO();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("revpay.wallet.casRetries");
+    }
+
+    /**
+     * Concurrent read-modify-write callers collide and retry, but every increment lands.
+     */
+    @Test
+    public void testNoLostUpdates() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                int applied = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (walletDAO.adjustBalance(1, b -> b.add(BigDecimal.ONE)) != null) {
+                        applied++;
+                    }
+                }
+                return applied;
+            }));
+        }
+        start.countDown();
+        int applied = 0;
+        for (Future<Integer> future : futures) {
+            applied += future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, applied);
+        assertEquals(new BigDecimal(threads * perThread), walletDAO.balance);
+        assertEquals(threads * perThread, walletDAO.version);
+        assertTrue("Expected some conflicts", walletDAO.conflicts.get() > 0);
+    }
+
+    /**
+     * An adjustment may decline (e.g. insufficient funds), and a missing wallet is reported.
+     */
+    @Test
+    public void testDeclinedAndMissing() {
+        assertNull(walletDAO.adjustBalance(1, b -> b.compareTo(BigDecimal.TEN) >= 0 ? b.subtract(BigDecimal.TEN) : null));
+        assertEquals(0, walletDAO.version);
+        assertNull(walletDAO.adjustBalance(2, b -> b.add(BigDecimal.ONE)));
+        assertTrue(walletDAO.updateBalance(1, new BigDecimal("25.00")));
+        assertEquals(new BigDecimal("15.00"), walletDAO.adjustBalance(1, b -> b.subtract(BigDecimal.TEN)));
+    }
+
+    /**
+     * Funds held by debit holds cannot be adjusted away, and a database error ends the
+     * call at once instead of being retried like a conflict.
+     */
+    @Test
+    public void testHeldFundsAndErrors() {
+        walletDAO.balance = new BigDecimal("10.00");
+        walletDAO.held = new BigDecimal("4.00");
+        assertNull(walletDAO.adjustBalance(1, b -> b.subtract(new BigDecimal("6.01"))));
+        assertEquals(0, walletDAO.writes.get());
+        assertEquals(new BigDecimal("4.00"), walletDAO.adjustBalance(1, b -> b.subtract(new BigDecimal("6.00"))));
+
+        walletDAO.failing = true;
+        assertNull(walletDAO.adjustBalance(1, b -> b.add(BigDecimal.ONE)));
+        assertEquals("Not retried", 2, walletDAO.writes.get());
+        assertEquals(0, walletDAO.conflicts.get());
+    }
+
+    /**
+     * Keeps one wallet (User 1) as a balance and version; reads and writes are
+     * separate steps, as they are separate statements against the database.
+     */
+    private static class InMemoryWalletDAO extends WalletDAO {
+        BigDecimal balance = BigDecimal.ZERO;
+        BigDecimal held = BigDecimal.ZERO;
+        long version;
+        volatile boolean failing;
+        final AtomicInteger conflicts = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public synchronized Wallet getWallet(int userId) {
+            if (userId != 1) {
+                return null;
+            }
+            Wallet wallet = new Wallet(userId, balance);
+            wallet.setVersion(version);
+            wallet.setHeld(held);
+            return wallet;
+        }
+
+        @Override
+        public Boolean compareAndSetBalance(Wallet expected, BigDecimal newBalance) {
+            writes.incrementAndGet();
+            if (failing) {
+                return null;
+            }
+            Thread.yield(); // Widen the window between read and write
+            synchronized (this) {
+                if (version != expected.getVersion()) {
+                    conflicts.incrementAndGet();
+                    return false;
+                }
+                balance = balance.add(newBalance.subtract(expected.getBalance()));
+                version++;
+                return true;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.revpay.test.dao;
 
+import com.revpay.dao.TransactionDAO;
 import com.revpay.dao.UserDAO;
 import com.revpay.dao.WalletDAO;
 import com.revpay.model.Role;
@@ -9,6 +10,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -21,6 +25,7 @@ import static org.junit.Assert.*;
 public class WalletDAOTest {
 
     private WalletDAO walletDAO = new WalletDAO();
+    private TransactionDAO transactionDAO = new TransactionDAO();
     private UserDAO userDAO = new UserDAO();
     private int tempUserId;
 
@@ -77,4 +82,80 @@ public class WalletDAOTest {
 
         System.out.println("✅ Wallet Lifecycle Test Passed");
     }
+
+    /**
+     * Test Scenario: A sharded wallet spreads credits over shard rows, still reports
+     * one total balance, and keeps it when sharding is removed.
+     */
+    @Test
+    public void testShardedWalletBalance() {
+        walletDAO.createWallet(tempUserId);
+        walletDAO.updateBalance(tempUserId, new BigDecimal("100.00"));
+
+        assertTrue("Sharding should succeed", walletDAO.enableSharding(tempUserId, 4));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(transactionDAO.depositMoney(tempUserId, new BigDecimal("10.00")));
+        }
+        assertEquals(new BigDecimal("130.00"), walletDAO.getBalance(tempUserId));
+
+        assertTrue("Unsharding should succeed", walletDAO.enableSharding(tempUserId, 0));
+        assertEquals(new BigDecimal("130.00"), walletDAO.getBalance(tempUserId));
+    }
+
+    /**
+     * Test Scenario: Each deposit records the balance after it, so the balance at an
+     * earlier moment is read back from the ledger.
+     */
+    @Test
+    public void testBalanceAtPointInTime() throws InterruptedException {
+        walletDAO.createWallet(tempUserId);
+        Timestamp beforeAny = new Timestamp(System.currentTimeMillis() - 1000);
+
+        assertTrue(transactionDAO.depositMoney(tempUserId, new BigDecimal("40.00")));
+        Thread.sleep(20);
+        Timestamp afterFirst = new Timestamp(System.currentTimeMillis());
+        Thread.sleep(20);
+        assertTrue(transactionDAO.depositMoney(tempUserId, new BigDecimal("2.50")));
+
+        assertEquals(0, walletDAO.getBalanceAt(tempUserId, beforeAny).compareTo(BigDecimal.ZERO));
+        assertEquals(new BigDecimal("40.00"), walletDAO.getBalanceAt(tempUserId, afterFirst));
+        assertEquals(new BigDecimal("42.50"), walletDAO.getBalanceAt(tempUserId, new Timestamp(System.currentTimeMillis())));
+    }
+
+    /**
+     * Test Scenario: Concurrent read-modify-write adjustments of one wallet all land;
+     * conflicting ones retry on the row version instead of overwriting each other.
+     */
+    @Test
+    public void testConcurrentAdjustmentsAreNotLost() throws InterruptedException {
+        walletDAO.createWallet(tempUserId);
+        walletDAO.updateBalance(tempUserId, BigDecimal.ZERO);
+
+        // Failures in worker threads would not fail the test, so they are collected
+        // and asserted here after join()
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 25; i++) {
+                        if (walletDAO.adjustBalance(tempUserId, b -> b.add(BigDecimal.ONE)) == null) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull("Worker thread threw", error.get());
+        assertEquals("Adjustments that gave up", 0, failed.get());
+        assertEquals(new BigDecimal("100.00"), walletDAO.getBalance(tempUserId));
+    }
 }
\ No newline at end of file
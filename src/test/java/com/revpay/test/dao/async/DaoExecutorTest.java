@@ -0,0 +1,182 @@
+package com.revpay.test.dao.async;
+
+import com.revpay.config.CancelScope;
+import com.revpay.config.JdbcInterceptor;
+import com.revpay.dao.UserDAO;
+import com.revpay.dao.async.AsyncUserDAO;
+import com.revpay.dao.async.DaoExecutor;
+import com.revpay.model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DaoExecutor} and the async DAO facades.
+ * <p>
+ * Uses fake DAOs and an in-memory fake driver connection, so no database is required.
+ * </p>
+ */
+public class DaoExecutorTest {
+
+    private DaoExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new DaoExecutor(Executors.newFixedThreadPool(2), 0);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * The facade completes with the DAO's result, and independent lookups run concurrently.
+     */
+    @Test
+    public void testFacadeComposes() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        UserDAO dao = new UserDAO() {
+            @Override
+            public User getUserByEmail(String email) {
+                bothStarted.countDown();
+                try {
+                    // Only returns if the other lookup is running at the same time
+                    assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                User user = new User();
+                user.setEmail(email);
+                return user;
+            }
+        };
+        AsyncUserDAO users = new AsyncUserDAO(dao, executor);
+
+        CompletableFuture<String> both = users.getUserByEmail("a@revpay.com")
+                .thenCombine(users.getUserByEmail("b@revpay.com"), (a, b) -> a.getEmail() + "," + b.getEmail());
+        assertEquals("a@revpay.com,b@revpay.com", both.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A timed-out call fails with TimeoutException and its running statement is cancelled.
+     */
+    @Test
+    public void testTimeoutCancelsStatement() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Connection conn = blockingConnection(cancelled);
+        CompletableFuture<Boolean> future = executor.submit("test.slow", () -> {
+            try (PreparedStatement stmt = conn.prepareStatement("/* test.slow */ SELECT 1 FROM dual")) {
+                stmt.executeQuery();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }, 50);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected a timeout");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue("Statement.cancel() was called", cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Cancelling a future before its call starts means the call never runs, and
+     * statements in a cancelled scope fail fast with ORA-01013.
+     */
+    @Test
+    public void testCancelBeforeStart() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DaoExecutor single = new DaoExecutor(Executors.newSingleThreadExecutor(), 0);
+        try {
+            single.submit("test.block", () -> {
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+            AtomicInteger runs = new AtomicInteger();
+            CompletableFuture<Integer> queued = single.submit("test.queued", runs::incrementAndGet);
+            assertTrue(queued.cancel(true));
+            release.countDown();
+            assertEquals(Integer.valueOf(1), single.submit("test.after", () -> 1).get(5, TimeUnit.SECONDS));
+            assertEquals(0, runs.get());
+        } finally {
+            single.shutdown();
+        }
+
+        CancelScope scope = new CancelScope();
+        scope.cancel();
+        Connection conn = blockingConnection(new CountDownLatch(1));
+        SQLException error = scope.call(() -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM dual")) {
+                stmt.executeQuery();
+                return null;
+            } catch (SQLException e) {
+                return e;
+            }
+        });
+        assertNotNull(error);
+        assertEquals(CancelScope.CANCELLED, error.getErrorCode());
+        assertNull("Scope is removed after the call", CancelScope.current());
+    }
+
+    /**
+     * An exception thrown by the call fails the future with it.
+     */
+    @Test
+    public void testFailurePropagates() throws Exception {
+        CompletableFuture<Object> future = executor.submit("test.fail", () -> {
+            throw new IllegalStateException("boom");
+        });
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Builds a wrapped fake connection whose queries block until the statement is cancelled.
+     */
+    private static Connection blockingConnection(CountDownLatch cancelled) {
+        PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+                DaoExecutorTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "cancel":
+                            cancelled.countDown();
+                            return null;
+                        case "executeQuery":
+                            if (cancelled.await(5, TimeUnit.SECONDS)) {
+                                throw new SQLException("ORA-01013", "72000", CancelScope.CANCELLED);
+                            }
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+        return JdbcInterceptor.wrap((Connection) Proxy.newProxyInstance(
+                DaoExecutorTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> "prepareStatement".equals(method.getName()) ? stmt : null));
+    }
+}
@@ -0,0 +1,118 @@
+package com.revpay.test.ledger;
+
+import com.revpay.dao.TransactionDAO;
+import com.revpay.ledger.GroupCommitLedgerEngine;
+import com.revpay.ledger.LedgerEntry;
+import com.revpay.model.TransactionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GroupCommitLedgerEngine}, using an in-process stand-in for the database.
+ */
+public class GroupCommitLedgerEngineTest {
+
+    private FakeTransactionDAO dao;
+    private GroupCommitLedgerEngine engine;
+
+    @Before
+    public void setUp() {
+        dao = new FakeTransactionDAO();
+        dao.balances.put(1, 1000L);
+        dao.balances.put(2, 0L);
+        engine = new GroupCommitLedgerEngine(dao, 16, 50);
+    }
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Requests submitted together share one commit, and each gets its own outcome.
+     */
+    @Test
+    public void testBatchWithIndividualOutcomes() throws Exception {
+        dao.gate = new CountDownLatch(1); // Hold the first batch so the rest queue up
+
+        CompletableFuture<Boolean> first = engine.submitDeposit(2, new BigDecimal("1.00"));
+        List<CompletableFuture<Boolean>> transfers = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            transfers.add(engine.submitTransfer(1, 2, new BigDecimal("1.00"))); // Only 10 are covered
+        }
+        dao.gate.countDown();
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        int accepted = 0;
+        for (CompletableFuture<Boolean> transfer : transfers) {
+            if (transfer.get(5, TimeUnit.SECONDS)) {
+                accepted++;
+            }
+        }
+        assertEquals(10, accepted);
+        assertEquals(Long.valueOf(0), dao.balances.get(1));
+        assertEquals(Long.valueOf(1100), dao.balances.get(2));
+        assertTrue("Requests should have shared commits", dao.batchSizes.size() <= 2);
+    }
+
+    /**
+     * A batch that cannot commit fails every request in it.
+     */
+    @Test
+    public void testCommitFailureFailsBatch() {
+        dao.failCommit = true;
+        assertFalse(engine.transfer(1, 2, new BigDecimal("1.00")));
+        assertFalse(engine.deposit(2, new BigDecimal("1.00")));
+    }
+
+    /**
+     * Applies movements to a map, like applyGroup does against the wallets table.
+     */
+    private static class FakeTransactionDAO extends TransactionDAO {
+        final Map<Integer, Long> balances = new HashMap<>();
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch gate;
+        volatile boolean failCommit;
+
+        @Override
+        public boolean[] applyGroup(List<LedgerEntry> movements) {
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batchSizes.add(movements.size());
+            boolean[] results = new boolean[movements.size()];
+            if (failCommit) {
+                return results;
+            }
+            for (int i = 0; i < movements.size(); i++) {
+                LedgerEntry m = movements.get(i);
+                if (m.getType() == TransactionType.TRANSFER) {
+                    if (balances.get(m.getSenderId()) < m.getAmountMinor()) {
+                        continue;
+                    }
+                    balances.merge(m.getSenderId(), -m.getAmountMinor(), Long::sum);
+                }
+                balances.merge(m.getReceiverId(), m.getAmountMinor(), Long::sum);
+                results[i] = true;
+            }
+            return results;
+        }
+    }
+}
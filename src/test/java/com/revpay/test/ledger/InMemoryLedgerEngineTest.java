@@ -0,0 +1,303 @@
+package com.revpay.test.ledger;
+
+import com.revpay.dao.LedgerDAO;
+import com.revpay.ledger.InMemoryLedgerEngine;
+import com.revpay.ledger.LedgerEntry;
+import com.revpay.ledger.journal.MappedJournal;
+import com.revpay.model.Money;
+import com.revpay.model.TransactionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link InMemoryLedgerEngine}, using an in-process stand-in for the database.
+ */
+public class InMemoryLedgerEngineTest {
+
+    private FakeLedgerDAO dao;
+    private InMemoryLedgerEngine engine;
+
+    @Before
+    public void setUp() {
+        dao = new FakeLedgerDAO();
+        dao.history.put(1, 10000L); // 100.00
+        dao.history.put(2, 0L);
+        dao.wallets.put(3, 500L);   // No history yet, loaded lazily
+        engine = new InMemoryLedgerEngine(dao, 50, null);
+        assertEquals(2, engine.recover());
+    }
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    /**
+     * A valid transfer updates both balances immediately and is persisted later.
+     */
+    @Test
+    public void testTransferAppliedAndPersisted() throws Exception {
+        assertTrue(engine.transfer(1, 2, new BigDecimal("40.25")));
+
+        assertEquals(new BigDecimal("59.75"), engine.getBalance(1));
+        assertEquals(new BigDecimal("40.25"), engine.getBalance(2));
+
+        awaitPersisted(1);
+        LedgerEntry entry = dao.persisted.get(0);
+        assertEquals(TransactionType.TRANSFER, entry.getType());
+        assertEquals(4025L, entry.getAmountMinor());
+    }
+
+    /**
+     * Insufficient funds and unknown wallets are rejected without journaling.
+     */
+    @Test
+    public void testRejectedMovements() {
+        assertFalse(engine.transfer(2, 1, new BigDecimal("1.00")));
+        assertFalse(engine.transfer(1, 99, new BigDecimal("1.00")));
+        assertFalse(engine.deposit(99, new BigDecimal("1.00")));
+        assertFalse(engine.deposit(1, new BigDecimal("0.001")));
+
+        assertEquals(new BigDecimal("100.00"), engine.getBalance(1));
+        assertEquals(0, engine.getPendingCount());
+    }
+
+    /**
+     * A wallet missing from the rebuilt history is loaded from the wallets table.
+     */
+    @Test
+    public void testLazyWalletLoad() {
+        assertTrue(engine.deposit(3, new BigDecimal("2.50")));
+        assertEquals(new BigDecimal("7.50"), engine.getBalance(3));
+    }
+
+    /**
+     * Concurrent transfers never overdraw the sender and conserve money.
+     */
+    @Test
+    public void testConcurrentTransfersConserveMoney() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger accepted = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            pool.execute(() -> {
+                if (engine.transfer(1, 2, new BigDecimal("1.00"))) {
+                    accepted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, accepted.get());
+        assertEquals(0, engine.getBalance(1).signum());
+        assertEquals(new BigDecimal("100.00"), engine.getBalance(2));
+        awaitPersisted(100);
+    }
+
+    /**
+     * Batches that fail to persist are retried rather than dropped.
+     */
+    @Test
+    public void testFailedBatchIsRetried() throws Exception {
+        dao.failuresLeft.set(2);
+        assertTrue(engine.deposit(2, new BigDecimal("5.00")));
+        awaitPersisted(1);
+        assertEquals(0, dao.failuresLeft.get());
+    }
+
+    /**
+     * A key is applied once, whether its first use is still unpersisted or already
+     * in the database, and it is persisted with its movement.
+     */
+    @Test
+    public void testIdempotencyKeys() throws Exception {
+        dao.recordedKeys.add("1:old");
+        assertTrue(engine.transfer(1, 2, Money.parse("1.00"), "1:old"));
+        assertTrue(engine.transfer(1, 2, Money.parse("5.00"), "1:new"));
+        assertTrue(engine.transfer(1, 2, Money.parse("5.00"), "1:new"));
+
+        assertEquals(new BigDecimal("95.00"), engine.getBalance(1));
+        awaitPersisted(1);
+        assertEquals("1:new", dao.persisted.get(0).getIdempotencyKey());
+        assertTrue(engine.transfer(1, 2, Money.parse("5.00"), "1:new"));
+        assertEquals(new BigDecimal("95.00"), engine.getBalance(1));
+    }
+
+    /**
+     * An entry the database rejects is isolated and quarantined; the entries batched
+     * with it are still persisted, in order.
+     */
+    @Test
+    public void testRejectedEntryIsQuarantined() throws Exception {
+        dao.rejectedUsers.add(3);
+        assertTrue(engine.deposit(2, new BigDecimal("1.00")));
+        assertTrue(engine.transfer(1, 3, new BigDecimal("2.00")));
+        assertTrue(engine.deposit(2, new BigDecimal("3.00")));
+        assertTrue(engine.transfer(1, 2, new BigDecimal("4.00")));
+
+        awaitPersisted(3);
+        List<LedgerEntry> quarantined = engine.getQuarantined();
+        assertEquals(1, quarantined.size());
+        assertEquals(3, quarantined.get(0).getReceiverId());
+        assertEquals(Arrays.asList(100L, 300L, 400L),
+                dao.persisted.stream().map(LedgerEntry::getAmountMinor).collect(Collectors.toList()));
+    }
+
+    /**
+     * Journaled movements that never reached the database are replayed on recovery.
+     */
+    @Test
+    public void testJournalReplayedOnRecovery() throws Exception {
+        Path dir = Files.createTempDirectory("ledger-wal");
+        dao.failuresLeft.set(Integer.MAX_VALUE); // Database "down" until the crash
+        InMemoryLedgerEngine crashed = new InMemoryLedgerEngine(dao, 50, new MappedJournal(dir, 4096, 1, false));
+        crashed.recover();
+        assertTrue(crashed.transfer(1, 2, new BigDecimal("10.00")));
+        assertTrue(crashed.deposit(2, new BigDecimal("5.00")));
+
+        InMemoryLedgerEngine recovered = new InMemoryLedgerEngine(dao, 50, new MappedJournal(dir, 4096, 1, false));
+        try {
+            assertEquals(2, recovered.recover());
+            assertEquals(new BigDecimal("90.00"), recovered.getBalance(1));
+            assertEquals(new BigDecimal("15.00"), recovered.getBalance(2));
+        } finally {
+            dao.failuresLeft.set(0);
+            recovered.shutdown();
+            crashed.shutdown();
+        }
+    }
+
+    /**
+     * A keyed movement journaled but never persisted keeps its key across a crash: the
+     * client's retry after recovery is a duplicate, and the key is persisted with the
+     * replayed movement.
+     */
+    @Test
+    public void testJournaledKeyBlocksRetryAfterRecovery() throws Exception {
+        Path dir = Files.createTempDirectory("ledger-wal");
+        FakeLedgerDAO down = new FakeLedgerDAO(); // The crashed process never reaches the database
+        down.history.putAll(dao.history);
+        down.failuresLeft.set(Integer.MAX_VALUE);
+        InMemoryLedgerEngine crashed = new InMemoryLedgerEngine(down, 50, new MappedJournal(dir, 4096, 1, false));
+        crashed.recover();
+        assertTrue(crashed.transfer(1, 2, Money.parse("10.00"), "1:pay"));
+
+        dao.failuresLeft.set(Integer.MAX_VALUE);
+        InMemoryLedgerEngine recovered = new InMemoryLedgerEngine(dao, 50, new MappedJournal(dir, 4096, 1, false));
+        try {
+            recovered.recover();
+            assertTrue(recovered.transfer(1, 2, Money.parse("10.00"), "1:pay"));
+            assertEquals(new BigDecimal("90.00"), recovered.getBalance(1));
+
+            dao.failuresLeft.set(0);
+            awaitPersisted(1);
+            assertEquals("1:pay", dao.persisted.get(0).getIdempotencyKey());
+        } finally {
+            down.failuresLeft.set(0);
+            recovered.shutdown();
+            crashed.shutdown();
+        }
+    }
+
+    /**
+     * A journal that ends below the database checkpoint fails recovery instead of
+     * handing out sequences the checkpoint already covers.
+     */
+    @Test
+    public void testJournalBehindCheckpointIsRefused() throws Exception {
+        Path dir = Files.createTempDirectory("ledger-wal");
+        MappedJournal journal = new MappedJournal(dir, 4096, 1, false);
+        journal.append(TransactionType.DEPOSIT, 1, 1, 100, 1L);
+        journal.close();
+
+        dao.checkpoint = 5;
+        InMemoryLedgerEngine behind = new InMemoryLedgerEngine(dao, 50, new MappedJournal(dir, 4096, 1, false));
+        try {
+            assertEquals(-1, behind.recover());
+        } finally {
+            behind.shutdown();
+        }
+    }
+
+    private void awaitPersisted(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dao.persisted.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, dao.persisted.size());
+    }
+
+    /**
+     * Keeps "database" state in maps.
+     */
+    private static class FakeLedgerDAO extends LedgerDAO {
+        final Map<Integer, Long> history = new HashMap<>();
+        final Map<Integer, Long> wallets = new HashMap<>();
+        final List<LedgerEntry> persisted = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        final Set<Integer> rejectedUsers = new HashSet<>();
+        final Set<String> recordedKeys = ConcurrentHashMap.newKeySet();
+        long checkpoint;
+
+        @Override
+        public Map<Integer, Long> rebuildBalances() {
+            return new HashMap<>(history);
+        }
+
+        @Override
+        public Long loadBalance(int userId) {
+            Long balance = history.get(userId);
+            return balance != null ? balance : wallets.get(userId);
+        }
+
+        @Override
+        public Boolean isKeyRecorded(String key) {
+            return recordedKeys.contains(key);
+        }
+
+        @Override
+        public long loadCheckpoint() {
+            return checkpoint;
+        }
+
+        @Override
+        public PersistOutcome persist(List<LedgerEntry> entries) {
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                return PersistOutcome.FAILED;
+            }
+            for (LedgerEntry entry : entries) {
+                if (rejectedUsers.contains(entry.getSenderId()) || rejectedUsers.contains(entry.getReceiverId())) {
+                    return PersistOutcome.REJECTED;
+                }
+            }
+            for (LedgerEntry entry : entries) {
+                if (entry.getIdempotencyKey() != null) {
+                    recordedKeys.add(entry.getIdempotencyKey());
+                }
+            }
+            persisted.addAll(entries);
+            return PersistOutcome.COMMITTED;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.revpay.test.ledger;
+
+import com.revpay.ledger.LedgerEntry;
+import com.revpay.ledger.NettingBatch;
+import com.revpay.model.TransactionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link NettingBatch}.
+ */
+public class NettingBatchTest {
+
+    private Map<Integer, Long> balances;
+
+    @Before
+    public void setUp() {
+        balances = new HashMap<>();
+        balances.put(1, 1000L);
+        balances.put(2, 0L);
+        balances.put(3, 500L);
+    }
+
+    /**
+     * Back-and-forth payments collapse into one net delta per user, and pairs that
+     * cancel out need no wallet update at all.
+     */
+    @Test
+    public void testNetsBackAndForthTransfers() {
+        NettingBatch batch = new NettingBatch(balances);
+        assertTrue(batch.apply(transfer(1, 2, 300)));
+        assertTrue(batch.apply(transfer(2, 1, 300)));
+        assertTrue(batch.apply(transfer(1, 3, 100)));
+        assertTrue(batch.apply(transfer(3, 2, 250)));
+
+        Map<Integer, Long> net = batch.getNetDeltas();
+        assertEquals(4, batch.getAccepted());
+        assertEquals(Long.valueOf(-100), net.get(1));
+        assertEquals(Long.valueOf(250), net.get(2));
+        assertEquals(Long.valueOf(-150), net.get(3));
+
+        long sum = 0;
+        for (long delta : net.values()) {
+            sum += delta;
+        }
+        assertEquals("Transfers must conserve money", 0, sum);
+    }
+
+    /**
+     * Funds are checked in arrival order: money received earlier in the window can
+     * be spent later in it, but an overdraft is still rejected.
+     */
+    @Test
+    public void testFundsCheckedInArrivalOrder() {
+        NettingBatch batch = new NettingBatch(balances);
+        assertFalse("User 2 has nothing yet", batch.apply(transfer(2, 3, 50)));
+        assertTrue(batch.apply(transfer(1, 2, 100)));
+        assertTrue("Now funded by the previous transfer", batch.apply(transfer(2, 3, 50)));
+        assertFalse(batch.apply(transfer(2, 3, 51)));
+        assertEquals(2, batch.getAccepted());
+        assertEquals(Long.valueOf(50), batch.getNetDeltas().get(2));
+    }
+
+    /**
+     * Unknown wallets, self transfers and non-positive amounts are rejected; deposits only credit.
+     */
+    @Test
+    public void testRejectsInvalidMovements() {
+        NettingBatch batch = new NettingBatch(balances);
+        assertFalse(batch.apply(transfer(1, 99, 10)));
+        assertFalse(batch.apply(transfer(99, 1, 10)));
+        assertFalse(batch.apply(transfer(1, 1, 10)));
+        assertFalse(batch.apply(transfer(1, 2, 0)));
+        assertFalse(batch.apply(new LedgerEntry(TransactionType.WITHDRAWAL, 1, 1, 10, 0L)));
+        assertTrue(batch.apply(new LedgerEntry(TransactionType.DEPOSIT, 2, 2, 40, 0L)));
+
+        assertEquals(1, batch.getAccepted());
+        assertEquals(1, batch.getNetDeltas().size());
+        assertEquals(Long.valueOf(40), batch.getNetDeltas().get(2));
+    }
+
+    private static LedgerEntry transfer(int sender, int receiver, long amount) {
+        return new LedgerEntry(TransactionType.TRANSFER, sender, receiver, amount, 0L);
+    }
+}
@@ -0,0 +1,184 @@
+package com.revpay.test.ledger.archive;
+
+import com.revpay.ledger.archive.ColumnarArchiveReader;
+import com.revpay.ledger.archive.ColumnarArchiveWriter;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ColumnarArchiveWriter} and {@link ColumnarArchiveReader}.
+ */
+public class ColumnarArchiveTest {
+
+    private static final long BASE = 1_709_251_200_000L; // 2024-03-01 UTC
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("columnar-test");
+        file = dir.resolve("transactions.rpa");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Irregular rows spanning several blocks decode exactly, in file order.
+     */
+    @Test
+    public void testRoundTripAcrossBlocks() throws IOException {
+        List<long[]> expected = randomRows(10_000, new Random(42));
+        write(expected);
+
+        List<long[]> actual = new ArrayList<>();
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            assertEquals(10_000, reader.getRowCount());
+            assertEquals(3, reader.getBlockCount());
+            long visited = reader.scan(0, Long.MIN_VALUE, Long.MAX_VALUE, (id, sender, receiver, amount, type, status,
+                                                                            ts, senderAfter, receiverAfter) ->
+                    actual.add(new long[] {id, sender, receiver, amount, type.ordinal(), status.ordinal(), ts,
+                            senderAfter, receiverAfter}));
+            assertEquals(10_000, visited);
+            assertEquals(0, reader.getBlocksSkipped());
+
+            long sum = 0;
+            for (long[] row : expected) sum += row[3];
+            assertArrayEquals(new long[] {10_000, sum}, reader.totals());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals("Row " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * User and time filters return the same rows as a brute-force filter.
+     */
+    @Test
+    public void testPushdownMatchesBruteForce() throws IOException {
+        List<long[]> rows = randomRows(20_000, new Random(7));
+        write(rows);
+
+        long from = rows.get(5_000)[6];
+        long to = rows.get(9_000)[6];
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            for (int user : new int[] {0, 3, 77}) {
+                long expected = rows.stream()
+                        .filter(r -> user == 0 || r[1] == user || r[2] == user)
+                        .filter(r -> r[6] >= from && r[6] < to)
+                        .count();
+                List<long[]> seen = new ArrayList<>();
+                long visited = reader.scan(user, from, to, (id, sender, receiver, amount, type, status, ts, sa, ra) ->
+                        seen.add(new long[] {sender, receiver, ts}));
+                assertEquals("User " + user, expected, visited);
+                assertEquals(expected, seen.size());
+                for (long[] r : seen) {
+                    assertTrue(user == 0 || r[0] == user || r[1] == user);
+                    assertTrue(r[2] >= from && r[2] < to);
+                }
+                assertEquals("Counting only", expected, reader.scan(user, from, to, null));
+            }
+        }
+    }
+
+    /**
+     * Blocks outside the time range or user range are skipped from the footer alone.
+     */
+    @Test
+    public void testBlocksAreSkipped() throws IOException {
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file)) {
+            for (int i = 0; i < 40_000; i++) {
+                int user = 1 + i / 4_000; // Users 1..10, one per 4000 rows
+                writer.add(i + 1, user, user + 1, 100, TransactionType.TRANSFER, TransactionStatus.SUCCESS,
+                        BASE + i * 1_000L, ColumnarArchiveWriter.NO_BALANCE, ColumnarArchiveWriter.NO_BALANCE);
+            }
+        }
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            assertEquals(10, reader.getBlockCount());
+
+            assertEquals(1_000, reader.scan(0, BASE + 8_192_000L, BASE + 9_192_000L, null));
+            assertEquals("Only the third block overlaps the range", 9, reader.getBlocksSkipped());
+
+            assertEquals(0, reader.scan(500, Long.MIN_VALUE, Long.MAX_VALUE, null));
+            assertEquals(10, reader.getBlocksSkipped());
+        }
+    }
+
+    /**
+     * Sequential IDs, steady timestamps and small user IDs take well under the 50 bytes
+     * per row of fixed-width columns.
+     */
+    @Test
+    public void testEncodingIsCompact() throws IOException {
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file)) {
+            for (int i = 0; i < 100_000; i++) {
+                writer.add(i + 1, i % 100 + 1, (i + 7) % 100 + 1, 2_500, TransactionType.TRANSFER,
+                        TransactionStatus.SUCCESS, BASE + i * 250L, 10_000, 12_500);
+            }
+        }
+        long bytesPerRow = Files.size(file) / 100_000;
+        assertTrue("Got " + bytesPerRow + " bytes per row", bytesPerRow <= 16);
+    }
+
+    /**
+     * Anything other than a columnar archive is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[64]);
+        assertFalse(ColumnarArchiveReader.isColumnar(file));
+        new ColumnarArchiveReader(file).close();
+    }
+
+    private void write(List<long[]> rows) throws IOException {
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file)) {
+            for (long[] r : rows) {
+                writer.add(r[0], (int) r[1], (int) r[2], r[3], TYPES[(int) r[4]], STATUSES[(int) r[5]], r[6], r[7], r[8]);
+            }
+        }
+    }
+
+    // {id, sender, receiver, amount, type, status, timestamp, senderAfter, receiverAfter}
+    private static List<long[]> randomRows(int count, Random random) {
+        List<long[]> rows = new ArrayList<>();
+        long id = 1_000;
+        long ts = BASE;
+        for (int i = 0; i < count; i++) {
+            id += random.nextInt(10) == 0 ? -random.nextInt(5) : 1 + random.nextInt(3); // Mostly ascending
+            ts += random.nextInt(10) == 0 ? -random.nextInt(2_000) : random.nextInt(60_000);
+            rows.add(new long[] {
+                    id,
+                    1 + random.nextInt(200),
+                    random.nextInt(20) == 0 ? 0 : 1 + random.nextInt(200),
+                    1 + random.nextInt(10_000_000),
+                    random.nextInt(TYPES.length),
+                    random.nextInt(STATUSES.length),
+                    ts,
+                    random.nextBoolean() ? ColumnarArchiveWriter.NO_BALANCE : random.nextInt(1_000_000_000),
+                    random.nextInt(3) == 0 ? ColumnarArchiveWriter.NO_BALANCE : -random.nextInt(1_000)
+            });
+        }
+        return rows;
+    }
+}
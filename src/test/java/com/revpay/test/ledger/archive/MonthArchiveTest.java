@@ -0,0 +1,144 @@
+package com.revpay.test.ledger.archive;
+
+import com.revpay.ledger.archive.MonthArchiveReader;
+import com.revpay.ledger.archive.MonthArchiveWriter;
+import com.revpay.model.Transaction;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MonthArchiveWriter} and {@link MonthArchiveReader}.
+ */
+public class MonthArchiveTest {
+
+    private static final long BASE = Timestamp.valueOf("2024-03-01 00:00:00").getTime();
+
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("archive-test");
+        file = dir.resolve("transactions-2024-03.rpa");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Every column survives the round trip, including missing balances.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        MonthArchiveWriter writer = new MonthArchiveWriter(file);
+        writer.add(row(10, 1, 2, "12.34", TransactionType.TRANSFER, 0, new BigDecimal("87.66"), null));
+        writer.add(row(11, 3, 3, "0.01", TransactionType.DEPOSIT, 60_000, new BigDecimal("5.01"), new BigDecimal("5.01")));
+        writer.close();
+
+        assertEquals(2, writer.getRowCount());
+        assertEquals(1235, writer.getAmountSum());
+        assertEquals(11, writer.getMaxTransactionId());
+        assertArrayEquals(new long[] {2, 1235}, MonthArchiveReader.totals(file));
+
+        List<Transaction> rows = MonthArchiveReader.read(file, 0, null, null);
+        assertEquals(2, rows.size());
+        Transaction deposit = rows.get(0); // Newest first
+        assertEquals(11, deposit.getTransactionId());
+        assertEquals(TransactionType.DEPOSIT, deposit.getType());
+        assertEquals(new BigDecimal("0.01"), deposit.getAmount());
+        assertEquals(new Timestamp(BASE + 60_000), deposit.getTimestamp());
+
+        Transaction transfer = rows.get(1);
+        assertEquals(1, transfer.getSenderId());
+        assertEquals(2, transfer.getReceiverId());
+        assertEquals(TransactionStatus.SUCCESS, transfer.getStatus());
+        assertEquals(new BigDecimal("87.66"), transfer.getSenderBalanceAfter());
+        assertNull(transfer.getReceiverBalanceAfter());
+        assertFalse("The temporary file must be renamed", Files.exists(dir.resolve("transactions-2024-03.rpa.tmp")));
+    }
+
+    /**
+     * Reads select rows by user (either side) and by time range.
+     */
+    @Test
+    public void testFiltersByUserAndTime() throws IOException {
+        try (MonthArchiveWriter writer = new MonthArchiveWriter(file)) {
+            for (int i = 0; i < 5000; i++) {
+                writer.add(row(i + 1, i % 50, (i + 1) % 50, "1.00", TransactionType.TRANSFER, i * 1000L, null, null));
+            }
+        }
+
+        List<Transaction> user7 = MonthArchiveReader.read(file, 7, null, null);
+        assertEquals(200, user7.size());
+        for (Transaction t : user7) {
+            assertTrue(t.getSenderId() == 7 || t.getReceiverId() == 7);
+        }
+
+        List<Transaction> window = MonthArchiveReader.read(file, 0, new Timestamp(BASE + 10_000), new Timestamp(BASE + 20_000));
+        assertEquals(10, window.size());
+        assertEquals(new Timestamp(BASE + 19_000), window.get(0).getTimestamp());
+    }
+
+    /**
+     * Files written in the first, GZIP-only format remain readable.
+     */
+    @Test
+    public void testReadsLegacyFormat() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(0x52504131); // "RPA1"
+            out.writeInt(1);
+            out.writeByte(1);
+            out.writeUTF("DEPOSIT");
+            out.writeByte(1);
+            out.writeUTF("SUCCESS");
+            out.writeLong(42);
+            out.writeInt(5);
+            out.writeInt(5);
+            out.writeLong(1999);
+            out.writeByte(0);
+            out.writeByte(0);
+            out.writeLong(BASE);
+            out.writeLong(Long.MIN_VALUE);
+            out.writeLong(1999);
+        }
+
+        assertArrayEquals(new long[] {1, 1999}, MonthArchiveReader.totals(file));
+        List<Transaction> rows = MonthArchiveReader.read(file, 5, null, null);
+        assertEquals(1, rows.size());
+        assertEquals(42, rows.get(0).getTransactionId());
+        assertEquals(TransactionType.DEPOSIT, rows.get(0).getType());
+        assertEquals(new BigDecimal("19.99"), rows.get(0).getAmount());
+        assertNull(rows.get(0).getSenderBalanceAfter());
+        assertEquals(new BigDecimal("19.99"), rows.get(0).getReceiverBalanceAfter());
+    }
+
+    private static Transaction row(int id, int sender, int receiver, String amount, TransactionType type,
+                                   long offsetMillis, BigDecimal senderAfter, BigDecimal receiverAfter) {
+        Transaction t = new Transaction(sender, receiver, new BigDecimal(amount), type, TransactionStatus.SUCCESS);
+        t.setTransactionId(id);
+        t.setTimestamp(new Timestamp(BASE + offsetMillis));
+        t.setSenderBalanceAfter(senderAfter);
+        t.setReceiverBalanceAfter(receiverAfter);
+        return t;
+    }
+}
@@ -0,0 +1,220 @@
+package com.revpay.test.ledger.journal;
+
+import com.revpay.ledger.journal.JournalReader;
+import com.revpay.ledger.journal.JournalReplay;
+import com.revpay.ledger.journal.MappedJournal;
+import com.revpay.model.TransactionType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MappedJournal}, {@link JournalReader} and {@link JournalReplay}.
+ */
+public class MappedJournalTest {
+
+    private static final int SEGMENT_BYTES = 16 + 40 * 10; // Ten records per segment
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("journal-test");
+    }
+
+    /**
+     * Appends are durable after awaitDurable and survive a reopen; sequences continue.
+     */
+    @Test
+    public void testAppendReopenAndContinue() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(1, journal.append(TransactionType.DEPOSIT, 1, 1, 10000, 1L));
+        long seq = journal.append(TransactionType.TRANSFER, 1, 2, 2500, 2L);
+        journal.awaitDurable(seq);
+        assertTrue(journal.getDurableSequence() >= seq);
+        journal.close();
+
+        MappedJournal reopened = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(2, reopened.getLastSequence());
+        assertEquals(3, reopened.append(TransactionType.WITHDRAWAL, 2, 2, 500, 3L));
+        reopened.close();
+
+        Map<Integer, Long> balances = new HashMap<>();
+        assertEquals(3, JournalReplay.rebuild(dir, balances));
+        assertEquals(Long.valueOf(7500), balances.get(1));
+        assertEquals(Long.valueOf(2000), balances.get(2));
+    }
+
+    /**
+     * Segments roll over when full, and released segments are deleted.
+     */
+    @Test
+    public void testRolloverAndRelease() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        for (int i = 0; i < 25; i++) {
+            journal.append(TransactionType.DEPOSIT, 7, 7, 100, i);
+        }
+        assertEquals(3, segmentCount());
+
+        List<Long> replayed = new ArrayList<>();
+        assertEquals(25, journal.replay(20, (seq, type, s, r, amount, ts, key) -> replayed.add(seq)));
+        assertEquals(5, replayed.size());
+        assertEquals(Long.valueOf(21), replayed.get(0));
+
+        journal.release(15); // Only the first segment (1..10) is fully persisted
+        assertEquals(2, segmentCount());
+        journal.release(25); // The active segment is always kept
+        assertEquals(1, segmentCount());
+        journal.close();
+    }
+
+    /**
+     * A corrupted last record ends the journal and is overwritten by the next append.
+     */
+    @Test
+    public void testTornTailIsDiscarded() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        journal.append(TransactionType.DEPOSIT, 1, 1, 100, 1L);
+        journal.append(TransactionType.DEPOSIT, 1, 1, 200, 2L);
+        journal.close();
+
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(16 + 40 + 20); // Amount of the second record
+            file.writeLong(999);
+        }
+
+        MappedJournal reopened = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(1, reopened.getLastSequence());
+        assertEquals(2, reopened.append(TransactionType.DEPOSIT, 1, 1, 300, 3L));
+        reopened.close();
+
+        Map<Integer, Long> balances = new HashMap<>();
+        assertEquals(2, JournalReplay.rebuild(dir, balances));
+        assertEquals(Long.valueOf(400), balances.get(1));
+    }
+
+    /**
+     * Idempotency keys are read back with their records, across a rollover and a reopen;
+     * a key too long for a record is refused.
+     */
+    @Test
+    public void testKeysAreJournaled() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        journal.append(TransactionType.DEPOSIT, 1, 1, 100, 1L, "1:first");
+        journal.append(TransactionType.DEPOSIT, 1, 1, 100, 2L);
+        for (int i = 0; i < 10; i++) {
+            journal.append(TransactionType.TRANSFER, 1, 2, 10, 3L + i, "1:k-" + i + "-\u00e9");
+        }
+        journal.close();
+        assertEquals(2, segmentCount());
+
+        MappedJournal reopened = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(13, reopened.append(TransactionType.DEPOSIT, 2, 2, 5, 13L, "2:last"));
+        List<String> keys = new ArrayList<>();
+        assertEquals(13, reopened.replay(0, (seq, type, s, r, amount, ts, key) -> keys.add(key)));
+        assertEquals("1:first", keys.get(0));
+        assertNull(keys.get(1));
+        assertEquals("1:k-9-\u00e9", keys.get(11));
+        assertEquals("2:last", keys.get(12));
+
+        try {
+            reopened.append(TransactionType.DEPOSIT, 1, 1, 1, 1L, "x".repeat(MappedJournal.MAX_KEY_BYTES + 1));
+            fail("An oversized key must be refused");
+        } catch (IOException expected) {
+            // Never write a record that could not be read back
+        }
+        reopened.close();
+    }
+
+    /**
+     * A record whose key was torn ends the journal at the record before it.
+     */
+    @Test
+    public void testTornKeyIsDiscarded() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        journal.append(TransactionType.DEPOSIT, 1, 1, 100, 1L);
+        journal.append(TransactionType.DEPOSIT, 1, 1, 200, 2L, "1:retry");
+        journal.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(16 + 40 + 36); // First key byte of the second record
+            file.write('X');
+        }
+
+        MappedJournal reopened = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(1, reopened.getLastSequence());
+        reopened.close();
+    }
+
+    /**
+     * When the only segment left has no records, numbering continues from its first
+     * sequence instead of restarting at 1.
+     */
+    @Test
+    public void testEmptyLastSegmentKeepsNumbering() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        for (int i = 0; i < 11; i++) {
+            journal.append(TransactionType.DEPOSIT, 1, 1, 100, i);
+        }
+        journal.close();
+        List<Path> files = segments();
+        Files.delete(files.get(0)); // Released
+        try (RandomAccessFile file = new RandomAccessFile(files.get(1).toFile(), "rw")) {
+            file.seek(16);
+            file.write(new byte[40]); // Record #11 never reached the disk
+        }
+
+        MappedJournal reopened = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(10, reopened.getLastSequence());
+        assertEquals(11, reopened.append(TransactionType.DEPOSIT, 1, 1, 100, 11L));
+        reopened.close();
+    }
+
+    /**
+     * A new journal continues after the database checkpoint; a journal that ends below
+     * it is refused.
+     */
+    @Test
+    public void testAlignWithCheckpoint() throws Exception {
+        MappedJournal journal = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        journal.alignWithCheckpoint(50);
+        assertEquals(51, journal.append(TransactionType.DEPOSIT, 1, 1, 100, 1L));
+        journal.close();
+        assertEquals(1, segmentCount());
+
+        MappedJournal reopened = new MappedJournal(dir, SEGMENT_BYTES, 1, false);
+        assertEquals(51, reopened.getLastSequence());
+        reopened.alignWithCheckpoint(51);
+        try {
+            reopened.alignWithCheckpoint(60);
+            fail("A journal behind the checkpoint must be refused");
+        } catch (IOException expected) {
+            // Records 52..60 are not in this journal
+        }
+        assertEquals(51, reopened.getLastSequence());
+        reopened.close();
+    }
+
+    private int segmentCount() throws Exception {
+        return segments().size();
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.revpay.test.metrics;
+
+import com.revpay.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ * <p>
+ * Verifies counting, max tracking and that percentile estimates stay within
+ * the documented 25% bucket error.
+ * </p>
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * An empty histogram reports zeros instead of failing.
+     */
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getPercentileNanos(0.99));
+        assertEquals(0.0, h.getMeanNanos(), 0.0);
+    }
+
+    /**
+     * Count, sum, mean and max follow the recorded values exactly.
+     */
+    @Test
+    public void testCountsAndMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1_000);
+        h.record(3_000);
+        h.record(-5); // Clamped to zero
+
+        assertEquals(3, h.getCount());
+        assertEquals(4_000, h.getTotalNanos());
+        assertEquals(3_000, h.getMaxNanos());
+    }
+
+    /**
+     * Percentiles of a uniform 1..10000 microsecond distribution are close to the true values.
+     */
+    @Test
+    public void testPercentileAccuracy() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            h.record(i * 1_000L);
+        }
+
+        long p50 = h.getPercentileNanos(0.50);
+        long p99 = h.getPercentileNanos(0.99);
+
+        assertTrue("p50 should be near 5ms but was " + p50, p50 >= 5_000_000 && p50 <= 6_250_000);
+        assertTrue("p99 should be near 9.9ms but was " + p99, p99 >= 9_900_000 && p99 <= 10_000_000);
+        assertEquals("p100 is capped at the max", 10_000_000, h.getPercentileNanos(1.0));
+    }
+}
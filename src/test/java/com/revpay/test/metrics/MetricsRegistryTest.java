@@ -0,0 +1,61 @@
+package com.revpay.test.metrics;
+
+import com.revpay.metrics.MetricsRegistry;
+import com.revpay.metrics.OperationStats;
+import com.revpay.metrics.PrometheusExporter;
+import com.revpay.metrics.Stopwatch;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MetricsRegistry} and {@link PrometheusExporter}.
+ */
+public class MetricsRegistryTest {
+
+    /**
+     * A stopwatch records one call, and a failed call also counts as an error.
+     */
+    @Test
+    public void testStopwatchRecordsCallsAndErrors() {
+        OperationStats stats = MetricsRegistry.operation("test.registry.calls");
+        long before = stats.getCalls();
+
+        MetricsRegistry.start("test.registry.calls").stop();
+        Stopwatch failed = MetricsRegistry.start("test.registry.calls");
+        failed.fail();
+        failed.stop();
+        failed.stop(); // Second stop is ignored
+
+        assertEquals(before + 2, stats.getCalls());
+        assertEquals(1, stats.getErrors());
+    }
+
+    /**
+     * The same name always resolves to the same shared instance.
+     */
+    @Test
+    public void testOperationIsShared() {
+        assertSame(MetricsRegistry.operation("test.registry.shared"), MetricsRegistry.operation("test.registry.shared"));
+    }
+
+    /**
+     * The Prometheus scrape contains operations, caches, counters and gauges.
+     */
+    @Test
+    public void testPrometheusScrape() {
+        MetricsRegistry.start("test.registry.scrape").stop();
+        MetricsRegistry.cache("test.cache").hit();
+        MetricsRegistry.cache("test.cache").miss();
+        MetricsRegistry.counter("test.counter").add(3);
+        MetricsRegistry.gauge("test.gauge", () -> 42);
+
+        String body = PrometheusExporter.scrape();
+
+        assertTrue(body.contains("revpay_operation_seconds_count{operation=\"test.registry.scrape\"} 1"));
+        assertTrue(body.contains("revpay_cache_requests_total{cache=\"test.cache\",result=\"hit\"} 1"));
+        assertTrue(body.contains("revpay_test_counter_total 3"));
+        assertTrue(body.contains("revpay_test_gauge 42"));
+        assertEquals(0.5, MetricsRegistry.cache("test.cache").getHitRatio(), 0.0001);
+    }
+}
@@ -0,0 +1,78 @@
+package com.revpay.test.model;
+
+import com.revpay.model.Money;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link Money} value type.
+ */
+public class MoneyTest {
+
+    /**
+     * Conversions from BigDecimal and text are exact and agree with each other.
+     */
+    @Test
+    public void testConversions() {
+        assertEquals(1050, Money.of(new BigDecimal("10.5")).getMinor());
+        assertEquals(Money.of(new BigDecimal("10.50")), Money.parse("10.5"));
+        assertEquals(Money.ofMinor(1200), Money.parse(" 12 "));
+        assertEquals(Money.ofMinor(5), Money.parse("0.05"));
+        assertEquals(Money.ofMinor(-5), Money.parse("-.05"));
+        assertEquals(new BigDecimal("10.50"), Money.ofMinor(1050).toBigDecimal());
+        assertEquals("10.50", Money.ofMinor(1050).toString());
+        assertEquals("-0.05", Money.ofMinor(-5).toString());
+    }
+
+    /**
+     * More than two decimals or malformed input is refused, never rounded.
+     */
+    @Test
+    public void testRejectsInexactAmounts() {
+        try {
+            Money.of(new BigDecimal("0.001"));
+            fail("Three decimals must be refused");
+        } catch (ArithmeticException expected) {
+            // Expected
+        }
+        for (String bad : new String[] {"", "-", "1.234", "1.2.3", "12a", "1e3"}) {
+            try {
+                Money.parse(bad);
+                fail("Accepted '" + bad + "'");
+            } catch (NumberFormatException expected) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Arithmetic is exact, overflow throws and comparisons follow the amount.
+     */
+    @Test
+    public void testArithmeticAndComparison() {
+        Money ten = Money.parse("10.00");
+        Money three = Money.parse("3.33");
+        assertEquals(Money.parse("13.33"), ten.plus(three));
+        assertEquals(Money.parse("6.67"), ten.minus(three));
+        assertEquals(Money.parse("9.99"), three.times(3));
+        assertTrue(three.isLessThan(ten));
+        assertTrue(ten.isGreaterThan(three));
+        assertTrue(three.minus(ten).isNegative());
+        assertTrue(Money.ZERO.isZero());
+        assertFalse(Money.ZERO.isPositive());
+        assertEquals(0, Money.ofMinor(1050).compareTo(Money.of(new BigDecimal("10.5"))));
+        assertSame("Small amounts are cached", Money.ofMinor(250), Money.parse("2.50"));
+
+        try {
+            Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1));
+            fail("Overflow must throw");
+        } catch (ArithmeticException expected) {
+            // Expected
+        }
+        assertTrue(Money.ofMinor(Money.MAX_COLUMN_MINOR).fitsColumn());
+        assertFalse(Money.ofMinor(Money.MAX_COLUMN_MINOR + 1).fitsColumn());
+    }
+}
@@ -0,0 +1,87 @@
+package com.revpay.test.model;
+
+import com.revpay.model.Money;
+import com.revpay.model.ScheduledTransfer;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link ScheduledTransfer} model class.
+ * <p>
+ * Verifies how runs are spaced and when a standing order completes.
+ * </p>
+ */
+public class ScheduledTransferTest {
+
+    private static Timestamp at(String text) {
+        return Timestamp.valueOf(text);
+    }
+
+    /**
+     * A new order is active with its first run due at the start.
+     */
+    @Test
+    public void testConstructorDefaults() {
+        ScheduledTransfer s = new ScheduledTransfer(1, 2, Money.parse("10.00"), ScheduledTransfer.Frequency.WEEKLY,
+                at("2030-01-01 09:00:00"), -5);
+        assertEquals(ScheduledTransfer.Status.ACTIVE, s.getStatus());
+        assertEquals(at("2030-01-01 09:00:00"), s.getNextRunAt());
+        assertEquals(0, s.getRunNumber());
+        assertEquals("Negative limits mean until cancelled", 0, s.getMaxRuns());
+        assertNull(s.getLastStatus());
+    }
+
+    /**
+     * Monthly runs are computed from the start, so the 31st does not drift.
+     */
+    @Test
+    public void testMonthlyRunsDoNotDrift() {
+        ScheduledTransfer s = new ScheduledTransfer(1, 2, Money.parse("900.00"), ScheduledTransfer.Frequency.MONTHLY,
+                at("2030-01-31 00:00:00"), 0);
+        s.completeRun("SUCCESS");
+        assertEquals(at("2030-02-28 00:00:00"), s.getNextRunAt());
+        s.completeRun("SUCCESS");
+        assertEquals(at("2030-03-31 00:00:00"), s.getNextRunAt());
+        assertEquals(ScheduledTransfer.Status.ACTIVE, s.getStatus());
+        assertEquals(at("2031-01-31 00:00:00"), s.occurrence(12));
+    }
+
+    /**
+     * An order completes after its last run; a one-off after its only run.
+     */
+    @Test
+    public void testCompletion() {
+        ScheduledTransfer daily = new ScheduledTransfer(1, 2, Money.parse("1.00"), ScheduledTransfer.Frequency.DAILY,
+                at("2030-01-01 00:00:00"), 2);
+        daily.completeRun("SUCCESS");
+        assertEquals(ScheduledTransfer.Status.ACTIVE, daily.getStatus());
+        daily.completeRun("FAILED");
+        assertEquals(ScheduledTransfer.Status.COMPLETED, daily.getStatus());
+        assertEquals("FAILED", daily.getLastStatus());
+        assertEquals(2, daily.getRunNumber());
+
+        ScheduledTransfer once = new ScheduledTransfer(1, 2, Money.parse("1.00"), ScheduledTransfer.Frequency.ONCE,
+                at("2030-01-01 00:00:00"), 7);
+        assertEquals(1, once.getMaxRuns());
+        once.completeRun("SUCCESS");
+        assertEquals(ScheduledTransfer.Status.COMPLETED, once.getStatus());
+    }
+
+    /**
+     * Test toString method.
+     */
+    @Test
+    public void testToString() {
+        ScheduledTransfer s = new ScheduledTransfer(1, 2, Money.parse("10.00"), ScheduledTransfer.Frequency.ONCE,
+                at("2030-01-01 09:00:00"), 1);
+        s.setScheduleId(7);
+        assertTrue(s.toString().contains("Schedule #7"));
+        assertTrue(s.toString().contains("next 2030-01-01"));
+        s.completeRun("SUCCESS");
+        assertFalse(s.toString().contains("next"));
+        assertTrue(s.toString().contains("last SUCCESS"));
+    }
+}
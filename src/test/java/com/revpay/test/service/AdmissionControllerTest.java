@@ -0,0 +1,131 @@
+package com.revpay.test.service;
+
+import com.revpay.service.AdmissionController;
+import com.revpay.service.AdmissionController.Priority;
+import com.revpay.service.AdmissionController.Ticket;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AdmissionController}.
+ */
+public class AdmissionControllerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private AdmissionController controller(int limit, long queueMillis) {
+        return new AdmissionController(limit, 1, 100, 100, 10, queueMillis, 0.5, now::get);
+    }
+
+    /**
+     * Calls beyond the limit are rejected at once with a retry hint; closing frees a slot.
+     */
+    @Test
+    public void testRejectsWhenSaturated() {
+        AdmissionController admission = controller(2, 0);
+        Ticket a = admission.enter(Priority.PAYMENT);
+        Ticket b = admission.enter(Priority.PAYMENT);
+        Ticket c = admission.enter(Priority.PAYMENT);
+        assertTrue(a.isAdmitted());
+        assertTrue(b.isAdmitted());
+        assertFalse(c.isAdmitted());
+        assertTrue(c.getRetryAfterMillis() >= 100);
+
+        c.close();
+        a.close();
+        a.close();
+        assertEquals(1, admission.getInFlight());
+        assertTrue(admission.enter(Priority.PAYMENT).isAdmitted());
+    }
+
+    /**
+     * Reads may only use their share of the limit; payments keep the rest.
+     */
+    @Test
+    public void testReadsLeaveHeadroomForPayments() {
+        AdmissionController admission = controller(4, 0);
+        assertTrue(admission.enter(Priority.READ).isAdmitted());
+        assertTrue(admission.enter(Priority.READ).isAdmitted());
+        assertFalse(admission.enter(Priority.READ).isAdmitted());
+        assertTrue(admission.enter(Priority.PAYMENT).isAdmitted());
+        assertTrue(admission.enter(Priority.PAYMENT).isAdmitted());
+        assertFalse(admission.enter(Priority.PAYMENT).isAdmitted());
+    }
+
+    /**
+     * Slow calls shrink the limit multiplicatively; fast calls at the limit grow it additively.
+     */
+    @Test
+    public void testLimitAdaptsToLatency() {
+        AdmissionController admission = controller(10, 0);
+        Ticket slow = admission.enter(Priority.PAYMENT);
+        Ticket alsoSlow = admission.enter(Priority.PAYMENT);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        slow.close();
+        assertEquals(9, admission.getLimit());
+
+        // A second slow call within the same target interval does not shrink it again
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        alsoSlow.close();
+        assertEquals(9, admission.getLimit());
+
+        // Fast calls while saturated: one round of calls raises the limit by one
+        for (int round = 0; round < 12; round++) {
+            Ticket[] tickets = new Ticket[admission.getLimit()];
+            for (int i = 0; i < tickets.length; i++) {
+                tickets[i] = admission.enter(Priority.PAYMENT);
+                assertTrue(tickets[i].isAdmitted());
+            }
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+            for (Ticket ticket : tickets) {
+                ticket.close();
+            }
+        }
+        assertTrue("Limit grew about one per round: " + admission.getLimit(), admission.getLimit() >= 18);
+    }
+
+    /**
+     * A waiting payment is admitted before a read that has waited longer.
+     */
+    @Test
+    public void testPaymentsOvertakeWaitingReads() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, 1, 10_000, 10, 5_000, 1.0, System::nanoTime);
+        Ticket holder = admission.enter(Priority.PAYMENT);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        Thread read = new Thread(() -> {
+            try (Ticket t = admission.enter(Priority.READ)) {
+                order.add(t.isAdmitted() ? "read" : "read-rejected");
+            }
+        });
+        read.start();
+        waitForQueue(admission, 1);
+        Thread payment = new Thread(() -> {
+            try (Ticket t = admission.enter(Priority.PAYMENT)) {
+                order.add(t.isAdmitted() ? "payment" : "payment-rejected");
+            }
+        });
+        payment.start();
+        waitForQueue(admission, 2);
+
+        holder.close();
+        payment.join(5_000);
+        read.join(5_000);
+        assertEquals(List.of("payment", "read"), order);
+        assertEquals(0, admission.getQueueDepth());
+    }
+
+    private static void waitForQueue(AdmissionController admission, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (admission.getQueueDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, admission.getQueueDepth());
+    }
+}
@@ -0,0 +1,342 @@
+package com.revpay.test.service;
+
+import com.revpay.dao.HoldDAO;
+import com.revpay.ledger.InMemoryLedgerEngine;
+import com.revpay.ledger.LedgerEngine;
+import com.revpay.model.BalanceHold;
+import com.revpay.model.Money;
+import com.revpay.service.HoldService;
+import com.revpay.service.HoldSweepJob;
+import com.revpay.service.TransactionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link HoldService} and {@link HoldSweepJob}, with holds and wallet
+ * totals kept in memory and engine deposits recorded instead of booked.
+ */
+public class HoldServiceTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private InMemoryHoldDAO holdDAO;
+    private RecordingTransactionService transactionService;
+    private HoldService holdService;
+
+    @Before
+    public void setUp() {
+        holdDAO = new InMemoryHoldDAO();
+        holdDAO.balance = 10000;
+        transactionService = new RecordingTransactionService();
+        holdService = new HoldService(holdDAO, transactionService, jdbcEngine(), () -> 30);
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("revpay.holds.sweepBatch");
+    }
+
+    /**
+     * A card deposit is pending, not spendable, until its hold settles; then it is
+     * credited once, with the hold.
+     */
+    @Test
+    public void testCardDepositSettlesOnce() {
+        BalanceHold hold = holdService.authorizeCardDeposit(1, Money.parse("25.00"), "card-4242");
+        assertEquals(BalanceHold.Status.PENDING, hold.getStatus());
+        int holdId = hold.getHoldId();
+        assertEquals(2500, holdDAO.pending);
+        assertEquals(10000, holdDAO.balance);
+
+        assertTrue(holdService.settle(holdId));
+        assertFalse("A settled hold cannot settle again", holdService.settle(holdId));
+        assertFalse(holdService.release(holdId));
+        assertEquals(0, holdDAO.pending);
+        assertEquals(12500, holdDAO.balance);
+        assertTrue(transactionService.deposits.isEmpty());
+    }
+
+    /**
+     * On the in-memory engine the deposit goes through the engine under the hold's
+     * key, then the hold is marked settled.
+     */
+    @Test
+    public void testInMemoryEngineDepositsUnderHoldKey() {
+        InMemoryLedgerEngine engine = new InMemoryLedgerEngine(null, 10, null);
+        try {
+            HoldService service = new HoldService(holdDAO, transactionService, engine, () -> 30);
+            int holdId = service.authorizeCardDeposit(1, Money.parse("25.00"), "card-4242").getHoldId();
+            assertTrue(service.settle(holdId));
+            assertFalse(service.settle(holdId));
+            assertEquals(List.of("1:hold-" + holdId + ":2500"), transactionService.deposits);
+            assertEquals(0, holdDAO.pending);
+            assertEquals("The engine books the balance, not the hold", 10000, holdDAO.balance);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * With a settle time of 0 a card deposit is credited at once; if that fails, the
+     * hold is left for the sweeper.
+     */
+    @Test
+    public void testImmediateCardSettlement() {
+        HoldService immediate = new HoldService(holdDAO, transactionService, jdbcEngine(), () -> 0);
+        BalanceHold hold = immediate.authorizeCardDeposit(1, Money.parse("25.00"), "card-4242");
+        assertEquals(BalanceHold.Status.SETTLED, hold.getStatus());
+        assertEquals(0, holdDAO.pending);
+        assertEquals(12500, holdDAO.balance);
+
+        holdDAO.failing = true;
+        BalanceHold deferred = immediate.authorizeCardDeposit(1, Money.parse("5.00"), "card-4242");
+        assertEquals(BalanceHold.Status.PENDING, deferred.getStatus());
+        assertEquals(500, holdDAO.pending);
+
+        holdDAO.failing = false;
+        assertEquals(1, immediate.sweep(new Timestamp(System.currentTimeMillis() + 1000), 10));
+        assertEquals(0, holdDAO.pending);
+    }
+
+    /**
+     * Non-positive card amounts are refused before a hold is placed.
+     */
+    @Test
+    public void testInvalidAmount() {
+        assertNull(holdService.authorizeCardDeposit(1, Money.ZERO, "card-4242"));
+        assertEquals(-1, holdService.reserve(1, Money.parse("-1.00"), "payout", 60));
+        assertTrue(holdDAO.holds.isEmpty());
+    }
+
+    /**
+     * Reservations reduce the available balance and are refused beyond it.
+     */
+    @Test
+    public void testReservationsLimitedByAvailableBalance() {
+        int first = holdService.reserve(1, Money.parse("60.00"), "payout-1", 60);
+        assertTrue(first > 0);
+        assertEquals(-1, holdService.reserve(1, Money.parse("50.00"), "payout-2", 60));
+        assertEquals(6000, holdDAO.held);
+
+        assertTrue(holdService.release(first));
+        assertEquals(0, holdDAO.held);
+        assertEquals(10000, holdDAO.balance);
+        assertTrue(holdService.reserve(1, Money.parse("50.00"), "payout-2", 60) > 0);
+    }
+
+    /**
+     * The in-memory engine does not see holds, so it refuses reservations.
+     */
+    @Test
+    public void testReservationRefusedOnInMemoryEngine() {
+        InMemoryLedgerEngine engine = new InMemoryLedgerEngine(null, 10, null);
+        try {
+            HoldService service = new HoldService(holdDAO, transactionService, engine, () -> 30);
+            assertEquals(-1, service.reserve(1, Money.parse("1.00"), "payout", 60));
+            assertNotNull("Card deposits still work", service.authorizeCardDeposit(1, Money.parse("1.00"), "card"));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * The sweep settles or releases each expired hold as chosen when placed and
+     * leaves holds that have not expired.
+     */
+    @Test
+    public void testSweepResolvesExpiredHolds() {
+        long now = System.currentTimeMillis();
+        int credit = holdDAO.add(BalanceHold.Type.CREDIT, 500, now - 1000, true);
+        int debitSettled = holdDAO.add(BalanceHold.Type.DEBIT, 300, now - 2000, true);
+        int debitReleased = holdDAO.add(BalanceHold.Type.DEBIT, 200, now - 3000, false);
+        int future = holdDAO.add(BalanceHold.Type.DEBIT, 100, now + DAY, false);
+
+        assertEquals(3, holdService.sweep(new Timestamp(now), 10));
+        assertEquals(BalanceHold.Status.SETTLED, holdDAO.holds.get(credit).getStatus());
+        assertEquals(BalanceHold.Status.SETTLED, holdDAO.holds.get(debitSettled).getStatus());
+        assertEquals(BalanceHold.Status.RELEASED, holdDAO.holds.get(debitReleased).getStatus());
+        assertEquals(BalanceHold.Status.PENDING, holdDAO.holds.get(future).getStatus());
+        assertEquals(10000 - 300 + 500, holdDAO.balance);
+        assertEquals(100, holdDAO.held);
+        assertEquals(0, holdDAO.pending);
+        assertEquals(0, holdService.sweep(new Timestamp(now), 10));
+    }
+
+    /**
+     * A deposit that fails leaves its hold pending for the next sweep, and the
+     * job stops instead of spinning on it.
+     */
+    @Test
+    public void testFailedDepositIsRetried() {
+        long now = System.currentTimeMillis();
+        int credit = holdDAO.add(BalanceHold.Type.CREDIT, 500, now - 1000, true);
+        holdDAO.failing = true;
+        assertEquals(0, HoldSweepJob.runOnce(holdService));
+        assertEquals(BalanceHold.Status.PENDING, holdDAO.holds.get(credit).getStatus());
+
+        holdDAO.failing = false;
+        assertEquals(1, HoldSweepJob.runOnce(holdService));
+        assertEquals(0, holdDAO.pending);
+    }
+
+    /**
+     * The job works through a backlog larger than one batch.
+     */
+    @Test
+    public void testJobDrainsBacklogInBatches() {
+        System.setProperty("revpay.holds.sweepBatch", "7");
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 30; i++) {
+            holdDAO.add(BalanceHold.Type.DEBIT, 10, now - 1000 - i, false);
+        }
+        assertEquals(30, HoldSweepJob.runOnce(holdService));
+        assertEquals(0, holdDAO.held);
+        assertEquals(5, holdDAO.findDueCalls);
+    }
+
+    private static LedgerEngine jdbcEngine() {
+        return (LedgerEngine) Proxy.newProxyInstance(HoldServiceTest.class.getClassLoader(),
+                new Class<?>[]{LedgerEngine.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Records deposits by key instead of booking them; a repeated key is a no-op.
+     */
+    private static class RecordingTransactionService extends TransactionService {
+        final List<String> deposits = new ArrayList<>();
+        private final Set<String> keys = new HashSet<>();
+
+        @Override
+        public boolean processDeposit(int userId, Money amount, String idempotencyKey) {
+            if (keys.add(idempotencyKey)) {
+                deposits.add(userId + ":" + idempotencyKey + ":" + amount.getMinor());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Keeps one wallet (balance, held and pending in minor units) and its holds; while
+     * {@code failing}, credit settlements roll back.
+     */
+    private static class InMemoryHoldDAO extends HoldDAO {
+        final Map<Integer, BalanceHold> holds = new TreeMap<>();
+        long balance;
+        long held;
+        long pending;
+        int findDueCalls;
+        boolean failing;
+        private int nextId = 1;
+
+        int add(BalanceHold.Type type, long minor, long expiresAt, boolean settleOnExpiry) {
+            BalanceHold hold = new BalanceHold(1, type, Money.ofMinor(minor), "ref", new Timestamp(expiresAt), settleOnExpiry);
+            int holdId = placeHold(hold);
+            assertTrue(holdId > 0);
+            return holdId;
+        }
+
+        @Override
+        public int placeHold(BalanceHold hold) {
+            long amount = hold.getAmount().getMinor();
+            if (hold.getType() == BalanceHold.Type.DEBIT) {
+                if (balance - held < amount) {
+                    return -1;
+                }
+                held += amount;
+            } else {
+                pending += amount;
+            }
+            hold.setHoldId(nextId++);
+            holds.put(hold.getHoldId(), hold);
+            return hold.getHoldId();
+        }
+
+        @Override
+        public BalanceHold getHold(int holdId) {
+            BalanceHold hold = holds.get(holdId);
+            if (hold == null) {
+                return null;
+            }
+            // A copy, as a read from the database would be
+            BalanceHold copy = new BalanceHold(hold.getUserId(), hold.getType(), hold.getAmount(), hold.getReference(),
+                    hold.getExpiresAt(), hold.isSettleOnExpiry());
+            copy.setHoldId(holdId);
+            copy.setStatus(hold.getStatus());
+            return copy;
+        }
+
+        @Override
+        public List<BalanceHold> findDue(Timestamp now, int limit) {
+            findDueCalls++;
+            List<BalanceHold> due = new ArrayList<>();
+            holds.values().stream()
+                    .filter(h -> h.getStatus() == BalanceHold.Status.PENDING && !h.getExpiresAt().after(now))
+                    .sorted((a, b) -> a.getExpiresAt().compareTo(b.getExpiresAt()))
+                    .limit(limit)
+                    .forEach(h -> due.add(getHold(h.getHoldId())));
+            return due;
+        }
+
+        @Override
+        public int release(List<BalanceHold> toRelease) {
+            int released = 0;
+            for (BalanceHold hold : toRelease) {
+                if (resolve(hold, BalanceHold.Status.RELEASED)) {
+                    released++;
+                }
+            }
+            return released;
+        }
+
+        @Override
+        public boolean completeCredit(BalanceHold hold) {
+            return resolve(hold, BalanceHold.Status.SETTLED);
+        }
+
+        @Override
+        public boolean settleCredit(BalanceHold hold) {
+            if (failing || !resolve(hold, BalanceHold.Status.SETTLED)) {
+                return false;
+            }
+            balance += hold.getAmount().getMinor();
+            return true;
+        }
+
+        @Override
+        public boolean settleDebit(BalanceHold hold) {
+            if (!resolve(hold, BalanceHold.Status.SETTLED)) {
+                return false;
+            }
+            balance -= hold.getAmount().getMinor();
+            return true;
+        }
+
+        private boolean resolve(BalanceHold hold, BalanceHold.Status status) {
+            BalanceHold stored = holds.get(hold.getHoldId());
+            if (stored == null || stored.getStatus() != BalanceHold.Status.PENDING) {
+                return false;
+            }
+            stored.setStatus(status);
+            if (stored.getType() == BalanceHold.Type.DEBIT) {
+                held -= stored.getAmount().getMinor();
+            } else {
+                pending -= stored.getAmount().getMinor();
+            }
+            return true;
+        }
+    }
+}
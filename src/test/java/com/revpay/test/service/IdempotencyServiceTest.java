@@ -0,0 +1,103 @@
+package com.revpay.test.service;
+
+import com.revpay.service.IdempotencyService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link IdempotencyService}, with the movement's transaction
+ * simulated by an in-memory set of committed keys.
+ */
+public class IdempotencyServiceTest {
+
+    private final Set<String> committed = ConcurrentHashMap.newKeySet();
+    private IdempotencyService service;
+    private AtomicInteger executions;
+    private volatile boolean failing;
+
+    @Before
+    public void setUp() {
+        service = new IdempotencyService(100, 60_000);
+        executions = new AtomicInteger();
+    }
+
+    /**
+     * A retried key returns the original success without running the movement again.
+     */
+    @Test
+    public void testDuplicateIsNotExecuted() {
+        assertTrue(service.execute(7, "pay-1", "TRANSFER", this::move));
+        assertTrue(service.execute(7, "pay-1", "TRANSFER", this::move));
+        assertEquals(1, executions.get());
+        assertTrue(committed.contains("7:pay-1"));
+    }
+
+    /**
+     * A duplicate unknown to the cache (e.g. after a restart) is answered by the
+     * movement's own key check.
+     */
+    @Test
+    public void testDuplicateFoundInTable() {
+        committed.add("7:pay-2");
+        assertTrue(service.execute(7, "pay-2", "TRANSFER", this::move));
+        assertEquals(0, executions.get());
+    }
+
+    /**
+     * A failed movement leaves no key behind, so the client can retry it.
+     */
+    @Test
+    public void testFailureLeavesNoKey() {
+        failing = true;
+        assertFalse(service.execute(7, "pay-3", "TRANSFER", this::move));
+        assertFalse(committed.contains("7:pay-3"));
+        failing = false;
+        assertTrue(service.execute(7, "pay-3", "TRANSFER", this::move));
+        assertEquals(1, executions.get());
+    }
+
+    /**
+     * Keys are scoped per user before they reach the movement.
+     */
+    @Test
+    public void testScoping() {
+        assertTrue(service.execute(7, " same ", "DEPOSIT", this::move));
+        assertTrue(service.execute(8, "same", "DEPOSIT", this::move));
+        assertEquals(2, executions.get());
+        assertTrue(committed.contains("7:same"));
+        assertTrue(committed.contains("8:same"));
+    }
+
+    /**
+     * Without a key the movement runs unguarded; an overlong key runs nothing.
+     */
+    @Test
+    public void testNoKeyAndLongKey() {
+        assertTrue(service.execute(7, null, "DEPOSIT", this::move));
+        assertTrue(service.execute(7, " ", "DEPOSIT", this::move));
+        assertFalse(service.execute(7, "x".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), "DEPOSIT", this::move));
+        assertEquals(2, executions.get());
+        assertTrue(committed.isEmpty());
+    }
+
+    // Records the key and "moves money" in one step, as the ledger engines do
+    private boolean move(String scopedKey) {
+        if (scopedKey != null && committed.contains(scopedKey)) {
+            return true;
+        }
+        if (failing) {
+            return false;
+        }
+        executions.incrementAndGet();
+        if (scopedKey != null) {
+            committed.add(scopedKey);
+        }
+        return true;
+    }
+}
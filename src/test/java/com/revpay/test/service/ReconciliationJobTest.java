@@ -0,0 +1,142 @@
+package com.revpay.test.service;
+
+import com.revpay.dao.ReconciliationDAO;
+import com.revpay.model.BalanceDiscrepancy;
+import com.revpay.service.ReconciliationJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ReconciliationJob}, using a stand-in DAO with known mismatches.
+ */
+public class ReconciliationJobTest {
+
+    private Path dir;
+    private Path report;
+    private FakeReconciliationDAO dao;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("reconcile-test");
+        report = dir.resolve("report.csv");
+        dao = new FakeReconciliationDAO(99, 5, 50, 73);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Every user is covered exactly once and mismatches are reported in user ID order.
+     */
+    @Test
+    public void testReportsEveryMismatch() throws IOException {
+        ReconciliationJob job = new ReconciliationJob(dao, report, 30, 8, 4);
+
+        assertEquals(3, job.run(false));
+        assertEquals(Arrays.asList("5", "50", "73"), reportedUsers());
+        assertEquals(100, dao.coveredUsers());
+        assertTrue("Slices must respect the leaf size", dao.slices.stream().allMatch(s -> s[1] - s[0] <= 8));
+        assertTrue(Files.readAllLines(report).contains("50,10.00,7.50,2.50"));
+    }
+
+    /**
+     * A failed run resumes after the last completed range without duplicating report lines.
+     */
+    @Test
+    public void testResumesFromLastCompletedRange() throws IOException {
+        dao.failingUser = 60;
+        ReconciliationJob job = new ReconciliationJob(dao, report, 30, 8, 2);
+        assertEquals(-1, job.run(false));
+        assertEquals(Arrays.asList("5", "50"), reportedUsers());
+
+        dao.failingUser = -1;
+        dao.slices.clear();
+        assertEquals(3, job.run(false));
+        assertEquals(Arrays.asList("5", "50", "73"), reportedUsers());
+        assertTrue("Completed ranges must not be read again", dao.slices.stream().allMatch(s -> s[0] >= 60));
+    }
+
+    /**
+     * Restarting discards earlier progress.
+     */
+    @Test
+    public void testRestart() throws IOException {
+        ReconciliationJob job = new ReconciliationJob(dao, report, 50, 50, 1);
+        assertEquals(3, job.run(false));
+        dao.slices.clear();
+        assertEquals(3, job.run(true));
+        assertEquals(100, dao.coveredUsers());
+        assertEquals(Arrays.asList("5", "50", "73"), reportedUsers());
+    }
+
+    private List<String> reportedUsers() throws IOException {
+        List<String> users = new ArrayList<>();
+        List<String> lines = Files.readAllLines(report);
+        assertEquals("user_id,wallet_balance,ledger_balance,difference", lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            users.add(line.substring(0, line.indexOf(',')));
+        }
+        return users;
+    }
+
+    /**
+     * Users 0..maxUserId; the given users hold 10.00 against a ledger of 7.50.
+     */
+    private static class FakeReconciliationDAO extends ReconciliationDAO {
+        final int maxUserId;
+        final List<Integer> mismatched;
+        final ConcurrentLinkedQueue<int[]> slices = new ConcurrentLinkedQueue<>();
+        volatile int failingUser = -1;
+
+        FakeReconciliationDAO(int maxUserId, Integer... mismatched) {
+            this.maxUserId = maxUserId;
+            this.mismatched = Arrays.asList(mismatched);
+        }
+
+        int coveredUsers() {
+            int users = 0;
+            for (int[] slice : slices) {
+                users += slice[1] - slice[0];
+            }
+            return users;
+        }
+
+        @Override
+        public int findMaxUserId() {
+            return maxUserId;
+        }
+
+        @Override
+        public List<BalanceDiscrepancy> reconcileRange(int fromUserId, int toUserId) {
+            if (failingUser >= fromUserId && failingUser < toUserId) {
+                return null;
+            }
+            slices.add(new int[] {fromUserId, toUserId});
+            List<BalanceDiscrepancy> found = new ArrayList<>();
+            for (int userId = fromUserId; userId < toUserId; userId++) {
+                if (mismatched.contains(userId)) {
+                    found.add(new BalanceDiscrepancy(userId, new BigDecimal("10.00"), new BigDecimal("7.50")));
+                }
+            }
+            return found;
+        }
+    }
+}
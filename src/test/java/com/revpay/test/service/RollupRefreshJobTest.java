@@ -0,0 +1,91 @@
+package com.revpay.test.service;
+
+import com.revpay.dao.RollupDAO;
+import com.revpay.service.RollupRefreshJob;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RollupRefreshJob}, using an in-memory watermark.
+ */
+public class RollupRefreshJobTest {
+
+    /**
+     * The job catches up in bounded steps, each starting at the previous watermark.
+     */
+    @Test
+    public void testCatchesUpInSteps() {
+        FakeRollupDAO dao = new FakeRollupDAO(0, 250_000);
+
+        assertEquals(250_000, RollupRefreshJob.runOnce(dao));
+        assertEquals(3, dao.steps.size());
+        long previous = 0;
+        for (long[] step : dao.steps) {
+            assertEquals(previous, step[0]);
+            assertTrue(step[1] - step[0] <= 100_000);
+            previous = step[1];
+        }
+        assertEquals(250_000, dao.watermark);
+    }
+
+    /**
+     * Unsettled transactions are left for later, and a failed step keeps the committed progress.
+     */
+    @Test
+    public void testStopsAtBoundAndResumesAfterFailure() {
+        FakeRollupDAO dao = new FakeRollupDAO(1000, 150_000);
+        dao.failAt = 101_000;
+
+        assertEquals(-1, RollupRefreshJob.runOnce(dao));
+        assertEquals(101_000, dao.watermark);
+        assertTrue("Only settled rows are folded in", dao.settledBefore.getTime() < System.currentTimeMillis());
+
+        dao.failAt = -1;
+        assertEquals(150_000, RollupRefreshJob.runOnce(dao));
+        assertEquals(150_000, RollupRefreshJob.runOnce(dao));
+        assertEquals("Nothing left to do on the second run", 2, dao.steps.size());
+    }
+
+    /**
+     * Commits steps to a watermark field.
+     */
+    private static class FakeRollupDAO extends RollupDAO {
+        final long bound;
+        final List<long[]> steps = new ArrayList<>();
+        long watermark;
+        long failAt = -1;
+        Timestamp settledBefore;
+
+        FakeRollupDAO(long watermark, long bound) {
+            this.watermark = watermark;
+            this.bound = bound;
+        }
+
+        @Override
+        public long loadWatermark() {
+            return watermark;
+        }
+
+        @Override
+        public long findRefreshBound(long afterId, Timestamp settledBefore) {
+            this.settledBefore = settledBefore;
+            return bound;
+        }
+
+        @Override
+        public boolean refresh(long afterId, long upToId) {
+            assertEquals(watermark, afterId);
+            if (afterId == failAt) {
+                return false;
+            }
+            steps.add(new long[] {afterId, upToId});
+            watermark = upToId;
+            return true;
+        }
+    }
+}
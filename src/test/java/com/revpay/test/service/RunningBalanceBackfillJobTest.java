@@ -0,0 +1,84 @@
+package com.revpay.test.service;
+
+import com.revpay.dao.TransactionDAO;
+import com.revpay.service.RunningBalanceBackfillJob;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RunningBalanceBackfillJob}, using a stand-in ledger DAO.
+ */
+public class RunningBalanceBackfillJobTest {
+
+    /**
+     * Every listed user is backfilled once, in parallel, and the written rows are summed.
+     */
+    @Test
+    public void testBackfillsEveryUserInParallel() {
+        FakeTransactionDAO dao = new FakeTransactionDAO(Arrays.asList(1, 2, 3, 4, 5, 6));
+
+        assertEquals(60, RunningBalanceBackfillJob.runOnce(dao, 3));
+        assertEquals(6, dao.processed.size());
+        assertTrue("Work should spread over the pool", dao.threads.size() > 1);
+    }
+
+    /**
+     * A user that fails is skipped without affecting the others.
+     */
+    @Test
+    public void testFailedUserIsSkipped() {
+        FakeTransactionDAO dao = new FakeTransactionDAO(Arrays.asList(1, 2, 3));
+        dao.failing = 2;
+
+        assertEquals(20, RunningBalanceBackfillJob.runOnce(dao, 2));
+        assertEquals(3, dao.processed.size());
+    }
+
+    /**
+     * Nothing to do when every row already has its balance.
+     */
+    @Test
+    public void testNothingMissing() {
+        assertEquals(0, RunningBalanceBackfillJob.runOnce(new FakeTransactionDAO(Collections.emptyList()), 4));
+    }
+
+    /**
+     * Reports ten rows per user, after a short pause so several workers get involved.
+     */
+    private static class FakeTransactionDAO extends TransactionDAO {
+        final List<Integer> missing;
+        final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        volatile int failing = -1;
+
+        FakeTransactionDAO(List<Integer> missing) {
+            this.missing = missing;
+        }
+
+        @Override
+        public List<Integer> findUsersMissingBalances(Timestamp before) {
+            return missing;
+        }
+
+        @Override
+        public int backfillRunningBalances(int userId, Timestamp before) {
+            assertTrue("Recent rows must be left alone", before.getTime() < System.currentTimeMillis());
+            assertTrue("A user is backfilled once", processed.add(userId));
+            threads.add(Thread.currentThread().getName() + "@" + Thread.currentThread().getId());
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return userId == failing ? -1 : 10;
+        }
+    }
+}
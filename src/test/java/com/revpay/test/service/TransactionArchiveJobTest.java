@@ -0,0 +1,149 @@
+package com.revpay.test.service;
+
+import com.revpay.dao.TransactionArchiveDAO;
+import com.revpay.ledger.archive.MonthArchiveReader;
+import com.revpay.ledger.archive.MonthArchiveWriter;
+import com.revpay.model.Transaction;
+import com.revpay.model.TransactionStatus;
+import com.revpay.model.TransactionType;
+import com.revpay.service.TransactionArchiveJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TransactionArchiveJob}, using an in-memory transactions table.
+ */
+public class TransactionArchiveJobTest {
+
+    private Path dir;
+    private FakeArchiveDAO dao;
+    private final YearMonth now = YearMonth.now();
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("archive-job-test");
+        dao = new FakeArchiveDAO();
+        for (int m = 5; m >= 0; m--) {
+            dao.addRows(now.minusMonths(m), 10);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Months before the retention period are exported, verified, recorded and dropped, oldest first.
+     */
+    @Test
+    public void testArchivesColdMonthsOldestFirst() throws IOException {
+        assertEquals(3, TransactionArchiveJob.runOnce(dao, dir, 3));
+
+        assertEquals(3, dao.catalog.size());
+        assertEquals(now.minusMonths(5), dao.catalog.firstKey());
+        assertEquals(now.minusMonths(3), dao.catalog.lastKey());
+        assertEquals(now.minusMonths(2), dao.findOldestMonth());
+
+        Path file = dir.resolve(dao.catalog.get(now.minusMonths(4)));
+        assertArrayEquals(new long[] {10, 10 * 250}, MonthArchiveReader.totals(file));
+    }
+
+    /**
+     * A month recorded before a crash is not exported again; its rows are just dropped.
+     */
+    @Test
+    public void testResumesDeletionWithoutReexport() {
+        YearMonth oldest = now.minusMonths(5);
+        dao.catalog.put(oldest, "already.rpa");
+
+        assertEquals(1, TransactionArchiveJob.runOnce(dao, dir, 5));
+        assertEquals(0, dao.exports);
+        assertEquals("already.rpa", dao.catalog.get(oldest));
+    }
+
+    /**
+     * Nothing is dropped if the export fails.
+     */
+    @Test
+    public void testFailedExportKeepsRows() {
+        dao.failExport = true;
+
+        assertEquals(-1, TransactionArchiveJob.runOnce(dao, dir, 3));
+        assertTrue(dao.catalog.isEmpty());
+        assertEquals(60, dao.rows.size());
+    }
+
+    /**
+     * Rows per month, each for 2.50.
+     */
+    private static class FakeArchiveDAO extends TransactionArchiveDAO {
+        final List<Transaction> rows = new ArrayList<>();
+        final TreeMap<YearMonth, String> catalog = new TreeMap<>();
+        int exports;
+        boolean failExport;
+
+        void addRows(YearMonth month, int count) {
+            for (int i = 0; i < count; i++) {
+                Transaction t = new Transaction(1, 2, new BigDecimal("2.50"), TransactionType.TRANSFER, TransactionStatus.SUCCESS);
+                t.setTransactionId(rows.size() + 1);
+                t.setTimestamp(monthStart(month));
+                rows.add(t);
+            }
+        }
+
+        @Override
+        public TreeMap<YearMonth, String> loadArchivedMonths() {
+            return new TreeMap<>(catalog);
+        }
+
+        @Override
+        public YearMonth findOldestMonth() {
+            return rows.isEmpty() ? null : YearMonth.from(rows.get(0).getTimestamp().toLocalDateTime());
+        }
+
+        @Override
+        public int exportMonth(YearMonth month, MonthArchiveWriter writer) {
+            exports++;
+            if (failExport) {
+                return -1;
+            }
+            int count = 0;
+            for (Transaction t : rows) {
+                if (YearMonth.from(t.getTimestamp().toLocalDateTime()).equals(month)) {
+                    writer.add(t);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public boolean recordArchive(YearMonth month, String fileName, int count, long maxTransactionId) {
+            return catalog.putIfAbsent(month, fileName) == null;
+        }
+
+        @Override
+        public int deleteArchivedRows(YearMonth month, int chunkSize) {
+            int before = rows.size();
+            rows.removeIf(t -> YearMonth.from(t.getTimestamp().toLocalDateTime()).equals(month) && catalog.containsKey(month));
+            return before - rows.size();
+        }
+    }
+}
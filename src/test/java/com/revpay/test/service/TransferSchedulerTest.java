@@ -0,0 +1,308 @@
+package com.revpay.test.service;
+
+import com.revpay.dao.ScheduledTransferDAO;
+import com.revpay.model.Money;
+import com.revpay.model.ScheduledTransfer;
+import com.revpay.service.TransactionService;
+import com.revpay.service.TransferScheduler;
+import com.revpay.service.TransferSchedulerJob;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TransferScheduler}, with standing orders kept in memory,
+ * transfers recorded instead of booked and a hand-driven clock.
+ */
+public class TransferSchedulerTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long HORIZON = 60_000;
+
+    private long now = Timestamp.valueOf("2030-06-01 09:00:00").getTime();
+    private InMemoryScheduledTransferDAO dao;
+    private RecordingTransactionService transactionService;
+    private TransferScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryScheduledTransferDAO();
+        transactionService = new RecordingTransactionService();
+        scheduler = newScheduler(100);
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("revpay.scheduler.maxAttempts");
+        System.clearProperty("revpay.scheduler.retrySeconds");
+    }
+
+    private TransferScheduler newScheduler(int loadLimit) {
+        return new TransferScheduler(dao, transactionService, 1000, HORIZON, 2, loadLimit, () -> now);
+    }
+
+    /**
+     * A future-dated transfer runs once, when due, under its run's idempotency key.
+     */
+    @Test
+    public void testFutureDatedTransferRunsOnce() {
+        int id = dao.add(ScheduledTransfer.Frequency.ONCE, now + 5000, 1);
+
+        assertEquals(1, scheduler.loadUpcoming());
+        assertEquals("Already waiting in the wheel", 0, scheduler.loadUpcoming());
+        assertEquals(0, scheduler.tick());
+        now += 4999;
+        assertEquals(0, scheduler.tick());
+        now += 1;
+        assertEquals(1, scheduler.tick());
+        assertEquals(0, scheduler.tick());
+
+        assertEquals(Arrays.asList("1->2:1000:sched-" + id + "-0"), transactionService.paid);
+        assertEquals(ScheduledTransfer.Status.COMPLETED, dao.rows.get(id).getStatus());
+        assertEquals("SUCCESS", dao.rows.get(id).getLastStatus());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    /**
+     * Only the horizon is read from the store, and orders due later stay out of memory.
+     */
+    @Test
+    public void testLoadsOnlyTheHorizon() {
+        dao.add(ScheduledTransfer.Frequency.DAILY, now + HORIZON - 1, 0);
+        dao.add(ScheduledTransfer.Frequency.DAILY, now + HORIZON + 1, 0);
+
+        assertEquals(1, scheduler.loadUpcoming());
+        assertEquals(Long.valueOf(now + HORIZON), dao.loadedUntil.get(0));
+        assertEquals(1, scheduler.getPendingCount());
+    }
+
+    /**
+     * After a restart, runs missed while the application was down are paid, each
+     * once and oldest first, and the order carries on from the next future run.
+     */
+    @Test
+    public void testRecoversMissedRuns() {
+        int id = dao.add(ScheduledTransfer.Frequency.DAILY, now - 3 * DAY, 0);
+
+        scheduler.loadUpcoming();
+        int paid = 0;
+        for (int i = 0; i < 10; i++) {
+            paid += scheduler.tick();
+        }
+        assertEquals(4, paid);
+        assertEquals(Arrays.asList("1->2:1000:sched-" + id + "-0", "1->2:1000:sched-" + id + "-1",
+                "1->2:1000:sched-" + id + "-2", "1->2:1000:sched-" + id + "-3"), transactionService.paid);
+        ScheduledTransfer row = dao.rows.get(id);
+        assertEquals(4, row.getRunNumber());
+        assertEquals(new Timestamp(now + DAY), row.getNextRunAt());
+        assertEquals(ScheduledTransfer.Status.ACTIVE, row.getStatus());
+        assertEquals("Next run is beyond the horizon", 0, scheduler.getPendingCount());
+    }
+
+    /**
+     * An order cancelled after it was loaded does not run.
+     */
+    @Test
+    public void testCancelledAfterLoadIsSkipped() {
+        int id = dao.add(ScheduledTransfer.Frequency.WEEKLY, now + 1000, 0);
+        scheduler.loadUpcoming();
+        assertTrue(dao.cancelSchedule(id, 1));
+
+        now += 1000;
+        assertEquals(0, scheduler.tick());
+        assertTrue(transactionService.attempts.isEmpty());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    /**
+     * A failed transfer is retried later and, after the last attempt, recorded as
+     * FAILED so the order moves on to its next run.
+     */
+    @Test
+    public void testFailedRunIsRetriedThenRecorded() {
+        System.setProperty("revpay.scheduler.maxAttempts", "2");
+        System.setProperty("revpay.scheduler.retrySeconds", "10");
+        int id = dao.add(ScheduledTransfer.Frequency.MONTHLY, now, 0);
+        transactionService.declined = true;
+
+        scheduler.loadUpcoming();
+        assertEquals(0, scheduler.tick());
+        assertEquals(0, dao.rows.get(id).getRunNumber());
+        assertEquals(1, transactionService.attempts.size());
+
+        now += 9999;
+        assertEquals(0, scheduler.tick());
+        assertEquals(1, transactionService.attempts.size());
+
+        now += 1;
+        assertEquals(0, scheduler.tick());
+        assertEquals(2, transactionService.attempts.size());
+        ScheduledTransfer row = dao.rows.get(id);
+        assertEquals(1, row.getRunNumber());
+        assertEquals("FAILED", row.getLastStatus());
+        assertEquals(ScheduledTransfer.Status.ACTIVE, row.getStatus());
+    }
+
+    /**
+     * If the runs cannot be recorded, they are loaded and attempted again, but the
+     * idempotency key keeps them from paying twice.
+     */
+    @Test
+    public void testUnrecordedRunDoesNotPayTwice() {
+        int id = dao.add(ScheduledTransfer.Frequency.ONCE, now, 1);
+        dao.recordFails = true;
+        scheduler.loadUpcoming();
+        assertEquals(1, scheduler.tick());
+        assertEquals(0, dao.rows.get(id).getRunNumber());
+
+        dao.recordFails = false;
+        assertEquals(1, scheduler.loadUpcoming());
+        scheduler.tick();
+        assertEquals(2, transactionService.attempts.size());
+        assertEquals(1, transactionService.paid.size());
+        assertEquals(ScheduledTransfer.Status.COMPLETED, dao.rows.get(id).getStatus());
+    }
+
+    /**
+     * Due runs are re-read and recorded in batches, and a load cut short by the limit
+     * is continued once the wheel drains.
+     */
+    @Test
+    public void testBatchesAndTruncatedLoads() {
+        scheduler = newScheduler(3);
+        for (int i = 0; i < 7; i++) {
+            dao.add(ScheduledTransfer.Frequency.ONCE, now - i, 1);
+        }
+
+        assertEquals(3, TransferSchedulerJob.runOnce(scheduler));
+        assertEquals("Two batches of at most two", 2, dao.batchReads);
+        assertEquals(2, dao.loadedUntil.size());
+
+        assertEquals(3, scheduler.tick());
+        assertEquals(1, scheduler.tick());
+        assertEquals(0, scheduler.tick());
+        assertEquals(7, transactionService.paid.size());
+    }
+
+    /**
+     * Records transfers; a key that already paid is a no-op, as with
+     * {@link com.revpay.service.IdempotencyService}.
+     */
+    private static class RecordingTransactionService extends TransactionService {
+        final List<String> paid = new ArrayList<>();
+        final List<String> attempts = new ArrayList<>();
+        private final Set<String> keys = new HashSet<>();
+        boolean declined;
+
+        @Override
+        public boolean processTransfer(int senderId, int receiverId, Money amount, String idempotencyKey) {
+            attempts.add(idempotencyKey);
+            if (keys.contains(idempotencyKey)) {
+                return true;
+            }
+            if (declined) {
+                return false;
+            }
+            keys.add(idempotencyKey);
+            paid.add(senderId + "->" + receiverId + ":" + amount.getMinor() + ":" + idempotencyKey);
+            return true;
+        }
+    }
+
+    /**
+     * Keeps standing orders by ID and hands out copies, as reads from the database would.
+     */
+    private static class InMemoryScheduledTransferDAO extends ScheduledTransferDAO {
+        final Map<Integer, ScheduledTransfer> rows = new TreeMap<>();
+        final List<Long> loadedUntil = new ArrayList<>();
+        int batchReads;
+        boolean recordFails;
+        private int nextId = 1;
+
+        int add(ScheduledTransfer.Frequency frequency, long startAt, int maxRuns) {
+            ScheduledTransfer s = new ScheduledTransfer(1, 2, Money.parse("10.00"), frequency, new Timestamp(startAt), maxRuns);
+            return createSchedule(s);
+        }
+
+        @Override
+        public int createSchedule(ScheduledTransfer schedule) {
+            schedule.setScheduleId(nextId++);
+            rows.put(schedule.getScheduleId(), copy(schedule));
+            return schedule.getScheduleId();
+        }
+
+        @Override
+        public boolean cancelSchedule(int scheduleId, int senderId) {
+            ScheduledTransfer row = rows.get(scheduleId);
+            if (row == null || row.getSenderId() != senderId || row.getStatus() != ScheduledTransfer.Status.ACTIVE) {
+                return false;
+            }
+            row.setStatus(ScheduledTransfer.Status.CANCELLED);
+            return true;
+        }
+
+        @Override
+        public List<ScheduledTransfer> findDueBefore(Timestamp until, int limit) {
+            loadedUntil.add(until.getTime());
+            List<ScheduledTransfer> due = new ArrayList<>();
+            rows.values().stream()
+                    .filter(r -> r.getStatus() == ScheduledTransfer.Status.ACTIVE && !r.getNextRunAt().after(until))
+                    .sorted((a, b) -> a.getNextRunAt().compareTo(b.getNextRunAt()))
+                    .limit(limit)
+                    .forEach(r -> due.add(copy(r)));
+            return due;
+        }
+
+        @Override
+        public List<ScheduledTransfer> getSchedules(Collection<Integer> scheduleIds) {
+            batchReads++;
+            List<ScheduledTransfer> found = new ArrayList<>();
+            for (int id : scheduleIds) {
+                if (rows.containsKey(id)) {
+                    found.add(copy(rows.get(id)));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int recordRuns(List<ScheduledTransfer> schedules) {
+            if (recordFails) {
+                return -1;
+            }
+            int updated = 0;
+            for (ScheduledTransfer s : schedules) {
+                ScheduledTransfer row = rows.get(s.getScheduleId());
+                if (row != null && row.getStatus() == ScheduledTransfer.Status.ACTIVE
+                        && row.getRunNumber() == s.getRunNumber() - 1) {
+                    rows.put(s.getScheduleId(), copy(s));
+                    updated++;
+                }
+            }
+            return updated;
+        }
+
+        private static ScheduledTransfer copy(ScheduledTransfer s) {
+            ScheduledTransfer c = new ScheduledTransfer(s.getSenderId(), s.getReceiverId(), s.getAmount(),
+                    s.getFrequency(), s.getStartAt(), s.getMaxRuns());
+            c.setScheduleId(s.getScheduleId());
+            c.setNextRunAt(s.getNextRunAt());
+            c.setRunNumber(s.getRunNumber());
+            c.setStatus(s.getStatus());
+            c.setLastStatus(s.getLastStatus());
+            return c;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.revpay.test.util;
+
+import com.revpay.util.TimerWheel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TimerWheel}.
+ */
+public class TimerWheelTest {
+
+    /**
+     * Items come out on their tick, never early, and in deadline order.
+     */
+    @Test
+    public void testItemsDueOnTheirTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(100, 2, 2, 1000);
+        wheel.add(1250, "b");
+        wheel.add(1100, "a");
+        wheel.add(1300, "c");
+
+        assertEquals(Collections.emptyList(), wheel.advance(1099));
+        assertEquals(Collections.singletonList("a"), wheel.advance(1100));
+        assertEquals("Rounded up to the next tick", Collections.emptyList(), wheel.advance(1250));
+        assertEquals(Arrays.asList("b", "c"), wheel.advance(1300));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Past deadlines are returned by the next advance, even without time passing.
+     */
+    @Test
+    public void testPastDeadlines() {
+        TimerWheel<String> wheel = new TimerWheel<>(1000, 6, 3, 50_000);
+        wheel.add(10_000, "overdue");
+        wheel.add(50_000, "now");
+        assertEquals(2, wheel.size());
+        assertEquals(Arrays.asList("overdue", "now"), wheel.advance(50_000));
+        assertEquals(Collections.emptyList(), wheel.advance(40_000));
+    }
+
+    /**
+     * Random deadlines across all levels and the overflow list come out exactly once,
+     * on time, whatever the step size of the clock.
+     */
+    @Test
+    public void testRandomDeadlinesAcrossLevels() {
+        Random random = new Random(42);
+        long start = 1_000_000;
+        // 4 slots x 3 levels cover 64 ticks; later deadlines go through the overflow list
+        TimerWheel<Long> wheel = new TimerWheel<>(10, 2, 3, start);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = start + random.nextInt(5000);
+            deadlines.add(deadline);
+            wheel.add(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        long now = start;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextInt(40);
+            for (long deadline : wheel.advance(now)) {
+                assertTrue("Fired early: " + deadline + " at " + now, deadline <= now);
+                assertTrue("Fired late: " + deadline + " at " + now, deadline > now - 40 - 10);
+                fired.add(deadline);
+            }
+        }
+        Collections.sort(deadlines);
+        List<Long> sorted = new ArrayList<>(fired);
+        Collections.sort(sorted);
+        assertEquals(deadlines, sorted);
+    }
+
+    /**
+     * Items added while the wheel runs are placed relative to its current position.
+     */
+    @Test
+    public void testAddAfterAdvance() {
+        TimerWheel<String> wheel = new TimerWheel<>(1, 3, 2, 0);
+        wheel.advance(1000);
+        wheel.add(1005, "soon");
+        wheel.add(1100, "later");
+        assertEquals(Collections.emptyList(), wheel.advance(1004));
+        assertEquals(Collections.singletonList("soon"), wheel.advance(1005));
+        assertEquals(Collections.singletonList("later"), wheel.advance(2000));
+    }
+
+    /**
+     * An empty wheel jumps straight to the new time.
+     */
+    @Test
+    public void testIdleJump() {
+        TimerWheel<String> wheel = new TimerWheel<>(1, 6, 3, 0);
+        assertEquals(Collections.emptyList(), wheel.advance(Long.MAX_VALUE / 2));
+        assertEquals(Long.MAX_VALUE / 2, wheel.currentMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGeometry() {
+        new TimerWheel<String>(0, 6, 3, 0);
+    }
+}